@@ -10,6 +10,14 @@ package at.tugraz.ist.ase.ce;
 
 import at.tugraz.ist.ase.cacdr.checker.ChocoConsistencyChecker;
 import at.tugraz.ist.ase.cacdr.eval.CAEvaluator;
+import at.tugraz.ist.ase.ce.cache.ConsistencyCache;
+import at.tugraz.ist.ase.ce.index.BloomSolutionIndex;
+import at.tugraz.ist.ase.ce.index.FingerprintSolutionIndex;
+import at.tugraz.ist.ase.ce.index.HashSolutionIndex;
+import at.tugraz.ist.ase.ce.index.ISolutionIndexable;
+import at.tugraz.ist.ase.ce.optimization.LinearObjective;
+import at.tugraz.ist.ase.ce.optimization.OptimizationResult;
+import at.tugraz.ist.ase.ce.optimization.TopKSolutions;
 import at.tugraz.ist.ase.ce.translator.ISolutionTranslatable;
 import at.tugraz.ist.ase.ce.writer.SolutionWriter;
 import at.tugraz.ist.ase.common.LoggerUtils;
@@ -18,6 +26,7 @@ import at.tugraz.ist.ase.heuristics.selector.MFVVOValueSelector;
 import at.tugraz.ist.ase.heuristics.selector.MFVVOVariableSelector;
 import at.tugraz.ist.ase.kb.core.*;
 import com.google.common.collect.Sets;
+import com.google.common.hash.HashCode;
 import lombok.Getter;
 import lombok.NonNull;
 import lombok.Setter;
@@ -25,18 +34,32 @@ import lombok.extern.slf4j.Slf4j;
 import org.chocosolver.solver.Model;
 import org.chocosolver.solver.Solver;
 import org.chocosolver.solver.search.strategy.Search;
+import org.chocosolver.solver.constraints.extension.Tuples;
+import org.chocosolver.solver.objective.IObjectiveManager;
+import org.chocosolver.solver.search.limits.FailCounter;
+import org.chocosolver.solver.search.loop.lns.neighbors.INeighborFactory;
+import org.chocosolver.solver.search.loop.move.Move;
+import org.chocosolver.solver.search.strategy.selectors.variables.InputOrder;
 import org.chocosolver.solver.search.strategy.strategy.AbstractStrategy;
+import org.chocosolver.solver.variables.BoolVar;
 import org.chocosolver.solver.variables.IntVar;
+import org.chocosolver.util.criteria.Criterion;
 
-import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BooleanSupplier;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
 import static org.chocosolver.solver.search.strategy.Search.intVarSearch;
 
 @Slf4j
 public class Configurator {
+    @Getter
     protected final KB kb;
 
     protected final ConfigurationModel configurationModel;
@@ -49,16 +72,75 @@ public class Configurator {
 
     @Getter
     protected final List<Solution> solutions = new LinkedList<>();
+    /**
+     * Index of the solutions found since the last emptySolutions(), used to skip similar solutions.
+     * Use a {@link FingerprintSolutionIndex} or a {@link BloomSolutionIndex} for large enumerations.
+     */
+    @Getter @Setter
+    protected ISolutionIndexable solutionIndex = new HashSolutionIndex();
 
     @Setter
     protected SolutionWriter writer = null;
 
+    /**
+     * Cache of the results of isConsistent(), null - no cache
+     */
+    @Getter
+    protected ConsistencyCache consistencyCache = null;
+    // stamp of the checked KB content, computed when the cache is set
+    private HashCode kbStamp = null;
+
     @Getter
     protected Constraint requirement = null;
 
+    // the stop criteria of the caller, which are added again after each reset
+    private final List<Criterion> stopCriteria = new CopyOnWriteArrayList<>();
+
+    /**
+     * true if the last search was stopped by a stop criterion, e.g., the timeout, before proving
+     * that there are no more solutions
+     */
+    @Getter
+    protected boolean stopped = false;
+
+    /**
+     * Projected enumeration - after each solution, a blocking constraint over the KB variables is posted,
+     * so that each solve() call returns a new projected solution, i.e., no similar solutions are found
+     * because of auxiliary variables.
+     */
+    @Getter @Setter
+    protected boolean projected = false;
+    // blocking constraints posted since the last reset()
+    protected final List<org.chocosolver.solver.constraints.Constraint> blockingConstraints = new LinkedList<>();
+
+    /**
+     * Session mode - the KB constraints stay posted across queries, and only the requirement,
+     * the heuristic, and the blocking constraints are swapped between queries.
+     */
+    @Getter
+    protected boolean sessionOpened = false;
+    protected boolean sessionNotKB = false;
+    // Choco constraints posted when the session was opened
+    protected final Set<org.chocosolver.solver.constraints.Constraint> sessionConstraints = Collections.newSetFromMap(new IdentityHashMap<>());
+
     protected AbstractStrategy<?> defaultSearch;
     protected Model model;
     protected Solver solver;
+    // Choco variables of the KB variables, in the order of kb.getVariableList()
+    protected final IntVar[] vars;
+    protected final boolean boolVars;
+
+    /**
+     * Schema of the KB variables, shared by the compact solutions
+     */
+    @Getter
+    protected final SolutionSchema schema;
+    /**
+     * Compact mode of solutions - found solutions are {@link IntSolution}s, which store the codes
+     * of the values in an int[] and create their assignments lazily
+     */
+    @Getter @Setter
+    protected boolean compactSolutions = false;
 
     public Configurator(@NonNull KB kb, boolean rootConstraints) {
         this.kb = kb;
@@ -71,6 +153,10 @@ public class Configurator {
         this.defaultSearch = Search.defaultSearch(kb.getModelKB());
         this.model = kb.getModelKB();
         this.solver = this.model.getSolver();
+
+        this.vars = kb.getVariableList().stream().map(v -> v instanceof IntVariable ? ((IntVariable) v).getChocoVar() : ((BoolVariable) v).getChocoVar()).toArray(IntVar[]::new);
+        this.boolVars = Arrays.stream(vars).allMatch(v -> v instanceof BoolVar);
+        this.schema = SolutionSchema.of(kb);
     }
 
     public Configurator(@NonNull KB kb, boolean rootConstraints, ISolutionTranslatable translator) {
@@ -85,6 +171,27 @@ public class Configurator {
         this.writer = writer;
     }
 
+    /**
+     * Sets a cache for the results of isConsistent(). The cache could be shared by several configurators,
+     * since the results are stored with a stamp of the checked KB content.
+     * The stamp is computed here, hence {@link #invalidateKBStamp()} has to be called after the KB is changed.
+     * @param consistencyCache a {@link ConsistencyCache}, null - no cache
+     */
+    public void setConsistencyCache(ConsistencyCache consistencyCache) {
+        this.consistencyCache = consistencyCache;
+        invalidateKBStamp();
+    }
+
+    /**
+     * Computes the stamp of the checked KB content again, so that the cached results
+     * of the former KB content are no longer used.
+     */
+    public void invalidateKBStamp() {
+        kbStamp = consistencyCache != null
+                ? ConsistencyCache.stamp(kb, configurationModel.getCorrectConstraints())
+                : null;
+    }
+
     public int getNumberSolutions() {
         return solutions.size();
     }
@@ -97,11 +204,51 @@ public class Configurator {
 
     public void emptySolutions() {
         solutions.clear();
+        solutionIndex.clear();
+    }
+
+    /* Session mode */
+
+    /**
+     * Opens a session, in which the KB constraints (or the negation of the KB) are posted only once.
+     * In a session, reset() only removes the constraints posted after opening the session
+     * (requirement, blocking constraints) and performs a soft reset of the solver, which keeps
+     * the KB constraints and the search strategy. The compact mode methods use the opened session.
+     * @param notKB true - the negation of the KB is posted instead of the KB
+     */
+    public void openSession(boolean notKB) {
+        checkState(!sessionOpened, "A session is already opened.");
+
+        reset(); // start with an empty model
+        if (notKB) {
+            initializeWithNotKB();
+        } else {
+            initializeWithKB();
+        }
+
+        Collections.addAll(sessionConstraints, model.getCstrs());
+        sessionNotKB = notKB;
+        sessionOpened = true;
+
+        log.debug("{}Opened session with {} constraints", LoggerUtils.tab(), sessionConstraints.size());
+    }
+
+    /**
+     * Closes the session and removes all constraints from the Choco model.
+     */
+    public void closeSession() {
+        sessionOpened = false;
+        sessionConstraints.clear();
+
+        reset();
+        log.debug("{}Closed session", LoggerUtils.tab());
     }
 
     /* Control mode */
 
     public void initializeWithKB() {
+        checkState(!sessionOpened, "The KB is already posted in the opened session.");
+
         // get the set of constraints
         Set<Constraint> C = configurationModel.getCorrectConstraints();
 
@@ -109,6 +256,8 @@ public class Configurator {
     }
 
     public void initializeWithNotKB() {
+        checkState(!sessionOpened, "The KB is already posted in the opened session.");
+
         model.post(kb.getNotKB().getChocoConstraints().toArray(new org.chocosolver.solver.constraints.Constraint[0]));
         log.trace("{}Posted constraints", LoggerUtils.tab());
     }
@@ -141,7 +290,6 @@ public class Configurator {
 
     public void setVVO(@NonNull ValueVariableOrdering vvo) {
         log.trace("{}Add value variable heuristic", LoggerUtils.tab());
-        IntVar[] vars = kb.getVariableList().stream().map(v -> v instanceof IntVariable ? ((IntVariable) v).getChocoVar() : ((BoolVariable) v).getChocoVar()).toArray(IntVar[]::new);
 
         solver.setSearch(intVarSearch(
                 new MFVVOVariableSelector(vvo.getIntVarOrdering()),
@@ -151,6 +299,43 @@ public class Configurator {
         ));
     }
 
+    /**
+     * Sets a search with a random variable and value selection over the KB variables.
+     * {@link #clearVVO()} restores the default search.
+     * @param seed the seed of the random search
+     */
+    public void setRandomSearch(long seed) {
+        log.trace("{}Set random search [seed={}]", LoggerUtils.tab(), seed);
+
+        solver.setSearch(Search.randomSearch(vars, seed));
+    }
+
+    /**
+     * Adds a criterion which stops the search when it is met, e.g., to cancel the search from another thread.
+     * The criterion stays until it is removed by {@link #removeStopCriterion(Criterion)} or {@link #clear()},
+     * i.e., it is added again after the reset at the end of each query, whereas the time limit of a query is removed.
+     */
+    public void addStopCriterion(@NonNull Criterion criterion) {
+        stopCriteria.add(criterion);
+        solver.addStopCriterion(criterion);
+    }
+
+    /**
+     * Removes a criterion added by {@link #addStopCriterion(Criterion)}, the other criteria are kept.
+     */
+    public void removeStopCriterion(@NonNull Criterion criterion) {
+        stopCriteria.remove(criterion);
+        solver.removeStopCriterion(criterion);
+    }
+
+    /**
+     * Removes the stop criteria of the last query, e.g., its time limit, and keeps the criteria of the caller.
+     */
+    private void restoreStopCriteria() {
+        solver.removeAllStopCriteria();
+        stopCriteria.forEach(solver::addStopCriterion);
+    }
+
     public void clearVVO() {
         log.trace("{}Clear value variable heuristic", LoggerUtils.tab());
 
@@ -158,58 +343,146 @@ public class Configurator {
     }
 
     public boolean find(int maxNumConf, long timeout) {
-        // get the solver
+        SolutionIterator iterator = iterator(maxNumConf, timeout, true);
+        while (iterator.hasNext()) {
+            iterator.next();
+        }
+
+        return iterator.isCouldMoreSolution();
+    }
+
+    /**
+     * Returns a lazy iterator over the solutions of the prepared Choco model.
+     * Each solve() call happens only when the next solution is requested.
+     * @param maxNumConf the maximum number of solutions, 0 - no limit
+     * @param timeout the timeout in milliseconds, 0 - no timeout
+     * @param keepSolutions true - found solutions are also added to the list of solutions
+     * @return a {@link SolutionIterator}
+     */
+    public SolutionIterator iterator(int maxNumConf, long timeout, boolean keepSolutions) {
+        stopped = false;
         if (timeout > 0) {
             solver.limitTime(timeout);
             log.trace("{}Set timeout: {} ms", LoggerUtils.tab(), timeout);
         }
 
-        // solver
-        int numSolve = 0; // number of solve calls
-        int numSolutions = 0;
-        int numSimilar = 0;
-        boolean could_more_solution = true;
-        do {
+        return new SolutionIterator(this, maxNumConf, keepSolutions);
+    }
 
-            if (!solver.solve()) {
-                could_more_solution = false;
-            } else {
-                numSolve++;
-                Solution solution = getCurrentSolution();
+    /**
+     * Returns a lazy stream over the solutions of the prepared Choco model.
+     * Solutions are not kept in the list of solutions.
+     * @param maxNumConf the maximum number of solutions, 0 - no limit
+     * @param timeout the timeout in milliseconds, 0 - no timeout
+     * @return a sequential {@link Stream} of solutions
+     */
+    public Stream<Solution> stream(int maxNumConf, long timeout) {
+        SolutionIterator iterator = iterator(maxNumConf, timeout, false);
 
-                if (contains(solution)) {
-                    numSimilar++;
-                } else {
-                    numSolutions++;
-                    log.trace("{}{}. {}", LoggerUtils.tab(), numSolutions, solution);
-                    solutions.add(solution);
-
-                    if (writer != null) {
-                        try {
-                            writer.write(solution);
-                        } catch (IOException e) {
-                            throw new RuntimeException(e);
-                        }
-                    }
-                }
-            }
-        } while (could_more_solution && (maxNumConf == 0 || numSolutions < maxNumConf));
-        log.trace("{}Solve executed {} times", LoggerUtils.tab(), numSolve);
-        log.trace("{}Found {} similar solutions", LoggerUtils.tab(), numSimilar);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator,
+                Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.NONNULL), false);
+    }
+
+    /**
+     * Finds a random solution of the prepared Choco model, i.e., a search from the root of the search tree
+     * with a random variable and value selection. The solution is then blocked, so that the next call
+     * returns another solution. The same seed and the same blocked solutions give the same solution.
+     * <p>
+     * The search strategy is replaced by the random search, {@link #clearVVO()} restores the default one.
+     * The stop criteria of the caller (see {@link #addStopCriterion(Criterion)}) stay, only the time limit
+     * of this call is removed at its end.
+     * @param seed the seed of the random search
+     * @param timeout the timeout in milliseconds, 0 - no timeout
+     * @return a new solution, or null if there are no more solutions or the timeout is reached
+     */
+    public Solution findRandomSolution(long seed, long timeout) {
+        solver.reset(); // back to the root, the blocking constraints stay posted
+        setRandomSearch(seed);
+
+        long deadline = System.currentTimeMillis() + timeout;
+        Criterion timeLimit = () -> timeout > 0 && System.currentTimeMillis() >= deadline;
+        solver.addStopCriterion(timeLimit);
+        boolean found;
+        try {
+            found = solver.solve();
+            stopped = !found && solver.isStopCriterionMet();
+        } finally {
+            solver.removeStopCriterion(timeLimit);
+        }
+
+        if (!found) {
+            return null;
+        }
 
-        return could_more_solution;
+        Solution solution = getCurrentSolution();
+        postBlockingConstraint();
+        return solution;
     }
 
     /**
      * Remove constraints from the Choco model after solving the model.
      */
     public void reset() {
+        if (sessionOpened) {
+            resetSession();
+            return;
+        }
+
         solver.hardReset();
+        restoreStopCriteria();
         model.unpost(model.getCstrs()); // unpost all constraints
+        blockingConstraints.clear();
+        requirement = null;
 
         log.trace("{}Reset model and unpost all constraints", LoggerUtils.tab());
     }
 
+    /**
+     * Soft reset in the session mode - keeps the KB constraints posted and the propagation engine
+     * of the solver, and unposts only the constraints posted after opening the session.
+     */
+    protected void resetSession() {
+        solver.reset();
+        restoreStopCriteria();
+
+        org.chocosolver.solver.constraints.Constraint[] queryConstraints = Arrays.stream(model.getCstrs())
+                .filter(c -> !sessionConstraints.contains(c))
+                .toArray(org.chocosolver.solver.constraints.Constraint[]::new);
+        model.unpost(queryConstraints);
+        blockingConstraints.clear();
+        requirement = null;
+
+        log.trace("{}Reset solver and unpost {} query constraints", LoggerUtils.tab(), queryConstraints.length);
+    }
+
+    /**
+     * Brings the configurator back to its initial state, i.e., closes the opened session, removes all constraints,
+     * the objective, the stop criteria, the value variable heuristic, and the found solutions,
+     * and restores the default of each per-request setting (solution writer, solution index, consistency cache,
+     * projected and compact modes). Only the translator is kept.
+     */
+    public void clear() {
+        if (sessionOpened) {
+            closeSession();
+        } else {
+            reset();
+        }
+        model.clearObjective();
+        stopCriteria.clear();
+        solver.removeAllStopCriteria();
+        clearVVO();
+
+        requirement = null;
+        writer = null;
+        stopped = false;
+        projected = false;
+        compactSolutions = false;
+        consistencyCache = null;
+        kbStamp = null;
+        solutionIndex = new HashSolutionIndex();
+        emptySolutions();
+    }
+
     /* Compact mode */
 
     public void findAllSolutions(boolean notKB, long timeout) {
@@ -223,7 +496,9 @@ public class Configurator {
 
     private void prefindSolutions(boolean notKB, Requirement requirement, ValueVariableOrdering vvo) {
         emptySolutions();
-        if (notKB) {
+        if (sessionOpened) {
+            checkArgument(notKB == sessionNotKB, "The opened session does not match the notKB parameter.");
+        } else if (notKB) {
             initializeWithNotKB();
         } else {
             initializeWithKB();
@@ -237,6 +512,38 @@ public class Configurator {
         }
     }
 
+    /**
+     * Streams all solutions lazily. The model is reset when the stream is closed,
+     * hence the stream should be used in a try-with-resources statement.
+     */
+    public Stream<Solution> streamAllSolutions(boolean notKB, long timeout) {
+        prefindSolutions(notKB, null, null);
+
+        return stream(0, timeout).onClose(this::reset);
+    }
+
+    /**
+     * Streams the first maxNumConf solutions satisfying the given requirement lazily.
+     * The model is reset when the stream is closed, hence the stream should be used
+     * in a try-with-resources statement.
+     */
+    public Stream<Solution> streamSolutions(boolean notKB, int maxNumConf, @NonNull Requirement requirement) {
+        return streamSolutions(notKB, maxNumConf, requirement, 0);
+    }
+
+    /**
+     * Streams the first maxNumConf solutions satisfying the given requirement lazily, within the given timeout.
+     * Use {@link #isStopped()} to check whether the timeout was reached.
+     * @param timeout the timeout in milliseconds, 0 - no timeout
+     */
+    public Stream<Solution> streamSolutions(boolean notKB, int maxNumConf, @NonNull Requirement requirement, long timeout) {
+        checkArgument(translator != null, "Translator for the requirement is not set.");
+
+        prefindSolutions(notKB, requirement, null);
+
+        return stream(maxNumConf, timeout).onClose(this::reset);
+    }
+
     public void findAllSolutions(boolean notKB, long timeout, @NonNull SolutionWriter writer) {
         setWriter(writer);
 
@@ -277,6 +584,22 @@ public class Configurator {
         reset();
     }
 
+    /**
+     * Finds the first maxNumConf solutions satisfying the given requirement within the given timeout.
+     * Use {@link #isStopped()} to check whether the timeout was reached.
+     * @param timeout the timeout in milliseconds, 0 - no timeout
+     */
+    public void findSolutions(boolean notKB, int maxNumConf, @NonNull Requirement requirement, long timeout) {
+        checkArgument(translator != null, "Translator for the requirement is not set.");
+
+        prefindSolutions(notKB, requirement, null);
+
+        find(maxNumConf, timeout);
+
+        // remove all constraints
+        reset();
+    }
+
     // TODO - generic method
     public void findSolutions(boolean notKB, int maxNumConf, @NonNull Requirement requirement, @NonNull SolutionWriter writer) {
         setWriter(writer);
@@ -317,18 +640,425 @@ public class Configurator {
         findSolutions(notKB, maxNumConf, vvo);
     }
 
+    /* Counting mode */
+
+    /**
+     * Counts the solutions of the KB satisfying the requirement, projected on the KB variables,
+     * without creating {@link Solution}s. If the Choco model has auxiliary variables, a blocking constraint
+     * is posted after each solution, otherwise each solution of the solver is a different projected solution.
+     * @param requirement a {@link Requirement}, null - no requirement
+     * @param timeout the timeout in milliseconds, 0 - no timeout
+     * @return the number of solutions, a lower bound if the timeout is reached
+     */
+    public SolutionCount countSolutions(Requirement requirement, long timeout) {
+        checkArgument(requirement == null || translator != null, "Translator for the requirement is not set.");
+
+        prefindSolutions(false, requirement, null);
+
+        boolean blocking = hasAuxiliaryVariables();
+        stopped = false;
+        if (timeout > 0) {
+            solver.limitTime(timeout);
+        }
+
+        long count = 0;
+        while (solver.solve()) {
+            count++;
+            if (blocking) {
+                postBlockingConstraint();
+            }
+        }
+        stopped = solver.isStopCriterionMet();
+        log.trace("{}Counted {} solutions [exact={}]", LoggerUtils.tab(), count, !stopped);
+
+        // remove all constraints
+        reset();
+        return new SolutionCount(count, !stopped);
+    }
+
+    /* Optimization mode */
+
+    /**
+     * Finds the k best solutions satisfying the requirement w.r.t. a linear objective, by branch-and-bound.
+     * Once k solutions are found, the search only looks for solutions strictly better than the k-th best one,
+     * hence not all solutions are enumerated.
+     * @param objective a {@link LinearObjective}
+     * @param k the number of solutions
+     * @param requirement a {@link Requirement}, null - no requirement
+     * @param timeout the timeout in milliseconds, 0 - no timeout
+     * @return the k best solutions, or the best solutions found before the timeout
+     */
+    public OptimizationResult findOptimal(@NonNull LinearObjective objective, int k, Requirement requirement, long timeout) {
+        return findOptimal(objective, requirement, timeout, new TopKSolutions(k, objective.getDirection()));
+    }
+
+    /**
+     * Finds the k best solutions satisfying the requirement w.r.t. a linear objective, by branch-and-bound.
+     * The solutions are collected in the given {@link TopKSolutions}, which notifies its listener of each
+     * improvement and can be shared by several configurators searching at the same time.
+     * @param objective a {@link LinearObjective}
+     * @param requirement a {@link Requirement}, null - no requirement
+     * @param timeout the timeout in milliseconds, 0 - no timeout
+     * @param topK the k best solutions found so far
+     * @return the k best solutions, or the best solutions found before the timeout
+     */
+    public OptimizationResult findOptimal(@NonNull LinearObjective objective, Requirement requirement, long timeout,
+                                          @NonNull TopKSolutions topK) {
+        checkArgument(requirement == null || translator != null, "Translator for the requirement is not set.");
+        checkArgument(objective.getDirection() == topK.getDirection(), "The objective and the top-k solutions have different directions.");
+
+        int numVars = model.getNbVars();
+        prefindSolutions(false, requirement, null);
+
+        IntVar objectiveVar = postObjective(objective);
+        boolean maximize = objective.isMaximize();
+        int lb = objectiveVar.getLB();
+        int ub = objectiveVar.getUB();
+        model.setObjective(maximize, objectiveVar);
+
+        // the cut ignores the best solution of this solver and uses the k-th best solution of all solvers
+        IObjectiveManager<Integer> objectiveManager = solver.getObjectiveManager();
+        objectiveManager.setCutComputer(best -> {
+            if (!topK.isFull()) {
+                return maximize ? lb : ub;
+            }
+            return maximize ? topK.getThreshold() + 1 : topK.getThreshold() - 1;
+        });
+
+        stopped = false;
+        if (timeout > 0) {
+            solver.limitTime(timeout);
+        }
+
+        while (solver.solve()) {
+            topK.offer(getCurrentSolution(), objectiveVar.getValue());
+        }
+        stopped = solver.isStopCriterionMet();
+        if (!stopped) {
+            topK.setProven();
+        }
+        log.trace("{}Optimized {} [proven={}]", LoggerUtils.tab(), objective.getDirection(), !stopped);
+
+        // remove the objective, all constraints and the variables of the objective
+        model.clearObjective();
+        reset();
+        removeVariablesSince(numVars);
+        return topK.toResult();
+    }
+
+    /**
+     * Posts a linear objective as a Choco constraint. A weighted Boolean variable becomes a term of the sum,
+     * a weighted integer variable an element constraint over the weights of its values.
+     * @return the Choco variable of the objective value
+     */
+    protected IntVar postObjective(LinearObjective objective) {
+        List<Variable> variables = kb.getVariableList();
+        Map<String, Integer> indexes = new HashMap<>();
+        for (int i = 0; i < variables.size(); i++) {
+            indexes.put(variables.get(i).getName(), i);
+        }
+
+        List<IntVar> terms = new ArrayList<>();
+        List<Integer> coeffs = new ArrayList<>();
+        long constant = 0;
+        long lb = 0;
+        long ub = 0;
+        for (String name : objective.getVariables()) {
+            Integer index = indexes.get(name);
+            checkArgument(index != null, "The variable %s of the objective is not in the KB.", name);
+
+            Domain domain = variables.get(index).getDomain();
+            List<Integer> chocoValues = domain.getChocoValues();
+            int offset = Collections.min(chocoValues);
+            int[] weights = new int[Collections.max(chocoValues) - offset + 1];
+            int minWeight = Integer.MAX_VALUE;
+            int maxWeight = Integer.MIN_VALUE;
+            for (int i = 0; i < domain.size(); i++) {
+                int weight = objective.getWeight(name, domain.getValues().get(i));
+                weights[chocoValues.get(i) - offset] = weight;
+                minWeight = Math.min(minWeight, weight);
+                maxWeight = Math.max(maxWeight, weight);
+            }
+            lb += minWeight;
+            ub += maxWeight;
+
+            IntVar var = vars[index];
+            if (var instanceof BoolVar && offset == 0 && weights.length == 2) {
+                // w(false) + (w(true) - w(false)) * x
+                constant += weights[0];
+                if (weights[1] != weights[0]) {
+                    terms.add(var);
+                    coeffs.add(weights[1] - weights[0]);
+                }
+            } else if (minWeight != maxWeight) {
+                IntVar cost = model.intVar(name + "_weight", minWeight, maxWeight);
+                model.element(cost, weights, var, offset).post();
+                terms.add(cost);
+                coeffs.add(1);
+            } else {
+                constant += minWeight;
+            }
+        }
+
+        IntVar objectiveVar = model.intVar("objective", Math.toIntExact(lb), Math.toIntExact(ub), true);
+        // sum(coeffs * terms) - objective = -constant
+        terms.add(objectiveVar);
+        coeffs.add(-1);
+        model.scalar(terms.toArray(new IntVar[0]), coeffs.stream().mapToInt(Integer::intValue).toArray(),
+                "=", Math.toIntExact(-constant)).post();
+        return objectiveVar;
+    }
+
+    /* Reconfiguration mode */
+
+    /**
+     * the maximum number of fails of the large neighbourhood search in {@link #reconfigure}
+     */
+    public static final long LNS_FAIL_LIMIT = 10_000;
+    /**
+     * the number of fails before the large neighbourhood search selects a new neighbourhood
+     */
+    public static final long LNS_RESTART_FAILS = 100;
+
+    /**
+     * Finds the solution satisfying the change which is closest to the current solution,
+     * i.e., which changes the values of the fewest variables (Hamming distance).
+     * <p>
+     * The search prefers the current values of the variables, so that its first solution is a greedy repair of
+     * the current solution. The repair is then improved by a large neighbourhood search, which frees random
+     * neighbourhoods of the best solution, for at most half of the timeout. Finally, a complete branch-and-bound search
+     * looks for closer solutions in the remaining time, to prove the distance.
+     * The search ends early if the distance reaches the number of changed values, which is a lower bound.
+     * @param current the current solution, variables without a value in the solution may change freely
+     * @param change the new {@link Requirement}
+     * @param timeout the timeout in milliseconds, 0 - no timeout
+     * @return the closest solution found, with its distance
+     */
+    public ReconfigurationResult reconfigure(@NonNull Solution current, @NonNull Requirement change, long timeout) {
+        checkArgument(translator != null, "Translator for the requirement is not set.");
+
+        Map<String, String> currentValues = new HashMap<>();
+        current.getAssignments().forEach(a -> currentValues.put(a.getVariable(), a.getValue()));
+        // each changed value costs at least one change, variables without a current value cost nothing
+        int lowerBound = (int) change.getAssignments().stream()
+                .filter(a -> currentValues.containsKey(a.getVariable())
+                        && !a.getValue().equals(currentValues.get(a.getVariable())))
+                .count();
+
+        int numVars = model.getNbVars();
+        prefindSolutions(false, change, null);
+
+        // the Choco values of the current solution, null if the variable has no value
+        List<Variable> variables = kb.getVariableList();
+        Map<IntVar, Integer> currentChocoValues = new IdentityHashMap<>();
+        for (int i = 0; i < variables.size(); i++) {
+            String value = currentValues.get(variables.get(i).getName());
+            if (value != null) {
+                Domain domain = variables.get(i).getDomain();
+                int index = domain.getValues().indexOf(value);
+                checkArgument(index >= 0, "The value %s of %s is not in its domain.", value, variables.get(i).getName());
+                currentChocoValues.put(vars[i], domain.getChocoValues().get(index));
+            }
+        }
+
+        IntVar distanceVar = postDistance(currentChocoValues);
+        model.setObjective(false, distanceVar);
+
+        // branches first on the changed variables, and first on the current values
+        Set<String> changedVars = change.getAssignments().stream().map(Assignment::getVariable).collect(Collectors.toSet());
+        IntVar[] orderedVars = Stream.concat(
+                        IntStream.range(0, vars.length).filter(i -> changedVars.contains(variables.get(i).getName())).boxed(),
+                        IntStream.range(0, vars.length).filter(i -> !changedVars.contains(variables.get(i).getName())).boxed())
+                .map(i -> vars[i])
+                .toArray(IntVar[]::new);
+        solver.setSearch(intVarSearch(new InputOrder<>(model),
+                var -> {
+                    Integer value = currentChocoValues.get(var);
+                    return value != null && var.contains(value) ? value : var.getLB();
+                },
+                orderedVars));
+
+        long deadline = timeout > 0 ? System.currentTimeMillis() + timeout : 0;
+        long lnsDeadline = timeout > 0 ? System.currentTimeMillis() + timeout / 2 : 0;
+        BooleanSupplier lnsLimitReached = () -> (lnsDeadline > 0 && System.currentTimeMillis() >= lnsDeadline)
+                || solver.getFailCount() >= LNS_FAIL_LIMIT;
+        boolean[] lns = {true};
+        Criterion timeLimit = () -> deadline > 0 && System.currentTimeMillis() >= deadline;
+        Criterion lnsLimit = () -> lns[0] && lnsLimitReached.getAsBoolean();
+        solver.addStopCriterion(timeLimit, lnsLimit);
+
+        Solution best = null;
+        int bestDistance = -1;
+        boolean proven = false;
+
+        // phase 1 - large neighbourhood search around the greedy repair
+        Move move = solver.getMove();
+        solver.setLNS(INeighborFactory.random(vars), new FailCounter(model, LNS_RESTART_FAILS));
+        while (solver.solve()) {
+            best = getCurrentSolution();
+            bestDistance = distanceVar.getValue();
+            log.trace("{}Reconfiguration [distance={}]", LoggerUtils.tab(), bestDistance);
+            if (bestDistance == lowerBound) {
+                proven = true;
+                break;
+            }
+        }
+        // stopped by the timeout or by another stop criterion, not by the limits of the neighbourhood search
+        boolean interrupted = solver.isStopCriterionMet() && !lnsLimitReached.getAsBoolean();
+        lns[0] = false;
+        solver.reset();
+        solver.setMove(move);
+
+        // phase 2 - complete search for closer solutions
+        if (!proven && !interrupted) {
+            if (best != null) {
+                model.arithm(distanceVar, "<", bestDistance).post();
+            }
+            model.setObjective(false, distanceVar);
+
+            while (solver.solve()) {
+                best = getCurrentSolution();
+                bestDistance = distanceVar.getValue();
+                log.trace("{}Reconfiguration [distance={}]", LoggerUtils.tab(), bestDistance);
+            }
+            proven = !solver.isStopCriterionMet();
+        }
+        stopped = !proven;
+        log.trace("{}Reconfigured [distance={}, proven={}]", LoggerUtils.tab(), bestDistance, proven);
+
+        // remove the stop criteria, the objective, the search, all constraints and the variables of the distance
+        solver.removeStopCriterion(timeLimit, lnsLimit);
+        model.clearObjective();
+        clearVVO();
+        reset();
+        removeVariablesSince(numVars);
+        return new ReconfigurationResult(best, bestDistance, proven);
+    }
+
+    /**
+     * Posts the Hamming distance to the given values of the KB variables as a Choco constraint.
+     * @return the Choco variable of the distance
+     */
+    protected IntVar postDistance(Map<IntVar, Integer> values) {
+        List<IntVar> terms = new ArrayList<>();
+        List<Integer> coeffs = new ArrayList<>();
+        int constant = 0;
+        for (IntVar var : vars) {
+            Integer value = values.get(var);
+            if (value == null) {
+                continue;
+            }
+
+            if (var instanceof BoolVar) {
+                // x if the value is 0, 1 - x if the value is 1
+                terms.add(var);
+                coeffs.add(value == 1 ? -1 : 1);
+                constant += value;
+            } else {
+                terms.add(model.arithm(var, "!=", value).reify());
+                coeffs.add(1);
+            }
+        }
+
+        IntVar distanceVar = model.intVar("distance", 0, values.size(), true);
+        // sum(coeffs * terms) - distance = -constant
+        terms.add(distanceVar);
+        coeffs.add(-1);
+        model.scalar(terms.toArray(new IntVar[0]), coeffs.stream().mapToInt(Integer::intValue).toArray(),
+                "=", -constant).post();
+        return distanceVar;
+    }
+
     public <T extends Solution> boolean isConsistent(@NonNull T t) {
         checkArgument(translator != null, "Translator for the solution is not set.");
 
+        if (consistencyCache != null) {
+            Boolean consistent = consistencyCache.getIfPresent(kbStamp, t);
+            if (consistent != null) {
+                return consistent;
+            }
+        }
+
         // translate solution to Constraint
         Constraint constraint = translator.translate(t, kb);
         Set<Constraint> C = Sets.union(configurationModel.getCorrectConstraints(), Collections.singleton(constraint));
 
         CAEvaluator.reset();
-        return checker.isConsistent(C);
+        boolean consistent = checker.isConsistent(C);
+
+        if (consistencyCache != null) {
+            consistencyCache.put(kbStamp, t, consistent);
+        }
+        return consistent;
+    }
+
+    /**
+     * Posts a blocking constraint (nogood) which forbids the current values of the KB variables.
+     * With Boolean variables, the nogood is a linear constraint over the literals,
+     * otherwise a table constraint with the forbidden tuple.
+     */
+    protected void postBlockingConstraint() {
+        org.chocosolver.solver.constraints.Constraint nogood;
+        if (boolVars) {
+            // at least one literal differs: sum(x_i | x_i = 0) + sum(1 - x_i | x_i = 1) >= 1
+            int[] coeffs = new int[vars.length];
+            int numTrue = 0;
+            for (int i = 0; i < vars.length; i++) {
+                if (vars[i].getValue() == 1) {
+                    coeffs[i] = -1;
+                    numTrue++;
+                } else {
+                    coeffs[i] = 1;
+                }
+            }
+            nogood = model.scalar(vars, coeffs, ">=", 1 - numTrue);
+        } else {
+            Tuples forbidden = new Tuples(false);
+            forbidden.add(Arrays.stream(vars).mapToInt(IntVar::getValue).toArray());
+            nogood = model.table(vars, forbidden);
+        }
+
+        nogood.post();
+        blockingConstraints.add(nogood);
+    }
+
+    /**
+     * Removes the Choco variables created since the model had the given number of variables,
+     * e.g., the variables of an objective, so that they do not accumulate in the model.
+     * Variables which are still involved in constraints, e.g., in the constraints of a session, are kept.
+     * Hence, the constraints of the removed variables must be unposted first (see {@link #reset()}).
+     * @param numVars the number of variables of the model before the variables were created
+     */
+    protected void removeVariablesSince(int numVars) {
+        for (int i = model.getNbVars() - 1; i >= numVars; i--) {
+            org.chocosolver.solver.variables.Variable var = model.getVar(i);
+            if (var.getNbProps() == 0) {
+                model.unassociates(var);
+            }
+        }
+    }
+
+    /**
+     * @return true if the Choco model has variables other than the KB variables, their views, and constants
+     */
+    protected boolean hasAuxiliaryVariables() {
+        Set<org.chocosolver.solver.variables.Variable> kbVars = Collections.newSetFromMap(new IdentityHashMap<>());
+        Collections.addAll(kbVars, vars);
+
+        return Arrays.stream(model.getVars())
+                .anyMatch(v -> !kbVars.contains(v) && !v.isAConstant()
+                        && (v.getTypeAndKind() & org.chocosolver.solver.variables.Variable.VIEW) == 0);
     }
 
     protected Solution getCurrentSolution() {
+        if (compactSolutions) {
+            int[] codes = new int[vars.length];
+            for (int i = 0; i < vars.length; i++) {
+                codes[i] = schema.getCodeOfChocoValue(i, vars[i].getValue());
+            }
+            return new IntSolution(schema, codes);
+        }
+
         List<Assignment> assignments = kb.getVariableList().stream()
                 .map(var -> Assignment.builder()
                         .variable(var.getName())
@@ -339,8 +1069,52 @@ public class Configurator {
         return Solution.builder().assignments(assignments).build();
     }
 
+    /**
+     * Returns the index which detects similar solutions during an enumeration.
+     * In the projected mode, the blocking constraints already exclude similar solutions, hence there is no index.
+     * If the solutions are not kept, an index which references the solutions is replaced by
+     * a {@link FingerprintSolutionIndex}, so that the enumeration keeps constant memory per solution.
+     * @param keepSolutions true - found solutions are added to the list of solutions
+     * @return the index, null - no index
+     */
+    protected ISolutionIndexable getEnumerationIndex(boolean keepSolutions) {
+        if (projected) {
+            return null;
+        }
+        if (!keepSolutions && solutionIndex instanceof HashSolutionIndex) {
+            return new FingerprintSolutionIndex();
+        }
+        return solutionIndex;
+    }
+
     // TODO: migrate to common-package and generic method - T needs to have equals and hashCode methods
-    private boolean contains(Solution solution) {
-        return solutions.stream().anyMatch(s -> s.equals(solution));
+    protected boolean contains(Solution solution) {
+        return solutionIndex.contains(solution);
+    }
+
+    /**
+     * Adds a solution to the index of found solutions.
+     * @param solution a {@link Solution}
+     * @param keepSolution true - the solution is also added to the list of solutions
+     * @return false if a similar solution was already found
+     */
+    protected boolean addSolution(Solution solution, boolean keepSolution) {
+        return addSolution(solution, keepSolution, solutionIndex);
+    }
+
+    /**
+     * Adds a solution to the given index of found solutions.
+     * @param index the index of found solutions, null - the solution is not checked, e.g., in the projected mode
+     * @return false if a similar solution was already found
+     */
+    protected boolean addSolution(Solution solution, boolean keepSolution, ISolutionIndexable index) {
+        if (index != null && !index.add(solution)) {
+            return false;
+        }
+
+        if (keepSolution) {
+            solutions.add(solution);
+        }
+        return true;
     }
 }
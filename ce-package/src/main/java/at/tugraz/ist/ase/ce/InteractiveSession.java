@@ -0,0 +1,272 @@
+/*
+ * CECore - Core components of a Configuration Environment
+ *
+ * Copyright (c) 2022
+ *
+ * @author: Viet-Man Le (vietman.le@ist.tugraz.at)
+ */
+
+package at.tugraz.ist.ase.ce;
+
+import at.tugraz.ist.ase.common.LoggerUtils;
+import at.tugraz.ist.ase.kb.core.Assignment;
+import at.tugraz.ist.ase.kb.core.Domain;
+import at.tugraz.ist.ase.kb.core.Variable;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.chocosolver.memory.IEnvironment;
+import org.chocosolver.solver.Cause;
+import org.chocosolver.solver.exception.ContradictionException;
+import org.chocosolver.solver.variables.IntVar;
+
+import java.util.*;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * An incremental configuration session on top of a {@link Configurator}, which handles one user decision at a time.
+ * <p>
+ * Each {@link #push(Assignment)} opens a new world of the backtrackable environment of the solver,
+ * instantiates the variable and propagates the constraints. Hence, a push reports only the
+ * propagation-level consistency and does not start a search. {@link #pop()} restores the domains
+ * of the previous world. A complete search is executed only on demand, see {@link #solve(long)}.
+ * <p>
+ * The session uses the session mode of the configurator (see {@link Configurator#openSession(boolean)}),
+ * hence the KB constraints are posted only once. {@link #close()} closes the session of the configurator
+ * if it was opened by this session. A closed session cannot be used anymore.
+ */
+@Slf4j
+public class InteractiveSession {
+
+    @Value
+    private static class Decision {
+        Assignment assignment;
+        boolean consistent;
+    }
+
+    private final Configurator configurator;
+    private final IEnvironment environment;
+
+    private final Map<String, Integer> varIndexes = new HashMap<>();
+    private final List<Domain> domains = new ArrayList<>();
+
+    private final Deque<Decision> decisions = new ArrayDeque<>();
+
+    private final int baseWorldIndex;
+    @Getter
+    private boolean rootConsistent;
+
+    // true if the session of the configurator was opened by this session
+    private final boolean sessionOpened;
+    @Getter
+    private boolean closed = false;
+
+    /**
+     * A constructor. The KB constraints are propagated once when creating the session.
+     * @param configurator a {@link Configurator}, whose session is opened if it is not opened yet
+     */
+    public InteractiveSession(@NonNull Configurator configurator) {
+        this.configurator = configurator;
+        this.environment = configurator.model.getEnvironment();
+
+        sessionOpened = !configurator.isSessionOpened();
+        if (sessionOpened) {
+            configurator.openSession(false);
+        } else {
+            configurator.reset();
+        }
+
+        List<Variable> variables = configurator.kb.getVariableList();
+        for (int i = 0; i < variables.size(); i++) {
+            varIndexes.put(variables.get(i).getName(), i);
+            domains.add(variables.get(i).getDomain());
+        }
+
+        baseWorldIndex = environment.getWorldIndex();
+        rootConsistent = propagateRoot();
+    }
+
+    /**
+     * Adds a user decision and propagates it.
+     * @param assignment a user decision
+     * @return true if the decisions are consistent at the propagation level
+     */
+    public boolean push(@NonNull Assignment assignment) {
+        checkOpened();
+        int varIndex = getVarIndex(assignment.getVariable());
+        int chocoValue = getChocoValue(varIndex, assignment.getValue());
+
+        environment.worldPush();
+
+        boolean consistent = isConsistent();
+        if (consistent) {
+            consistent = apply(varIndex, chocoValue);
+        }
+        decisions.push(new Decision(assignment, consistent));
+
+        log.trace("{}Pushed decision [decision={}, consistent={}]", LoggerUtils.tab(), assignment, consistent);
+        return consistent;
+    }
+
+    /**
+     * Removes the last user decision and restores the domains before this decision.
+     * @return the removed decision
+     */
+    public Assignment pop() {
+        checkOpened();
+        checkState(!decisions.isEmpty(), "No decision to pop!");
+
+        Decision decision = decisions.pop();
+        environment.worldPop();
+
+        log.trace("{}Popped decision [decision={}]", LoggerUtils.tab(), decision.getAssignment());
+        return decision.getAssignment();
+    }
+
+    /**
+     * @return true if the current decisions are consistent at the propagation level
+     */
+    public boolean isConsistent() {
+        checkOpened();
+        return decisions.isEmpty() ? rootConsistent : decisions.peek().isConsistent();
+    }
+
+    /**
+     * @return the current decisions, in the order of pushing
+     */
+    public List<Assignment> getDecisions() {
+        checkOpened();
+        List<Assignment> assignments = new LinkedList<>();
+        decisions.descendingIterator().forEachRemaining(d -> assignments.add(d.getAssignment()));
+        return assignments;
+    }
+
+    /**
+     * Returns the values of a variable which are not removed by the propagation of the current decisions.
+     * @param varName name of the variable
+     * @return values of the variable, empty if the decisions are inconsistent
+     */
+    public List<String> getRemainingValues(@NonNull String varName) {
+        checkOpened();
+        int varIndex = getVarIndex(varName);
+        if (!isConsistent()) {
+            return Collections.emptyList();
+        }
+
+        IntVar var = configurator.vars[varIndex];
+        Domain domain = domains.get(varIndex);
+
+        List<String> values = new LinkedList<>();
+        for (int i = 0; i < domain.size(); i++) {
+            if (var.contains(domain.getChocoValues().get(i))) {
+                values.add(domain.getValues().get(i));
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Searches for a solution satisfying the current decisions.
+     * The decisions are posted as constraints for the search, and propagated again after the search.
+     * @param timeout the timeout in milliseconds, 0 - no timeout
+     * @return a solution, or null if there is no solution or the timeout is reached
+     */
+    public Solution solve(long timeout) {
+        checkOpened();
+        if (!isConsistent()) {
+            return null;
+        }
+
+        List<Assignment> assignments = getDecisions();
+
+        // go back to the base world, the search starts from there
+        environment.worldPopUntil(baseWorldIndex);
+
+        for (Assignment assignment : assignments) {
+            int varIndex = getVarIndex(assignment.getVariable());
+            configurator.model.arithm(configurator.vars[varIndex], "=", getChocoValue(varIndex, assignment.getValue())).post();
+        }
+
+        configurator.emptySolutions(); // previous solutions would be skipped as duplicates
+        SolutionIterator iterator = configurator.iterator(1, timeout, false);
+        Solution solution = iterator.hasNext() ? iterator.next() : null;
+
+        configurator.reset(); // soft reset, unposts the decisions
+
+        // restore the worlds of the decisions
+        propagateRoot();
+        Iterator<Decision> it = decisions.descendingIterator();
+        while (it.hasNext()) {
+            Decision decision = it.next();
+            environment.worldPush();
+            if (decision.isConsistent()) {
+                int varIndex = getVarIndex(decision.getAssignment().getVariable());
+                apply(varIndex, getChocoValue(varIndex, decision.getAssignment().getValue()));
+            }
+        }
+
+        log.trace("{}Solved decisions [decisions={}, solution={}]", LoggerUtils.tab(), assignments, solution);
+        return solution;
+    }
+
+    /**
+     * Removes all decisions and goes back to the state before the session, i.e., closes the session
+     * of the configurator if it was opened by this session, otherwise only resets the configurator.
+     */
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+
+        decisions.clear();
+        environment.worldPopUntil(baseWorldIndex);
+        if (sessionOpened) {
+            configurator.closeSession();
+        } else {
+            configurator.reset();
+        }
+    }
+
+    private void checkOpened() {
+        checkState(!closed, "The session is closed!");
+    }
+
+    private boolean propagateRoot() {
+        environment.worldPush();
+        try {
+            configurator.solver.propagate();
+            return true;
+        } catch (ContradictionException e) {
+            configurator.solver.getEngine().flush();
+            return false;
+        }
+    }
+
+    private boolean apply(int varIndex, int chocoValue) {
+        try {
+            configurator.vars[varIndex].instantiateTo(chocoValue, Cause.Null);
+            configurator.solver.propagate();
+            return true;
+        } catch (ContradictionException e) {
+            configurator.solver.getEngine().flush();
+            return false;
+        }
+    }
+
+    private int getVarIndex(String varName) {
+        Integer varIndex = varIndexes.get(varName);
+        checkArgument(varIndex != null, "Variable '" + varName + "' doesn't exist!");
+        return varIndex;
+    }
+
+    private int getChocoValue(int varIndex, String value) {
+        Domain domain = domains.get(varIndex);
+        int index = domain.getValues().indexOf(value);
+        checkArgument(index >= 0, "Value '" + value + "' doesn't exist in the domain of the variable!");
+        return domain.getChocoValues().get(index);
+    }
+}
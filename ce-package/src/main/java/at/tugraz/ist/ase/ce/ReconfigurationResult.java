@@ -0,0 +1,35 @@
+/*
+ * CECore - Core components of a Configuration Environment
+ *
+ * Copyright (c) 2022
+ *
+ * @author: Viet-Man Le (vietman.le@ist.tugraz.at)
+ */
+
+package at.tugraz.ist.ase.ce;
+
+import lombok.Value;
+
+/**
+ * The closest solution found by {@link Configurator#reconfigure(Solution, Requirement, long)}.
+ */
+@Value
+public class ReconfigurationResult {
+    /**
+     * the new solution, null if no solution satisfies the change
+     */
+    Solution solution;
+    /**
+     * the number of variables whose values differ from the current solution, -1 if there is no solution
+     */
+    int distance;
+    /**
+     * true if no solution satisfying the change is closer to the current solution,
+     * or if it is proven that no solution satisfies the change
+     */
+    boolean proven;
+
+    public boolean isFound() {
+        return solution != null;
+    }
+}
@@ -0,0 +1,27 @@
+/*
+ * CECore - Core components of a Configuration Environment
+ *
+ * Copyright (c) 2022
+ *
+ * @author: Viet-Man Le (vietman.le@ist.tugraz.at)
+ */
+
+package at.tugraz.ist.ase.ce;
+
+import lombok.Value;
+
+/**
+ * The number of solutions found by {@link Configurator#countSolutions(Requirement, long)}.
+ */
+@Value
+public class SolutionCount {
+    long count;
+    /**
+     * false if the timeout was reached, i.e., the count is a lower bound
+     */
+    boolean exact;
+
+    public SolutionCount plus(SolutionCount other) {
+        return new SolutionCount(count + other.count, exact && other.exact);
+    }
+}
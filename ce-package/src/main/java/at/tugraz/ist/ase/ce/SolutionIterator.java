@@ -0,0 +1,133 @@
+/*
+ * CECore - Core components of a Configuration Environment
+ *
+ * Copyright (c) 2022
+ *
+ * @author: Viet-Man Le (vietman.le@ist.tugraz.at)
+ */
+
+package at.tugraz.ist.ase.ce;
+
+import at.tugraz.ist.ase.ce.index.ISolutionIndexable;
+import at.tugraz.ist.ase.common.LoggerUtils;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A lazy iterator over the solutions of a {@link Configurator}.
+ * <p>
+ * The solver is only called when the consumer asks for the next solution, i.e., in {@link #hasNext()}.
+ * Solutions are added to {@link Configurator#getSolutions()} only if keepSolutions is true,
+ * so that an enumeration could be stopped early or processed with constant memory.
+ * <p>
+ * The iterator only posts blocking constraints in the projected mode (see {@link Configurator#setProjected(boolean)}),
+ * in which similar solutions are not checked. If the solutions are not kept, similar solutions are detected
+ * by their fingerprints only.
+ * The Choco model has to be prepared (KB, requirement, heuristics) before the iteration,
+ * and reset after the iteration.
+ */
+@Slf4j
+public class SolutionIterator implements Iterator<Solution> {
+
+    private final Configurator configurator;
+
+    private final int maxNumConf;
+    private final boolean keepSolutions;
+    // detects similar solutions, null - no check
+    private final ISolutionIndexable index;
+
+    private Solution next = null;
+
+    @Getter
+    private int numSolve = 0; // number of solve calls
+    @Getter
+    private int numSolutions = 0;
+    @Getter
+    private int numSimilar = 0;
+
+    /**
+     * false if the solver has proven that there are no more solutions or the timeout is reached
+     */
+    @Getter
+    private boolean couldMoreSolution = true;
+
+    /**
+     * A constructor
+     * @param configurator the {@link Configurator} whose Choco model is already prepared
+     * @param maxNumConf the maximum number of solutions, 0 - no limit
+     * @param keepSolutions true - found solutions will be added to the list of solutions of the configurator
+     */
+    public SolutionIterator(@NonNull Configurator configurator, int maxNumConf, boolean keepSolutions) {
+        this.configurator = configurator;
+        this.maxNumConf = maxNumConf;
+        this.keepSolutions = keepSolutions;
+        this.index = configurator.getEnumerationIndex(keepSolutions);
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next != null) {
+            return true;
+        }
+        if (!couldMoreSolution || (maxNumConf > 0 && numSolutions >= maxNumConf)) {
+            return false;
+        }
+
+        next = solveNext();
+        return next != null;
+    }
+
+    @Override
+    public Solution next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException("No more solutions!");
+        }
+
+        Solution solution = next;
+        next = null;
+        return solution;
+    }
+
+    /**
+     * Calls the solver until a new solution is found or no more solutions could be found.
+     * @return a new solution, or null if there is no more solution
+     */
+    private Solution solveNext() {
+        while (configurator.solver.solve()) {
+            numSolve++;
+            Solution solution = configurator.getCurrentSolution();
+
+            if (!configurator.addSolution(solution, keepSolutions, index)) {
+                numSimilar++;
+            } else {
+                numSolutions++;
+                log.trace("{}{}. {}", LoggerUtils.tab(), numSolutions, solution);
+
+                if (configurator.projected) {
+                    configurator.postBlockingConstraint();
+                }
+
+                if (configurator.writer != null) {
+                    try {
+                        configurator.writer.write(solution);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+                return solution;
+            }
+        }
+
+        couldMoreSolution = false;
+        configurator.stopped = configurator.solver.isStopCriterionMet();
+        log.trace("{}Solve executed {} times", LoggerUtils.tab(), numSolve);
+        log.trace("{}Found {} similar solutions", LoggerUtils.tab(), numSimilar);
+        return null;
+    }
+}
@@ -0,0 +1,37 @@
+/*
+ * CECore - Core components of a Configuration Environment
+ *
+ * Copyright (c) 2022
+ *
+ * @author: Viet-Man Le (vietman.le@ist.tugraz.at)
+ */
+
+package at.tugraz.ist.ase.ce.batch;
+
+import at.tugraz.ist.ase.ce.Requirement;
+import at.tugraz.ist.ase.ce.Solution;
+import lombok.Builder;
+import lombok.NonNull;
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * The result of a requirement solved in a batch.
+ */
+@Value
+@Builder
+public class BatchResult {
+    /**
+     * position of the requirement in the input
+     */
+    int index;
+    @NonNull Requirement requirement;
+    @NonNull BatchStatus status;
+    @NonNull List<Solution> solutions;
+    /**
+     * the exception in case of {@link BatchStatus#ERROR}, otherwise null
+     */
+    Throwable error;
+    long runtime; // in milliseconds
+}
@@ -0,0 +1,224 @@
+/*
+ * CECore - Core components of a Configuration Environment
+ *
+ * Copyright (c) 2022
+ *
+ * @author: Viet-Man Le (vietman.le@ist.tugraz.at)
+ */
+
+package at.tugraz.ist.ase.ce.batch;
+
+import at.tugraz.ist.ase.ce.Configurator;
+import at.tugraz.ist.ase.ce.Requirement;
+import at.tugraz.ist.ase.ce.Solution;
+import at.tugraz.ist.ase.ce.pool.ConfiguratorPool;
+import at.tugraz.ist.ase.common.LoggerUtils;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.function.Consumer;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Solves batches of requirements against the same KB, concurrently on the independent
+ * configurators of a {@link ConfiguratorPool}.
+ * <p>
+ * Requirements are pulled from the input only when a slot is free, i.e., at most maxInFlight requirements
+ * are being solved or waiting to be delivered at the same time. Hence, a huge input does not have to be
+ * loaded into memory (backpressure). Results are delivered in the input order.
+ * <p>
+ * Each requirement is translated on the configurator which solves it, since the translated Choco constraints
+ * belong to the Choco model of this configurator.
+ */
+@Slf4j
+public class BatchSolver implements AutoCloseable {
+
+    private final ConfiguratorPool pool;
+    private final ExecutorService executor;
+
+    @Getter
+    private final int maxInFlight;
+
+    /**
+     * A constructor
+     * @param pool the configurators used to solve the requirements, their translators have to be set
+     * @param maxInFlight the maximum number of requirements being solved or waiting to be delivered
+     */
+    public BatchSolver(@NonNull ConfiguratorPool pool, int maxInFlight) {
+        checkArgument(maxInFlight > 0, "maxInFlight must be positive!");
+
+        this.pool = pool;
+        this.maxInFlight = maxInFlight;
+        this.executor = Executors.newFixedThreadPool(pool.getSize());
+    }
+
+    public BatchSolver(@NonNull ConfiguratorPool pool) {
+        this(pool, 2 * pool.getSize());
+    }
+
+    /**
+     * Solves a list of requirements.
+     * @param requirements the requirements
+     * @param notKB true - solve with the negation of the KB
+     * @param maxNumConf the maximum number of solutions per requirement, 0 - no limit
+     * @param timeout the timeout per requirement in milliseconds, 0 - no timeout
+     * @return the results, in the order of the requirements
+     */
+    public List<BatchResult> findSolutionsBatch(@NonNull List<Requirement> requirements, boolean notKB,
+                                                int maxNumConf, long timeout) throws InterruptedException {
+        List<BatchResult> results = new ArrayList<>(requirements.size());
+        findSolutionsBatch(requirements.iterator(), notKB, maxNumConf, timeout, results::add);
+        return results;
+    }
+
+    /**
+     * Solves the requirements of an iterator, and passes the results in the input order to a consumer.
+     * The consumer is called sequentially, but not necessarily by the calling thread.
+     * The method returns when all results are delivered.
+     * @param requirements the requirements, pulled only when a slot is free
+     * @param notKB true - solve with the negation of the KB
+     * @param maxNumConf the maximum number of solutions per requirement, 0 - no limit
+     * @param timeout the timeout per requirement in milliseconds, 0 - no timeout
+     * @param consumer receives the results
+     */
+    public void findSolutionsBatch(@NonNull Iterator<Requirement> requirements, boolean notKB,
+                                   int maxNumConf, long timeout, @NonNull Consumer<BatchResult> consumer) throws InterruptedException {
+        LoggerUtils.indent();
+        log.debug("{}Solving batch [maxInFlight={}]", LoggerUtils.tab(), maxInFlight);
+
+        Semaphore slots = new Semaphore(maxInFlight);
+        OrderedDelivery delivery = new OrderedDelivery(consumer, slots);
+
+        int index = 0;
+        while (requirements.hasNext()) {
+            slots.acquire();
+            if (delivery.failure != null) {
+                slots.release();
+                break;
+            }
+
+            Requirement requirement = requirements.next();
+            int i = index++;
+            executor.execute(() -> {
+                BatchResult result = null;
+                try {
+                    result = solve(i, requirement, notKB, maxNumConf, timeout);
+                } catch (RuntimeException | Error e) {
+                    result = failedResult(i, requirement, e);
+                    throw e;
+                } finally {
+                    // each index must be delivered, otherwise its slot and the slots of the next results are never freed
+                    delivery.deliver(result);
+                }
+            });
+        }
+
+        // wait until all results are delivered
+        slots.acquire(maxInFlight);
+        slots.release(maxInFlight);
+
+        log.debug("{}Solved batch [numRequirements={}]", LoggerUtils.tab(), index);
+        LoggerUtils.outdent();
+
+        if (delivery.failure instanceof Error) {
+            throw (Error) delivery.failure;
+        } else if (delivery.failure != null) {
+            throw (RuntimeException) delivery.failure;
+        }
+    }
+
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+
+    private BatchResult solve(int index, Requirement requirement, boolean notKB, int maxNumConf, long timeout) {
+        BatchResult.BatchResultBuilder result = BatchResult.builder()
+                .index(index)
+                .requirement(requirement)
+                .solutions(Collections.emptyList());
+
+        long start = System.nanoTime();
+        Configurator configurator = null;
+        try {
+            configurator = pool.borrow();
+            configurator.findSolutions(notKB, maxNumConf, requirement, timeout);
+
+            // copy the solutions, since they are removed when giving back the configurator
+            List<Solution> solutions = new ArrayList<>(configurator.getSolutions());
+            BatchStatus status;
+            if (configurator.isStopped()) {
+                status = BatchStatus.TIMEOUT;
+            } else if (solutions.isEmpty()) {
+                status = BatchStatus.UNSATISFIABLE;
+            } else {
+                status = BatchStatus.SOLVED;
+            }
+            result.status(status).solutions(solutions);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            result.status(BatchStatus.ERROR).error(e);
+        } catch (RuntimeException e) {
+            log.warn("{}Failed to solve requirement {} [requirement={}]", LoggerUtils.tab(), index, requirement, e);
+            result.status(BatchStatus.ERROR).error(e);
+        } finally {
+            if (configurator != null) {
+                pool.giveBack(configurator);
+            }
+        }
+
+        return result.runtime((System.nanoTime() - start) / 1_000_000).build();
+    }
+
+    private static BatchResult failedResult(int index, Requirement requirement, Throwable error) {
+        return BatchResult.builder()
+                .index(index)
+                .requirement(requirement)
+                .solutions(Collections.emptyList())
+                .status(BatchStatus.ERROR)
+                .error(error)
+                .build();
+    }
+
+    /**
+     * Reorders the results, and frees a slot when a result is passed to the consumer.
+     */
+    private static class OrderedDelivery {
+        private final Consumer<BatchResult> consumer;
+        private final Semaphore slots;
+
+        private final Map<Integer, BatchResult> pending = new HashMap<>();
+        private int next = 0;
+
+        private volatile Throwable failure = null;
+
+        OrderedDelivery(Consumer<BatchResult> consumer, Semaphore slots) {
+            this.consumer = consumer;
+            this.slots = slots;
+        }
+
+        synchronized void deliver(BatchResult result) {
+            pending.put(result.getIndex(), result);
+
+            BatchResult ready;
+            while ((ready = pending.remove(next)) != null) {
+                next++;
+                try {
+                    if (failure == null) {
+                        consumer.accept(ready);
+                    }
+                } catch (RuntimeException | Error e) {
+                    failure = e;
+                } finally {
+                    slots.release();
+                }
+            }
+        }
+    }
+}
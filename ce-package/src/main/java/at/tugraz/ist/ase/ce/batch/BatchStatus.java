@@ -0,0 +1,31 @@
+/*
+ * CECore - Core components of a Configuration Environment
+ *
+ * Copyright (c) 2022
+ *
+ * @author: Viet-Man Le (vietman.le@ist.tugraz.at)
+ */
+
+package at.tugraz.ist.ase.ce.batch;
+
+/**
+ * Status of a requirement solved in a batch.
+ */
+public enum BatchStatus {
+    /**
+     * at least one solution is found and the search is completed
+     */
+    SOLVED,
+    /**
+     * the requirement has no solution
+     */
+    UNSATISFIABLE,
+    /**
+     * the timeout is reached, the result may contain the solutions found so far
+     */
+    TIMEOUT,
+    /**
+     * the requirement could not be solved, e.g., because it could not be translated
+     */
+    ERROR
+}
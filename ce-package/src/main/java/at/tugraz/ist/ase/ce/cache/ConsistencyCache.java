@@ -0,0 +1,122 @@
+/*
+ * CECore - Core components of a Configuration Environment
+ *
+ * Copyright (c) 2022
+ *
+ * @author: Viet-Man Le (vietman.le@ist.tugraz.at)
+ */
+
+package at.tugraz.ist.ase.ce.cache;
+
+import at.tugraz.ist.ase.ce.Solution;
+import at.tugraz.ist.ase.ce.index.SolutionFingerprint;
+import at.tugraz.ist.ase.common.LoggerUtils;
+import at.tugraz.ist.ase.kb.core.Constraint;
+import at.tugraz.ist.ase.kb.core.KB;
+import at.tugraz.ist.ase.kb.core.Variable;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Collection;
+import java.util.List;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * A bounded cache of the results of consistency checks (see {@link at.tugraz.ist.ase.ce.Configurator#isConsistent(Solution)}).
+ * <p>
+ * The key combines a stamp of the checked KB content (see {@link #stamp(KB, Collection)}) and the canonical
+ * 128-bit fingerprint of the assignments, hence the order of the assignments does not matter.
+ * Lookups do not block each other. If two threads check the same solution at the same time,
+ * both execute the check, and the result is stored twice.
+ * <p>
+ * A cache can be shared by the configurators of different KBs, e.g., the configurators of a
+ * {@link at.tugraz.ist.ase.ce.pool.ConfiguratorPool}. Since the stamp is part of each key, the results of
+ * different KBs, or of a KB before and after a change, are never mixed. The results of a former KB content
+ * are no longer found, and are evicted as the least recently used ones.
+ */
+@Slf4j
+public class ConsistencyCache {
+
+    private final Cache<HashCode, Boolean> cache;
+
+    /**
+     * A constructor
+     * @param maximumSize the maximum number of cached results, the least recently used results are evicted first
+     */
+    public ConsistencyCache(long maximumSize) {
+        checkArgument(maximumSize >= 0, "Maximum size cannot be negative!");
+
+        this.cache = CacheBuilder.newBuilder()
+                .maximumSize(maximumSize)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * @param kbStamp the stamp of the checked KB content, see {@link #stamp(KB, Collection)}
+     * @return the cached result of the consistency check of the solution, or null if it is not cached
+     */
+    public Boolean getIfPresent(@NonNull HashCode kbStamp, @NonNull Solution solution) {
+        return cache.getIfPresent(key(kbStamp, solution));
+    }
+
+    /**
+     * @param kbStamp the stamp of the checked KB content, see {@link #stamp(KB, Collection)}
+     */
+    public void put(@NonNull HashCode kbStamp, @NonNull Solution solution, boolean consistent) {
+        cache.put(key(kbStamp, solution), consistent);
+    }
+
+    /**
+     * Removes all cached results.
+     */
+    public void invalidateAll() {
+        cache.invalidateAll();
+        log.debug("{}Invalidated the consistency cache", LoggerUtils.tab());
+    }
+
+    public long size() {
+        return cache.size();
+    }
+
+    /**
+     * @return the hit/miss statistics of the cache
+     */
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    /**
+     * Computes a stamp of the checked KB content, i.e., the name of the KB, its variables with their domains,
+     * and the given constraints.
+     * The stamp costs O(|KB|), hence a configurator computes it once, not per lookup.
+     * @param kb a {@link KB}
+     * @param constraints the constraints of the consistency check, e.g., the KB constraints and the root constraint
+     */
+    public static HashCode stamp(@NonNull KB kb, @NonNull Collection<Constraint> constraints) {
+        Hasher hasher = Hashing.murmur3_128().newHasher();
+
+        hasher.putUnencodedChars(kb.getName());
+        for (Variable variable : kb.getVariableList()) {
+            hasher.putUnencodedChars(variable.getName());
+            variable.getDomain().getValues().forEach(v -> hasher.putUnencodedChars(v).putChar('|'));
+            hasher.putChar(';');
+        }
+        for (Constraint constraint : constraints) {
+            hasher.putUnencodedChars(constraint.toString());
+            hasher.putChar(';');
+        }
+        return hasher.hash();
+    }
+
+    private static HashCode key(HashCode kbStamp, Solution solution) {
+        return Hashing.combineOrdered(List.of(kbStamp, SolutionFingerprint.canonicalFingerprint(solution)));
+    }
+}
@@ -0,0 +1,216 @@
+/*
+ * CECore - Core components of a Configuration Environment
+ *
+ * Copyright (c) 2022
+ *
+ * @author: Viet-Man Le (vietman.le@ist.tugraz.at)
+ */
+
+package at.tugraz.ist.ase.ce.filter;
+
+import at.tugraz.ist.ase.ce.Configurator;
+import at.tugraz.ist.ase.ce.Requirement;
+import at.tugraz.ist.ase.ce.Solution;
+import at.tugraz.ist.ase.ce.pool.ConfiguratorPool;
+import at.tugraz.ist.ase.common.LoggerUtils;
+import at.tugraz.ist.ase.kb.core.Assignment;
+import at.tugraz.ist.ase.kb.core.Variable;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Computes the remaining valid values of all variables for a partial {@link Requirement},
+ * i.e., the values which appear in at least one solution satisfying the requirement (global domain consistency).
+ * <p>
+ * A value is checked by searching for a witness solution satisfying the requirement and the value.
+ * All values of a witness solution are supported, hence values already seen in earlier witness
+ * solutions are skipped without a solve() call. The variables are checked in parallel on the
+ * configurators of a {@link ConfiguratorPool}, each using the session mode of the configurator,
+ * so that the KB constraints are posted once per task rather than once per value.
+ * <p>
+ * Results are cached per normalised requirement, i.e., the order of the assignments does not matter.
+ */
+@Slf4j
+public class DomainFilter implements AutoCloseable {
+
+    private final ConfiguratorPool pool;
+    private final ExecutorService executor;
+
+    private final List<String> varNames;
+    private final Map<String, List<String>> domains = new HashMap<>();
+
+    private final Cache<String, Map<String, List<String>>> cache;
+
+    private final LongAdder numSolve = new LongAdder();
+
+    /**
+     * A constructor
+     * @param pool the configurators used to check the values, their translators have to be set
+     * @param cacheSize the maximum number of cached requirements
+     */
+    public DomainFilter(@NonNull ConfiguratorPool pool, long cacheSize) throws InterruptedException {
+        checkArgument(cacheSize >= 0, "Cache size cannot be negative!");
+
+        this.pool = pool;
+        this.executor = Executors.newFixedThreadPool(pool.getSize());
+        this.cache = CacheBuilder.newBuilder()
+                .maximumSize(cacheSize)
+                .recordStats()
+                .build();
+
+        List<Variable> variables = pool.execute(c -> c.getKb().getVariableList());
+        this.varNames = variables.stream().map(Variable::getName).collect(Collectors.toList());
+        variables.forEach(v -> domains.put(v.getName(), List.copyOf(v.getDomain().getValues())));
+    }
+
+    /**
+     * Returns, for every variable, the values which appear in at least one solution satisfying the requirement.
+     * @param requirement a partial {@link Requirement}
+     * @return an unmodifiable map from variable names to their remaining values (in the order of their domains).
+     * All value lists are empty if the requirement is inconsistent.
+     */
+    public Map<String, List<String>> filter(@NonNull Requirement requirement) throws InterruptedException, ExecutionException {
+        String key = normalise(requirement);
+
+        Map<String, List<String>> result = cache.getIfPresent(key);
+        if (result == null) {
+            result = compute(requirement);
+            cache.put(key, result);
+        } else {
+            log.trace("{}Cache hit for requirement [requirement={}]", LoggerUtils.tab(), key);
+        }
+        return result;
+    }
+
+    /**
+     * Removes all cached results, e.g., after the KB was changed.
+     */
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    public CacheStats getCacheStats() {
+        return cache.stats();
+    }
+
+    /**
+     * @return the number of solve() calls executed to find witness solutions
+     */
+    public long getNumSolve() {
+        return numSolve.sum();
+    }
+
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+
+    private Map<String, List<String>> compute(Requirement requirement) throws InterruptedException, ExecutionException {
+        LoggerUtils.indent();
+        log.debug("{}Filtering domains [requirement={}]", LoggerUtils.tab(), requirement);
+
+        Map<String, Set<String>> supported = new HashMap<>();
+        varNames.forEach(name -> supported.put(name, ConcurrentHashMap.newKeySet()));
+
+        List<Assignment> assignments = requirement.getAssignments();
+        Solution witness = pool.execute(c -> findWitness(c, assignments));
+
+        if (witness != null) {
+            addWitness(witness, supported);
+
+            Set<String> assigned = assignments.stream().map(Assignment::getVariable).collect(Collectors.toSet());
+            List<Future<?>> futures = new LinkedList<>();
+            for (String varName : varNames) {
+                // the value of an assigned variable is already supported by the first witness
+                if (!assigned.contains(varName)) {
+                    futures.add(executor.submit(() -> pool.execute(c -> filterVariable(c, varName, assignments, supported))));
+                }
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        }
+
+        Map<String, List<String>> result = new LinkedHashMap<>();
+        for (String varName : varNames) {
+            result.put(varName, domains.get(varName).stream()
+                    .filter(supported.get(varName)::contains)
+                    .collect(Collectors.toUnmodifiableList()));
+        }
+
+        log.debug("{}Filtered domains [requirement={}, result={}]", LoggerUtils.tab(), requirement, result);
+        LoggerUtils.outdent();
+        return Collections.unmodifiableMap(result);
+    }
+
+    private Void filterVariable(Configurator configurator, String varName, List<Assignment> assignments, Map<String, Set<String>> supported) {
+        boolean opened = !configurator.isSessionOpened();
+        if (opened) {
+            configurator.openSession(false);
+        }
+
+        try {
+            for (String value : domains.get(varName)) {
+                // skip values seen in a witness solution, also witnesses found by other tasks
+                if (supported.get(varName).contains(value)) {
+                    continue;
+                }
+
+                List<Assignment> query = new LinkedList<>(assignments);
+                query.add(new Assignment(varName, value));
+
+                Solution witness = findWitness(configurator, query);
+                if (witness != null) {
+                    addWitness(witness, supported);
+                }
+            }
+        } finally {
+            if (opened) {
+                configurator.closeSession();
+            }
+        }
+        return null;
+    }
+
+    private Solution findWitness(Configurator configurator, List<Assignment> assignments) {
+        Requirement query = Requirement.requirementBuilder()
+                .assignments(new LinkedList<>(assignments))
+                .build();
+
+        configurator.findSolutions(false, 1, query);
+        numSolve.increment();
+
+        Solution witness = configurator.getLastestSolution();
+        configurator.emptySolutions();
+        return witness;
+    }
+
+    private void addWitness(Solution witness, Map<String, Set<String>> supported) {
+        for (Assignment assignment : witness.getAssignments()) {
+            Set<String> values = supported.get(assignment.getVariable());
+            if (values != null) {
+                values.add(assignment.getValue());
+            }
+        }
+    }
+
+    /**
+     * @return the sorted assignments of the requirement as a string, e.g., "A=true,B=false"
+     */
+    private static String normalise(Requirement requirement) {
+        return requirement.getAssignments().stream()
+                .map(a -> a.getVariable() + "=" + a.getValue())
+                .sorted()
+                .collect(Collectors.joining(","));
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * CECore - Core components of a Configuration Environment
+ *
+ * Copyright (c) 2022
+ *
+ * @author: Viet-Man Le (vietman.le@ist.tugraz.at)
+ */
+
+package at.tugraz.ist.ase.ce.optimization;
+
+import at.tugraz.ist.ase.ce.Solution;
+import at.tugraz.ist.ase.kb.core.Assignment;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.ToString;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A linear objective function over the values of the KB variables, e.g., the price or the preference
+ * of a configuration. The objective value of a solution is the sum of the weights of its assigned values.
+ * Values without a weight have the weight 0.
+ * <p>
+ * The weights are integers, since they are posted as a Choco constraint - fractional prices should be scaled,
+ * e.g., to cents.
+ */
+@ToString
+public class LinearObjective {
+
+    public enum Direction {
+        MINIMIZE,
+        MAXIMIZE
+    }
+
+    @Getter
+    private final Direction direction;
+    // variable name -> value -> weight
+    private final Map<String, Map<String, Integer>> weights = new LinkedHashMap<>();
+
+    public LinearObjective(@NonNull Direction direction) {
+        this.direction = direction;
+    }
+
+    public static LinearObjective minimize() {
+        return new LinearObjective(Direction.MINIMIZE);
+    }
+
+    public static LinearObjective maximize() {
+        return new LinearObjective(Direction.MAXIMIZE);
+    }
+
+    public boolean isMaximize() {
+        return direction == Direction.MAXIMIZE;
+    }
+
+    /**
+     * Sets the weight of a value, replacing its previous weight.
+     * @return this objective, to chain the calls
+     */
+    public LinearObjective setWeight(@NonNull String variable, @NonNull String value, int weight) {
+        weights.computeIfAbsent(variable, k -> new LinkedHashMap<>()).put(value, weight);
+        return this;
+    }
+
+    /**
+     * @return the weight of the value, 0 if the value has no weight
+     */
+    public int getWeight(@NonNull String variable, @NonNull String value) {
+        return weights.getOrDefault(variable, Collections.emptyMap()).getOrDefault(value, 0);
+    }
+
+    /**
+     * @return the names of the variables with weighted values
+     */
+    public Set<String> getVariables() {
+        return Collections.unmodifiableSet(weights.keySet());
+    }
+
+    /**
+     * @return the objective value of a solution
+     */
+    public int evaluate(@NonNull Solution solution) {
+        int value = 0;
+        for (Assignment assignment : solution.getAssignments()) {
+            value += getWeight(assignment.getVariable(), assignment.getValue());
+        }
+        return value;
+    }
+
+    /**
+     * @return true if the first objective value is better than the second one
+     */
+    public boolean isBetter(int value1, int value2) {
+        return isMaximize() ? value1 > value2 : value1 < value2;
+    }
+}
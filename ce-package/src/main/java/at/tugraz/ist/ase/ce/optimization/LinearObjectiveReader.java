@@ -0,0 +1,62 @@
+/*
+ * CECore - Core components of a Configuration Environment
+ *
+ * Copyright (c) 2022
+ *
+ * @author: Viet-Man Le (vietman.le@ist.tugraz.at)
+ */
+
+package at.tugraz.ist.ase.ce.optimization;
+
+import at.tugraz.ist.ase.common.LoggerUtils;
+import com.opencsv.CSVReader;
+import com.opencsv.exceptions.CsvValidationException;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import static at.tugraz.ist.ase.common.IOUtils.getCSVReader;
+
+/**
+ * Reads a {@link LinearObjective} from a CSV file, in the same format as the value variable ordering files.
+ * Each record has the form variable;value;weight, e.g.,
+ * <pre>
+ * CheesyCrust;true;150
+ * Big;true;300
+ * </pre>
+ */
+@Slf4j
+public class LinearObjectiveReader {
+
+    public LinearObjective read(@NonNull InputStream inputStream, @NonNull LinearObjective.Direction direction) throws CsvValidationException, IOException {
+        LinearObjective objective = new LinearObjective(direction);
+
+        CSVReader reader = getCSVReader(inputStream);
+
+        String[] items;
+        while ((items = reader.readNext()) != null) {
+            if (items.length == 1 && items[0].isBlank()) {
+                continue; // empty line
+            }
+            if (items.length != 3) {
+                throw new IOException("Invalid record of an objective: " + String.join(";", items));
+            }
+
+            String variable = items[0].trim();
+            String value = items[1].trim();
+            int weight;
+            try {
+                weight = Integer.parseInt(items[2].trim());
+            } catch (NumberFormatException e) {
+                throw new IOException("Invalid weight of " + variable + "=" + value + ": " + items[2], e);
+            }
+
+            log.trace("{}{}={} - weight {}", LoggerUtils.tab(), variable, value, weight);
+            objective.setWeight(variable, value, weight);
+        }
+
+        return objective;
+    }
+}
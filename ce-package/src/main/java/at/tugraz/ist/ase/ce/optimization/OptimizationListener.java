@@ -0,0 +1,21 @@
+/*
+ * CECore - Core components of a Configuration Environment
+ *
+ * Copyright (c) 2022
+ *
+ * @author: Viet-Man Le (vietman.le@ist.tugraz.at)
+ */
+
+package at.tugraz.ist.ase.ce.optimization;
+
+import at.tugraz.ist.ase.ce.Solution;
+
+/**
+ * Receives the intermediate results of a branch-and-bound search, i.e., each solution
+ * which enters the current k best solutions. With an {@link OptimizationPortfolio},
+ * the listener is called from several threads.
+ */
+@FunctionalInterface
+public interface OptimizationListener {
+    void onSolution(Solution solution, int objectiveValue);
+}
@@ -0,0 +1,135 @@
+/*
+ * CECore - Core components of a Configuration Environment
+ *
+ * Copyright (c) 2022
+ *
+ * @author: Viet-Man Le (vietman.le@ist.tugraz.at)
+ */
+
+package at.tugraz.ist.ase.ce.optimization;
+
+import at.tugraz.ist.ase.ce.Configurator;
+import at.tugraz.ist.ase.ce.Requirement;
+import at.tugraz.ist.ase.ce.pool.ConfiguratorPool;
+import at.tugraz.ist.ase.ce.portfolio.PortfolioStrategy;
+import at.tugraz.ist.ase.common.LoggerUtils;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.chocosolver.util.criteria.Criterion;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Runs the branch-and-bound search of {@link Configurator#findOptimal} with several search strategies at the same time,
+ * each on its own configurator of a {@link ConfiguratorPool}.
+ * <p>
+ * The searches share one {@link TopKSolutions}, so that a good solution found by one strategy also prunes
+ * the search spaces of the other strategies. The first search which explores its search space completely
+ * proves the k best solutions, and the other searches are stopped.
+ */
+@Slf4j
+public class OptimizationPortfolio implements AutoCloseable {
+
+    private final ConfiguratorPool pool;
+    private final ExecutorService executor;
+    private final List<PortfolioStrategy> strategies;
+
+    /**
+     * A constructor
+     * @param pool the configurators running the strategies, their translators have to be set to optimize with requirements
+     * @param strategies the strategies
+     */
+    public OptimizationPortfolio(@NonNull ConfiguratorPool pool, @NonNull List<PortfolioStrategy> strategies) {
+        checkArgument(!strategies.isEmpty(), "The portfolio must have a strategy!");
+
+        this.pool = pool;
+        this.strategies = List.copyOf(strategies);
+        this.executor = Executors.newFixedThreadPool(strategies.size());
+    }
+
+    public OptimizationResult findOptimal(@NonNull LinearObjective objective, int k, Requirement requirement, long timeout) throws InterruptedException {
+        return findOptimal(objective, k, requirement, timeout, null);
+    }
+
+    /**
+     * Finds the k best solutions satisfying the requirement w.r.t. a linear objective.
+     * @param objective a {@link LinearObjective}
+     * @param k the number of solutions
+     * @param requirement a {@link Requirement}, null - no requirement
+     * @param timeout the timeout in milliseconds, 0 - no timeout
+     * @param listener called for each solution which enters the k best solutions, from the threads of the strategies,
+     *                 null - no listener
+     * @return the k best solutions, or the best solutions found before the timeout
+     */
+    public OptimizationResult findOptimal(@NonNull LinearObjective objective, int k, Requirement requirement, long timeout,
+                                          OptimizationListener listener) throws InterruptedException {
+        LoggerUtils.indent();
+        log.debug("{}Optimizing with {} strategies [k={}, requirement={}]", LoggerUtils.tab(), strategies.size(), k, requirement);
+
+        TopKSolutions topK = new TopKSolutions(k, objective.getDirection(), listener);
+        AtomicBoolean done = new AtomicBoolean(false);
+
+        List<Future<?>> futures = new ArrayList<>(strategies.size());
+        for (PortfolioStrategy strategy : strategies) {
+            futures.add(executor.submit(() -> pool.execute(c -> run(c, strategy, objective, requirement, timeout, topK, done))));
+        }
+
+        try {
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    log.warn("{}A strategy failed - {}", LoggerUtils.tab(), e.getCause().getMessage());
+                }
+            }
+        } finally {
+            done.set(true); // stops the other strategies
+        }
+
+        OptimizationResult result = topK.toResult();
+        log.debug("{}Optimized [solutions={}, proven={}]", LoggerUtils.tab(), result.getSolutions().size(), result.isProven());
+        LoggerUtils.outdent();
+        return result;
+    }
+
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+
+    private Void run(Configurator configurator, PortfolioStrategy strategy, LinearObjective objective, Requirement requirement,
+                     long timeout, TopKSolutions topK, AtomicBoolean done) {
+        if (done.get()) {
+            return null;
+        }
+
+        switch (strategy.getKind()) {
+            case VVO -> configurator.setVVO(strategy.getVvo().bind(configurator.getKb()));
+            case RANDOM -> configurator.setRandomSearch(strategy.getSeed());
+            default -> configurator.clearVVO();
+        }
+
+        Criterion completion = done::get;
+        try {
+            configurator.addStopCriterion(completion);
+            configurator.findOptimal(objective, requirement, timeout, topK);
+        } finally {
+            configurator.removeStopCriterion(completion);
+            configurator.clearVVO();
+        }
+
+        if (!configurator.isStopped()) {
+            log.debug("{}Strategy {} proved the solutions", LoggerUtils.tab(), strategy.getName());
+            done.set(true);
+        }
+        return null;
+    }
+}
@@ -0,0 +1,53 @@
+/*
+ * CECore - Core components of a Configuration Environment
+ *
+ * Copyright (c) 2022
+ *
+ * @author: Viet-Man Le (vietman.le@ist.tugraz.at)
+ */
+
+package at.tugraz.ist.ase.ce.optimization;
+
+import at.tugraz.ist.ase.ce.Solution;
+import lombok.Builder;
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * The k best solutions found by a branch-and-bound search.
+ */
+@Value
+@Builder
+public class OptimizationResult {
+    /**
+     * the solutions, the best one first
+     */
+    List<Solution> solutions;
+    /**
+     * the objective values of the solutions, in the same order
+     */
+    List<Integer> objectiveValues;
+    /**
+     * true if the search space was completely explored, i.e., the solutions are the k best solutions.
+     * false if the timeout was reached, then the solutions are the best ones found so far.
+     */
+    boolean proven;
+
+    /**
+     * @return the best solution, null if there is no solution
+     */
+    public Solution getBest() {
+        return solutions.isEmpty() ? null : solutions.get(0);
+    }
+
+    /**
+     * @return the objective value of the best solution
+     */
+    public int getBestValue() {
+        if (objectiveValues.isEmpty()) {
+            throw new IllegalStateException("No solution found!");
+        }
+        return objectiveValues.get(0);
+    }
+}
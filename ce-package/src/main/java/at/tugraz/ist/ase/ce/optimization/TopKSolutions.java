@@ -0,0 +1,138 @@
+/*
+ * CECore - Core components of a Configuration Environment
+ *
+ * Copyright (c) 2022
+ *
+ * @author: Viet-Man Le (vietman.le@ist.tugraz.at)
+ */
+
+package at.tugraz.ist.ase.ce.optimization;
+
+import at.tugraz.ist.ase.ce.Solution;
+import lombok.Getter;
+import lombok.NonNull;
+
+import java.util.*;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * The k best solutions found so far by one or several branch-and-bound searches.
+ * <p>
+ * Once k solutions are known, the searches only look for solutions strictly better than
+ * the k-th best one (see {@link #getThreshold()}). Since the threshold only improves, a search
+ * which explores its search space completely proves that the solutions are the k best ones,
+ * even if some of them were found by other searches. The class is thread-safe.
+ */
+public class TopKSolutions {
+
+    @Getter
+    private final int k;
+    @Getter
+    private final LinearObjective.Direction direction;
+    private final OptimizationListener listener;
+
+    // the solutions sorted from the best to the worst, at most k
+    private final List<Solution> solutions = new ArrayList<>();
+    private final List<Integer> values = new ArrayList<>();
+
+    // read by the cut of the searches at each propagation, hence not synchronized
+    private volatile boolean full = false;
+    private volatile int threshold;
+
+    private volatile boolean proven = false;
+
+    /**
+     * A constructor
+     * @param k the number of solutions
+     * @param direction the direction of the objective
+     * @param listener called for each solution which enters the k best solutions, null - no listener
+     */
+    public TopKSolutions(int k, @NonNull LinearObjective.Direction direction, OptimizationListener listener) {
+        checkArgument(k > 0, "k must be positive!");
+
+        this.k = k;
+        this.direction = direction;
+        this.listener = listener;
+    }
+
+    public TopKSolutions(int k, @NonNull LinearObjective.Direction direction) {
+        this(k, direction, null);
+    }
+
+    /**
+     * Adds a solution if it is better than the k-th best solution, or if fewer than k solutions are known.
+     * @return true if the solution was added
+     */
+    public boolean offer(@NonNull Solution solution, int value) {
+        synchronized (this) {
+            if (full && !isBetter(value, threshold)) {
+                return false;
+            }
+            if (solutions.contains(solution)) {
+                return false; // found again, e.g., with different values of auxiliary variables
+            }
+
+            int index = 0;
+            while (index < values.size() && !isBetter(value, values.get(index))) {
+                index++;
+            }
+            solutions.add(index, solution);
+            values.add(index, value);
+            if (solutions.size() > k) {
+                solutions.remove(k);
+                values.remove(k);
+            }
+
+            if (solutions.size() == k) {
+                threshold = values.get(k - 1);
+                full = true;
+            }
+        }
+
+        if (listener != null) {
+            listener.onSolution(solution, value);
+        }
+        return true;
+    }
+
+    /**
+     * @return true if k solutions are known
+     */
+    public boolean isFull() {
+        return full;
+    }
+
+    /**
+     * @return the objective value of the k-th best solution, only meaningful if {@link #isFull()}
+     */
+    public int getThreshold() {
+        return threshold;
+    }
+
+    /**
+     * Marks the solutions as the k best solutions, called when a search has explored its search space completely.
+     */
+    public void setProven() {
+        proven = true;
+    }
+
+    public boolean isProven() {
+        return proven;
+    }
+
+    /**
+     * @return a snapshot of the current k best solutions
+     */
+    public synchronized OptimizationResult toResult() {
+        return OptimizationResult.builder()
+                .solutions(List.copyOf(solutions))
+                .objectiveValues(List.copyOf(values))
+                .proven(proven)
+                .build();
+    }
+
+    private boolean isBetter(int value1, int value2) {
+        return direction == LinearObjective.Direction.MAXIMIZE ? value1 > value2 : value1 < value2;
+    }
+}
@@ -0,0 +1,160 @@
+/*
+ * CECore - Core components of a Configuration Environment
+ *
+ * Copyright (c) 2022
+ *
+ * @author: Viet-Man Le (vietman.le@ist.tugraz.at)
+ */
+
+package at.tugraz.ist.ase.ce.parallel;
+
+import at.tugraz.ist.ase.ce.Solution;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * The solutions of a running {@link ParallelEnumerator#enumerate} call, merged from all sub-problems
+ * into one bounded queue. The sub-problems wait while the queue is full, i.e., until the consumer reads more solutions.
+ * <p>
+ * Closing the enumeration cancels the sub-problems which are not finished yet. A running sub-problem
+ * stops at its next solution.
+ */
+public class ParallelEnumeration implements Iterator<Solution>, AutoCloseable {
+
+    // marks the end of the queue
+    private static final Object END = new Object();
+    private static final long OFFER_TIMEOUT = 100; // ms, how often a waiting sub-problem checks the cancellation
+
+    private final BlockingQueue<Object> queue;
+    private final AtomicInteger numRunningTasks;
+
+    private volatile boolean cancelled = false;
+    private volatile boolean stopped = false;
+    private volatile Throwable failure = null;
+
+    private Solution next = null;
+    private boolean ended = false;
+
+    ParallelEnumeration(int queueCapacity, int numTasks) {
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.numRunningTasks = new AtomicInteger(numTasks);
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next != null) {
+            return true;
+        }
+        if (ended) {
+            return false;
+        }
+
+        Object entry;
+        try {
+            entry = queue.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            close();
+            return false;
+        }
+
+        if (entry == END) {
+            ended = true;
+            if (failure != null) {
+                throw new IllegalStateException("The enumeration of a sub-problem failed", failure);
+            }
+            return false;
+        }
+        next = (Solution) entry;
+        return true;
+    }
+
+    @Override
+    public Solution next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException("No more solutions!");
+        }
+
+        Solution solution = next;
+        next = null;
+        return solution;
+    }
+
+    /**
+     * @return a sequential stream over the remaining solutions, which closes the enumeration when it is closed
+     */
+    public Stream<Solution> stream() {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(this,
+                Spliterator.DISTINCT | Spliterator.NONNULL), false).onClose(this::close);
+    }
+
+    /**
+     * @return true if the timeout was reached or the enumeration was closed before all sub-problems were finished,
+     * i.e., some solutions could be missing
+     */
+    public boolean isStopped() {
+        return stopped;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    @Override
+    public void close() {
+        if (!ended) {
+            cancelled = true;
+            stopped = true;
+            ended = true;
+            queue.clear(); // unblocks the waiting sub-problems
+        }
+    }
+
+    /**
+     * Puts a solution of a sub-problem into the queue, waiting while the queue is full.
+     * @return false if the enumeration is cancelled
+     */
+    boolean offer(Solution solution) throws InterruptedException {
+        while (!cancelled) {
+            if (queue.offer(solution, OFFER_TIMEOUT, TimeUnit.MILLISECONDS)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Called once by each sub-problem, the last one ends the queue.
+     * @param stopped true if the sub-problem reached the timeout or was cancelled
+     * @param error the error of the sub-problem, or null
+     */
+    void taskDone(boolean stopped, Throwable error) throws InterruptedException {
+        if (stopped) {
+            this.stopped = true;
+        }
+        if (error != null && failure == null) {
+            failure = error;
+        }
+
+        if (numRunningTasks.decrementAndGet() == 0) {
+            offerEnd();
+        }
+    }
+
+    private void offerEnd() throws InterruptedException {
+        while (!cancelled) {
+            if (queue.offer(END, OFFER_TIMEOUT, TimeUnit.MILLISECONDS)) {
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,200 @@
+/*
+ * CECore - Core components of a Configuration Environment
+ *
+ * Copyright (c) 2022
+ *
+ * @author: Viet-Man Le (vietman.le@ist.tugraz.at)
+ */
+
+package at.tugraz.ist.ase.ce.parallel;
+
+import at.tugraz.ist.ase.ce.Configurator;
+import at.tugraz.ist.ase.ce.Requirement;
+import at.tugraz.ist.ase.ce.Solution;
+import at.tugraz.ist.ase.ce.pool.ConfiguratorPool;
+import at.tugraz.ist.ase.common.LoggerUtils;
+import at.tugraz.ist.ase.heuristics.ValueVariableOrdering;
+import at.tugraz.ist.ase.kb.core.Variable;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Enumerates the solutions of a KB in parallel, on the configurators of a {@link ConfiguratorPool}.
+ * <p>
+ * The search space is split into subProblemsPerConfigurator sub-problems per configurator by fixing
+ * the values of the first variables (see {@link SearchSpaceDecomposer}). Each worker borrows one configurator,
+ * opens a session, i.e., posts the KB once, and then takes the sub-problems from a shared queue, posting only
+ * the fixed values of each sub-problem, so that idle workers take over the remaining sub-problems.
+ * Since the sub-problems are disjoint and each configurator removes similar solutions,
+ * the merged solutions contain no duplicates.
+ * <p>
+ * The solutions are merged into a {@link ParallelEnumeration} as they are found, i.e., not in the order
+ * of a sequential enumeration.
+ */
+@Slf4j
+public class ParallelEnumerator implements AutoCloseable {
+
+    public static final int DEFAULT_SUB_PROBLEMS_PER_CONFIGURATOR = 16;
+    public static final int DEFAULT_QUEUE_CAPACITY = 4096;
+
+    private final ConfiguratorPool pool;
+    private final ExecutorService executor;
+    private final List<Variable> variables;
+
+    @Getter
+    private final int subProblemsPerConfigurator;
+    @Getter
+    private final int queueCapacity;
+
+    /**
+     * A constructor
+     * @param pool the configurators used to solve the sub-problems, their translators have to be set
+     * @param subProblemsPerConfigurator the number of sub-problems per configurator
+     * @param queueCapacity the maximum number of found solutions waiting for the consumer
+     */
+    public ParallelEnumerator(@NonNull ConfiguratorPool pool, int subProblemsPerConfigurator, int queueCapacity) throws InterruptedException {
+        checkArgument(subProblemsPerConfigurator > 0, "subProblemsPerConfigurator must be positive!");
+        checkArgument(queueCapacity > 0, "queueCapacity must be positive!");
+
+        this.pool = pool;
+        this.subProblemsPerConfigurator = subProblemsPerConfigurator;
+        this.queueCapacity = queueCapacity;
+        this.executor = Executors.newWorkStealingPool(pool.getSize());
+        this.variables = pool.execute(c -> c.getKb().getVariableList());
+    }
+
+    public ParallelEnumerator(@NonNull ConfiguratorPool pool) throws InterruptedException {
+        this(pool, DEFAULT_SUB_PROBLEMS_PER_CONFIGURATOR, DEFAULT_QUEUE_CAPACITY);
+    }
+
+    /**
+     * Starts the enumeration of the solutions satisfying a requirement.
+     * @param requirement a {@link Requirement}, null - no requirement
+     * @param vvo the ordering used to split the search space, null - the order of the variables
+     * @param timeout the timeout of the whole enumeration in milliseconds, 0 - no timeout
+     * @return a {@link ParallelEnumeration}, which has to be closed
+     */
+    public ParallelEnumeration enumerate(Requirement requirement, ValueVariableOrdering vvo, long timeout) {
+        List<Requirement> subProblems = SearchSpaceDecomposer.decompose(variables, vvo, requirement,
+                subProblemsPerConfigurator * pool.getSize());
+
+        log.debug("{}Enumerating solutions [requirement={}, subProblems={}]", LoggerUtils.tab(), requirement, subProblems.size());
+
+        ParallelEnumeration enumeration = new ParallelEnumeration(queueCapacity, subProblems.size());
+        long deadline = timeout > 0 ? System.currentTimeMillis() + timeout : 0;
+        Queue<Requirement> queue = new ConcurrentLinkedQueue<>(subProblems);
+        int numWorkers = Math.min(pool.getSize(), subProblems.size());
+        for (int w = 0; w < numWorkers; w++) {
+            executor.execute(() -> work(queue, deadline, enumeration));
+        }
+        return enumeration;
+    }
+
+    /**
+     * Streams the solutions satisfying a requirement. The stream should be used in a try-with-resources statement.
+     */
+    public Stream<Solution> stream(Requirement requirement, long timeout) {
+        return enumerate(requirement, null, timeout).stream();
+    }
+
+    /**
+     * @return all solutions of the KB, or the solutions found within the timeout
+     */
+    public List<Solution> findAllSolutions(long timeout) {
+        try (Stream<Solution> solutions = stream(null, timeout)) {
+            return solutions.collect(Collectors.toList());
+        }
+    }
+
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+
+    /**
+     * Solves the sub-problems of the queue with one configurator, in one session.
+     * If no configurator can be borrowed, the remaining sub-problems fail with the error.
+     */
+    private void work(Queue<Requirement> subProblems, long deadline, ParallelEnumeration enumeration) {
+        Configurator configurator = null;
+        Throwable error = null;
+        try {
+            configurator = pool.borrow();
+            if (!configurator.isSessionOpened()) {
+                configurator.openSession(false);
+            }
+        } catch (Throwable e) {
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            error = e;
+        }
+
+        try {
+            Requirement subProblem;
+            while ((subProblem = subProblems.poll()) != null) {
+                boolean stopped = true;
+                Throwable taskError = error;
+                if (taskError == null) {
+                    try {
+                        stopped = solve(configurator, subProblem, deadline, enumeration);
+                    } catch (Throwable e) {
+                        taskError = e;
+                    }
+                }
+
+                try {
+                    enumeration.taskDone(stopped, taskError);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        } finally {
+            if (configurator != null) {
+                pool.giveBack(configurator); // closes the session
+            }
+        }
+    }
+
+    /**
+     * @return true if the sub-problem is not completely solved, because of the timeout or the cancellation
+     */
+    private boolean solve(Configurator configurator, Requirement subProblem, long deadline, ParallelEnumeration enumeration) {
+        if (enumeration.isCancelled()) {
+            return true;
+        }
+        long remaining = 0;
+        if (deadline > 0) {
+            remaining = deadline - System.currentTimeMillis();
+            if (remaining <= 0) {
+                return true;
+            }
+        }
+
+        try (Stream<Solution> solutions = configurator.streamSolutions(false, 0, subProblem, remaining)) {
+            Iterator<Solution> iterator = solutions.iterator();
+            while (iterator.hasNext()) {
+                if (!enumeration.offer(iterator.next())) {
+                    return true;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return true;
+        }
+        return configurator.isStopped();
+    }
+}
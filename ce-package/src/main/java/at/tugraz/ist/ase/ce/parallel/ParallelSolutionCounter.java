@@ -0,0 +1,109 @@
+/*
+ * CECore - Core components of a Configuration Environment
+ *
+ * Copyright (c) 2022
+ *
+ * @author: Viet-Man Le (vietman.le@ist.tugraz.at)
+ */
+
+package at.tugraz.ist.ase.ce.parallel;
+
+import at.tugraz.ist.ase.ce.Requirement;
+import at.tugraz.ist.ase.ce.SolutionCount;
+import at.tugraz.ist.ase.ce.pool.ConfiguratorPool;
+import at.tugraz.ist.ase.common.LoggerUtils;
+import at.tugraz.ist.ase.kb.core.Variable;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Counts the solutions of a KB in parallel, on the configurators of a {@link ConfiguratorPool}.
+ * <p>
+ * The search space is split into subProblemsPerConfigurator sub-problems per configurator
+ * (see {@link SearchSpaceDecomposer}), so that a few hard sub-problems do not leave the other configurators idle.
+ * The sub-problems are counted with {@link at.tugraz.ist.ase.ce.Configurator#countSolutions(Requirement, long)}
+ * and the counts are summed up. If the timeout is reached, the sum is a lower bound.
+ */
+@Slf4j
+public class ParallelSolutionCounter implements AutoCloseable {
+
+    public static final int DEFAULT_SUB_PROBLEMS_PER_CONFIGURATOR = 8;
+
+    private final ConfiguratorPool pool;
+    private final ExecutorService executor;
+    private final List<Variable> variables;
+
+    @Getter
+    private final int subProblemsPerConfigurator;
+
+    /**
+     * A constructor
+     * @param pool the configurators used to count the sub-problems, their translators have to be set
+     * @param subProblemsPerConfigurator the number of sub-problems per configurator
+     */
+    public ParallelSolutionCounter(@NonNull ConfiguratorPool pool, int subProblemsPerConfigurator) throws InterruptedException {
+        checkArgument(subProblemsPerConfigurator > 0, "subProblemsPerConfigurator must be positive!");
+
+        this.pool = pool;
+        this.subProblemsPerConfigurator = subProblemsPerConfigurator;
+        this.executor = Executors.newFixedThreadPool(pool.getSize());
+        this.variables = pool.execute(c -> c.getKb().getVariableList());
+    }
+
+    public ParallelSolutionCounter(@NonNull ConfiguratorPool pool) throws InterruptedException {
+        this(pool, DEFAULT_SUB_PROBLEMS_PER_CONFIGURATOR);
+    }
+
+    /**
+     * Counts the solutions satisfying a requirement.
+     * @param requirement a {@link Requirement}, null - no requirement
+     * @param timeout the timeout of the whole count in milliseconds, 0 - no timeout
+     * @return the number of solutions, a lower bound if the timeout is reached
+     */
+    public SolutionCount countSolutions(Requirement requirement, long timeout) throws InterruptedException, ExecutionException {
+        List<Requirement> subProblems = SearchSpaceDecomposer.decompose(variables, requirement,
+                subProblemsPerConfigurator * pool.getSize());
+
+        LoggerUtils.indent();
+        log.debug("{}Counting solutions [requirement={}, subProblems={}]", LoggerUtils.tab(), requirement, subProblems.size());
+
+        long deadline = timeout > 0 ? System.currentTimeMillis() + timeout : 0;
+        List<Future<SolutionCount>> futures = new ArrayList<>(subProblems.size());
+        for (Requirement subProblem : subProblems) {
+            futures.add(executor.submit(() -> pool.execute(c -> {
+                long remaining = 0;
+                if (deadline > 0) {
+                    remaining = deadline - System.currentTimeMillis();
+                    if (remaining <= 0) {
+                        return new SolutionCount(0, false); // not started before the timeout
+                    }
+                }
+                return c.countSolutions(subProblem, remaining);
+            })));
+        }
+
+        SolutionCount count = new SolutionCount(0, true);
+        for (Future<SolutionCount> future : futures) {
+            count = count.plus(future.get());
+        }
+
+        log.debug("{}Counted solutions [count={}, exact={}]", LoggerUtils.tab(), count.getCount(), count.isExact());
+        LoggerUtils.outdent();
+        return count;
+    }
+
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ * CECore - Core components of a Configuration Environment
+ *
+ * Copyright (c) 2022
+ *
+ * @author: Viet-Man Le (vietman.le@ist.tugraz.at)
+ */
+
+package at.tugraz.ist.ase.ce.parallel;
+
+import at.tugraz.ist.ase.ce.Requirement;
+import at.tugraz.ist.ase.heuristics.ValueOrdering;
+import at.tugraz.ist.ase.heuristics.ValueVariableOrdering;
+import at.tugraz.ist.ase.kb.core.Assignment;
+import at.tugraz.ist.ase.kb.core.Variable;
+import lombok.NonNull;
+import lombok.experimental.UtilityClass;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Splits the search space of a {@link Requirement} into disjoint sub-problems, by assigning all combinations
+ * of the values of the first variables which are not assigned by the requirement (prefix decomposition).
+ * Each sub-problem is the requirement extended with one combination.
+ * <p>
+ * The sub-problems cover the search space of the requirement, and no solution satisfies two sub-problems.
+ * Some sub-problems could be inconsistent.
+ * <p>
+ * With a {@link ValueVariableOrdering}, the prefix variables are taken in the variable ordering and their values
+ * in the value ordering, so that the sub-problems with the preferred values come first.
+ */
+@UtilityClass
+public class SearchSpaceDecomposer {
+
+    /**
+     * @param variables the variables of the KB, the first ones are assigned
+     * @param requirement a {@link Requirement}, null - no requirement
+     * @param minNumSubProblems the minimum number of sub-problems, if the search space is large enough
+     * @return the sub-problems, in the lexicographic order of the combinations
+     */
+    public List<Requirement> decompose(@NonNull List<Variable> variables, Requirement requirement, int minNumSubProblems) {
+        return decompose(variables, null, requirement, minNumSubProblems);
+    }
+
+    /**
+     * @param variables the variables of the KB
+     * @param vvo the ordering of the variables and their values, null - the order of the variables and of their domains
+     * @param requirement a {@link Requirement}, null - no requirement
+     * @param minNumSubProblems the minimum number of sub-problems, if the search space is large enough
+     * @return the sub-problems, in the lexicographic order of the combinations
+     */
+    public List<Requirement> decompose(@NonNull List<Variable> variables, ValueVariableOrdering vvo,
+                                       Requirement requirement, int minNumSubProblems) {
+        checkArgument(minNumSubProblems > 0, "minNumSubProblems must be positive!");
+
+        List<Assignment> base = requirement != null ? requirement.getAssignments() : Collections.emptyList();
+        Set<String> assigned = base.stream().map(Assignment::getVariable).collect(Collectors.toSet());
+
+        // chooses the prefix variables and the order of their values
+        List<String> prefix = new ArrayList<>();
+        List<List<String>> prefixValues = new ArrayList<>();
+        long numSubProblems = 1;
+        for (Variable variable : order(variables, vvo)) {
+            if (numSubProblems >= minNumSubProblems) {
+                break;
+            }
+            if (!assigned.contains(variable.getName())) {
+                prefix.add(variable.getName());
+                prefixValues.add(orderValues(variable, vvo));
+                numSubProblems *= variable.getDomain().size();
+            }
+        }
+
+        // enumerates the combinations of the values of the prefix variables (mixed radix counter)
+        List<Requirement> subProblems = new ArrayList<>((int) numSubProblems);
+        int[] indexes = new int[prefix.size()];
+        while (true) {
+            List<Assignment> assignments = new LinkedList<>(base);
+            for (int i = 0; i < prefix.size(); i++) {
+                assignments.add(new Assignment(prefix.get(i), prefixValues.get(i).get(indexes[i])));
+            }
+            subProblems.add(Requirement.requirementBuilder().assignments(assignments).build());
+
+            int i = prefix.size() - 1;
+            while (i >= 0 && ++indexes[i] == prefixValues.get(i).size()) {
+                indexes[i] = 0;
+                i--;
+            }
+            if (i < 0) {
+                break;
+            }
+        }
+        return subProblems;
+    }
+
+    /**
+     * @return the variables of the variable ordering first, then the other variables in their order
+     */
+    private List<Variable> order(List<Variable> variables, ValueVariableOrdering vvo) {
+        if (vvo == null) {
+            return variables;
+        }
+
+        Map<String, Variable> byName = new LinkedHashMap<>();
+        variables.forEach(v -> byName.put(v.getName(), v));
+
+        List<Variable> ordered = new ArrayList<>(variables.size());
+        for (String name : vvo.getVarOrdering()) {
+            Variable variable = byName.remove(name);
+            if (variable != null) {
+                ordered.add(variable);
+            }
+        }
+        ordered.addAll(byName.values());
+        return ordered;
+    }
+
+    /**
+     * @return the values of the value ordering first, then the other values in the order of the domain
+     */
+    private List<String> orderValues(Variable variable, ValueVariableOrdering vvo) {
+        List<String> values = variable.getDomain().getValues();
+        if (vvo == null) {
+            return values;
+        }
+
+        ValueOrdering valueOrdering = vvo.getValueOrdering().stream()
+                .filter(o -> o.getVarName().equals(variable.getName()))
+                .findFirst().orElse(null);
+        if (valueOrdering == null) {
+            return values;
+        }
+
+        List<Integer> chocoValues = variable.getDomain().getChocoValues();
+        Set<String> ordered = new LinkedHashSet<>();
+        for (int chocoValue : valueOrdering.getOrdering()) {
+            int index = chocoValues.indexOf(chocoValue);
+            if (index >= 0) {
+                ordered.add(values.get(index));
+            }
+        }
+        ordered.addAll(values);
+        return new ArrayList<>(ordered);
+    }
+}
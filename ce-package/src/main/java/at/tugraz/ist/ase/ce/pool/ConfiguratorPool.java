@@ -0,0 +1,209 @@
+/*
+ * CECore - Core components of a Configuration Environment
+ *
+ * Copyright (c) 2022
+ *
+ * @author: Viet-Man Le (vietman.le@ist.tugraz.at)
+ */
+
+package at.tugraz.ist.ase.ce.pool;
+
+import at.tugraz.ist.ase.ce.Configurator;
+import at.tugraz.ist.ase.common.LoggerUtils;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * A thread-safe pool of independent {@link Configurator}s.
+ * <p>
+ * Since a {@link Configurator} mutates its Choco model while solving, it can serve only one request
+ * at a time. The pool creates up to size configurators from one KB template (see {@link IConfiguratorCreatable}),
+ * lends them out per request, and brings them back to their initial state (see {@link Configurator#clear()})
+ * when they are given back.
+ * <p>
+ * Configurators are created lazily on demand, or eagerly with {@link #warmUp()}.
+ */
+@Slf4j
+public class ConfiguratorPool implements AutoCloseable {
+
+    private final IConfiguratorCreatable factory;
+
+    @Getter
+    private final int size;
+
+    private final BlockingQueue<Configurator> idleConfigurators;
+    private final AtomicInteger numCreated = new AtomicInteger(0);
+
+    private volatile boolean closed = false;
+
+    // how often a waiting thread tries to create a configurator, e.g., after one has been discarded
+    private static final long RETRY_INTERVAL = 100;
+
+    /**
+     * A constructor
+     * @param factory creates the configurators of the pool
+     * @param size the maximum number of configurators
+     */
+    public ConfiguratorPool(@NonNull IConfiguratorCreatable factory, int size) {
+        checkArgument(size > 0, "Size of the pool must be positive!");
+
+        this.factory = factory;
+        this.size = size;
+        this.idleConfigurators = new LinkedBlockingQueue<>(size);
+    }
+
+    /**
+     * Creates a pool with one configurator per available processor.
+     */
+    public ConfiguratorPool(@NonNull IConfiguratorCreatable factory) {
+        this(factory, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Creates all configurators of the pool in parallel, so that the first requests
+     * do not have to wait for the creation of the KBs.
+     */
+    public void warmUp() {
+        checkState(!closed, "The pool is closed!");
+
+        int numToCreate = size - numCreated.get();
+        log.debug("{}Warming up the configurator pool with {} configurators", LoggerUtils.tab(), numToCreate);
+
+        IntStream.range(0, numToCreate).parallel().forEach(i -> {
+            Configurator configurator = tryCreate();
+            if (configurator != null) {
+                idleConfigurators.offer(configurator);
+            }
+        });
+    }
+
+    /**
+     * Borrows a configurator, waiting if all configurators are in use.
+     * @return a {@link Configurator}, which has to be given back with {@link #giveBack(Configurator)}
+     */
+    public Configurator borrow() throws InterruptedException {
+        Configurator configurator = tryBorrow();
+        while (configurator == null) {
+            configurator = idleConfigurators.poll(RETRY_INTERVAL, TimeUnit.MILLISECONDS);
+            if (configurator == null) {
+                configurator = tryBorrow();
+            }
+        }
+        return configurator;
+    }
+
+    /**
+     * Borrows a configurator, waiting up to the given time if all configurators are in use.
+     * @return a {@link Configurator}, or null if the waiting time elapsed
+     */
+    public Configurator tryBorrow(long timeout, @NonNull TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+
+        Configurator configurator = tryBorrow();
+        long remaining;
+        while (configurator == null && (remaining = deadline - System.nanoTime()) > 0) {
+            configurator = idleConfigurators.poll(Math.min(remaining, TimeUnit.MILLISECONDS.toNanos(RETRY_INTERVAL)),
+                    TimeUnit.NANOSECONDS);
+            if (configurator == null) {
+                configurator = tryBorrow();
+            }
+        }
+        return configurator;
+    }
+
+    /**
+     * Borrows a configurator without waiting.
+     * @return a {@link Configurator}, or null if all configurators are in use
+     */
+    public Configurator tryBorrow() {
+        checkState(!closed, "The pool is closed!");
+
+        Configurator configurator = idleConfigurators.poll();
+        if (configurator == null) {
+            configurator = tryCreate();
+        }
+        return configurator;
+    }
+
+    /**
+     * Gives a borrowed configurator back to the pool. The configurator is brought back to its initial state.
+     * If the configurator cannot be cleared, it is thrown away, and the pool creates a new one on demand,
+     * also for the threads which are already waiting in {@link #borrow()}.
+     * @param configurator a borrowed {@link Configurator}
+     */
+    public void giveBack(@NonNull Configurator configurator) {
+        try {
+            configurator.clear();
+        } catch (RuntimeException e) {
+            numCreated.decrementAndGet();
+            log.warn("{}Discarded a configurator which could not be cleared - {}", LoggerUtils.tab(), e.getMessage());
+            return;
+        }
+
+        if (!closed) {
+            idleConfigurators.offer(configurator);
+        }
+    }
+
+    /**
+     * Borrows a configurator, executes the given task with it, and gives it back.
+     * @param task a function using the configurator
+     * @return the result of the task
+     */
+    public <T> T execute(@NonNull Function<Configurator, T> task) throws InterruptedException {
+        Configurator configurator = borrow();
+        try {
+            return task.apply(configurator);
+        } finally {
+            giveBack(configurator);
+        }
+    }
+
+    public int getNumCreated() {
+        return numCreated.get();
+    }
+
+    public int getNumIdle() {
+        return idleConfigurators.size();
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        idleConfigurators.clear();
+    }
+
+    /**
+     * Creates a new configurator if the pool is not full yet.
+     * @return a new {@link Configurator}, or null if the pool is full
+     */
+    private Configurator tryCreate() {
+        int created;
+        do {
+            created = numCreated.get();
+            if (created >= size) {
+                return null;
+            }
+        } while (!numCreated.compareAndSet(created, created + 1));
+
+        try {
+            Configurator configurator = factory.create();
+            log.trace("{}Created configurator {} of the pool", LoggerUtils.tab(), created + 1);
+            return configurator;
+        } catch (RuntimeException e) {
+            numCreated.decrementAndGet();
+            throw e;
+        }
+    }
+}
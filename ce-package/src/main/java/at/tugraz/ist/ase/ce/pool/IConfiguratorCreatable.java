@@ -0,0 +1,22 @@
+/*
+ * CECore - Core components of a Configuration Environment
+ *
+ * Copyright (c) 2022
+ *
+ * @author: Viet-Man Le (vietman.le@ist.tugraz.at)
+ */
+
+package at.tugraz.ist.ase.ce.pool;
+
+import at.tugraz.ist.ase.ce.Configurator;
+
+/**
+ * Creates independent {@link Configurator}s from one KB template.
+ * <p>
+ * Each call has to return a {@link Configurator} with its own KB, i.e., its own Choco model,
+ * e.g., () -> new Configurator(new FMKB<>(featureModel, true), true, new FMSolutionTranslator())
+ */
+@FunctionalInterface
+public interface IConfiguratorCreatable {
+    Configurator create();
+}
@@ -0,0 +1,38 @@
+/*
+ * CECore - Core components of a Configuration Environment
+ *
+ * Copyright (c) 2022
+ *
+ * @author: Viet-Man Le (vietman.le@ist.tugraz.at)
+ */
+
+package at.tugraz.ist.ase.ce.portfolio;
+
+import at.tugraz.ist.ase.ce.Solution;
+import at.tugraz.ist.ase.ce.batch.BatchStatus;
+import lombok.Builder;
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * The answer of a {@link SolverPortfolio}.
+ */
+@Value
+@Builder
+public class PortfolioResult {
+    /**
+     * the strategy which answered first, null if no strategy answered
+     */
+    PortfolioStrategy winner;
+    /**
+     * SOLVED or UNSATISFIABLE if a strategy answered, TIMEOUT if all strategies reached the timeout,
+     * ERROR if all strategies failed
+     */
+    BatchStatus status;
+    List<Solution> solutions;
+    /**
+     * runtime of the winner in nanoseconds
+     */
+    long runtime;
+}
@@ -0,0 +1,58 @@
+/*
+ * CECore - Core components of a Configuration Environment
+ *
+ * Copyright (c) 2022
+ *
+ * @author: Viet-Man Le (vietman.le@ist.tugraz.at)
+ */
+
+package at.tugraz.ist.ase.ce.portfolio;
+
+import at.tugraz.ist.ase.heuristics.ValueVariableOrdering;
+import lombok.NonNull;
+import lombok.Value;
+
+/**
+ * A search strategy of a {@link SolverPortfolio}.
+ */
+@Value
+public class PortfolioStrategy {
+
+    public enum Kind {
+        /**
+         * the default search of Choco
+         */
+        DEFAULT,
+        /**
+         * the variable and value ordering of a {@link ValueVariableOrdering}, e.g., learned by matrix factorization
+         */
+        VVO,
+        /**
+         * a random variable and value selection
+         */
+        RANDOM
+    }
+
+    /**
+     * the name of the strategy, used in the win statistics
+     */
+    String name;
+    Kind kind;
+    ValueVariableOrdering vvo;
+    long seed;
+
+    public static PortfolioStrategy defaultSearch() {
+        return new PortfolioStrategy("default", Kind.DEFAULT, null, 0);
+    }
+
+    /**
+     * @param vvo a {@link ValueVariableOrdering}, which is bound to the KB of each configurator
+     */
+    public static PortfolioStrategy vvo(@NonNull String name, @NonNull ValueVariableOrdering vvo) {
+        return new PortfolioStrategy(name, Kind.VVO, vvo, 0);
+    }
+
+    public static PortfolioStrategy random(long seed) {
+        return new PortfolioStrategy("random-" + seed, Kind.RANDOM, null, seed);
+    }
+}
@@ -0,0 +1,240 @@
+/*
+ * CECore - Core components of a Configuration Environment
+ *
+ * Copyright (c) 2022
+ *
+ * @author: Viet-Man Le (vietman.le@ist.tugraz.at)
+ */
+
+package at.tugraz.ist.ase.ce.portfolio;
+
+import at.tugraz.ist.ase.ce.Configurator;
+import at.tugraz.ist.ase.ce.Requirement;
+import at.tugraz.ist.ase.ce.Solution;
+import at.tugraz.ist.ase.ce.batch.BatchStatus;
+import at.tugraz.ist.ase.ce.pool.ConfiguratorPool;
+import at.tugraz.ist.ase.common.LoggerUtils;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.chocosolver.util.criteria.Criterion;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Runs several search strategies for the same requirement at the same time, each on its own configurator
+ * of a {@link ConfiguratorPool}, and returns the answer of the first strategy which finds the solutions
+ * or proves that there is no solution. The other strategies are then stopped by a stop criterion.
+ * <p>
+ * The pool should have at least one configurator per strategy, otherwise the strategies do not run
+ * at the same time.
+ * <p>
+ * The portfolio counts the wins of each strategy per class of requirements, so that the portfolio could later
+ * be reduced to the winning strategies of each class.
+ */
+@Slf4j
+public class SolverPortfolio implements AutoCloseable {
+
+    public static final String DEFAULT_REQUEST_CLASS = "default";
+
+    private final ConfiguratorPool pool;
+    private final ExecutorService executor;
+    private final List<PortfolioStrategy> strategies;
+
+    // request class -> strategy name -> number of wins
+    private final Map<String, Map<String, LongAdder>> wins = new ConcurrentHashMap<>();
+
+    /**
+     * A constructor
+     * @param pool the configurators running the strategies, their translators have to be set
+     * @param strategies the strategies, with different names
+     */
+    public SolverPortfolio(@NonNull ConfiguratorPool pool, @NonNull List<PortfolioStrategy> strategies) {
+        checkArgument(!strategies.isEmpty(), "The portfolio must have a strategy!");
+        checkArgument(strategies.stream().map(PortfolioStrategy::getName).distinct().count() == strategies.size(),
+                "The names of the strategies must be different!");
+
+        this.pool = pool;
+        this.strategies = List.copyOf(strategies);
+        this.executor = Executors.newFixedThreadPool(strategies.size());
+    }
+
+    public List<PortfolioStrategy> getStrategies() {
+        return strategies;
+    }
+
+    /**
+     * Finds the first maxNumConf solutions satisfying a requirement.
+     * @param requirement a {@link Requirement}
+     * @param maxNumConf the maximum number of solutions, 0 - no limit
+     * @param timeout the timeout in milliseconds, 0 - no timeout
+     * @return the answer of the first strategy
+     */
+    public PortfolioResult findSolutions(@NonNull Requirement requirement, int maxNumConf, long timeout) throws InterruptedException {
+        return findSolutions(DEFAULT_REQUEST_CLASS, requirement, maxNumConf, timeout);
+    }
+
+    /**
+     * Finds the first maxNumConf solutions satisfying a requirement, and counts the win for the given class of requirements.
+     * @param requestClass the class of the requirement, e.g., the set of assigned variables
+     * @param requirement a {@link Requirement}
+     * @param maxNumConf the maximum number of solutions, 0 - no limit
+     * @param timeout the timeout in milliseconds, 0 - no timeout
+     * @return the answer of the first strategy
+     */
+    public PortfolioResult findSolutions(@NonNull String requestClass, @NonNull Requirement requirement,
+                                         int maxNumConf, long timeout) throws InterruptedException {
+        LoggerUtils.indent();
+        log.debug("{}Racing {} strategies [requirement={}]", LoggerUtils.tab(), strategies.size(), requirement);
+
+        AtomicBoolean cancelled = new AtomicBoolean(false);
+        CompletionService<PortfolioResult> completionService = new ExecutorCompletionService<>(executor);
+        for (PortfolioStrategy strategy : strategies) {
+            completionService.submit(() -> pool.execute(c -> run(c, strategy, requirement, maxNumConf, timeout, cancelled)));
+        }
+
+        PortfolioResult winner = null;
+        PortfolioResult best = null; // the result with the most solutions, if no strategy answers
+        try {
+            for (int i = 0; i < strategies.size() && winner == null; i++) {
+                PortfolioResult result;
+                try {
+                    result = completionService.take().get();
+                } catch (ExecutionException e) {
+                    log.warn("{}A strategy failed - {}", LoggerUtils.tab(), e.getCause().getMessage());
+                    continue;
+                }
+
+                if (result.getStatus() == BatchStatus.SOLVED || result.getStatus() == BatchStatus.UNSATISFIABLE) {
+                    winner = result;
+                } else if (best == null || result.getSolutions().size() > best.getSolutions().size()) {
+                    best = result;
+                }
+            }
+        } finally {
+            cancelled.set(true); // stops the other strategies
+        }
+
+        if (winner != null) {
+            wins.computeIfAbsent(requestClass, k -> new ConcurrentHashMap<>())
+                    .computeIfAbsent(winner.getWinner().getName(), k -> new LongAdder())
+                    .increment();
+            log.debug("{}Strategy {} won [status={}, runtime={} ns]", LoggerUtils.tab(),
+                    winner.getWinner().getName(), winner.getStatus(), winner.getRuntime());
+        }
+        LoggerUtils.outdent();
+
+        if (winner != null) {
+            return winner;
+        }
+        if (best != null) {
+            return PortfolioResult.builder()
+                    .status(BatchStatus.TIMEOUT)
+                    .solutions(best.getSolutions())
+                    .runtime(best.getRuntime())
+                    .build();
+        }
+        return PortfolioResult.builder()
+                .status(BatchStatus.ERROR)
+                .solutions(Collections.emptyList())
+                .build();
+    }
+
+    /**
+     * @return the number of wins of each strategy for the given class of requirements
+     */
+    public Map<String, Long> getWins(@NonNull String requestClass) {
+        Map<String, Long> result = new LinkedHashMap<>();
+        Map<String, LongAdder> classWins = wins.getOrDefault(requestClass, Collections.emptyMap());
+        for (PortfolioStrategy strategy : strategies) {
+            LongAdder adder = classWins.get(strategy.getName());
+            result.put(strategy.getName(), adder != null ? adder.sum() : 0L);
+        }
+        return result;
+    }
+
+    /**
+     * @return the number of wins of each strategy over all classes of requirements
+     */
+    public Map<String, Long> getWins() {
+        Map<String, Long> result = new LinkedHashMap<>();
+        strategies.forEach(s -> result.put(s.getName(), 0L));
+        for (Map<String, LongAdder> classWins : wins.values()) {
+            classWins.forEach((name, adder) -> result.merge(name, adder.sum(), Long::sum));
+        }
+        return result;
+    }
+
+    /**
+     * @return the classes of requirements with at least one win
+     */
+    public Set<String> getRequestClasses() {
+        return Collections.unmodifiableSet(wins.keySet());
+    }
+
+    public void resetStatistics() {
+        wins.clear();
+    }
+
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+
+    private PortfolioResult run(Configurator configurator, PortfolioStrategy strategy, Requirement requirement,
+                                int maxNumConf, long timeout, AtomicBoolean cancelled) {
+        if (cancelled.get()) {
+            return cancelledResult(strategy);
+        }
+
+        long start = System.nanoTime();
+        switch (strategy.getKind()) {
+            case VVO -> configurator.setVVO(strategy.getVvo().bind(configurator.getKb()));
+            case RANDOM -> configurator.setRandomSearch(strategy.getSeed());
+            default -> configurator.clearVVO();
+        }
+
+        Criterion cancellation = cancelled::get;
+        List<Solution> solutions;
+        boolean stopped;
+        try {
+            configurator.addStopCriterion(cancellation);
+            configurator.findSolutions(false, maxNumConf, requirement, timeout);
+            solutions = List.copyOf(configurator.getSolutions());
+            stopped = configurator.isStopped();
+        } finally {
+            configurator.removeStopCriterion(cancellation);
+            configurator.clearVVO();
+            configurator.emptySolutions();
+        }
+        long runtime = System.nanoTime() - start;
+
+        if (stopped) {
+            return cancelled.get() ? cancelledResult(strategy) : PortfolioResult.builder()
+                    .winner(strategy)
+                    .status(BatchStatus.TIMEOUT)
+                    .solutions(solutions)
+                    .runtime(runtime)
+                    .build();
+        }
+
+        return PortfolioResult.builder()
+                .winner(strategy)
+                .status(solutions.isEmpty() ? BatchStatus.UNSATISFIABLE : BatchStatus.SOLVED)
+                .solutions(solutions)
+                .runtime(runtime)
+                .build();
+    }
+
+    private static PortfolioResult cancelledResult(PortfolioStrategy strategy) {
+        return PortfolioResult.builder()
+                .winner(strategy)
+                .status(BatchStatus.TIMEOUT)
+                .solutions(Collections.emptyList())
+                .build();
+    }
+}
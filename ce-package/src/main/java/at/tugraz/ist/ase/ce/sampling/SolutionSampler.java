@@ -0,0 +1,210 @@
+/*
+ * CECore - Core components of a Configuration Environment
+ *
+ * Copyright (c) 2022
+ *
+ * @author: Viet-Man Le (vietman.le@ist.tugraz.at)
+ */
+
+package at.tugraz.ist.ase.ce.sampling;
+
+import at.tugraz.ist.ase.ce.Configurator;
+import at.tugraz.ist.ase.ce.Requirement;
+import at.tugraz.ist.ase.ce.Solution;
+import at.tugraz.ist.ase.ce.pool.ConfiguratorPool;
+import at.tugraz.ist.ase.common.LoggerUtils;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Samples solutions spread across the solution space, instead of the first solutions of a depth-first search,
+ * which are clustered in one corner of the space.
+ * <p>
+ * Candidate solutions are found by randomised searches from the root of the search tree
+ * (see {@link Configurator#findRandomSolution(long, long)}), in parallel on the configurators of
+ * a {@link ConfiguratorPool}. The candidates are split into at most NUM_TASKS tasks, independently of the size
+ * of the pool, and each task has its own seed derived from the seed of the sample.
+ * Then, the sample is selected greedily from the candidates, each time taking the candidate with the largest
+ * Hamming distance to the already selected solutions (max-min diversity).
+ * <p>
+ * The same seed gives the same sample, regardless of the size of the pool and the scheduling of the tasks,
+ * as long as no timeout is reached.
+ */
+@Slf4j
+public class SolutionSampler implements AutoCloseable {
+
+    public static final int DEFAULT_OVERSAMPLING = 4;
+    /**
+     * the maximum number of tasks of a sample, scheduled onto the configurators of the pool
+     */
+    public static final int NUM_TASKS = 16;
+
+    private final ConfiguratorPool pool;
+    private final ExecutorService executor;
+
+    /**
+     * the number of candidates per sampled solution
+     */
+    @Getter
+    private final int oversampling;
+
+    /**
+     * A constructor
+     * @param pool the configurators used to find the candidates, their translators have to be set to sample with requirements
+     * @param oversampling the number of candidates per sampled solution, 1 - no diversity selection
+     */
+    public SolutionSampler(@NonNull ConfiguratorPool pool, int oversampling) {
+        checkArgument(oversampling > 0, "oversampling must be positive!");
+
+        this.pool = pool;
+        this.oversampling = oversampling;
+        this.executor = Executors.newFixedThreadPool(pool.getSize());
+    }
+
+    public SolutionSampler(@NonNull ConfiguratorPool pool) {
+        this(pool, DEFAULT_OVERSAMPLING);
+    }
+
+    /**
+     * Samples solutions of the KB.
+     * @param numSamples the number of solutions
+     * @param seed the seed of the sample
+     * @param timeout the timeout per task in milliseconds, 0 - no timeout
+     * @return at most numSamples different solutions, fewer if the KB has fewer solutions
+     */
+    public List<Solution> sample(int numSamples, long seed, long timeout) throws InterruptedException, ExecutionException {
+        return sample(null, numSamples, seed, timeout);
+    }
+
+    /**
+     * Samples solutions satisfying a requirement.
+     * @param requirement a {@link Requirement}, null - no requirement
+     * @param numSamples the number of solutions
+     * @param seed the seed of the sample
+     * @param timeout the timeout per task in milliseconds, 0 - no timeout
+     * @return at most numSamples different solutions, fewer if there are fewer solutions satisfying the requirement
+     */
+    public List<Solution> sample(Requirement requirement, int numSamples, long seed, long timeout) throws InterruptedException, ExecutionException {
+        checkArgument(numSamples > 0, "numSamples must be positive!");
+
+        LoggerUtils.indent();
+        log.debug("{}Sampling solutions [numSamples={}, seed={}, requirement={}]", LoggerUtils.tab(), numSamples, seed, requirement);
+
+        // splits the candidates into a fixed number of tasks, each task with its own seed,
+        // so that the sample does not depend on the number of configurators
+        int numCandidates = numSamples * oversampling;
+        int numTasks = Math.min(NUM_TASKS, numCandidates);
+        SplittableRandom random = new SplittableRandom(seed);
+
+        List<Future<List<Solution>>> futures = new ArrayList<>(numTasks);
+        for (int t = 0; t < numTasks; t++) {
+            int quota = numCandidates / numTasks + (t < numCandidates % numTasks ? 1 : 0);
+            long taskSeed = random.nextLong();
+            futures.add(executor.submit(() -> pool.execute(c -> findCandidates(c, requirement, quota, taskSeed, timeout))));
+        }
+
+        // merges the candidates in the order of the tasks, solutions found by several tasks are kept once
+        Set<Solution> candidates = new LinkedHashSet<>();
+        for (Future<List<Solution>> future : futures) {
+            candidates.addAll(future.get());
+        }
+
+        List<Solution> sample = selectDiverse(new ArrayList<>(candidates), numSamples);
+
+        log.debug("{}Sampled {} solutions from {} candidates", LoggerUtils.tab(), sample.size(), candidates.size());
+        LoggerUtils.outdent();
+        return sample;
+    }
+
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+
+    private List<Solution> findCandidates(Configurator configurator, Requirement requirement, int quota, long seed, long timeout) {
+        boolean opened = !configurator.isSessionOpened();
+        if (opened) {
+            configurator.openSession(false);
+        } else {
+            configurator.reset();
+        }
+
+        try {
+            if (requirement != null) {
+                configurator.setRequirement(requirement);
+            }
+
+            // one seed per candidate, so that a candidate does not depend on the random state of the previous searches
+            SplittableRandom random = new SplittableRandom(seed);
+            long deadline = timeout > 0 ? System.currentTimeMillis() + timeout : 0;
+            List<Solution> candidates = new ArrayList<>(quota);
+            while (candidates.size() < quota) {
+                long remaining = 0;
+                if (deadline > 0) {
+                    remaining = deadline - System.currentTimeMillis();
+                    if (remaining <= 0) {
+                        break;
+                    }
+                }
+
+                Solution solution = configurator.findRandomSolution(random.nextLong(), remaining);
+                if (solution == null) {
+                    break; // no more solutions, or the timeout is reached
+                }
+                candidates.add(solution);
+            }
+            return candidates;
+        } finally {
+            configurator.clearVVO();
+            if (opened) {
+                configurator.closeSession();
+            } else {
+                configurator.reset();
+            }
+        }
+    }
+
+    /**
+     * Greedy max-min selection - starts with the first candidate, then repeatedly selects the candidate
+     * with the largest Hamming distance to its nearest selected solution. Ties are broken by the order of the candidates.
+     */
+    static List<Solution> selectDiverse(List<Solution> candidates, int numSamples) {
+        if (candidates.size() <= numSamples) {
+            return candidates;
+        }
+
+        List<Solution> selected = new ArrayList<>(numSamples);
+        int[] minDistances = new int[candidates.size()];
+        Arrays.fill(minDistances, Integer.MAX_VALUE);
+        boolean[] taken = new boolean[candidates.size()];
+
+        int next = 0;
+        while (selected.size() < numSamples) {
+            Solution solution = candidates.get(next);
+            selected.add(solution);
+            taken[next] = true;
+
+            int best = -1;
+            for (int i = 0; i < candidates.size(); i++) {
+                if (taken[i]) {
+                    continue;
+                }
+                minDistances[i] = Math.min(minDistances[i], solution.hammingDistance(candidates.get(i)));
+                if (best < 0 || minDistances[i] > minDistances[best]) {
+                    best = i;
+                }
+            }
+            next = best;
+        }
+        return selected;
+    }
+}
@@ -0,0 +1,365 @@
+/*
+ * CECore - Core components of a Configuration Environment
+ *
+ * Copyright (c) 2022
+ *
+ * @author: Viet-Man Le (vietman.le@ist.tugraz.at)
+ */
+
+package at.tugraz.ist.ase.ce.validator;
+
+import at.tugraz.ist.ase.ce.ConfigurationModel;
+import at.tugraz.ist.ase.ce.IntSolution;
+import at.tugraz.ist.ase.ce.Solution;
+import at.tugraz.ist.ase.ce.SolutionSchema;
+import at.tugraz.ist.ase.common.LoggerUtils;
+import at.tugraz.ist.ase.kb.core.*;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.chocosolver.memory.IEnvironment;
+import org.chocosolver.solver.Cause;
+import org.chocosolver.solver.Model;
+import org.chocosolver.solver.Solver;
+import org.chocosolver.solver.constraints.Propagator;
+import org.chocosolver.solver.exception.ContradictionException;
+import org.chocosolver.solver.variables.IntVar;
+import org.chocosolver.solver.variables.Variable;
+
+import java.util.*;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkElementIndex;
+
+/**
+ * Validates full configurations without a search.
+ * <p>
+ * Each constraint of the KB is compiled once into a table of the allowed tuples over its scope,
+ * i.e., the KB variables of its Choco constraints. The table is a bitset indexed by the mixed-radix number
+ * of the domain value indexes of the scope variables. Hence, checking a configuration only reads
+ * one bit per constraint. The allowed tuples are enumerated with a propagation-based depth-first search
+ * on the Choco model of the KB, where auxiliary variables of the Choco constraints are existentially quantified.
+ * <p>
+ * Constraints whose tables would exceed maxTableSize bits are not compiled, they are checked by
+ * posting and propagating them (residual constraints), which is much slower.
+ * <p>
+ * A configuration is an int[] with the code (domain value index) of each variable of the {@link SolutionSchema}
+ * of the KB, see {@link #encode(Solution)}. The validator owns the Choco model of its KB, hence the KB must not be
+ * used by a {@link at.tugraz.ist.ase.ce.Configurator}. Checking compiled constraints is thread-safe,
+ * residual constraints are checked one thread at a time.
+ */
+@Slf4j
+public class ConfigurationValidator {
+
+    public static final long DEFAULT_MAX_TABLE_SIZE = 1L << 24;
+
+    private final Model model;
+    private final Solver solver;
+    private final IEnvironment environment;
+
+    private final IntVar[] vars;
+    @Getter
+    private final SolutionSchema schema;
+
+    // compiled constraints
+    private final List<Constraint> constraints = new ArrayList<>();
+    private final int[][] scopes;
+    private final int[][] strides;
+    private final long[][] tables;
+
+    // residual constraints
+    private final List<Constraint> residualConstraints = new ArrayList<>();
+    private final List<int[]> residualScopes = new ArrayList<>();
+    private final List<List<IntVar>> residualAuxVars = new ArrayList<>();
+
+    @Getter
+    private final long maxTableSize;
+
+    public ConfigurationValidator(@NonNull KB kb, boolean rootConstraints) {
+        this(kb, rootConstraints, DEFAULT_MAX_TABLE_SIZE);
+    }
+
+    /**
+     * A constructor
+     * @param kb a {@link KB}, which must not be used by other objects
+     * @param rootConstraints true - the root constraint of the feature model is also checked
+     * @param maxTableSize the maximum number of tuples of a compiled constraint
+     */
+    public ConfigurationValidator(@NonNull KB kb, boolean rootConstraints, long maxTableSize) {
+        checkArgument(maxTableSize > 0 && maxTableSize <= Integer.MAX_VALUE, "maxTableSize must be in (0, 2^31)!");
+
+        this.model = kb.getModelKB();
+        this.solver = model.getSolver();
+        this.environment = model.getEnvironment();
+        this.maxTableSize = maxTableSize;
+
+        this.schema = SolutionSchema.of(kb);
+        this.vars = kb.getVariableList().stream().map(v -> v instanceof IntVariable ? ((IntVariable) v).getChocoVar() : ((BoolVariable) v).getChocoVar()).toArray(IntVar[]::new);
+
+        ConfigurationModel configurationModel = new ConfigurationModel(kb, rootConstraints);
+        configurationModel.initialize(); // unpost all Choco constraints from the Choco model
+
+        LoggerUtils.indent();
+        log.debug("{}Compiling constraints of {} >>>", LoggerUtils.tab(), kb.getName());
+
+        List<int[]> compiledScopes = new ArrayList<>();
+        List<int[]> compiledStrides = new ArrayList<>();
+        List<long[]> compiledTables = new ArrayList<>();
+        for (Constraint constraint : configurationModel.getCorrectConstraints()) {
+            compile(constraint, compiledScopes, compiledStrides, compiledTables);
+        }
+        this.scopes = compiledScopes.toArray(new int[0][]);
+        this.strides = compiledStrides.toArray(new int[0][]);
+        this.tables = compiledTables.toArray(new long[0][]);
+
+        log.debug("{}<<< Compiled {} constraints, {} residual constraints", LoggerUtils.tab(), constraints.size(), residualConstraints.size());
+        LoggerUtils.outdent();
+    }
+
+    public int getNumCompiledConstraints() {
+        return constraints.size();
+    }
+
+    public int getNumResidualConstraints() {
+        return residualConstraints.size();
+    }
+
+    /**
+     * Converts a full configuration into the codes of the values.
+     * @param solution a {@link Solution} assigning all variables of the KB
+     * @return the codes, in the order of the schema
+     */
+    public int[] encode(@NonNull Solution solution) {
+        return IntSolution.of(schema, solution).getCodes();
+    }
+
+    public boolean isValid(@NonNull Solution solution) {
+        return isValid(encode(solution));
+    }
+
+    /**
+     * Checks whether a full configuration satisfies all constraints.
+     * @param values the codes of the values of all variables, in the order of the schema
+     * @throws IndexOutOfBoundsException if a code is not in the domain of its variable
+     */
+    public boolean isValid(@NonNull int[] values) {
+        checkValues(values);
+
+        for (int c = 0; c < tables.length; c++) {
+            if (!isSatisfied(c, values)) {
+                return false;
+            }
+        }
+        for (int c = 0; c < residualConstraints.size(); c++) {
+            if (!isResidualSatisfied(c, values)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the constraints violated by a full configuration.
+     * @param values the codes of the values of all variables, in the order of the schema
+     */
+    public List<Constraint> getViolatedConstraints(@NonNull int[] values) {
+        checkValues(values);
+
+        List<Constraint> violated = new LinkedList<>();
+        for (int c = 0; c < tables.length; c++) {
+            if (!isSatisfied(c, values)) {
+                violated.add(constraints.get(c));
+            }
+        }
+        for (int c = 0; c < residualConstraints.size(); c++) {
+            if (!isResidualSatisfied(c, values)) {
+                violated.add(residualConstraints.get(c));
+            }
+        }
+        return violated;
+    }
+
+    private void checkValues(int[] values) {
+        checkArgument(values.length == vars.length, "The configuration must assign all variables!");
+        for (int i = 0; i < values.length; i++) {
+            checkElementIndex(values[i], schema.getDomainSize(i), "Code out of bound!");
+        }
+    }
+
+    private boolean isSatisfied(int c, int[] values) {
+        int[] scope = scopes[c];
+        int[] stride = strides[c];
+
+        int index = 0;
+        for (int k = 0; k < scope.length; k++) {
+            index += values[scope[k]] * stride[k];
+        }
+        return (tables[c][index >>> 6] & (1L << index)) != 0;
+    }
+
+    private synchronized boolean isResidualSatisfied(int c, int[] values) {
+        org.chocosolver.solver.constraints.Constraint[] chocoConstraints = residualConstraints.get(c).getChocoConstraints()
+                .toArray(new org.chocosolver.solver.constraints.Constraint[0]);
+        int[] scope = residualScopes.get(c);
+
+        model.post(chocoConstraints);
+        environment.worldPush();
+
+        boolean satisfied = propagate();
+        for (int k = 0; satisfied && k < scope.length; k++) {
+            satisfied = instantiate(vars[scope[k]], schema.getChocoValue(scope[k], values[scope[k]]));
+        }
+        if (satisfied) {
+            satisfied = existsAuxValues(residualAuxVars.get(c));
+        }
+
+        environment.worldPop();
+        model.unpost(chocoConstraints);
+        return satisfied;
+    }
+
+    private void compile(Constraint constraint, List<int[]> compiledScopes, List<int[]> compiledStrides, List<long[]> compiledTables) {
+        // the variables of the propagators, the KB variables and their views belong to the scope
+        Set<Variable> propagatorVars = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (org.chocosolver.solver.constraints.Constraint c : constraint.getChocoConstraints()) {
+            for (Propagator<?> propagator : c.getPropagators()) {
+                Collections.addAll(propagatorVars, propagator.getVars());
+            }
+        }
+
+        List<Integer> scopeList = new ArrayList<>();
+        long tableSize = 1;
+        for (int i = 0; i < vars.length; i++) {
+            boolean inScope = propagatorVars.remove(vars[i]);
+            for (int v = 0; v < vars[i].getNbViews(); v++) {
+                inScope |= propagatorVars.remove(vars[i].getView(v));
+            }
+            if (inScope) {
+                scopeList.add(i);
+                if (tableSize <= maxTableSize) { // avoid overflows
+                    tableSize *= schema.getDomainSize(i);
+                }
+            }
+        }
+        int[] scope = scopeList.stream().mapToInt(Integer::intValue).toArray();
+
+        // the remaining variables are auxiliary variables of the Choco constraints
+        List<IntVar> auxVars = new ArrayList<>();
+        propagatorVars.stream().filter(v -> v instanceof IntVar).forEach(v -> auxVars.add((IntVar) v));
+
+        if (tableSize > maxTableSize) {
+            residualConstraints.add(constraint);
+            residualScopes.add(scope);
+            residualAuxVars.add(auxVars);
+
+            log.trace("{}Residual constraint [constraint={}, tableSize={}]", LoggerUtils.tab(), constraint, tableSize);
+            return;
+        }
+
+        int[] stride = new int[scope.length];
+        for (int k = 0, s = 1; k < scope.length; k++) {
+            stride[k] = s;
+            s *= schema.getDomainSize(scope[k]);
+        }
+        long[] table = new long[(int) ((tableSize + 63) >>> 6)];
+
+        org.chocosolver.solver.constraints.Constraint[] chocoConstraints = constraint.getChocoConstraints()
+                .toArray(new org.chocosolver.solver.constraints.Constraint[0]);
+        solver.hardReset();
+        model.post(chocoConstraints);
+        environment.worldPush();
+
+        if (propagate()) {
+            enumerate(0, 0, scope, stride, auxVars, table);
+        }
+
+        environment.worldPop();
+        model.unpost(chocoConstraints);
+
+        constraints.add(constraint);
+        compiledScopes.add(scope);
+        compiledStrides.add(stride);
+        compiledTables.add(table);
+
+        log.trace("{}Compiled constraint [constraint={}, scope={}, tableSize={}]", LoggerUtils.tab(), constraint, scope.length, tableSize);
+    }
+
+    /**
+     * Enumerates the allowed tuples of the scope variables from the k-th variable.
+     */
+    private void enumerate(int k, int index, int[] scope, int[] stride, List<IntVar> auxVars, long[] table) {
+        if (k == scope.length) {
+            if (existsAuxValues(auxVars)) {
+                table[index >>> 6] |= 1L << index;
+            }
+            return;
+        }
+
+        IntVar var = vars[scope[k]];
+        for (int j = 0; j < schema.getDomainSize(scope[k]); j++) {
+            int chocoValue = schema.getChocoValue(scope[k], j);
+            if (!var.contains(chocoValue)) {
+                continue;
+            }
+
+            environment.worldPush();
+            if (instantiate(var, chocoValue)) {
+                enumerate(k + 1, index + j * stride[k], scope, stride, auxVars, table);
+            }
+            environment.worldPop();
+        }
+    }
+
+    /**
+     * Checks whether the uninstantiated auxiliary variables have values satisfying the posted constraints.
+     */
+    private boolean existsAuxValues(List<IntVar> auxVars) {
+        IntVar var = null;
+        for (IntVar auxVar : auxVars) {
+            if (!auxVar.isInstantiated()) {
+                var = auxVar;
+                break;
+            }
+        }
+        if (var == null) {
+            return true; // propagators fail on violated constraints if all their variables are instantiated
+        }
+
+        List<Integer> values = new ArrayList<>(var.getDomainSize());
+        for (int v = var.getLB(); v <= var.getUB(); v = var.nextValue(v)) {
+            values.add(v);
+        }
+
+        for (int value : values) {
+            environment.worldPush();
+            boolean exists = instantiate(var, value) && existsAuxValues(auxVars);
+            environment.worldPop();
+
+            if (exists) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean instantiate(IntVar var, int value) {
+        try {
+            var.instantiateTo(value, Cause.Null);
+            solver.propagate();
+            return true;
+        } catch (ContradictionException e) {
+            solver.getEngine().flush();
+            return false;
+        }
+    }
+
+    private boolean propagate() {
+        try {
+            solver.propagate();
+            return true;
+        } catch (ContradictionException e) {
+            solver.getEngine().flush();
+            return false;
+        }
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * CECore - Core components of a Configuration Environment
+ *
+ * Copyright (c) 2022
+ *
+ * @author: Viet-Man Le (vietman.le@ist.tugraz.at)
+ */
+
+package at.tugraz.ist.ase.ce;
+
+import at.tugraz.ist.ase.kb.core.Assignment;
+import org.chocosolver.util.criteria.Criterion;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Disabled;
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static at.tugraz.ist.ase.ce.PizzasFixture.createConfigurator;
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConfiguratorSessionTest {
+
+    private static final List<Requirement> requirements = new LinkedList<>();
+
+    @BeforeAll
+    static void setUp() {
+        String[] features = {"Salami", "Ham", "Mozzarella", "Normal", "Big", "Neapolitan", "Sicilian", "CheesyCrust"};
+        for (String feature : features) {
+            for (String value : List.of("true", "false")) {
+                requirements.add(Requirement.requirementBuilder()
+                        .assignments(List.of(new Assignment(feature, value)))
+                        .build());
+            }
+        }
+    }
+
+    @Test
+    void testSession() {
+        Configurator configurator = createConfigurator();
+
+        configurator.openSession(false);
+        assertTrue(configurator.isSessionOpened());
+
+        configurator.findAllSolutions(false, 0);
+        assertEquals(42, configurator.getNumberSolutions());
+
+        configurator.findSolutions(false, 0, requirements.get(0)); // Salami = true
+        assertEquals(24, configurator.getNumberSolutions());
+        assertNull(configurator.getRequirement()); // removed by reset()
+
+        // the KB constraints are still posted
+        configurator.findAllSolutions(false, 0);
+        assertEquals(42, configurator.getNumberSolutions());
+
+        assertThrows(IllegalArgumentException.class, () -> configurator.findAllSolutions(true, 0));
+
+        configurator.closeSession();
+        assertFalse(configurator.isSessionOpened());
+
+        // reset() removes the requirement without a session, too
+        configurator.findSolutions(false, 0, requirements.get(0));
+        assertEquals(24, configurator.getNumberSolutions());
+        assertNull(configurator.getRequirement());
+
+        configurator.findAllSolutions(true, 0);
+        assertEquals(2560, configurator.getNumberSolutions());
+    }
+
+    @Test
+    void testRandomSolutionKeepsStopCriteria() {
+        Configurator configurator = createConfigurator();
+        configurator.openSession(false);
+
+        AtomicBoolean cancelled = new AtomicBoolean(false);
+        configurator.addStopCriterion(cancelled::get);
+        assertNotNull(configurator.findRandomSolution(1, 1000));
+        assertFalse(configurator.isStopped());
+
+        // the criterion of the caller is not removed by the time limit of the previous call
+        cancelled.set(true);
+        assertNull(configurator.findRandomSolution(2, 1000));
+        assertTrue(configurator.isStopped());
+
+        cancelled.set(false);
+        assertNotNull(configurator.findRandomSolution(3, 0));
+        configurator.closeSession();
+    }
+
+    @Test
+    void testStopCriteriaSurviveReset() {
+        for (boolean session : List.of(false, true)) {
+            Configurator configurator = createConfigurator();
+            if (session) {
+                configurator.openSession(false);
+            }
+
+            AtomicBoolean cancelled = new AtomicBoolean(false);
+            Criterion cancellation = cancelled::get;
+            configurator.addStopCriterion(cancellation);
+            assertEquals(new SolutionCount(42, true), configurator.countSolutions(null, 1000));
+
+            // the criterion of the caller is added again after the reset of the previous query
+            cancelled.set(true);
+            assertEquals(new SolutionCount(0, false), configurator.countSolutions(null, 0));
+            assertEquals(new SolutionCount(0, false), configurator.countSolutions(null, 0));
+
+            configurator.removeStopCriterion(cancellation);
+            assertEquals(new SolutionCount(42, true), configurator.countSolutions(null, 0));
+        }
+    }
+
+    /**
+     * Compares the per-query latency with and without the session mode.
+     */
+    @Disabled("Benchmark, run manually")
+    @Test
+    void benchmarkSession() {
+        int numRounds = 50;
+
+        Configurator configurator = createConfigurator();
+
+        Configurator sessionConfigurator = createConfigurator();
+        sessionConfigurator.openSession(false);
+
+        // warm up
+        for (Requirement requirement : requirements) {
+            configurator.findSolutions(false, 0, requirement);
+            sessionConfigurator.findSolutions(false, 0, requirement);
+        }
+
+        long time = 0;
+        long sessionTime = 0;
+        for (int i = 0; i < numRounds; i++) {
+            for (Requirement requirement : requirements) {
+                long start = System.nanoTime();
+                configurator.findSolutions(false, 0, requirement);
+                time += System.nanoTime() - start;
+
+                start = System.nanoTime();
+                sessionConfigurator.findSolutions(false, 0, requirement);
+                sessionTime += System.nanoTime() - start;
+
+                assertEquals(configurator.getNumberSolutions(), sessionConfigurator.getNumberSolutions());
+            }
+        }
+
+        int numQueries = numRounds * requirements.size();
+        System.out.printf("Per-query latency without session: %.3f ms%n", time / 1e6 / numQueries);
+        System.out.printf("Per-query latency with session: %.3f ms%n", sessionTime / 1e6 / numQueries);
+    }
+}
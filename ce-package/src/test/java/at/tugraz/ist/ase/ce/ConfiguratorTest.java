@@ -8,6 +8,9 @@
 
 package at.tugraz.ist.ase.ce;
 
+import at.tugraz.ist.ase.ce.optimization.LinearObjective;
+import at.tugraz.ist.ase.ce.optimization.LinearObjectiveReader;
+import at.tugraz.ist.ase.ce.optimization.OptimizationResult;
 import at.tugraz.ist.ase.ce.translator.camera.CameraSolutionTranslator;
 import at.tugraz.ist.ase.ce.translator.fm.FMSolutionTranslator;
 import at.tugraz.ist.ase.ce.writer.TxtSolutionWriter;
@@ -26,12 +29,16 @@ import at.tugraz.ist.ase.kb.core.Assignment;
 import at.tugraz.ist.ase.kb.fm.FMKB;
 import com.opencsv.exceptions.CsvValidationException;
 import lombok.Cleanup;
+import org.chocosolver.solver.Model;
 import org.junit.jupiter.api.Test;
 
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.LinkedList;
 import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -274,4 +281,288 @@ class ConfiguratorTest {
 //            }
         }
     }
-}
\ No newline at end of file
+
+    @Test
+    void testStreamSolutions() throws FeatureModelParserException {
+        // read the feature model
+        File fileFM = new File("src/test/resources/pizzas.xml");
+
+        @Cleanup("dispose")
+        FeatureModelParser<Feature, AbstractRelationship<Feature>, CTConstraint> parser = FMParserFactory.getInstance().getParser(fileFM.getName());
+        featureModel = parser.parse(fileFM);
+
+        // convert the feature model into FMKB
+        kb = new FMKB<>(featureModel, true);
+
+        FMKB<Feature, AbstractRelationship<Feature>, CTConstraint> checkKB = new FMKB<>(featureModel, true);
+
+        Configurator checker = new Configurator(checkKB, true, new FMSolutionTranslator());
+
+        Configurator configurator = new Configurator(kb, true, new FMSolutionTranslator());
+
+        // all solutions, none of them is kept by the configurator
+        try (Stream<Solution> stream = configurator.streamAllSolutions(false, 0)) {
+            assertEquals(42, stream.count());
+        }
+        assertEquals(0, configurator.getNumberSolutions());
+        // the streamed solutions are not referenced by the index of the configurator
+        assertEquals(0, configurator.getSolutionIndex().size());
+
+        // stop early
+        configurator.emptySolutions();
+        try (Stream<Solution> stream = configurator.streamAllSolutions(false, 0)) {
+            List<Solution> firstSolutions = stream.limit(5).toList();
+
+            assertEquals(5, firstSolutions.size());
+            for (Solution s : firstSolutions) {
+                assertTrue(checker.isConsistent(s));
+            }
+        }
+    }
+
+    @Test
+    void testProjectedEnumeration() throws FeatureModelParserException {
+        // read the feature model
+        File fileFM = new File("src/test/resources/pizzas.xml");
+
+        @Cleanup("dispose")
+        FeatureModelParser<Feature, AbstractRelationship<Feature>, CTConstraint> parser = FMParserFactory.getInstance().getParser(fileFM.getName());
+        featureModel = parser.parse(fileFM);
+
+        // convert the feature model into FMKB
+        kb = new FMKB<>(featureModel, true);
+
+        Configurator configurator = new Configurator(kb, true, new FMSolutionTranslator());
+        configurator.setProjected(true);
+        configurator.initializeWithKB();
+
+        SolutionIterator iterator = configurator.iterator(0, 0, true);
+        while (iterator.hasNext()) {
+            iterator.next();
+        }
+
+        configurator.reset();
+
+        // each solve call returns a new projected solution
+        assertEquals(42, configurator.getNumberSolutions());
+        assertEquals(42, iterator.getNumSolve());
+        assertEquals(0, iterator.getNumSimilar());
+    }
+
+    @Test
+    void testCompactSolutions() throws FeatureModelParserException {
+        // read the feature model
+        File fileFM = new File("src/test/resources/pizzas.xml");
+
+        @Cleanup("dispose")
+        FeatureModelParser<Feature, AbstractRelationship<Feature>, CTConstraint> parser = FMParserFactory.getInstance().getParser(fileFM.getName());
+        featureModel = parser.parse(fileFM);
+
+        // convert the feature model into FMKB
+        kb = new FMKB<>(featureModel, true);
+
+        Configurator configurator = new Configurator(kb, true, new FMSolutionTranslator());
+        configurator.findAllSolutions(false, 0);
+        List<Solution> solutions = List.copyOf(configurator.getSolutions());
+
+        configurator.setCompactSolutions(true);
+        configurator.findAllSolutions(false, 0);
+
+        assertEquals(42, configurator.getNumberSolutions());
+        for (int i = 0; i < solutions.size(); i++) {
+            Solution solution = configurator.getSolutions().get(i);
+
+            assertTrue(solution instanceof IntSolution);
+            assertEquals(solutions.get(i).toString(), solution.toString());
+            assertTrue(configurator.isConsistent(solution));
+        }
+    }
+
+    @Test
+    void testCountSolutions() throws FeatureModelParserException {
+        // read the feature model
+        File fileFM = new File("src/test/resources/pizzas.xml");
+
+        @Cleanup("dispose")
+        FeatureModelParser<Feature, AbstractRelationship<Feature>, CTConstraint> parser = FMParserFactory.getInstance().getParser(fileFM.getName());
+        featureModel = parser.parse(fileFM);
+
+        // convert the feature model into FMKB
+        kb = new FMKB<>(featureModel, true);
+
+        Configurator configurator = new Configurator(kb, true, new FMSolutionTranslator());
+
+        SolutionCount count = configurator.countSolutions(null, 0);
+        assertEquals(42, count.getCount());
+        assertTrue(count.isExact());
+        assertEquals(0, configurator.getNumberSolutions());
+
+        Requirement requirement = Requirement.requirementBuilder()
+                .assignments(new LinkedList<>(List.of(new Assignment("Salami", "true"))))
+                .build();
+        assertEquals(new SolutionCount(24, true), configurator.countSolutions(requirement, 0));
+    }
+
+    @Test
+    void testFindOptimal() throws FeatureModelParserException, IOException, CsvValidationException {
+        // read the feature model
+        File fileFM = new File("src/test/resources/pizzas.xml");
+
+        @Cleanup("dispose")
+        FeatureModelParser<Feature, AbstractRelationship<Feature>, CTConstraint> parser = FMParserFactory.getInstance().getParser(fileFM.getName());
+        featureModel = parser.parse(fileFM);
+
+        // convert the feature model into FMKB
+        kb = new FMKB<>(featureModel, true);
+
+        // read the prices of the features
+        InputStream is = IOUtils.getInputStream(this.getClass().getClassLoader(), "objective_pizzas.csv");
+        LinearObjective cheapest = new LinearObjectiveReader().read(is, LinearObjective.Direction.MINIMIZE);
+
+        Configurator configurator = new Configurator(kb, true, new FMSolutionTranslator());
+        int numVars = kb.getModelKB().getNbVars();
+
+        // the objective values of all solutions, sorted
+        configurator.findSolutions(false, 0);
+        List<Integer> allValues = configurator.getSolutions().stream()
+                .map(cheapest::evaluate).sorted().collect(Collectors.toList());
+        assertEquals(42, allValues.size());
+
+        OptimizationResult result = configurator.findOptimal(cheapest, 5, null, 0);
+        assertTrue(result.isProven());
+        assertEquals(allValues.subList(0, 5), result.getObjectiveValues());
+        for (int i = 0; i < 5; i++) {
+            assertEquals(result.getObjectiveValues().get(i).intValue(), cheapest.evaluate(result.getSolutions().get(i)));
+        }
+        // Mozzarella, Normal, Neapolitan
+        assertEquals(6, result.getBestValue());
+        assertEquals("true", result.getBest().getAssignment("Mozzarella").getValue());
+        assertEquals("false", result.getBest().getAssignment("Salami").getValue());
+
+        // the most expensive pizzas with Salami, reported while searching
+        LinearObjective expensive = LinearObjective.maximize();
+        cheapest.getVariables().forEach(v -> expensive.setWeight(v, "true", cheapest.getWeight(v, "true")));
+        Requirement requirement = Requirement.requirementBuilder()
+                .assignments(new LinkedList<>(List.of(new Assignment("Salami", "true"))))
+                .build();
+
+        result = configurator.findOptimal(expensive, 1, requirement, 0);
+        assertTrue(result.isProven());
+        assertEquals(17, result.getBestValue());
+        assertEquals("true", result.getBest().getAssignment("CheesyCrust").getValue());
+
+        // the model is reset, and the variables of the objectives are removed
+        assertEquals(numVars, kb.getModelKB().getNbVars());
+        assertFalse(configurator.hasAuxiliaryVariables());
+        assertEquals(new SolutionCount(42, true), configurator.countSolutions(null, 0));
+    }
+
+    @Test
+    void testReconfigure() throws FeatureModelParserException {
+        // read the feature model
+        File fileFM = new File("src/test/resources/pizzas.xml");
+
+        @Cleanup("dispose")
+        FeatureModelParser<Feature, AbstractRelationship<Feature>, CTConstraint> parser = FMParserFactory.getInstance().getParser(fileFM.getName());
+        featureModel = parser.parse(fileFM);
+
+        // convert the feature model into FMKB
+        kb = new FMKB<>(featureModel, true);
+
+        Configurator configurator = new Configurator(kb, true, new FMSolutionTranslator());
+
+        // a normal Neapolitan pizza with Salami only
+        Requirement order = Requirement.requirementBuilder()
+                .assignments(new LinkedList<>(List.of(new Assignment("Salami", "true"), new Assignment("Ham", "false"),
+                        new Assignment("Mozzarella", "false"), new Assignment("Normal", "true"),
+                        new Assignment("Neapolitan", "true"), new Assignment("CheesyCrust", "false"))))
+                .build();
+        configurator.findSolutions(false, 1, order);
+        Solution current = configurator.getSolutions().get(0);
+
+        // a cheesy crust requires a big pizza
+        Requirement change = Requirement.requirementBuilder()
+                .assignments(new LinkedList<>(List.of(new Assignment("CheesyCrust", "true"))))
+                .build();
+        ReconfigurationResult result = configurator.reconfigure(current, change, 0);
+        assertTrue(result.isFound());
+        assertTrue(result.isProven());
+        assertEquals(3, result.getDistance()); // CheesyCrust, Normal, Big
+        assertEquals(3, current.hammingDistance(result.getSolution()));
+        assertEquals("true", result.getSolution().getAssignment("Big").getValue());
+        assertEquals("true", result.getSolution().getAssignment("Salami").getValue());
+        assertEquals("true", result.getSolution().getAssignment("Neapolitan").getValue());
+
+        // without Salami, another topping is needed
+        change = Requirement.requirementBuilder()
+                .assignments(new LinkedList<>(List.of(new Assignment("Salami", "false"))))
+                .build();
+        result = configurator.reconfigure(current, change, 1000);
+        assertTrue(result.isProven());
+        assertEquals(2, result.getDistance());
+
+        // no pizza is normal and big
+        change = Requirement.requirementBuilder()
+                .assignments(new LinkedList<>(List.of(new Assignment("Big", "true"), new Assignment("Normal", "true"))))
+                .build();
+        result = configurator.reconfigure(current, change, 0);
+        assertFalse(result.isFound());
+        assertTrue(result.isProven());
+        assertEquals(-1, result.getDistance());
+
+        // the model is reset
+        assertEquals(new SolutionCount(42, true), configurator.countSolutions(null, 0));
+    }
+
+    @Test
+    void testReconfigurePartialSolution() {
+        Configurator configurator = PizzasFixture.createConfigurator();
+
+        // a normal Neapolitan pizza with Salami only, without the size
+        Requirement order = Requirement.requirementBuilder()
+                .assignments(new LinkedList<>(List.of(new Assignment("Salami", "true"), new Assignment("Ham", "false"),
+                        new Assignment("Mozzarella", "false"), new Assignment("Normal", "true"),
+                        new Assignment("Neapolitan", "true"), new Assignment("CheesyCrust", "false"))))
+                .build();
+        configurator.findSolutions(false, 1, order);
+        Solution current = Solution.builder()
+                .assignments(configurator.getSolutions().get(0).getAssignments().stream()
+                        .filter(a -> !a.getVariable().equals("Big") && !a.getVariable().equals("Normal"))
+                        .collect(Collectors.toList()))
+                .build();
+
+        // the size has no current value, hence only CheesyCrust changes
+        Requirement change = Requirement.requirementBuilder()
+                .assignments(new LinkedList<>(List.of(new Assignment("CheesyCrust", "true"), new Assignment("Big", "true"))))
+                .build();
+        ReconfigurationResult result = configurator.reconfigure(current, change, 0);
+        assertTrue(result.isFound());
+        assertTrue(result.isProven());
+        assertEquals(1, result.getDistance());
+        assertEquals("true", result.getSolution().getAssignment("Big").getValue());
+        assertEquals("false", result.getSolution().getAssignment("Normal").getValue());
+    }
+
+    @Test
+    void testRepeatedReconfigure() {
+        Configurator configurator = PizzasFixture.createConfigurator();
+        Model model = configurator.getKb().getModelKB();
+        int numVars = model.getNbVars();
+
+        configurator.findSolutions(false, 1);
+        Solution current = configurator.getSolutions().get(0);
+        Requirement change = Requirement.requirementBuilder()
+                .assignments(new LinkedList<>(List.of(new Assignment("CheesyCrust", "true"))))
+                .build();
+
+        ReconfigurationResult first = configurator.reconfigure(current, change, 0);
+        ReconfigurationResult second = configurator.reconfigure(current, change, 0);
+        assertTrue(second.isProven());
+        assertEquals(first.getDistance(), second.getDistance());
+
+        // the variables of the distance are removed after each reconfiguration
+        assertEquals(numVars, model.getNbVars());
+        assertFalse(configurator.hasAuxiliaryVariables());
+        assertEquals(new SolutionCount(42, true), configurator.countSolutions(null, 0));
+    }
+}
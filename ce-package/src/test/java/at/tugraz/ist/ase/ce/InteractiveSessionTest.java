@@ -0,0 +1,131 @@
+/*
+ * CECore - Core components of a Configuration Environment
+ *
+ * Copyright (c) 2022
+ *
+ * @author: Viet-Man Le (vietman.le@ist.tugraz.at)
+ */
+
+package at.tugraz.ist.ase.ce;
+
+import at.tugraz.ist.ase.kb.core.Assignment;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static at.tugraz.ist.ase.ce.PizzasFixture.createConfigurator;
+import static org.junit.jupiter.api.Assertions.*;
+
+class InteractiveSessionTest {
+
+    @Test
+    void testPushPop() {
+        Configurator configurator = createConfigurator();
+
+        InteractiveSession session = new InteractiveSession(configurator);
+        assertTrue(session.isRootConsistent());
+        assertEquals(List.of("true", "false"), session.getRemainingValues("Big"));
+
+        assertTrue(session.push(new Assignment("Salami", "true")));
+        assertTrue(session.push(new Assignment("CheesyCrust", "true")));
+
+        // CheesyCrust requires Big, and Size is an alternative group
+        assertEquals(List.of("true"), session.getRemainingValues("Big"));
+        assertEquals(List.of("false"), session.getRemainingValues("Normal"));
+
+        assertFalse(session.push(new Assignment("Normal", "true")));
+        assertFalse(session.push(new Assignment("Ham", "true"))); // stays inconsistent
+        assertTrue(session.getRemainingValues("Ham").isEmpty());
+
+        assertEquals("Ham", session.pop().getVariable());
+        assertEquals("Normal", session.pop().getVariable());
+        assertTrue(session.isConsistent());
+        assertEquals(List.of("true"), session.getRemainingValues("Big"));
+
+        assertEquals("CheesyCrust", session.pop().getVariable());
+        assertEquals(List.of("true", "false"), session.getRemainingValues("Big"));
+        assertEquals(1, session.getDecisions().size());
+        assertEquals("Salami", session.getDecisions().get(0).getVariable());
+
+        session.close();
+        assertTrue(session.isClosed());
+        assertFalse(configurator.isSessionOpened()); // opened by the session
+        assertThrows(IllegalStateException.class, session::pop);
+        assertThrows(IllegalStateException.class, session::getDecisions);
+        assertThrows(IllegalStateException.class, () -> session.push(new Assignment("Salami", "true")));
+        assertThrows(IllegalStateException.class, () -> session.solve(0));
+
+        // the configurator is back to its initial state
+        assertEquals(new SolutionCount(42, true), configurator.countSolutions(null, 0));
+    }
+
+    @Test
+    void testCloseKeepsSessionOfConfigurator() {
+        Configurator configurator = createConfigurator();
+        configurator.openSession(false);
+
+        InteractiveSession session = new InteractiveSession(configurator);
+        session.push(new Assignment("Salami", "false"));
+        session.close();
+
+        // the session of the configurator was opened by the caller
+        assertTrue(configurator.isSessionOpened());
+        assertEquals(new SolutionCount(42, true), configurator.countSolutions(null, 0));
+        configurator.closeSession();
+    }
+
+    @Test
+    void testSolve() {
+        Configurator configurator = createConfigurator();
+
+        InteractiveSession session = new InteractiveSession(configurator);
+        session.push(new Assignment("Salami", "true"));
+        session.push(new Assignment("CheesyCrust", "true"));
+
+        Solution solution = session.solve(0);
+        assertNotNull(solution);
+        assertEquals("true", solution.getAssignment("Salami").getValue());
+        assertEquals("true", solution.getAssignment("Big").getValue());
+
+        // the decisions are propagated again after the search
+        assertEquals(List.of("false"), session.getRemainingValues("Normal"));
+        assertEquals(solution, session.solve(0));
+
+        session.push(new Assignment("Normal", "true"));
+        assertNull(session.solve(0));
+
+        session.pop();
+        session.pop();
+        session.push(new Assignment("Normal", "true"));
+        solution = session.solve(0);
+        assertNotNull(solution);
+        assertEquals("false", solution.getAssignment("CheesyCrust").getValue());
+    }
+
+    /**
+     * Pushing and popping all decisions many times brings the session back to the root.
+     */
+    @Test
+    void testRepeatedPushPop() {
+        int numRounds = 20;
+        String[] features = {"Salami", "Ham", "Mozzarella", "Normal", "Big", "Neapolitan", "Sicilian", "CheesyCrust"};
+
+        InteractiveSession session = new InteractiveSession(createConfigurator());
+
+        for (int i = 0; i < numRounds; i++) {
+            for (String feature : features) {
+                session.push(new Assignment(feature, i % 2 == 0 ? "true" : "false"));
+            }
+            assertEquals(features.length, session.getDecisions().size());
+            for (int j = features.length - 1; j >= 0; j--) {
+                assertEquals(features[j], session.pop().getVariable());
+            }
+
+            assertTrue(session.getDecisions().isEmpty());
+            assertTrue(session.isConsistent());
+            for (String feature : features) {
+                assertEquals(List.of("true", "false"), session.getRemainingValues(feature));
+            }
+        }
+    }
+}
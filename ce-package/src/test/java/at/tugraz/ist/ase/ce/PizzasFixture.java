@@ -0,0 +1,65 @@
+/*
+ * CECore - Core components of a Configuration Environment
+ *
+ * Copyright (c) 2022
+ *
+ * @author: Viet-Man Le (vietman.le@ist.tugraz.at)
+ */
+
+package at.tugraz.ist.ase.ce;
+
+import at.tugraz.ist.ase.ce.translator.fm.FMSolutionTranslator;
+import at.tugraz.ist.ase.fm.core.AbstractRelationship;
+import at.tugraz.ist.ase.fm.core.CTConstraint;
+import at.tugraz.ist.ase.fm.core.Feature;
+import at.tugraz.ist.ase.fm.core.FeatureModel;
+import at.tugraz.ist.ase.fm.parser.FMParserFactory;
+import at.tugraz.ist.ase.fm.parser.FeatureModelParser;
+import at.tugraz.ist.ase.fm.parser.FeatureModelParserException;
+import at.tugraz.ist.ase.kb.core.Assignment;
+import at.tugraz.ist.ase.kb.fm.FMKB;
+import lombok.Cleanup;
+
+import java.io.File;
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * The pizzas feature model shared by the tests, with 42 solutions.
+ * The feature model is parsed once, and each configurator gets its own KB.
+ */
+public final class PizzasFixture {
+
+    private static FeatureModel<Feature, AbstractRelationship<Feature>, CTConstraint> featureModel = null;
+
+    private PizzasFixture() {
+    }
+
+    public static synchronized FeatureModel<Feature, AbstractRelationship<Feature>, CTConstraint> getFeatureModel() {
+        if (featureModel == null) {
+            File fileFM = new File("src/test/resources/pizzas.xml");
+
+            @Cleanup("dispose")
+            FeatureModelParser<Feature, AbstractRelationship<Feature>, CTConstraint> parser = FMParserFactory.getInstance().getParser(fileFM.getName());
+            try {
+                featureModel = parser.parse(fileFM);
+            } catch (FeatureModelParserException e) {
+                throw new IllegalStateException("Cannot parse " + fileFM, e);
+            }
+        }
+        return featureModel;
+    }
+
+    /**
+     * @return a configurator with the root constraint over a new KB of the feature model
+     */
+    public static Configurator createConfigurator() {
+        return new Configurator(new FMKB<>(getFeatureModel(), true), true, new FMSolutionTranslator());
+    }
+
+    public static Requirement requirement(Assignment... assignments) {
+        return Requirement.requirementBuilder()
+                .assignments(new LinkedList<>(List.of(assignments)))
+                .build();
+    }
+}
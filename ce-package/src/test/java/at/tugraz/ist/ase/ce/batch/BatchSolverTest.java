@@ -0,0 +1,137 @@
+/*
+ * CECore - Core components of a Configuration Environment
+ *
+ * Copyright (c) 2022
+ *
+ * @author: Viet-Man Le (vietman.le@ist.tugraz.at)
+ */
+
+package at.tugraz.ist.ase.ce.batch;
+
+import at.tugraz.ist.ase.ce.Configurator;
+import at.tugraz.ist.ase.ce.PizzasFixture;
+import at.tugraz.ist.ase.ce.Requirement;
+import at.tugraz.ist.ase.ce.pool.ConfiguratorPool;
+import at.tugraz.ist.ase.ce.pool.IConfiguratorCreatable;
+import at.tugraz.ist.ase.ce.translator.fm.FMSolutionTranslator;
+import at.tugraz.ist.ase.kb.core.Assignment;
+import at.tugraz.ist.ase.kb.fm.FMKB;
+import lombok.NonNull;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static at.tugraz.ist.ase.ce.PizzasFixture.getFeatureModel;
+import static at.tugraz.ist.ase.ce.PizzasFixture.requirement;
+import static org.junit.jupiter.api.Assertions.*;
+
+class BatchSolverTest {
+
+    @Test
+    void testFindSolutionsBatch() throws InterruptedException {
+        List<Requirement> requirements = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            requirements.add(requirement(new Assignment("Salami", "true")));
+            requirements.add(requirement(new Assignment("CheesyCrust", "true"), new Assignment("Normal", "true")));
+        }
+
+        try (ConfiguratorPool pool = new ConfiguratorPool(PizzasFixture::createConfigurator, 4);
+             BatchSolver batchSolver = new BatchSolver(pool)) {
+
+            List<BatchResult> results = batchSolver.findSolutionsBatch(requirements, false, 0, 0);
+
+            assertEquals(requirements.size(), results.size());
+            for (int i = 0; i < results.size(); i++) {
+                BatchResult result = results.get(i);
+
+                assertEquals(i, result.getIndex());
+                assertSame(requirements.get(i), result.getRequirement());
+                if (i % 2 == 0) {
+                    assertEquals(BatchStatus.SOLVED, result.getStatus());
+                    assertEquals(24, result.getSolutions().size());
+                } else {
+                    assertEquals(BatchStatus.UNSATISFIABLE, result.getStatus());
+                    assertTrue(result.getSolutions().isEmpty());
+                }
+            }
+        }
+    }
+
+    @Test
+    void testBackpressure() throws InterruptedException {
+        int numRequirements = 100;
+        int maxInFlight = 3;
+        AtomicInteger numPulled = new AtomicInteger(0);
+        AtomicInteger numDelivered = new AtomicInteger(0);
+        AtomicInteger maxPending = new AtomicInteger(0);
+
+        Iterator<Requirement> requirements = new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return numPulled.get() < numRequirements;
+            }
+
+            @Override
+            public Requirement next() {
+                int pending = numPulled.incrementAndGet() - numDelivered.get();
+                maxPending.accumulateAndGet(pending, Math::max);
+                return requirement(new Assignment("Ham", "true"));
+            }
+        };
+
+        try (ConfiguratorPool pool = new ConfiguratorPool(PizzasFixture::createConfigurator, 2);
+             BatchSolver batchSolver = new BatchSolver(pool, maxInFlight)) {
+
+            List<Integer> indexes = new ArrayList<>();
+            batchSolver.findSolutionsBatch(requirements, false, 1, 0, result -> {
+                indexes.add(result.getIndex());
+                numDelivered.incrementAndGet();
+            });
+
+            assertEquals(numRequirements, indexes.size());
+            for (int i = 0; i < numRequirements; i++) {
+                assertEquals(i, indexes.get(i));
+            }
+            assertTrue(maxPending.get() <= maxInFlight);
+        }
+    }
+
+    @Test
+    void testErrorInTask() {
+        IConfiguratorCreatable factory = () -> new Configurator(new FMKB<>(getFeatureModel(), true), true, new FMSolutionTranslator()) {
+            @Override
+            public void findSolutions(boolean notKB, int maxNumConf, @NonNull Requirement requirement, long timeout) {
+                if (requirement.getAssignments().get(0).getVariable().equals("Ham")) {
+                    throw new AssertionError("broken");
+                }
+                super.findSolutions(notKB, maxNumConf, requirement, timeout);
+            }
+        };
+        List<Requirement> requirements = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            requirements.add(requirement(new Assignment(i % 2 == 0 ? "Salami" : "Ham", "true")));
+        }
+
+        // the slots of the failed tasks are freed, hence the batch does not hang
+        List<BatchResult> results = assertTimeoutPreemptively(Duration.ofSeconds(30), () -> {
+            try (ConfiguratorPool pool = new ConfiguratorPool(factory, 2);
+                 BatchSolver batchSolver = new BatchSolver(pool, 2)) {
+                return batchSolver.findSolutionsBatch(requirements, false, 1, 0);
+            }
+        });
+
+        assertEquals(requirements.size(), results.size());
+        for (int i = 0; i < results.size(); i++) {
+            BatchResult result = results.get(i);
+            assertEquals(i, result.getIndex());
+            if (i % 2 == 0) {
+                assertEquals(BatchStatus.SOLVED, result.getStatus());
+            } else {
+                assertEquals(BatchStatus.ERROR, result.getStatus());
+                assertTrue(result.getError() instanceof AssertionError);
+            }
+        }
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * CECore - Core components of a Configuration Environment
+ *
+ * Copyright (c) 2022
+ *
+ * @author: Viet-Man Le (vietman.le@ist.tugraz.at)
+ */
+
+package at.tugraz.ist.ase.ce.cache;
+
+import at.tugraz.ist.ase.ce.Configurator;
+import at.tugraz.ist.ase.ce.Solution;
+import at.tugraz.ist.ase.ce.translator.fm.FMSolutionTranslator;
+import at.tugraz.ist.ase.kb.core.Assignment;
+import at.tugraz.ist.ase.kb.fm.FMKB;
+import com.google.common.hash.HashCode;
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedList;
+import java.util.List;
+
+import static at.tugraz.ist.ase.ce.PizzasFixture.createConfigurator;
+import static at.tugraz.ist.ase.ce.PizzasFixture.getFeatureModel;
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConsistencyCacheTest {
+
+    private static Solution solution(Assignment... assignments) {
+        return Solution.builder()
+                .assignments(new LinkedList<>(List.of(assignments)))
+                .build();
+    }
+
+    @Test
+    void testIsConsistent() {
+        ConsistencyCache cache = new ConsistencyCache(100);
+        Configurator configurator = createConfigurator();
+        configurator.setConsistencyCache(cache);
+
+        assertFalse(configurator.isConsistent(solution(new Assignment("CheesyCrust", "true"), new Assignment("Normal", "true"))));
+        assertTrue(configurator.isConsistent(solution(new Assignment("CheesyCrust", "true"), new Assignment("Big", "true"))));
+        assertEquals(2, cache.stats().missCount());
+        assertEquals(0, cache.stats().hitCount());
+
+        // the order of the assignments does not matter
+        assertFalse(configurator.isConsistent(solution(new Assignment("Normal", "true"), new Assignment("CheesyCrust", "true"))));
+        assertTrue(configurator.isConsistent(solution(new Assignment("CheesyCrust", "true"), new Assignment("Big", "true"))));
+        assertEquals(2, cache.stats().hitCount());
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    void testSharedCache() {
+        ConsistencyCache cache = new ConsistencyCache(100);
+        Configurator c1 = createConfigurator();
+        Configurator c2 = createConfigurator();
+        c1.setConsistencyCache(cache);
+        c2.setConsistencyCache(cache);
+
+        assertTrue(c1.isConsistent(solution(new Assignment("Salami", "true"))));
+
+        // the same KB content shares the results
+        assertTrue(c2.isConsistent(solution(new Assignment("Salami", "true"))));
+        assertEquals(1, cache.size());
+        assertEquals(1, cache.stats().hitCount());
+
+        cache.invalidateAll();
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void testSharedCacheOfDifferentKBs() {
+        ConsistencyCache cache = new ConsistencyCache(100);
+        Configurator withRoot = createConfigurator();
+        Configurator withoutRoot = new Configurator(new FMKB<>(getFeatureModel(), true), false, new FMSolutionTranslator());
+        withRoot.setConsistencyCache(cache);
+        withoutRoot.setConsistencyCache(cache);
+
+        // the root constraint is a part of the checked constraints, hence the results are not mixed
+        assertFalse(withRoot.isConsistent(solution(new Assignment("Pizza", "false"))));
+        assertTrue(withoutRoot.isConsistent(solution(new Assignment("Pizza", "false"))));
+        assertFalse(withRoot.isConsistent(solution(new Assignment("Pizza", "false"))));
+
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.stats().hitCount());
+    }
+
+    @Test
+    void testMaximumSize() {
+        ConsistencyCache cache = new ConsistencyCache(2);
+        HashCode stamp = HashCode.fromLong(1L);
+
+        cache.put(stamp, solution(new Assignment("A", "true")), true);
+        cache.put(stamp, solution(new Assignment("B", "true")), true);
+        cache.put(stamp, solution(new Assignment("C", "true")), false);
+
+        assertTrue(cache.size() <= 2);
+        assertEquals(false, cache.getIfPresent(stamp, solution(new Assignment("C", "true"))));
+        assertNull(cache.getIfPresent(HashCode.fromLong(2L), solution(new Assignment("C", "true"))));
+    }
+}
\ No newline at end of file
@@ -0,0 +1,80 @@
+/*
+ * CECore - Core components of a Configuration Environment
+ *
+ * Copyright (c) 2022
+ *
+ * @author: Viet-Man Le (vietman.le@ist.tugraz.at)
+ */
+
+package at.tugraz.ist.ase.ce.filter;
+
+import at.tugraz.ist.ase.ce.PizzasFixture;
+import at.tugraz.ist.ase.ce.pool.ConfiguratorPool;
+import at.tugraz.ist.ase.kb.core.Assignment;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+
+import static at.tugraz.ist.ase.ce.PizzasFixture.requirement;
+import static org.junit.jupiter.api.Assertions.*;
+
+class DomainFilterTest {
+
+    @Test
+    void testFilter() throws InterruptedException, ExecutionException {
+        try (ConfiguratorPool pool = new ConfiguratorPool(PizzasFixture::createConfigurator, 4);
+             DomainFilter filter = new DomainFilter(pool, 100)) {
+
+            Map<String, List<String>> result = filter.filter(requirement(new Assignment("CheesyCrust", "true")));
+
+            assertEquals(List.of("true"), result.get("CheesyCrust"));
+            assertEquals(List.of("true"), result.get("Big"));
+            assertEquals(List.of("false"), result.get("Normal"));
+            assertEquals(List.of("true", "false"), result.get("Salami"));
+            assertEquals(List.of("true", "false"), result.get("Sicilian"));
+
+            result = filter.filter(requirement(new Assignment("Ham", "false"), new Assignment("Mozzarella", "false")));
+            assertEquals(List.of("true"), result.get("Salami")); // Topping is an or group
+
+            // the values of the witness solutions are not checked again
+            assertTrue(filter.getNumSolve() < 2 * 2 * 12);
+        }
+    }
+
+    @Test
+    void testInconsistentRequirement() throws InterruptedException, ExecutionException {
+        try (ConfiguratorPool pool = new ConfiguratorPool(PizzasFixture::createConfigurator, 2);
+             DomainFilter filter = new DomainFilter(pool, 100)) {
+
+            Map<String, List<String>> result = filter.filter(requirement(new Assignment("CheesyCrust", "true"),
+                    new Assignment("Normal", "true")));
+
+            assertTrue(result.values().stream().allMatch(List::isEmpty));
+            assertEquals(1, filter.getNumSolve());
+        }
+    }
+
+    @Test
+    void testCache() throws InterruptedException, ExecutionException {
+        try (ConfiguratorPool pool = new ConfiguratorPool(PizzasFixture::createConfigurator, 2);
+             DomainFilter filter = new DomainFilter(pool, 100)) {
+
+            Map<String, List<String>> result = filter.filter(requirement(new Assignment("Salami", "true"),
+                    new Assignment("Big", "true")));
+            long numSolve = filter.getNumSolve();
+
+            // same requirement in another order
+            assertSame(result, filter.filter(requirement(new Assignment("Big", "true"),
+                    new Assignment("Salami", "true"))));
+            assertEquals(numSolve, filter.getNumSolve());
+            assertEquals(1, filter.getCacheStats().hitCount());
+
+            filter.invalidateAll();
+            assertEquals(result, filter.filter(requirement(new Assignment("Salami", "true"),
+                    new Assignment("Big", "true"))));
+            assertTrue(filter.getNumSolve() > numSolve);
+        }
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * CECore - Core components of a Configuration Environment
+ *
+ * Copyright (c) 2022
+ *
+ * @author: Viet-Man Le (vietman.le@ist.tugraz.at)
+ */
+
+package at.tugraz.ist.ase.ce.optimization;
+
+import at.tugraz.ist.ase.ce.PizzasFixture;
+import at.tugraz.ist.ase.ce.Solution;
+import at.tugraz.ist.ase.ce.pool.ConfiguratorPool;
+import at.tugraz.ist.ase.ce.portfolio.PortfolioStrategy;
+import at.tugraz.ist.ase.kb.core.Assignment;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OptimizationPortfolioTest {
+
+    private static LinearObjective prices(LinearObjective objective) {
+        return objective.setWeight("Salami", "true", 2)
+                .setWeight("Ham", "true", 3)
+                .setWeight("Mozzarella", "true", 1)
+                .setWeight("Normal", "true", 5)
+                .setWeight("Big", "true", 8)
+                .setWeight("Sicilian", "true", 1)
+                .setWeight("CheesyCrust", "true", 2);
+    }
+
+    @Test
+    void testFindOptimal() throws InterruptedException {
+        LinearObjective objective = prices(LinearObjective.minimize());
+        List<PortfolioStrategy> strategies = List.of(PortfolioStrategy.defaultSearch(),
+                PortfolioStrategy.random(1), PortfolioStrategy.random(2));
+
+        try (ConfiguratorPool pool = new ConfiguratorPool(PizzasFixture::createConfigurator, 3);
+             OptimizationPortfolio portfolio = new OptimizationPortfolio(pool, strategies)) {
+
+            AtomicInteger improvements = new AtomicInteger();
+            OptimizationResult result = portfolio.findOptimal(objective, 3, null, 0,
+                    (solution, value) -> improvements.incrementAndGet());
+
+            assertTrue(result.isProven());
+            // Mozzarella + Normal + Neapolitan, then Salami + Normal + Neapolitan and Mozzarella + Normal + Sicilian
+            assertEquals(List.of(6, 7, 7), result.getObjectiveValues());
+            assertEquals(3, result.getSolutions().stream().distinct().count());
+            assertTrue(improvements.get() >= 3);
+        }
+    }
+
+    @Test
+    void testTopKSolutions() {
+        TopKSolutions topK = new TopKSolutions(2, LinearObjective.Direction.MAXIMIZE);
+        Solution s1 = Solution.builder().assignments(List.of(new Assignment("A", "1"))).build();
+        Solution s2 = Solution.builder().assignments(List.of(new Assignment("A", "2"))).build();
+        Solution s3 = Solution.builder().assignments(List.of(new Assignment("A", "3"))).build();
+
+        assertTrue(topK.offer(s1, 1));
+        assertFalse(topK.isFull());
+        assertFalse(topK.offer(s1, 1));
+        assertTrue(topK.offer(s3, 3));
+        assertTrue(topK.isFull());
+        assertEquals(1, topK.getThreshold());
+
+        assertFalse(topK.offer(s2, 1)); // not strictly better than the threshold
+        assertTrue(topK.offer(s2, 2));
+        assertEquals(2, topK.getThreshold());
+        assertEquals(List.of(s3, s2), topK.toResult().getSolutions());
+        assertFalse(topK.toResult().isProven());
+    }
+}
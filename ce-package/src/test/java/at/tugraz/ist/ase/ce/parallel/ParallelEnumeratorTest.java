@@ -0,0 +1,82 @@
+/*
+ * CECore - Core components of a Configuration Environment
+ *
+ * Copyright (c) 2022
+ *
+ * @author: Viet-Man Le (vietman.le@ist.tugraz.at)
+ */
+
+package at.tugraz.ist.ase.ce.parallel;
+
+import at.tugraz.ist.ase.ce.Configurator;
+import at.tugraz.ist.ase.ce.PizzasFixture;
+import at.tugraz.ist.ase.ce.Requirement;
+import at.tugraz.ist.ase.ce.Solution;
+import at.tugraz.ist.ase.ce.pool.ConfiguratorPool;
+import at.tugraz.ist.ase.kb.core.Assignment;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static at.tugraz.ist.ase.ce.PizzasFixture.createConfigurator;
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParallelEnumeratorTest {
+
+    @Test
+    void testFindAllSolutions() throws InterruptedException {
+        Configurator configurator = createConfigurator();
+        configurator.findAllSolutions(false, 0);
+        Set<String> expected = configurator.getSolutions().stream().map(Solution::toString).collect(Collectors.toSet());
+
+        try (ConfiguratorPool pool = new ConfiguratorPool(PizzasFixture::createConfigurator, 4);
+             ParallelEnumerator enumerator = new ParallelEnumerator(pool, 4, 8)) {
+
+            List<Solution> solutions = enumerator.findAllSolutions(0);
+
+            assertEquals(42, solutions.size());
+            assertEquals(expected, solutions.stream().map(Solution::toString).collect(Collectors.toSet()));
+        }
+    }
+
+    @Test
+    void testEnumerateWithRequirement() throws InterruptedException {
+        Requirement requirement = Requirement.requirementBuilder()
+                .assignments(new LinkedList<>(List.of(new Assignment("Salami", "true"))))
+                .build();
+
+        try (ConfiguratorPool pool = new ConfiguratorPool(PizzasFixture::createConfigurator, 4);
+             ParallelEnumerator enumerator = new ParallelEnumerator(pool);
+             ParallelEnumeration enumeration = enumerator.enumerate(requirement, null, 0)) {
+
+            Set<String> solutions = new HashSet<>();
+            while (enumeration.hasNext()) {
+                Solution solution = enumeration.next();
+                assertEquals("true", solution.getAssignment("Salami").getValue());
+                assertTrue(solutions.add(solution.toString()));
+            }
+
+            assertEquals(24, solutions.size());
+            assertFalse(enumeration.isStopped());
+        }
+    }
+
+    @Test
+    void testCloseEarly() throws InterruptedException {
+        try (ConfiguratorPool pool = new ConfiguratorPool(PizzasFixture::createConfigurator, 2);
+             ParallelEnumerator enumerator = new ParallelEnumerator(pool, 4, 1)) {
+
+            ParallelEnumeration enumeration = enumerator.enumerate(null, null, 0);
+            assertTrue(enumeration.hasNext());
+            enumeration.next();
+            enumeration.close();
+
+            assertTrue(enumeration.isStopped());
+            assertFalse(enumeration.hasNext());
+
+            // the configurators are given back after the cancellation
+            assertEquals(42, enumerator.findAllSolutions(0).size());
+        }
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * CECore - Core components of a Configuration Environment
+ *
+ * Copyright (c) 2022
+ *
+ * @author: Viet-Man Le (vietman.le@ist.tugraz.at)
+ */
+
+package at.tugraz.ist.ase.ce.parallel;
+
+import at.tugraz.ist.ase.ce.PizzasFixture;
+import at.tugraz.ist.ase.ce.Requirement;
+import at.tugraz.ist.ase.ce.SolutionCount;
+import at.tugraz.ist.ase.ce.pool.ConfiguratorPool;
+import at.tugraz.ist.ase.fm.core.AbstractRelationship;
+import at.tugraz.ist.ase.fm.core.CTConstraint;
+import at.tugraz.ist.ase.fm.core.Feature;
+import at.tugraz.ist.ase.kb.core.Assignment;
+import at.tugraz.ist.ase.kb.fm.FMKB;
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+
+import static at.tugraz.ist.ase.ce.PizzasFixture.getFeatureModel;
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParallelSolutionCounterTest {
+
+    @Test
+    void testCountSolutions() throws InterruptedException, ExecutionException {
+        try (ConfiguratorPool pool = new ConfiguratorPool(PizzasFixture::createConfigurator, 4);
+             ParallelSolutionCounter counter = new ParallelSolutionCounter(pool)) {
+
+            assertEquals(new SolutionCount(42, true), counter.countSolutions(null, 0));
+
+            Requirement requirement = Requirement.requirementBuilder()
+                    .assignments(new LinkedList<>(List.of(new Assignment("Salami", "true"))))
+                    .build();
+            assertEquals(new SolutionCount(24, true), counter.countSolutions(requirement, 0));
+        }
+    }
+
+    @Test
+    void testDecompose() {
+        FMKB<Feature, AbstractRelationship<Feature>, CTConstraint> kb = new FMKB<>(getFeatureModel(), true);
+
+        List<Requirement> subProblems = SearchSpaceDecomposer.decompose(kb.getVariableList(), null, 5);
+        assertEquals(8, subProblems.size()); // 3 Boolean variables
+        assertEquals(3, subProblems.get(0).getAssignments().size());
+
+        Requirement requirement = Requirement.requirementBuilder()
+                .assignments(new LinkedList<>(List.of(new Assignment(kb.getVariableList().get(0).getName(), "true"))))
+                .build();
+        subProblems = SearchSpaceDecomposer.decompose(kb.getVariableList(), requirement, 4);
+        assertEquals(4, subProblems.size());
+        for (Requirement subProblem : subProblems) {
+            assertEquals(3, subProblem.getAssignments().size());
+            assertEquals("true", subProblem.getAssignments().get(0).getValue());
+        }
+    }
+}
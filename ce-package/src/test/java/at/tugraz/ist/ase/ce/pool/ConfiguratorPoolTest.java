@@ -0,0 +1,158 @@
+/*
+ * CECore - Core components of a Configuration Environment
+ *
+ * Copyright (c) 2022
+ *
+ * @author: Viet-Man Le (vietman.le@ist.tugraz.at)
+ */
+
+package at.tugraz.ist.ase.ce.pool;
+
+import at.tugraz.ist.ase.ce.Configurator;
+import at.tugraz.ist.ase.ce.PizzasFixture;
+import at.tugraz.ist.ase.ce.Requirement;
+import at.tugraz.ist.ase.ce.cache.ConsistencyCache;
+import at.tugraz.ist.ase.ce.index.FingerprintSolutionIndex;
+import at.tugraz.ist.ase.ce.index.HashSolutionIndex;
+import at.tugraz.ist.ase.ce.translator.fm.FMSolutionTranslator;
+import at.tugraz.ist.ase.kb.core.Assignment;
+import at.tugraz.ist.ase.kb.fm.FMKB;
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static at.tugraz.ist.ase.ce.PizzasFixture.getFeatureModel;
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConfiguratorPoolTest {
+
+    @Test
+    void testBorrow() throws InterruptedException {
+        try (ConfiguratorPool pool = new ConfiguratorPool(PizzasFixture::createConfigurator, 2)) {
+            pool.warmUp();
+            assertEquals(2, pool.getNumCreated());
+            assertEquals(2, pool.getNumIdle());
+
+            Configurator c1 = pool.borrow();
+            Configurator c2 = pool.tryBorrow(10, TimeUnit.MILLISECONDS);
+
+            assertNotNull(c2);
+            assertNotSame(c1, c2);
+            assertNull(pool.tryBorrow()); // all configurators are in use
+
+            c1.findAllSolutions(false, 0);
+            assertEquals(42, c1.getNumberSolutions());
+
+            pool.giveBack(c1);
+            pool.giveBack(c2);
+
+            // solutions are removed when the configurator is given back
+            assertEquals(0, c1.getNumberSolutions());
+            assertEquals(2, pool.getNumIdle());
+        }
+    }
+
+    @Test
+    void testConcurrentRequests() throws InterruptedException, ExecutionException {
+        int numRequests = 16;
+
+        try (ConfiguratorPool pool = new ConfiguratorPool(PizzasFixture::createConfigurator, 4)) {
+            ExecutorService executor = Executors.newFixedThreadPool(8);
+
+            List<Callable<Integer>> tasks = new LinkedList<>();
+            for (int i = 0; i < numRequests; i++) {
+                tasks.add(() -> pool.execute(configurator -> {
+                    Requirement requirement = Requirement.requirementBuilder()
+                            .assignments(List.of(new Assignment("Salami", "true")))
+                            .build();
+                    configurator.findSolutions(false, 0, requirement);
+                    return configurator.getNumberSolutions();
+                }));
+            }
+
+            for (Future<Integer> future : executor.invokeAll(tasks)) {
+                assertEquals(24, future.get());
+            }
+            executor.shutdown();
+
+            assertTrue(pool.getNumCreated() <= 4);
+        }
+    }
+
+    @Test
+    void testGiveBackRestoresDefaults() throws InterruptedException {
+        try (ConfiguratorPool pool = new ConfiguratorPool(PizzasFixture::createConfigurator, 1)) {
+            Configurator configurator = pool.borrow();
+            configurator.setProjected(true);
+            configurator.setCompactSolutions(true);
+            configurator.setSolutionIndex(new FingerprintSolutionIndex());
+            configurator.setConsistencyCache(new ConsistencyCache(10));
+            configurator.openSession(false);
+            configurator.findSolutions(false, 3);
+
+            pool.giveBack(configurator);
+
+            Configurator next = pool.borrow();
+            assertSame(configurator, next);
+            assertFalse(next.isSessionOpened());
+            assertFalse(next.isProjected());
+            assertFalse(next.isCompactSolutions());
+            assertTrue(next.getSolutionIndex() instanceof HashSolutionIndex);
+            assertNull(next.getConsistencyCache());
+            assertNull(next.getRequirement());
+
+            next.findAllSolutions(false, 0);
+            assertEquals(42, next.getNumberSolutions());
+            pool.giveBack(next);
+        }
+    }
+
+    @Test
+    void testGiveBackDiscardsBrokenConfigurator() throws InterruptedException {
+        IConfiguratorCreatable factory = () -> new Configurator(new FMKB<>(getFeatureModel(), true), true, new FMSolutionTranslator()) {
+            @Override
+            public void clear() {
+                throw new IllegalStateException("broken");
+            }
+        };
+
+        try (ConfiguratorPool pool = new ConfiguratorPool(factory, 1)) {
+            Configurator configurator = pool.borrow();
+            pool.giveBack(configurator);
+
+            // the pool creates a new configurator
+            assertEquals(0, pool.getNumCreated());
+            assertEquals(0, pool.getNumIdle());
+            assertNotSame(configurator, pool.tryBorrow());
+            assertEquals(1, pool.getNumCreated());
+        }
+    }
+
+    @Test
+    void testWaitingBorrowAfterDiscard() throws Exception {
+        IConfiguratorCreatable factory = () -> new Configurator(new FMKB<>(getFeatureModel(), true), true, new FMSolutionTranslator()) {
+            @Override
+            public void clear() {
+                throw new IllegalStateException("broken");
+            }
+        };
+
+        try (ConfiguratorPool pool = new ConfiguratorPool(factory, 1)) {
+            Configurator configurator = pool.borrow();
+
+            ExecutorService executor = Executors.newSingleThreadExecutor();
+            Future<Configurator> waiting = executor.submit(pool::borrow);
+            Thread.sleep(50); // the task waits for the only configurator
+
+            pool.giveBack(configurator);
+
+            // the waiting task gets a new configurator instead of waiting forever
+            Configurator next = waiting.get(10, TimeUnit.SECONDS);
+            assertNotSame(configurator, next);
+            assertEquals(1, pool.getNumCreated());
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * CECore - Core components of a Configuration Environment
+ *
+ * Copyright (c) 2022
+ *
+ * @author: Viet-Man Le (vietman.le@ist.tugraz.at)
+ */
+
+package at.tugraz.ist.ase.ce.portfolio;
+
+import at.tugraz.ist.ase.ce.PizzasFixture;
+import at.tugraz.ist.ase.ce.Requirement;
+import at.tugraz.ist.ase.ce.Solution;
+import at.tugraz.ist.ase.ce.batch.BatchStatus;
+import at.tugraz.ist.ase.ce.pool.ConfiguratorPool;
+import at.tugraz.ist.ase.kb.core.Assignment;
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SolverPortfolioTest {
+
+    private static List<PortfolioStrategy> strategies() {
+        return List.of(PortfolioStrategy.defaultSearch(), PortfolioStrategy.random(1), PortfolioStrategy.random(2));
+    }
+
+    @Test
+    void testFindSolutions() throws InterruptedException {
+        Requirement requirement = Requirement.requirementBuilder()
+                .assignments(new LinkedList<>(List.of(new Assignment("Salami", "true"))))
+                .build();
+
+        try (ConfiguratorPool pool = new ConfiguratorPool(PizzasFixture::createConfigurator, 3);
+             SolverPortfolio portfolio = new SolverPortfolio(pool, strategies())) {
+
+            PortfolioResult result = portfolio.findSolutions("salami", requirement, 5, 0);
+            assertEquals(BatchStatus.SOLVED, result.getStatus());
+            assertEquals(5, result.getSolutions().size());
+            for (Solution solution : result.getSolutions()) {
+                assertEquals("true", solution.getAssignment("Salami").getValue());
+            }
+
+            // all solutions, whichever strategy wins
+            result = portfolio.findSolutions("salami", requirement, 0, 0);
+            assertEquals(BatchStatus.SOLVED, result.getStatus());
+            assertEquals(24, result.getSolutions().size());
+
+            Map<String, Long> wins = portfolio.getWins("salami");
+            assertEquals(2, wins.values().stream().mapToLong(Long::longValue).sum());
+            assertEquals(2, portfolio.getWins().values().stream().mapToLong(Long::longValue).sum());
+            assertEquals(0, portfolio.getWins("other").values().stream().mapToLong(Long::longValue).sum());
+
+            portfolio.resetStatistics();
+            assertTrue(portfolio.getRequestClasses().isEmpty());
+        }
+    }
+
+    @Test
+    void testUnsatisfiable() throws InterruptedException {
+        // Normal and Big are alternative sizes
+        Requirement requirement = Requirement.requirementBuilder()
+                .assignments(new LinkedList<>(List.of(new Assignment("Normal", "true"), new Assignment("Big", "true"))))
+                .build();
+
+        try (ConfiguratorPool pool = new ConfiguratorPool(PizzasFixture::createConfigurator, 3);
+             SolverPortfolio portfolio = new SolverPortfolio(pool, strategies())) {
+
+            PortfolioResult result = portfolio.findSolutions(requirement, 1, 0);
+            assertEquals(BatchStatus.UNSATISFIABLE, result.getStatus());
+            assertTrue(result.getSolutions().isEmpty());
+            assertNotNull(result.getWinner());
+        }
+    }
+
+    @Test
+    void testDuplicateNames() {
+        try (ConfiguratorPool pool = new ConfiguratorPool(PizzasFixture::createConfigurator, 2)) {
+            assertThrows(IllegalArgumentException.class,
+                    () -> new SolverPortfolio(pool, List.of(PortfolioStrategy.random(1), PortfolioStrategy.random(1))));
+        }
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * CECore - Core components of a Configuration Environment
+ *
+ * Copyright (c) 2022
+ *
+ * @author: Viet-Man Le (vietman.le@ist.tugraz.at)
+ */
+
+package at.tugraz.ist.ase.ce.sampling;
+
+import at.tugraz.ist.ase.ce.Configurator;
+import at.tugraz.ist.ase.ce.PizzasFixture;
+import at.tugraz.ist.ase.ce.Requirement;
+import at.tugraz.ist.ase.ce.Solution;
+import at.tugraz.ist.ase.ce.pool.ConfiguratorPool;
+import at.tugraz.ist.ase.kb.core.Assignment;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.stream.Collectors;
+
+import static at.tugraz.ist.ase.ce.PizzasFixture.createConfigurator;
+import static org.junit.jupiter.api.Assertions.*;
+
+class SolutionSamplerTest {
+
+    private static int minDistance(List<Solution> solutions) {
+        int min = Integer.MAX_VALUE;
+        for (int i = 0; i < solutions.size(); i++) {
+            for (int j = i + 1; j < solutions.size(); j++) {
+                min = Math.min(min, solutions.get(i).hammingDistance(solutions.get(j)));
+            }
+        }
+        return min;
+    }
+
+    @Test
+    void testSample() throws InterruptedException, ExecutionException {
+        try (ConfiguratorPool pool = new ConfiguratorPool(PizzasFixture::createConfigurator, 4);
+             SolutionSampler sampler = new SolutionSampler(pool)) {
+
+            List<Solution> sample = sampler.sample(10, 42, 0);
+            assertEquals(10, sample.size());
+            assertEquals(10, new HashSet<>(sample).size());
+
+            Configurator configurator = createConfigurator();
+            for (Solution solution : sample) {
+                assertTrue(configurator.isConsistent(solution));
+            }
+
+            // the same seed gives the same sample
+            List<Solution> again = sampler.sample(10, 42, 0);
+            assertEquals(sample.stream().map(Solution::toString).collect(Collectors.toList()),
+                    again.stream().map(Solution::toString).collect(Collectors.toList()));
+
+            // the sample is more diverse than the first solutions of the depth-first search
+            configurator.findSolutions(false, 10);
+            assertTrue(minDistance(sample) >= minDistance(configurator.getSolutions()));
+        }
+    }
+
+    @Test
+    void testSampleIndependentOfPoolSize() throws InterruptedException, ExecutionException {
+        List<List<String>> samples = new LinkedList<>();
+        for (int size : List.of(1, 3, 8)) {
+            try (ConfiguratorPool pool = new ConfiguratorPool(PizzasFixture::createConfigurator, size);
+                 SolutionSampler sampler = new SolutionSampler(pool)) {
+                samples.add(sampler.sample(10, 7, 0).stream().map(Solution::toString).collect(Collectors.toList()));
+            }
+        }
+
+        // the same seed gives the same sample on machines with different numbers of processors
+        assertEquals(samples.get(0), samples.get(1));
+        assertEquals(samples.get(0), samples.get(2));
+    }
+
+    @Test
+    void testSampleWithRequirement() throws InterruptedException, ExecutionException {
+        Requirement requirement = Requirement.requirementBuilder()
+                .assignments(new LinkedList<>(List.of(new Assignment("Salami", "true"))))
+                .build();
+
+        try (ConfiguratorPool pool = new ConfiguratorPool(PizzasFixture::createConfigurator, 4);
+             SolutionSampler sampler = new SolutionSampler(pool)) {
+
+            // only 24 solutions with Salami
+            List<Solution> sample = sampler.sample(requirement, 30, 1, 0);
+            assertEquals(24, sample.size());
+            for (Solution solution : sample) {
+                assertEquals("true", solution.getAssignment("Salami").getValue());
+            }
+        }
+    }
+
+    @Test
+    void testHammingDistance() {
+        Solution s1 = Solution.builder()
+                .assignments(List.of(new Assignment("A", "true"), new Assignment("B", "1"), new Assignment("C", "x")))
+                .build();
+        Solution s2 = Solution.builder()
+                .assignments(List.of(new Assignment("A", "false"), new Assignment("B", "1"), new Assignment("C", "y")))
+                .build();
+
+        assertEquals(0, s1.hammingDistance(s1));
+        assertEquals(2, s1.hammingDistance(s2));
+        assertEquals(1, SolutionSampler.selectDiverse(List.of(s1, s1, s2), 1).size());
+        assertEquals(List.of(s1, s2), SolutionSampler.selectDiverse(List.of(s1, s1, s2), 2));
+    }
+}
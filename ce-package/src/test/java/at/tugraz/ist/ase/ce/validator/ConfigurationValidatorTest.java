@@ -0,0 +1,111 @@
+/*
+ * CECore - Core components of a Configuration Environment
+ *
+ * Copyright (c) 2022
+ *
+ * @author: Viet-Man Le (vietman.le@ist.tugraz.at)
+ */
+
+package at.tugraz.ist.ase.ce.validator;
+
+import at.tugraz.ist.ase.ce.Configurator;
+import at.tugraz.ist.ase.ce.Solution;
+import at.tugraz.ist.ase.kb.fm.FMKB;
+import org.junit.jupiter.api.Disabled;
+import org.junit.jupiter.api.Test;
+
+import static at.tugraz.ist.ase.ce.PizzasFixture.createConfigurator;
+import static at.tugraz.ist.ase.ce.PizzasFixture.getFeatureModel;
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConfigurationValidatorTest {
+
+    /**
+     * Counts the valid configurations among all combinations of the values of the 12 Boolean variables.
+     */
+    private static int countValid(ConfigurationValidator validator) {
+        int numValid = 0;
+        int[] values = new int[12];
+        for (int i = 0; i < (1 << values.length); i++) {
+            for (int v = 0; v < values.length; v++) {
+                values[v] = (i >> v) & 1;
+            }
+
+            boolean valid = validator.isValid(values);
+            assertEquals(valid, validator.getViolatedConstraints(values).isEmpty());
+            if (valid) {
+                numValid++;
+            }
+        }
+        return numValid;
+    }
+
+    @Test
+    void testIsValid() {
+        ConfigurationValidator validator = new ConfigurationValidator(new FMKB<>(getFeatureModel(), true), true);
+        assertEquals(0, validator.getNumResidualConstraints());
+
+        assertEquals(42, countValid(validator));
+
+        Configurator configurator = createConfigurator();
+        configurator.findAllSolutions(false, 0);
+        for (Solution solution : configurator.getSolutions()) {
+            assertTrue(validator.isValid(solution));
+        }
+
+        configurator.findAllSolutions(true, 0);
+        for (Solution solution : configurator.getSolutions()) {
+            assertFalse(validator.getViolatedConstraints(validator.encode(solution)).isEmpty());
+        }
+    }
+
+    @Test
+    void testResidualConstraints() {
+        ConfigurationValidator validator = new ConfigurationValidator(new FMKB<>(getFeatureModel(), true), true, 1);
+        assertEquals(0, validator.getNumCompiledConstraints());
+
+        assertEquals(42, countValid(validator));
+    }
+
+    @Test
+    void testCodeOutOfBound() {
+        ConfigurationValidator validator = new ConfigurationValidator(new FMKB<>(getFeatureModel(), true), true);
+
+        int[] values = new int[12];
+        values[3] = 2; // the domains are Boolean
+        assertThrows(IndexOutOfBoundsException.class, () -> validator.isValid(values));
+        assertThrows(IndexOutOfBoundsException.class, () -> validator.getViolatedConstraints(values));
+
+        values[3] = -1;
+        assertThrows(IndexOutOfBoundsException.class, () -> validator.isValid(values));
+        assertThrows(IllegalArgumentException.class, () -> validator.isValid(new int[11]));
+    }
+
+    @Disabled("Benchmark, run manually")
+    @Test
+    void benchmarkIsValid() {
+        ConfigurationValidator validator = new ConfigurationValidator(new FMKB<>(getFeatureModel(), true), true);
+
+        int numRounds = 1000;
+        int[][] configurations = new int[1 << 12][12];
+        for (int i = 0; i < configurations.length; i++) {
+            for (int v = 0; v < 12; v++) {
+                configurations[i][v] = (i >> v) & 1;
+            }
+        }
+
+        int numValid = 0;
+        long start = System.nanoTime();
+        for (int r = 0; r < numRounds; r++) {
+            for (int[] configuration : configurations) {
+                if (validator.isValid(configuration)) {
+                    numValid++;
+                }
+            }
+        }
+        long time = System.nanoTime() - start;
+
+        assertEquals(42 * numRounds, numValid);
+        System.out.printf("Throughput: %.0f configurations/s%n", (double) numRounds * configurations.length / time * 1e9);
+    }
+}
@@ -0,0 +1,202 @@
+/*
+ * CECore - Core components of a Configuration Environment
+ *
+ * Copyright (c) 2022
+ *
+ * @author: Viet-Man Le (vietman.le@ist.tugraz.at)
+ */
+
+package at.tugraz.ist.ase.ce;
+
+import at.tugraz.ist.ase.kb.core.Assignment;
+import lombok.Getter;
+import lombok.NonNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.StringJoiner;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkElementIndex;
+
+/**
+ * A compact {@link Solution}, which stores the code (domain index) of the value of each variable
+ * of a {@link SolutionSchema} in an int[].
+ * <p>
+ * The {@link Assignment}s are only created when {@link #getAssignments()} is called.
+ * Variables are looked up by name in O(1) using the schema. The hash code is computed once.
+ * <p>
+ * An IntSolution is only equal to an IntSolution of an equal schema with the same codes.
+ */
+public class IntSolution extends Solution {
+
+    @Getter
+    private final SolutionSchema schema;
+    private final int[] codes;
+
+    private int hash = 0; // 0 - not computed yet
+
+    /**
+     * A constructor
+     * @param schema the schema of the KB
+     * @param codes the codes of the values of all variables of the schema, the array is not copied
+     */
+    public IntSolution(@NonNull SolutionSchema schema, @NonNull int[] codes) {
+        super();
+        checkArgument(codes.length == schema.getNumVariables(), "The solution must assign all variables of the schema!");
+
+        this.schema = schema;
+        this.codes = codes;
+    }
+
+    /**
+     * Creates a compact solution from a {@link Solution} assigning all variables of the schema.
+     */
+    public static IntSolution of(@NonNull SolutionSchema schema, @NonNull Solution solution) {
+        if (solution instanceof IntSolution && ((IntSolution) solution).schema.equals(schema)) {
+            return (IntSolution) solution;
+        }
+
+        int[] codes = new int[schema.getNumVariables()];
+        Arrays.fill(codes, -1);
+        for (Assignment assignment : solution.getAssignments()) {
+            int varIndex = schema.indexOf(assignment.getVariable());
+            checkArgument(varIndex >= 0, "Variable '" + assignment.getVariable() + "' doesn't exist!");
+
+            int code = schema.getCode(varIndex, assignment.getValue());
+            checkArgument(code >= 0, "Value '" + assignment.getValue() + "' doesn't exist in the domain of '" + assignment.getVariable() + "'!");
+            codes[varIndex] = code;
+        }
+        for (int i = 0; i < codes.length; i++) {
+            checkArgument(codes[i] >= 0, "Variable '" + schema.getName(i) + "' is not assigned!");
+        }
+        return new IntSolution(schema, codes);
+    }
+
+    public int getCode(int varIndex) {
+        checkElementIndex(varIndex, codes.length, "Index out of bound!");
+        return codes[varIndex];
+    }
+
+    /**
+     * @return a copy of the codes
+     */
+    public int[] getCodes() {
+        return codes.clone();
+    }
+
+    public String getValue(int varIndex) {
+        return schema.getValue(varIndex, getCode(varIndex));
+    }
+
+    public String getValue(@NonNull String varName) {
+        return getValue(indexOf(varName));
+    }
+
+    /**
+     * @return the assignments, created at the first call
+     */
+    @Override
+    public List<Assignment> getAssignments() {
+        if (assignments == null) {
+            List<Assignment> list = new ArrayList<>(codes.length);
+            for (int i = 0; i < codes.length; i++) {
+                list.add(createAssignment(i));
+            }
+            assignments = Collections.unmodifiableList(list);
+        }
+        return assignments;
+    }
+
+    @Override
+    public Assignment getAssignment(int index) {
+        checkElementIndex(index, codes.length, "Index out of bound!");
+
+        return assignments != null ? assignments.get(index) : createAssignment(index);
+    }
+
+    @Override
+    public Assignment getAssignment(@NonNull String varName) {
+        return getAssignment(indexOf(varName));
+    }
+
+    @Override
+    public int size() {
+        return codes.length;
+    }
+
+    /**
+     * Compares the codes if both solutions have the same schema.
+     */
+    @Override
+    public int hammingDistance(@NonNull Solution solution) {
+        if (!(solution instanceof IntSolution) || !((IntSolution) solution).schema.equals(schema)) {
+            return super.hammingDistance(solution);
+        }
+
+        int[] other = ((IntSolution) solution).codes;
+        int distance = 0;
+        for (int i = 0; i < codes.length; i++) {
+            if (codes[i] != other[i]) {
+                distance++;
+            }
+        }
+        return distance;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof IntSolution)) return false;
+
+        IntSolution that = (IntSolution) o;
+        return that.canEqual(this) && Arrays.equals(codes, that.codes)
+                && (schema == that.schema || schema.equals(that.schema));
+    }
+
+    @Override
+    public int hashCode() {
+        int h = hash;
+        if (h == 0) {
+            h = Arrays.hashCode(codes);
+            hash = h;
+        }
+        return h;
+    }
+
+    @Override
+    protected boolean canEqual(Object other) {
+        return other instanceof IntSolution;
+    }
+
+    @Override
+    public String toString() {
+        StringJoiner joiner = new StringJoiner(", ");
+        for (int i = 0; i < codes.length; i++) {
+            joiner.add(schema.getName(i) + "=" + schema.getValue(i, codes[i]));
+        }
+        return joiner.toString();
+    }
+
+    @Override
+    public Object clone() {
+        return new IntSolution(schema, codes.clone());
+    }
+
+    private int indexOf(String varName) {
+        checkArgument(!varName.isEmpty(), "Variable name cannot be empty!");
+
+        int varIndex = schema.indexOf(varName);
+        checkArgument(varIndex >= 0, "Variable '" + varName + "' doesn't exist!");
+        return varIndex;
+    }
+
+    private Assignment createAssignment(int varIndex) {
+        return Assignment.builder()
+                .variable(schema.getName(varIndex))
+                .value(schema.getValue(varIndex, codes[varIndex]))
+                .build();
+    }
+}
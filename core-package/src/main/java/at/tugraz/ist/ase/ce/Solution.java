@@ -17,6 +17,7 @@ import lombok.NonNull;
 import lombok.extern.slf4j.Slf4j;
 import org.chocosolver.solver.constraints.Constraint;
 
+import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.stream.Collectors;
@@ -42,16 +43,24 @@ public class Solution implements Cloneable {
         log.trace("{}Created Solution [assignments={}]", LoggerUtils.tab(), assignments);
     }
 
+    /**
+     * A constructor for subclasses which create their assignments lazily, by overriding {@link #getAssignments()}.
+     */
+    protected Solution() {
+        this.chocoConstraints = new LinkedList<>();
+        this.negChocoConstraints = new LinkedList<>();
+    }
+
     public Assignment getAssignment(int index) {
-        checkElementIndex(index, assignments.size(), "Index out of bound!");
+        checkElementIndex(index, size(), "Index out of bound!");
 
-        return assignments.get(index);
+        return getAssignments().get(index);
     }
 
     public Assignment getAssignment(@NonNull String varName) {
         checkArgument(!varName.isEmpty(), "Variable name cannot be empty!");
 
-        for (Assignment assignment : assignments) {
+        for (Assignment assignment : getAssignments()) {
             if (assignment.getVariable().equals(varName)) {
                 return assignment;
             }
@@ -80,12 +89,12 @@ public class Solution implements Cloneable {
     }
 
     public int size() {
-        return assignments.size();
+        return getAssignments().size();
     }
 
     public double compare1(Solution solution, int numNULL) {
         int counter = 0;
-        for (Assignment assignment1 : assignments) {
+        for (Assignment assignment1 : getAssignments()) {
             Assignment assignment2 = solution.getAssignment(assignment1.getVariable());
 
             if (assignment1.equals(assignment2)) {
@@ -98,13 +107,13 @@ public class Solution implements Cloneable {
     }
 
     public double compare(Solution solution) {
-        if (assignments.isEmpty() || this.size() != solution.size()) {
+        if (size() == 0 || this.size() != solution.size()) {
             return 0;
         }
 
         int counter = 0;
-        for (int i = 0; i < assignments.size(); i++) {
-            Assignment assignment1 = assignments.get(i);
+        for (int i = 0; i < size(); i++) {
+            Assignment assignment1 = getAssignment(i);
             Assignment assignment2 = solution.getAssignment(i);
 
             if (!assignment1.equals(assignment2)) {
@@ -116,20 +125,37 @@ public class Solution implements Cloneable {
         return (double)counter / size();
     }
 
+    /**
+     * @return the number of variables which have different values in the two solutions,
+     * the assignments are compared in their order
+     */
+    public int hammingDistance(@NonNull Solution solution) {
+        checkArgument(size() == solution.size(), "The solutions must have the same size!");
+
+        int distance = 0;
+        Iterator<Assignment> other = solution.getAssignments().iterator();
+        for (Assignment assignment : getAssignments()) {
+            if (!assignment.getValue().equals(other.next().getValue())) {
+                distance++;
+            }
+        }
+        return distance;
+    }
+
     public int getNumNULL() {
         return (int) getAssignments().parallelStream().filter(assignment -> assignment.getValue().equals("NULL")).count();
     }
 
     @Override
     public String toString() {
-        return assignments.stream().map(Assignment::toString).collect(Collectors.joining(", "));
+        return getAssignments().stream().map(Assignment::toString).collect(Collectors.joining(", "));
     }
 
     public Object clone() throws CloneNotSupportedException {
         Solution clone = (Solution) super.clone();
         // copy assignments
         List<Assignment> assignments = new LinkedList<>();
-        for (Assignment assignment : this.assignments) {
+        for (Assignment assignment : getAssignments()) {
             Assignment cloneAssignment = (Assignment) assignment.clone();
             assignments.add(cloneAssignment);
         }
@@ -0,0 +1,215 @@
+/*
+ * CECore - Core components of a Configuration Environment
+ *
+ * Copyright (c) 2022
+ *
+ * @author: Viet-Man Le (vietman.le@ist.tugraz.at)
+ */
+
+package at.tugraz.ist.ase.ce;
+
+import at.tugraz.ist.ase.kb.core.KB;
+import at.tugraz.ist.ase.kb.core.Variable;
+import lombok.NonNull;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkElementIndex;
+
+/**
+ * An immutable description of the variables of a KB, shared by all {@link IntSolution}s of the KB.
+ * <p>
+ * Variables are identified by their index, values by their code, i.e., their index in the domain
+ * of the variable. The schema maps names to indexes, codes to values, and Choco values to codes.
+ */
+public final class SolutionSchema {
+
+    private final String[] names;
+    private final Map<String, Integer> indexes;
+
+    private final List<List<String>> values;
+    private final List<Map<String, Integer>> codes;
+
+    private final int[][] chocoValues;
+    // Choco values in ascending order and their codes, for binary search
+    private final int[][] sortedChocoValues;
+    private final int[][] sortedChocoCodes;
+
+    /**
+     * Creates the schema of a KB, with the variables in the order of kb.getVariableList().
+     */
+    public static SolutionSchema of(@NonNull KB kb) {
+        List<Variable> variables = kb.getVariableList();
+
+        return new SolutionSchema(variables.stream().map(Variable::getName).collect(Collectors.toList()),
+                variables.stream().map(v -> v.getDomain().getValues()).collect(Collectors.toList()),
+                variables.stream().map(v -> v.getDomain().getChocoValues()).collect(Collectors.toList()));
+    }
+
+    /**
+     * A constructor
+     * @param names names of the variables
+     * @param values domain values of the variables
+     * @param chocoValues Choco values of the domain values, could be null if the schema is not used with a Choco model
+     */
+    public SolutionSchema(@NonNull List<String> names, @NonNull List<List<String>> values, List<List<Integer>> chocoValues) {
+        checkArgument(names.size() == values.size(), "Each variable must have a domain!");
+        checkArgument(chocoValues == null || chocoValues.size() == values.size(), "Each variable must have Choco values!");
+
+        int numVars = names.size();
+        this.names = names.toArray(new String[0]);
+        this.indexes = new HashMap<>(numVars * 2);
+        this.values = new ArrayList<>(numVars);
+        this.codes = new ArrayList<>(numVars);
+        this.chocoValues = new int[numVars][];
+        this.sortedChocoValues = new int[numVars][];
+        this.sortedChocoCodes = new int[numVars][];
+
+        for (int i = 0; i < numVars; i++) {
+            checkArgument(indexes.put(names.get(i), i) == null, "Variable '" + names.get(i) + "' is duplicated!");
+
+            List<String> domain = List.copyOf(values.get(i));
+            Map<String, Integer> valueCodes = new HashMap<>(domain.size() * 2);
+            for (int code = 0; code < domain.size(); code++) {
+                valueCodes.put(domain.get(code), code);
+            }
+            this.values.add(domain);
+            this.codes.add(valueCodes);
+
+            if (chocoValues != null) {
+                checkArgument(chocoValues.get(i).size() == domain.size(), "Each domain value must have a Choco value!");
+
+                int[] cv = chocoValues.get(i).stream().mapToInt(Integer::intValue).toArray();
+                Integer[] order = new Integer[cv.length];
+                Arrays.setAll(order, c -> c);
+                Arrays.sort(order, Comparator.comparingInt(c -> cv[c]));
+
+                this.chocoValues[i] = cv;
+                this.sortedChocoValues[i] = Arrays.stream(order).mapToInt(c -> cv[c]).toArray();
+                this.sortedChocoCodes[i] = Arrays.stream(order).mapToInt(Integer::intValue).toArray();
+            }
+        }
+    }
+
+    /**
+     * Reads a schema written by {@link #write(DataOutput)}. The read schema has no Choco values.
+     */
+    public static SolutionSchema read(@NonNull DataInput in) throws IOException {
+        int numVars = in.readInt();
+        List<String> names = new ArrayList<>(numVars);
+        List<List<String>> values = new ArrayList<>(numVars);
+        for (int i = 0; i < numVars; i++) {
+            names.add(in.readUTF());
+            int domainSize = in.readInt();
+            List<String> domain = new ArrayList<>(domainSize);
+            for (int j = 0; j < domainSize; j++) {
+                domain.add(in.readUTF());
+            }
+            values.add(domain);
+        }
+        return new SolutionSchema(names, values, null);
+    }
+
+    /**
+     * Writes the names and the domain values of the variables.
+     */
+    public void write(@NonNull DataOutput out) throws IOException {
+        out.writeInt(names.length);
+        for (int i = 0; i < names.length; i++) {
+            out.writeUTF(names[i]);
+            out.writeInt(values.get(i).size());
+            for (String value : values.get(i)) {
+                out.writeUTF(value);
+            }
+        }
+    }
+
+    public int getNumVariables() {
+        return names.length;
+    }
+
+    public String getName(int varIndex) {
+        checkElementIndex(varIndex, names.length, "Index out of bound!");
+        return names[varIndex];
+    }
+
+    /**
+     * @return index of the variable, or -1 if the variable doesn't exist
+     */
+    public int indexOf(@NonNull String name) {
+        Integer index = indexes.get(name);
+        return index == null ? -1 : index;
+    }
+
+    public int getDomainSize(int varIndex) {
+        return values.get(varIndex).size();
+    }
+
+    /**
+     * @return the domain values of the variable, as an unmodifiable list
+     */
+    public List<String> getValues(int varIndex) {
+        return values.get(varIndex);
+    }
+
+    public String getValue(int varIndex, int code) {
+        return values.get(varIndex).get(code);
+    }
+
+    /**
+     * @return code of the value, or -1 if the value doesn't exist in the domain of the variable
+     */
+    public int getCode(int varIndex, @NonNull String value) {
+        Integer code = codes.get(varIndex).get(value);
+        return code == null ? -1 : code;
+    }
+
+    public int getChocoValue(int varIndex, int code) {
+        checkArgument(chocoValues[varIndex] != null, "The schema has no Choco values!");
+        return chocoValues[varIndex][code];
+    }
+
+    /**
+     * @return code of the Choco value, or -1 if the Choco value doesn't belong to the domain of the variable
+     */
+    public int getCodeOfChocoValue(int varIndex, int chocoValue) {
+        checkArgument(sortedChocoValues[varIndex] != null, "The schema has no Choco values!");
+
+        int i = Arrays.binarySearch(sortedChocoValues[varIndex], chocoValue);
+        return i < 0 ? -1 : sortedChocoCodes[varIndex][i];
+    }
+
+    /**
+     * Two schemas are equal if they have the same variables with the same domain values.
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof SolutionSchema)) return false;
+
+        SolutionSchema that = (SolutionSchema) o;
+        return Arrays.equals(names, that.names) && values.equals(that.values);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Arrays.hashCode(names) + values.hashCode();
+    }
+
+    /**
+     * @return the variables and their domain values, e.g., "A=true|false, B=1|2|3"
+     */
+    @Override
+    public String toString() {
+        StringJoiner joiner = new StringJoiner(", ");
+        for (int i = 0; i < names.length; i++) {
+            joiner.add(names[i] + "=" + String.join("|", values.get(i)));
+        }
+        return joiner.toString();
+    }
+}
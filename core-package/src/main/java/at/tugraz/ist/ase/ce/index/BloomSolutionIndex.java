@@ -0,0 +1,96 @@
+/*
+ * CECore - Core components of a Configuration Environment
+ *
+ * Copyright (c) 2022
+ *
+ * @author: Viet-Man Le (vietman.le@ist.tugraz.at)
+ */
+
+package at.tugraz.ist.ase.ce.index;
+
+import at.tugraz.ist.ase.ce.Solution;
+import com.google.common.hash.BloomFilter;
+import com.google.common.hash.Funnel;
+import lombok.Getter;
+import lombok.NonNull;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * A memory-bounded index of solutions based on a Bloom filter.
+ * <p>
+ * The index never misses a similar solution, but a new solution is wrongly regarded as similar
+ * with the given false positive probability. Hence, an enumeration using this index
+ * could skip a few solutions. Use it only for enumerations with tens of millions of solutions,
+ * where exact indexes do not fit in the memory.
+ */
+public class BloomSolutionIndex implements ISolutionIndexable {
+
+    private static final Funnel<Solution> FINGERPRINT_FUNNEL =
+            (solution, into) -> into.putBytes(SolutionFingerprint.fingerprint(solution).asBytes());
+
+    @Getter
+    private final long expectedInsertions;
+    @Getter
+    private final double fpp;
+
+    private BloomFilter<Solution> filter;
+    private long size = 0;
+
+    /**
+     * A constructor
+     * @param expectedInsertions the expected number of solutions
+     * @param fpp the desired false positive probability, e.g., 0.001
+     */
+    public BloomSolutionIndex(long expectedInsertions, double fpp) {
+        checkArgument(expectedInsertions > 0, "Expected insertions must be positive!");
+        checkArgument(fpp > 0.0 && fpp < 1.0, "False positive probability must be in (0, 1)!");
+
+        this.expectedInsertions = expectedInsertions;
+        this.fpp = fpp;
+        this.filter = BloomFilter.create(FINGERPRINT_FUNNEL, expectedInsertions, fpp);
+    }
+
+    /**
+     * Creates an index which uses at most the given number of bytes.
+     * @param maxBytes the memory bound in bytes
+     * @param fpp the desired false positive probability, which holds as long as
+     *            the number of solutions does not exceed {@link #getExpectedInsertions()}
+     * @return a {@link BloomSolutionIndex}
+     */
+    public static BloomSolutionIndex withMemoryBound(long maxBytes, double fpp) {
+        checkArgument(maxBytes > 0, "Memory bound must be positive!");
+        checkArgument(fpp > 0.0 && fpp < 1.0, "False positive probability must be in (0, 1)!");
+
+        // optimal number of bits: m = -n * ln(p) / (ln 2)^2
+        double bitsPerInsertion = -Math.log(fpp) / (Math.log(2) * Math.log(2));
+        long expectedInsertions = Math.max(1, (long) (maxBytes * 8 / bitsPerInsertion));
+
+        return new BloomSolutionIndex(expectedInsertions, fpp);
+    }
+
+    @Override
+    public boolean add(@NonNull Solution solution) {
+        boolean added = filter.put(solution);
+        if (added) {
+            size++;
+        }
+        return added;
+    }
+
+    @Override
+    public boolean contains(@NonNull Solution solution) {
+        return filter.mightContain(solution);
+    }
+
+    @Override
+    public long size() {
+        return size;
+    }
+
+    @Override
+    public void clear() {
+        filter = BloomFilter.create(FINGERPRINT_FUNNEL, expectedInsertions, fpp);
+        size = 0;
+    }
+}
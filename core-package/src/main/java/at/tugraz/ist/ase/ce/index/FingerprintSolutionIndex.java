@@ -0,0 +1,147 @@
+/*
+ * CECore - Core components of a Configuration Environment
+ *
+ * Copyright (c) 2022
+ *
+ * @author: Viet-Man Le (vietman.le@ist.tugraz.at)
+ */
+
+package at.tugraz.ist.ase.ce.index;
+
+import at.tugraz.ist.ase.ce.Solution;
+import com.google.common.hash.HashCode;
+import lombok.NonNull;
+
+import java.util.Arrays;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * A compact index of solutions which keeps only the 128-bit fingerprints of the solutions,
+ * i.e., 16 bytes per solution (plus the free slots of the hash table).
+ * <p>
+ * The solutions themselves are not referenced, so that they could be garbage collected
+ * during a streaming enumeration. Two different solutions are regarded as similar if their
+ * 128-bit fingerprints collide, which is negligible even for billions of solutions.
+ */
+public class FingerprintSolutionIndex implements ISolutionIndexable {
+
+    private static final int DEFAULT_CAPACITY = 1024;
+    private static final double LOAD_FACTOR = 0.5;
+
+    // slot i holds the fingerprint (high[i], low[i]), (0, 0) marks a free slot
+    private long[] high;
+    private long[] low;
+    private int mask;
+    private int threshold;
+    private int size = 0;
+
+    public FingerprintSolutionIndex() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * A constructor
+     * @param expectedSize the expected number of solutions
+     */
+    public FingerprintSolutionIndex(int expectedSize) {
+        checkArgument(expectedSize > 0, "Expected size must be positive!");
+
+        allocate(HashSolutionIndex.tableSizeFor(expectedSize));
+    }
+
+    @Override
+    public boolean add(@NonNull Solution solution) {
+        HashCode fingerprint = SolutionFingerprint.fingerprint(solution);
+        long h = fingerprint.asLong();
+        long l = lowBits(fingerprint);
+
+        int slot = slot(h);
+        while (!isFree(slot)) {
+            if (high[slot] == h && low[slot] == l) {
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        high[slot] = h;
+        low[slot] = l;
+        if (++size > threshold) {
+            rehash();
+        }
+        return true;
+    }
+
+    @Override
+    public boolean contains(@NonNull Solution solution) {
+        HashCode fingerprint = SolutionFingerprint.fingerprint(solution);
+        long h = fingerprint.asLong();
+        long l = lowBits(fingerprint);
+
+        int slot = slot(h);
+        while (!isFree(slot)) {
+            if (high[slot] == h && low[slot] == l) {
+                return true;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return false;
+    }
+
+    @Override
+    public long size() {
+        return size;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(high, 0L);
+        Arrays.fill(low, 0L);
+        size = 0;
+    }
+
+    private boolean isFree(int slot) {
+        return high[slot] == 0L && low[slot] == 0L;
+    }
+
+    private int slot(long fingerprint) {
+        return (int) (fingerprint ^ (fingerprint >>> 32)) & mask;
+    }
+
+    /**
+     * Returns the second 64 bits of the fingerprint. The value is never 0,
+     * so that a fingerprint is never confused with a free slot.
+     */
+    private static long lowBits(HashCode fingerprint) {
+        byte[] bytes = fingerprint.asBytes();
+        long l = 0;
+        for (int i = 15; i >= 8; i--) {
+            l = (l << 8) | (bytes[i] & 0xFF);
+        }
+        return l == 0L ? 1L : l;
+    }
+
+    private void allocate(int capacity) {
+        high = new long[capacity];
+        low = new long[capacity];
+        mask = capacity - 1;
+        threshold = (int) (capacity * LOAD_FACTOR);
+    }
+
+    private void rehash() {
+        long[] oldHigh = high;
+        long[] oldLow = low;
+
+        allocate(oldHigh.length << 1);
+        for (int i = 0; i < oldHigh.length; i++) {
+            if (oldHigh[i] != 0L || oldLow[i] != 0L) {
+                int slot = slot(oldHigh[i]);
+                while (!isFree(slot)) {
+                    slot = (slot + 1) & mask;
+                }
+                high[slot] = oldHigh[i];
+                low[slot] = oldLow[i];
+            }
+        }
+    }
+}
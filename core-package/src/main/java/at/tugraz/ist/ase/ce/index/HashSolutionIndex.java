@@ -0,0 +1,129 @@
+/*
+ * CECore - Core components of a Configuration Environment
+ *
+ * Copyright (c) 2022
+ *
+ * @author: Viet-Man Le (vietman.le@ist.tugraz.at)
+ */
+
+package at.tugraz.ist.ase.ce.index;
+
+import at.tugraz.ist.ase.ce.Solution;
+import lombok.NonNull;
+
+import java.util.Arrays;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * An exact index of solutions.
+ * <p>
+ * Solutions are stored in an open-addressing hash table keyed by their 64-bit fingerprints.
+ * Solutions are only compared with {@link Solution#equals(Object)} if their fingerprints are equal,
+ * hence a lookup costs one fingerprint computation and, in most cases, one exact comparison.
+ */
+public class HashSolutionIndex implements ISolutionIndexable {
+
+    private static final int DEFAULT_CAPACITY = 1024;
+    private static final double LOAD_FACTOR = 0.5;
+
+    private long[] fingerprints;
+    private Solution[] solutions;
+    private int mask;
+    private int threshold;
+    private int size = 0;
+
+    public HashSolutionIndex() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * A constructor
+     * @param expectedSize the expected number of solutions
+     */
+    public HashSolutionIndex(int expectedSize) {
+        checkArgument(expectedSize > 0, "Expected size must be positive!");
+
+        allocate(tableSizeFor(expectedSize));
+    }
+
+    @Override
+    public boolean add(@NonNull Solution solution) {
+        long fingerprint = SolutionFingerprint.fingerprint64(solution);
+
+        int slot = slot(fingerprint);
+        while (solutions[slot] != null) {
+            if (fingerprints[slot] == fingerprint && solutions[slot].equals(solution)) {
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        fingerprints[slot] = fingerprint;
+        solutions[slot] = solution;
+        if (++size > threshold) {
+            rehash();
+        }
+        return true;
+    }
+
+    @Override
+    public boolean contains(@NonNull Solution solution) {
+        long fingerprint = SolutionFingerprint.fingerprint64(solution);
+
+        int slot = slot(fingerprint);
+        while (solutions[slot] != null) {
+            if (fingerprints[slot] == fingerprint && solutions[slot].equals(solution)) {
+                return true;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return false;
+    }
+
+    @Override
+    public long size() {
+        return size;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(fingerprints, 0L);
+        Arrays.fill(solutions, null);
+        size = 0;
+    }
+
+    private int slot(long fingerprint) {
+        return (int) (fingerprint ^ (fingerprint >>> 32)) & mask;
+    }
+
+    private void allocate(int capacity) {
+        fingerprints = new long[capacity];
+        solutions = new Solution[capacity];
+        mask = capacity - 1;
+        threshold = (int) (capacity * LOAD_FACTOR);
+    }
+
+    private void rehash() {
+        long[] oldFingerprints = fingerprints;
+        Solution[] oldSolutions = solutions;
+
+        allocate(oldFingerprints.length << 1);
+        for (int i = 0; i < oldSolutions.length; i++) {
+            if (oldSolutions[i] != null) {
+                int slot = slot(oldFingerprints[i]);
+                while (solutions[slot] != null) {
+                    slot = (slot + 1) & mask;
+                }
+                fingerprints[slot] = oldFingerprints[i];
+                solutions[slot] = oldSolutions[i];
+            }
+        }
+    }
+
+    static int tableSizeFor(int expectedSize) {
+        long capacity = Math.max(2, (long) Math.ceil(expectedSize / LOAD_FACTOR));
+        checkArgument(capacity <= (1 << 30), "Expected size is too large!");
+        return Integer.highestOneBit((int) (capacity - 1)) << 1;
+    }
+}
@@ -0,0 +1,33 @@
+/*
+ * CECore - Core components of a Configuration Environment
+ *
+ * Copyright (c) 2022
+ *
+ * @author: Viet-Man Le (vietman.le@ist.tugraz.at)
+ */
+
+package at.tugraz.ist.ase.ce.index;
+
+import at.tugraz.ist.ase.ce.Solution;
+import lombok.NonNull;
+
+/**
+ * An index of already found solutions, used to skip similar solutions during an enumeration.
+ */
+public interface ISolutionIndexable {
+    /**
+     * Adds a solution to the index.
+     * @param solution a {@link Solution}
+     * @return true if the solution was not in the index, false otherwise
+     */
+    boolean add(@NonNull Solution solution);
+
+    boolean contains(@NonNull Solution solution);
+
+    /**
+     * @return the number of solutions added to the index
+     */
+    long size();
+
+    void clear();
+}
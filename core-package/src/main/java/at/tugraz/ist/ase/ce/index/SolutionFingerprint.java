@@ -0,0 +1,77 @@
+/*
+ * CECore - Core components of a Configuration Environment
+ *
+ * Copyright (c) 2022
+ *
+ * @author: Viet-Man Le (vietman.le@ist.tugraz.at)
+ */
+
+package at.tugraz.ist.ase.ce.index;
+
+import at.tugraz.ist.ase.ce.IntSolution;
+import at.tugraz.ist.ase.ce.Solution;
+import at.tugraz.ist.ase.kb.core.Assignment;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import lombok.NonNull;
+import lombok.experimental.UtilityClass;
+
+import java.util.Comparator;
+
+/**
+ * Computes 64/128-bit fingerprints of the assignment vector of a {@link Solution}.
+ * Two equal solutions always have the same fingerprint.
+ * The canonical fingerprint does not depend on the order of the assignments.
+ * <p>
+ * Fingerprints of {@link IntSolution}s are computed from their codes, without creating their assignments.
+ * Since an IntSolution never equals a {@link Solution} of another class, the fingerprints of both
+ * kinds of solutions are not comparable. The canonical fingerprint is always computed from the assignments.
+ */
+@UtilityClass
+public class SolutionFingerprint {
+
+    private static final HashFunction HASH_FUNCTION = Hashing.murmur3_128();
+
+    public HashCode fingerprint(@NonNull Solution solution) {
+        Hasher hasher = HASH_FUNCTION.newHasher();
+
+        if (solution instanceof IntSolution) {
+            IntSolution intSolution = (IntSolution) solution;
+            for (int i = 0; i < intSolution.size(); i++) {
+                hasher.putInt(intSolution.getCode(i));
+            }
+            return hasher.hash();
+        }
+
+        for (Assignment assignment : solution.getAssignments()) {
+            putAssignment(hasher, assignment);
+        }
+        return hasher.hash();
+    }
+
+    /**
+     * Computes the fingerprint of the assignments sorted by their variable names,
+     * i.e., two solutions with the same assignments in different orders have the same canonical fingerprint.
+     */
+    public HashCode canonicalFingerprint(@NonNull Solution solution) {
+        Hasher hasher = HASH_FUNCTION.newHasher();
+
+        solution.getAssignments().stream()
+                .sorted(Comparator.comparing(Assignment::getVariable))
+                .forEachOrdered(assignment -> putAssignment(hasher, assignment));
+        return hasher.hash();
+    }
+
+    public long fingerprint64(@NonNull Solution solution) {
+        return fingerprint(solution).asLong();
+    }
+
+    private void putAssignment(Hasher hasher, Assignment assignment) {
+        hasher.putUnencodedChars(assignment.getVariable());
+        hasher.putChar('=');
+        hasher.putUnencodedChars(assignment.getValue());
+        hasher.putChar(',');
+    }
+}
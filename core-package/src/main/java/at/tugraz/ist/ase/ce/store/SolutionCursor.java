@@ -0,0 +1,68 @@
+/*
+ * CECore - Core components of a Configuration Environment
+ *
+ * Copyright (c) 2022
+ *
+ * @author: Viet-Man Le (vietman.le@ist.tugraz.at)
+ */
+
+package at.tugraz.ist.ase.ce.store;
+
+import at.tugraz.ist.ase.ce.IntSolution;
+import lombok.Getter;
+
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * A cursor over the rows of a {@link SolutionStore}. The codes are read directly from the blocks of the store,
+ * no solution object is created unless {@link #toSolution()} is called.
+ * <pre>
+ * SolutionCursor cursor = store.cursor();
+ * while (cursor.next()) {
+ *     int code = cursor.getCode(0);
+ * }
+ * </pre>
+ */
+public final class SolutionCursor {
+
+    private final SolutionStore store;
+    private final long end;
+
+    @Getter
+    private long row = -1;
+
+    SolutionCursor(SolutionStore store, long end) {
+        this.store = store;
+        this.end = end;
+    }
+
+    /**
+     * Moves the cursor to the next row.
+     * @return false if there are no more rows
+     */
+    public boolean next() {
+        if (row + 1 >= end) {
+            row = end;
+            return false;
+        }
+        row++;
+        return true;
+    }
+
+    public int getCode(int varIndex) {
+        checkState(row >= 0 && row < end, "The cursor is not on a row!");
+        return store.readCode(row, varIndex);
+    }
+
+    public String getValue(int varIndex) {
+        return store.getSchema().getValue(varIndex, getCode(varIndex));
+    }
+
+    /**
+     * @return a copy of the current row
+     */
+    public IntSolution toSolution() {
+        checkState(row >= 0 && row < end, "The cursor is not on a row!");
+        return store.get(row);
+    }
+}
@@ -0,0 +1,373 @@
+/*
+ * CECore - Core components of a Configuration Environment
+ *
+ * Copyright (c) 2022
+ *
+ * @author: Viet-Man Le (vietman.le@ist.tugraz.at)
+ */
+
+package at.tugraz.ist.ase.ce.store;
+
+import at.tugraz.ist.ase.ce.IntSolution;
+import at.tugraz.ist.ase.ce.Solution;
+import at.tugraz.ist.ase.ce.SolutionSchema;
+import at.tugraz.ist.ase.common.LoggerUtils;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static com.google.common.base.Preconditions.*;
+
+/**
+ * A columnar store of the solutions of a KB.
+ * <p>
+ * Solutions are stored as the codes of their values (see {@link SolutionSchema}). Rows are grouped into
+ * blocks of a fixed number of rows. In a block, each variable is a column of codes, bit-packed with
+ * the minimal number of bits for the domain size of the variable. All blocks have the same size, hence a code
+ * is located without any index.
+ * <p>
+ * A store is either kept in memory, or persisted to a file which is memory-mapped. A file store can be
+ * reopened with {@link #open(Path)} without parsing, since the mapped blocks are read directly.
+ * Solutions can be appended while other threads read the stored rows, e.g., while an enumeration runs.
+ * The rows can be iterated without copying with a {@link SolutionCursor}.
+ * <p>
+ * File layout: the header (magic, version, number of rows, rows per block, header length, schema),
+ * then the blocks.
+ */
+@Slf4j
+public class SolutionStore implements Closeable {
+
+    public static final int MAGIC = 0x43455353; // CESS
+    public static final int VERSION = 1;
+    public static final int DEFAULT_BLOCK_ROWS = 4096;
+
+    private static final int ROW_COUNT_OFFSET = 8;
+    private static final long MAX_SEGMENT_SIZE = 1L << 26; // 64 MB
+
+    @Getter
+    private final SolutionSchema schema;
+    @Getter
+    private final int blockRows;
+
+    // layout of a block
+    private final int[] bits;
+    private final long[] masks;
+    private final int[] columnOffsets;
+    private final int blockBytes;
+
+    // segments of blocks, each segment holds blocksPerSegment blocks, readers don't lock the list
+    private final List<ByteBuffer> segments = new CopyOnWriteArrayList<>();
+    private final int blocksPerSegment;
+
+    private final FileChannel channel; // null - in-memory store
+    private final int headerLength;
+    private final boolean readOnly;
+    private MappedByteBuffer header;
+
+    private volatile long size = 0;
+
+    /**
+     * Creates an in-memory store.
+     */
+    public static SolutionStore inMemory(@NonNull SolutionSchema schema) {
+        return new SolutionStore(schema, DEFAULT_BLOCK_ROWS, null, 0, false, 1);
+    }
+
+    /**
+     * Creates a new store persisted to the given file. The file is overwritten if it exists.
+     */
+    public static SolutionStore create(@NonNull Path path, @NonNull SolutionSchema schema) throws IOException {
+        return create(path, schema, DEFAULT_BLOCK_ROWS);
+    }
+
+    public static SolutionStore create(@NonNull Path path, @NonNull SolutionSchema schema, int blockRows) throws IOException {
+        checkArgument(blockRows > 0 && blockRows % 64 == 0, "blockRows must be a positive multiple of 64!");
+
+        byte[] schemaBytes = writeSchema(schema);
+        int headerLength = align8(24 + schemaBytes.length);
+
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        ByteBuffer buffer = ByteBuffer.allocate(headerLength).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(MAGIC).putInt(VERSION).putLong(0).putInt(blockRows).putInt(headerLength).put(schemaBytes);
+        buffer.clear();
+        channel.write(buffer, 0);
+
+        SolutionStore store = new SolutionStore(schema, blockRows, channel, headerLength, false, 0);
+        log.debug("{}Created solution store [path={}, blockBytes={}]", LoggerUtils.tab(), path, store.blockBytes);
+        return store;
+    }
+
+    /**
+     * Opens a persisted store, read-only.
+     */
+    public static SolutionStore open(@NonNull Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+
+        ByteBuffer buffer = ByteBuffer.allocate(24).order(ByteOrder.LITTLE_ENDIAN);
+        channel.read(buffer, 0);
+        buffer.flip();
+        if (buffer.remaining() < 24 || buffer.getInt() != MAGIC) {
+            channel.close();
+            throw new IOException("Not a solution store: " + path);
+        }
+        int version = buffer.getInt();
+        if (version != VERSION) {
+            channel.close();
+            throw new IOException("Unsupported version of solution store: " + version);
+        }
+        long size = buffer.getLong();
+        int blockRows = buffer.getInt();
+        int headerLength = buffer.getInt();
+
+        ByteBuffer schemaBuffer = ByteBuffer.allocate(headerLength - 24);
+        channel.read(schemaBuffer, 24);
+        SolutionSchema schema = readSchema(schemaBuffer.array());
+
+        SolutionStore store = new SolutionStore(schema, blockRows, channel, headerLength, true, 0);
+        store.size = size;
+        store.mapSegments(store.getNumBlocks(size));
+
+        log.debug("{}Opened solution store [path={}, size={}]", LoggerUtils.tab(), path, size);
+        return store;
+    }
+
+    private SolutionStore(SolutionSchema schema, int blockRows, FileChannel channel, int headerLength,
+                          boolean readOnly, int blocksPerSegment) {
+        this.schema = schema;
+        this.blockRows = blockRows;
+        this.channel = channel;
+        this.headerLength = headerLength;
+        this.readOnly = readOnly;
+
+        int numVars = schema.getNumVariables();
+        this.bits = new int[numVars];
+        this.masks = new long[numVars];
+        this.columnOffsets = new int[numVars];
+
+        int offset = 0;
+        for (int i = 0; i < numVars; i++) {
+            bits[i] = Math.max(1, 32 - Integer.numberOfLeadingZeros(schema.getDomainSize(i) - 1));
+            masks[i] = (1L << bits[i]) - 1;
+            columnOffsets[i] = offset;
+            offset += ((blockRows * bits[i] + 63) >>> 6) << 3;
+        }
+        this.blockBytes = Math.max(offset, 8);
+        this.blocksPerSegment = blocksPerSegment > 0 ? blocksPerSegment : (int) Math.max(1, MAX_SEGMENT_SIZE / blockBytes);
+
+        if (channel != null && !readOnly) {
+            try {
+                header = channel.map(FileChannel.MapMode.READ_WRITE, 0, headerLength);
+                header.order(ByteOrder.LITTLE_ENDIAN);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     * @return the number of stored solutions
+     */
+    public long size() {
+        return size;
+    }
+
+    public boolean isReadOnly() {
+        return readOnly;
+    }
+
+    /**
+     * Appends a solution assigning all variables of the schema.
+     */
+    public void append(@NonNull Solution solution) throws IOException {
+        if (solution instanceof IntSolution && ((IntSolution) solution).getSchema().equals(schema)) {
+            IntSolution intSolution = (IntSolution) solution;
+            synchronized (this) {
+                long row = prepareRow();
+                for (int i = 0; i < bits.length; i++) {
+                    putCode(row, i, intSolution.getCode(i));
+                }
+                size = row + 1;
+            }
+        } else {
+            append(IntSolution.of(schema, solution).getCodes());
+        }
+    }
+
+    /**
+     * Appends a solution given by the codes of its values.
+     */
+    public synchronized void append(@NonNull int[] codes) throws IOException {
+        checkArgument(codes.length == bits.length, "The solution must assign all variables of the schema!");
+        // validates all codes before writing, so that a rejected solution leaves no bits in the next row
+        for (int i = 0; i < codes.length; i++) {
+            checkElementIndex(codes[i], schema.getDomainSize(i), "Code out of bound!");
+        }
+
+        long row = prepareRow();
+        for (int i = 0; i < codes.length; i++) {
+            putCode(row, i, codes[i]);
+        }
+        size = row + 1; // publishes the row
+    }
+
+    /**
+     * @return the code of the value of a variable in a stored solution
+     */
+    public int getCode(long row, int varIndex) {
+        checkElementIndex(varIndex, bits.length, "Index out of bound!");
+        checkArgument(row >= 0 && row < size, "Row out of bound!");
+
+        return readCode(row, varIndex);
+    }
+
+    /**
+     * @return a copy of a stored solution
+     */
+    public IntSolution get(long row) {
+        checkArgument(row >= 0 && row < size, "Row out of bound!");
+
+        int[] codes = new int[bits.length];
+        for (int i = 0; i < codes.length; i++) {
+            codes[i] = readCode(row, i);
+        }
+        return new IntSolution(schema, codes);
+    }
+
+    /**
+     * @return a cursor over the solutions stored at the time of the call
+     */
+    public SolutionCursor cursor() {
+        return new SolutionCursor(this, size);
+    }
+
+    /**
+     * Writes the number of rows to the header and forces the mapped blocks to the file.
+     */
+    public synchronized void flush() {
+        if (channel == null || readOnly) {
+            return;
+        }
+
+        header.putLong(ROW_COUNT_OFFSET, size);
+        header.force();
+        for (ByteBuffer segment : segments) {
+            ((MappedByteBuffer) segment).force();
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (channel == null || !channel.isOpen()) {
+            return;
+        }
+
+        flush();
+        if (!readOnly) {
+            // the last segment could be mapped beyond the last block
+            channel.truncate(headerLength + (long) getNumBlocks(size) * blockBytes);
+        }
+        segments.clear();
+        header = null;
+        channel.close();
+    }
+
+    int readCode(long row, int varIndex) {
+        long block = row / blockRows;
+        ByteBuffer segment = segments.get((int) (block / blocksPerSegment));
+        int base = (int) (block % blocksPerSegment) * blockBytes + columnOffsets[varIndex];
+
+        int bitPos = (int) (row % blockRows) * bits[varIndex];
+        int index = base + ((bitPos >>> 6) << 3);
+        int shift = bitPos & 63;
+
+        long value = segment.getLong(index) >>> shift;
+        if (shift + bits[varIndex] > 64) {
+            value |= segment.getLong(index + 8) << (64 - shift);
+        }
+        return (int) (value & masks[varIndex]);
+    }
+
+    private void putCode(long row, int varIndex, int code) {
+        long block = row / blockRows;
+        ByteBuffer segment = segments.get((int) (block / blocksPerSegment));
+        int base = (int) (block % blocksPerSegment) * blockBytes + columnOffsets[varIndex];
+
+        int bitPos = (int) (row % blockRows) * bits[varIndex];
+        int index = base + ((bitPos >>> 6) << 3);
+        int shift = bitPos & 63;
+
+        // blocks are zeroed when they are allocated
+        segment.putLong(index, segment.getLong(index) | ((long) code << shift));
+        if (shift + bits[varIndex] > 64) {
+            segment.putLong(index + 8, segment.getLong(index + 8) | ((long) code >>> (64 - shift)));
+        }
+    }
+
+    /**
+     * Makes sure that the block of the next row is allocated.
+     * @return the next row
+     */
+    private long prepareRow() throws IOException {
+        checkState(!readOnly, "The solution store is read-only!");
+        checkState(channel == null || channel.isOpen(), "The solution store is closed!");
+
+        long row = size;
+        mapSegments(getNumBlocks(row + 1));
+        return row;
+    }
+
+    /**
+     * Allocates or maps the segments holding the given number of blocks.
+     */
+    private void mapSegments(int numBlocks) throws IOException {
+        int numSegments = (numBlocks + blocksPerSegment - 1) / blocksPerSegment;
+
+        while (segments.size() < numSegments) {
+            ByteBuffer segment;
+            if (channel == null) {
+                segment = ByteBuffer.allocate(blocksPerSegment * blockBytes);
+            } else {
+                long position = headerLength + (long) segments.size() * blocksPerSegment * blockBytes;
+                long length = (long) blocksPerSegment * blockBytes;
+                if (readOnly) {
+                    length = Math.min(length, channel.size() - position);
+                }
+                segment = channel.map(readOnly ? FileChannel.MapMode.READ_ONLY : FileChannel.MapMode.READ_WRITE, position, length);
+            }
+            segments.add(segment.order(ByteOrder.LITTLE_ENDIAN));
+        }
+    }
+
+    private int getNumBlocks(long numRows) {
+        return (int) ((numRows + blockRows - 1) / blockRows);
+    }
+
+    private static int align8(int length) {
+        return (length + 7) & ~7;
+    }
+
+    private static byte[] writeSchema(SolutionSchema schema) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            schema.write(out);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static SolutionSchema readSchema(byte[] bytes) throws IOException {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes))) {
+            return SolutionSchema.read(in);
+        }
+    }
+}
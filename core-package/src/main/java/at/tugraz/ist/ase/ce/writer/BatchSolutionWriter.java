@@ -0,0 +1,495 @@
+/*
+ * CECore - Core components of a Configuration Environment
+ *
+ * Copyright (c) 2022
+ *
+ * @author: Viet-Man Le (vietman.le@ist.tugraz.at)
+ */
+
+package at.tugraz.ist.ase.ce.writer;
+
+import at.tugraz.ist.ase.ce.IntSolution;
+import at.tugraz.ist.ase.ce.Solution;
+import at.tugraz.ist.ase.ce.SolutionSchema;
+import at.tugraz.ist.ase.common.LoggerUtils;
+import at.tugraz.ist.ase.kb.core.Assignment;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.*;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * A {@link SolutionWriter} which appends the solutions to one file, or to chunk files of
+ * at most maxSolutionsPerFile solutions, instead of writing one file per solution.
+ * <p>
+ * By default, solutions are put into a bounded queue and written by a background thread, so that
+ * the search thread only blocks when the queue is full. The written data is flushed every flushEvery
+ * solutions and every flushInterval milliseconds, and forced to the disk according to the {@link SyncPolicy}.
+ * <p>
+ * An error of the background thread is thrown by the next call of write, flush, or close.
+ * If the background thread has terminated, write and flush throw an {@link IOException} instead of waiting for it.
+ * <p>
+ * Usage:
+ * <pre>
+ * try (BatchSolutionWriter writer = BatchSolutionWriter.builder()
+ *         .folder("./conf/").format(SolutionFormat.CSV).maxSolutionsPerFile(100000).build()) {
+ *     configurator.findAllSolutions(false, writer);
+ * }
+ * </pre>
+ */
+@Slf4j
+public class BatchSolutionWriter extends SolutionWriter {
+
+    public static final int BINARY_MAGIC = 0x43455342; // CESB
+    public static final int BINARY_VERSION = 1;
+
+    public static final int DEFAULT_QUEUE_CAPACITY = 1024;
+    public static final int DEFAULT_FLUSH_EVERY = 1000;
+
+    // marks the end of the queue
+    private static final Object CLOSE = new Object();
+    // how often a waiting thread checks whether the background thread is still alive
+    private static final long CHECK_INTERVAL = 100;
+
+    @Getter
+    private final SolutionFormat format;
+    @Getter
+    private final SolutionSchema schema;
+    private final String prefix;
+    private final long maxSolutionsPerFile;
+    private final int flushEvery;
+    private final long flushInterval;
+    private final SyncPolicy syncPolicy;
+
+    private final BlockingQueue<Object> queue; // null if synchronous
+    private final Thread drainer;
+    private volatile Throwable failure = null;
+    private volatile boolean closed = false;
+
+    // state of the current file, only accessed by the background thread or under the lock of the writer
+    private final BinaryRows binaryRows;
+    private final List<Path> files = new CopyOnWriteArrayList<>();
+    private FileChannel channel = null;
+    private OutputStream out = null;
+    private List<String> csvHeader = null;
+    private long numInFile = 0;
+    private int numUnflushed = 0;
+    private long lastFlush = System.currentTimeMillis();
+
+    /**
+     * A constructor
+     * @param folder the folder of the files, created if not exists
+     * @param prefix the name of the files, "solutions" by default
+     * @param format the format of the files, JSONL by default
+     * @param schema the schema of the solutions, required by the BINARY format, also gives the columns of the CSV format
+     * @param maxSolutionsPerFile the maximum number of solutions per file, 0 - one file
+     * @param queueCapacity the capacity of the queue, DEFAULT_QUEUE_CAPACITY by default
+     * @param synchronous true - write the solutions in the calling thread, without a queue
+     * @param flushEvery flush after this number of solutions, DEFAULT_FLUSH_EVERY by default
+     * @param flushInterval flush after this number of milliseconds, 0 - no interval
+     * @param syncPolicy when the data is forced to the disk, ON_CLOSE by default
+     */
+    @Builder
+    private BatchSolutionWriter(@NonNull String folder, String prefix, SolutionFormat format, SolutionSchema schema,
+                                long maxSolutionsPerFile, int queueCapacity, boolean synchronous,
+                                int flushEvery, long flushInterval, SyncPolicy syncPolicy) {
+        super(folder);
+        checkArgument(maxSolutionsPerFile >= 0, "maxSolutionsPerFile must not be negative!");
+        checkArgument(queueCapacity >= 0, "queueCapacity must not be negative!");
+        checkArgument(flushEvery >= 0, "flushEvery must not be negative!");
+        checkArgument(flushInterval >= 0, "flushInterval must not be negative!");
+
+        this.prefix = prefix != null ? prefix : "solutions";
+        this.format = format != null ? format : SolutionFormat.JSONL;
+        this.schema = schema;
+        this.maxSolutionsPerFile = maxSolutionsPerFile;
+        this.flushEvery = flushEvery > 0 ? flushEvery : DEFAULT_FLUSH_EVERY;
+        this.flushInterval = flushInterval;
+        this.syncPolicy = syncPolicy != null ? syncPolicy : SyncPolicy.ON_CLOSE;
+
+        checkArgument(this.format != SolutionFormat.BINARY || schema != null, "The BINARY format requires a schema!");
+        this.binaryRows = this.format == SolutionFormat.BINARY ? new BinaryRows(schema) : null;
+
+        if (synchronous) {
+            queue = null;
+            drainer = null;
+        } else {
+            queue = new ArrayBlockingQueue<>(queueCapacity > 0 ? queueCapacity : DEFAULT_QUEUE_CAPACITY);
+            drainer = new Thread(this::drain, "solution-writer");
+            drainer.setDaemon(true);
+            drainer.start();
+        }
+    }
+
+    /**
+     * Writes a solution, or puts it into the queue. Blocks if the queue is full.
+     * With the BINARY format, the solution must assign all variables of the schema.
+     */
+    @Override
+    public void write(@NonNull Solution solution) throws IOException {
+        checkState(!closed, "The writer is closed!");
+        throwFailure();
+        if (binaryRows != null) {
+            solution = IntSolution.of(schema, solution); // validates the solution in the calling thread
+        }
+
+        nextNumber();
+        if (queue == null) {
+            synchronized (this) {
+                append(solution);
+            }
+        } else {
+            try {
+                enqueue(solution);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for the queue of the writer");
+            }
+        }
+    }
+
+    /**
+     * Writes all queued solutions and flushes the current file, forcing it to the disk
+     * if the policy is ON_FLUSH.
+     */
+    public void flush() throws IOException {
+        checkState(!closed, "The writer is closed!");
+
+        if (queue == null) {
+            synchronized (this) {
+                flushFile();
+            }
+        } else {
+            CompletableFuture<Void> flushed = new CompletableFuture<>();
+            try {
+                enqueue(flushed);
+                while (true) {
+                    try {
+                        flushed.get(CHECK_INTERVAL, TimeUnit.MILLISECONDS);
+                        break;
+                    } catch (TimeoutException e) {
+                        checkDrainer();
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while flushing the writer");
+            } catch (ExecutionException e) {
+                throw new IOException(e.getCause());
+            }
+        }
+        throwFailure();
+    }
+
+    /**
+     * Writes all queued solutions and closes the current file.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+
+        if (queue == null) {
+            synchronized (this) {
+                closeFile();
+            }
+        } else {
+            try {
+                // a terminated background thread does not take the marker anymore
+                while (drainer.isAlive() && !queue.offer(CLOSE, CHECK_INTERVAL, TimeUnit.MILLISECONDS)) {
+                    log.trace("{}Waiting for the queue of the writer", LoggerUtils.tab());
+                }
+                drainer.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while closing the writer");
+            }
+        }
+        log.debug("{}Closed solution writer [solutions={}, files={}]", LoggerUtils.tab(), getCounter(), files.size());
+        throwFailure();
+    }
+
+    /**
+     * @return the files created so far
+     */
+    public List<Path> getFiles() {
+        return Collections.unmodifiableList(files);
+    }
+
+    private void throwFailure() throws IOException {
+        if (failure != null) {
+            throw new IOException("The solution writer failed", failure);
+        }
+    }
+
+    /**
+     * Throws the failure of the background thread, or an {@link IOException} if it has terminated.
+     */
+    private void checkDrainer() throws IOException {
+        throwFailure();
+        if (!drainer.isAlive()) {
+            throw new IOException("The background thread of the solution writer has terminated");
+        }
+    }
+
+    /**
+     * Puts an entry into the queue, waiting while the queue is full and the background thread is alive.
+     */
+    private void enqueue(Object entry) throws IOException, InterruptedException {
+        while (!queue.offer(entry, CHECK_INTERVAL, TimeUnit.MILLISECONDS)) {
+            checkDrainer();
+        }
+    }
+
+    /**
+     * Loop of the background thread. After a failure, the remaining solutions are discarded,
+     * so that the writing threads are not blocked by a full queue. An {@link Error} terminates the thread.
+     */
+    @SuppressWarnings("unchecked")
+    private void drain() {
+        try {
+            while (true) {
+                Object entry = flushInterval > 0
+                        ? queue.poll(Math.max(1, lastFlush + flushInterval - System.currentTimeMillis()), TimeUnit.MILLISECONDS)
+                        : queue.take();
+
+                if (entry == CLOSE) {
+                    if (failure == null) {
+                        closeFile();
+                    }
+                    return;
+                } else if (entry instanceof CompletableFuture) {
+                    if (failure == null) {
+                        flushFile();
+                    }
+                    ((CompletableFuture<Void>) entry).complete(null);
+                } else if (failure == null) {
+                    if (entry != null) {
+                        append((Solution) entry);
+                    } else if (out != null && numUnflushed > 0) {
+                        flushFile();
+                    }
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            log.error("{}Writing solutions failed - {}", LoggerUtils.tab(), e.getMessage());
+            failure = e;
+            discardUntilClose();
+        } catch (Error e) {
+            failure = e;
+            closeQuietly();
+            throw e;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void discardUntilClose() {
+        try {
+            Object entry;
+            while ((entry = queue.take()) != CLOSE) {
+                if (entry instanceof CompletableFuture) {
+                    ((CompletableFuture<Void>) entry).complete(null);
+                }
+            }
+            closeQuietly();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void append(Solution solution) throws IOException {
+        try {
+            if (out != null && maxSolutionsPerFile > 0 && numInFile >= maxSolutionsPerFile) {
+                closeFile();
+            }
+            if (out == null) {
+                openFile(solution);
+            }
+
+            switch (format) {
+                case JSONL -> writeJson(solution);
+                case CSV -> writeCsv(solution);
+                case BINARY -> writeBinary(solution);
+            }
+
+            numInFile++;
+            numUnflushed++;
+            if (numUnflushed >= flushEvery
+                    || (flushInterval > 0 && System.currentTimeMillis() - lastFlush >= flushInterval)) {
+                flushFile();
+            }
+        } catch (IOException e) {
+            failure = e;
+            closeQuietly();
+            throw e;
+        }
+    }
+
+    private void openFile(Solution first) throws IOException {
+        String name = maxSolutionsPerFile > 0
+                ? String.format("%s_%05d.%s", prefix, files.size() + 1, format.getExtension())
+                : prefix + "." + format.getExtension();
+        Path path = Paths.get(folder, name);
+        Files.createDirectories(path.toAbsolutePath().getParent());
+
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE);
+        out = new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16);
+        files.add(path);
+        numInFile = 0;
+
+        if (format == SolutionFormat.CSV) {
+            csvHeader = new ArrayList<>();
+            if (schema != null) {
+                for (int i = 0; i < schema.getNumVariables(); i++) {
+                    csvHeader.add(schema.getName(i));
+                }
+            } else {
+                for (Assignment assignment : first.getAssignments()) {
+                    csvHeader.add(assignment.getVariable());
+                }
+            }
+            writeLine(csvHeader);
+        } else if (format == SolutionFormat.BINARY) {
+            DataOutputStream header = new DataOutputStream(out);
+            header.writeInt(BINARY_MAGIC);
+            header.writeInt(BINARY_VERSION);
+            schema.write(header);
+        }
+
+        log.debug("{}Opened solution file [path={}]", LoggerUtils.tab(), path);
+    }
+
+    private void flushFile() throws IOException {
+        if (out == null) {
+            return;
+        }
+
+        out.flush();
+        if (syncPolicy == SyncPolicy.ON_FLUSH) {
+            channel.force(false);
+        }
+        numUnflushed = 0;
+        lastFlush = System.currentTimeMillis();
+    }
+
+    private void closeFile() throws IOException {
+        if (out == null) {
+            return;
+        }
+
+        out.flush();
+        if (syncPolicy != SyncPolicy.NONE) {
+            channel.force(false);
+        }
+        out.close();
+        out = null;
+        channel = null;
+        numUnflushed = 0;
+        lastFlush = System.currentTimeMillis();
+    }
+
+    private void closeQuietly() {
+        if (out != null) {
+            try {
+                out.close();
+            } catch (IOException ignored) {
+                // the first error has already been recorded
+            }
+            out = null;
+            channel = null;
+        }
+    }
+
+    private void writeJson(Solution solution) throws IOException {
+        StringBuilder line = new StringBuilder("{");
+        for (int i = 0; i < solution.size(); i++) {
+            Assignment assignment = solution.getAssignment(i);
+            if (i > 0) {
+                line.append(',');
+            }
+            appendJsonString(line, assignment.getVariable());
+            line.append(':');
+            appendJsonString(line, assignment.getValue());
+        }
+        line.append("}\n");
+        out.write(line.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void writeCsv(Solution solution) throws IOException {
+        Map<String, String> values = new HashMap<>(solution.size() * 2);
+        for (Assignment assignment : solution.getAssignments()) {
+            values.put(assignment.getVariable(), assignment.getValue());
+        }
+
+        List<String> fields = new ArrayList<>(csvHeader.size());
+        for (String variable : csvHeader) {
+            fields.add(values.getOrDefault(variable, "")); // unassigned variables are empty
+        }
+        writeLine(fields);
+    }
+
+    private void writeBinary(Solution solution) throws IOException {
+        int[] codes = ((IntSolution) solution).getCodes();
+        byte[] row = new byte[binaryRows.getRowBytes()];
+        binaryRows.pack(codes, row);
+        out.write(row);
+    }
+
+    private void writeLine(List<String> fields) throws IOException {
+        StringBuilder line = new StringBuilder();
+        for (int i = 0; i < fields.size(); i++) {
+            if (i > 0) {
+                line.append(',');
+            }
+            String field = fields.get(i);
+            if (field.indexOf(',') >= 0 || field.indexOf('"') >= 0 || field.indexOf('\n') >= 0) {
+                line.append('"').append(field.replace("\"", "\"\"")).append('"');
+            } else {
+                line.append(field);
+            }
+        }
+        line.append('\n');
+        out.write(line.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void appendJsonString(StringBuilder sb, String s) {
+        sb.append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"' -> sb.append("\\\"");
+                case '\\' -> sb.append("\\\\");
+                case '\n' -> sb.append("\\n");
+                case '\r' -> sb.append("\\r");
+                case '\t' -> sb.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+                }
+            }
+        }
+        sb.append('"');
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * CECore - Core components of a Configuration Environment
+ *
+ * Copyright (c) 2022
+ *
+ * @author: Viet-Man Le (vietman.le@ist.tugraz.at)
+ */
+
+package at.tugraz.ist.ase.ce.writer;
+
+import at.tugraz.ist.ase.ce.SolutionSchema;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Packs the codes of a solution into the bytes of a row of the binary format,
+ * using ceil(log2(domain size)) bits per variable, the first variable in the lowest bits.
+ */
+final class BinaryRows {
+
+    private final int[] bits;
+    private final int rowBytes;
+
+    BinaryRows(SolutionSchema schema) {
+        checkArgument(schema.getNumVariables() > 0, "The schema must have variables!");
+
+        bits = new int[schema.getNumVariables()];
+        int totalBits = 0;
+        for (int i = 0; i < bits.length; i++) {
+            bits[i] = Math.max(1, 32 - Integer.numberOfLeadingZeros(schema.getDomainSize(i) - 1));
+            totalBits += bits[i];
+        }
+        rowBytes = (totalBits + 7) / 8;
+    }
+
+    int getRowBytes() {
+        return rowBytes;
+    }
+
+    void pack(int[] codes, byte[] row) {
+        long acc = 0;
+        int numBits = 0;
+        int k = 0;
+        for (int i = 0; i < bits.length; i++) {
+            acc |= (long) codes[i] << numBits;
+            numBits += bits[i];
+            while (numBits >= 8) {
+                row[k++] = (byte) acc;
+                acc >>>= 8;
+                numBits -= 8;
+            }
+        }
+        if (numBits > 0) {
+            row[k] = (byte) acc;
+        }
+    }
+
+    void unpack(byte[] row, int[] codes) {
+        long acc = 0;
+        int numBits = 0;
+        int k = 0;
+        for (int i = 0; i < bits.length; i++) {
+            while (numBits < bits[i]) {
+                acc |= (long) (row[k++] & 0xFF) << numBits;
+                numBits += 8;
+            }
+            codes[i] = (int) (acc & ((1L << bits[i]) - 1));
+            acc >>>= bits[i];
+            numBits -= bits[i];
+        }
+    }
+}
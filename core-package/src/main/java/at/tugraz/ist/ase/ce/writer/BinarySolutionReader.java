@@ -0,0 +1,98 @@
+/*
+ * CECore - Core components of a Configuration Environment
+ *
+ * Copyright (c) 2022
+ *
+ * @author: Viet-Man Le (vietman.le@ist.tugraz.at)
+ */
+
+package at.tugraz.ist.ase.ce.writer;
+
+import at.tugraz.ist.ase.ce.IntSolution;
+import at.tugraz.ist.ase.ce.SolutionSchema;
+import lombok.Getter;
+import lombok.NonNull;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Reads the solutions of a file written by a {@link BatchSolutionWriter} with the BINARY format,
+ * one solution at a time.
+ */
+public class BinarySolutionReader implements Iterator<IntSolution>, Closeable {
+
+    @Getter
+    private final SolutionSchema schema;
+
+    private final DataInputStream in;
+    private final BinaryRows binaryRows;
+    private final byte[] row;
+
+    private IntSolution next = null;
+
+    public BinarySolutionReader(@NonNull Path path) throws IOException {
+        in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path), 1 << 16));
+        try {
+            if (in.readInt() != BatchSolutionWriter.BINARY_MAGIC) {
+                throw new IOException("Not a binary solution file: " + path);
+            }
+            int version = in.readInt();
+            if (version != BatchSolutionWriter.BINARY_VERSION) {
+                throw new IOException("Unsupported version of binary solution file: " + version);
+            }
+            schema = SolutionSchema.read(in);
+        } catch (IOException e) {
+            in.close();
+            throw e;
+        }
+
+        binaryRows = new BinaryRows(schema);
+        row = new byte[binaryRows.getRowBytes()];
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next == null) {
+            next = readNext();
+        }
+        return next != null;
+    }
+
+    @Override
+    public IntSolution next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        IntSolution solution = next;
+        next = null;
+        return solution;
+    }
+
+    private IntSolution readNext() {
+        try {
+            int first = in.read();
+            if (first < 0) {
+                return null;
+            }
+            row[0] = (byte) first;
+            in.readFully(row, 1, row.length - 1);
+
+            int[] codes = new int[schema.getNumVariables()];
+            binaryRows.unpack(row, codes);
+            return new IntSolution(schema, codes);
+        } catch (EOFException e) {
+            throw new UncheckedIOException(new IOException("Truncated binary solution file", e));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
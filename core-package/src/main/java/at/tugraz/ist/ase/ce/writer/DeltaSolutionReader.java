@@ -0,0 +1,158 @@
+/*
+ * CECore - Core components of a Configuration Environment
+ *
+ * Copyright (c) 2022
+ *
+ * @author: Viet-Man Le (vietman.le@ist.tugraz.at)
+ */
+
+package at.tugraz.ist.ase.ce.writer;
+
+import at.tugraz.ist.ase.ce.IntSolution;
+import at.tugraz.ist.ase.ce.SolutionSchema;
+import lombok.Getter;
+import lombok.NonNull;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Reads the solutions of a file written by a {@link DeltaSolutionWriter}, one block at a time.
+ */
+public class DeltaSolutionReader implements Iterator<IntSolution>, Closeable {
+
+    @Getter
+    private final SolutionSchema schema;
+
+    private final DataInputStream in;
+    private final Inflater inflater; // null if not compressed
+
+    private ByteBuffer block = ByteBuffer.allocate(0);
+    private byte[] stored = new byte[0];
+    private int remainingInBlock = 0;
+    private boolean keyframe = true;
+    private final int[] codes;
+
+    private IntSolution next = null;
+
+    public DeltaSolutionReader(@NonNull Path path) throws IOException {
+        in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path), 1 << 16));
+        try {
+            if (in.readInt() != DeltaSolutionWriter.DELTA_MAGIC) {
+                throw new IOException("Not a delta solution file: " + path);
+            }
+            int version = in.readInt();
+            if (version != DeltaSolutionWriter.DELTA_VERSION) {
+                throw new IOException("Unsupported version of delta solution file: " + version);
+            }
+            int flags = in.readInt();
+            schema = SolutionSchema.read(in);
+            inflater = (flags & DeltaSolutionWriter.FLAG_COMPRESSED) != 0 ? new Inflater() : null;
+        } catch (IOException e) {
+            in.close();
+            throw e;
+        }
+
+        codes = new int[schema.getNumVariables()];
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next == null) {
+            try {
+                next = readNext();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return next != null;
+    }
+
+    @Override
+    public IntSolution next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        IntSolution solution = next;
+        next = null;
+        return solution;
+    }
+
+    private IntSolution readNext() throws IOException {
+        if (remainingInBlock == 0 && !readBlock()) {
+            return null;
+        }
+
+        if (keyframe) {
+            for (int i = 0; i < codes.length; i++) {
+                codes[i] = VarInts.read(block);
+            }
+            keyframe = false;
+        } else {
+            int numChanges = VarInts.read(block);
+            int i = -1;
+            for (int c = 0; c < numChanges; c++) {
+                i += VarInts.read(block) + 1;
+                if (i >= codes.length) {
+                    throw new IOException("Corrupted delta solution file");
+                }
+                codes[i] = VarInts.read(block);
+            }
+        }
+        remainingInBlock--;
+
+        return new IntSolution(schema, codes.clone());
+    }
+
+    /**
+     * @return false if there are no more blocks
+     */
+    private boolean readBlock() throws IOException {
+        int numSolutions;
+        try {
+            numSolutions = in.readInt();
+        } catch (EOFException e) {
+            return false;
+        }
+        int rawLength = in.readInt();
+        int storedLength = in.readInt();
+
+        if (stored.length < storedLength) {
+            stored = new byte[storedLength];
+        }
+        in.readFully(stored, 0, storedLength);
+
+        if (inflater != null) {
+            byte[] raw = new byte[rawLength];
+            inflater.reset();
+            inflater.setInput(stored, 0, storedLength);
+            try {
+                if (inflater.inflate(raw) != rawLength) {
+                    throw new IOException("Corrupted delta solution file");
+                }
+            } catch (DataFormatException e) {
+                throw new IOException("Corrupted delta solution file", e);
+            }
+            block = ByteBuffer.wrap(raw);
+        } else {
+            block = ByteBuffer.wrap(stored, 0, storedLength); // consumed before the next block is read
+        }
+        remainingInBlock = numSolutions;
+        keyframe = true;
+        return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+        if (inflater != null) {
+            inflater.end();
+        }
+    }
+}
@@ -0,0 +1,217 @@
+/*
+ * CECore - Core components of a Configuration Environment
+ *
+ * Copyright (c) 2022
+ *
+ * @author: Viet-Man Le (vietman.le@ist.tugraz.at)
+ */
+
+package at.tugraz.ist.ase.ce.writer;
+
+import at.tugraz.ist.ase.ce.IntSolution;
+import at.tugraz.ist.ase.ce.Solution;
+import at.tugraz.ist.ase.ce.SolutionSchema;
+import at.tugraz.ist.ase.common.LoggerUtils;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.zip.Deflater;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * A {@link SolutionWriter} which stores each solution as the difference to the previous one.
+ * <p>
+ * Consecutive solutions of a depth-first enumeration come from neighbouring leaves of the search tree
+ * and differ in only a few variables. Hence, the file is a sequence of blocks of blockSize solutions,
+ * in which the first solution (keyframe) is stored in full and every other solution only as the
+ * (variable, code) pairs changed w.r.t. the previous solution. A block can be decoded on its own,
+ * and is compressed with a {@link Deflater} if compress is true.
+ * <p>
+ * Format, big-endian:
+ * <pre>
+ * header: magic, version, flags (1 - compressed), schema
+ * block:  numSolutions, rawLength, storedLength, storedLength bytes
+ *         keyframe: code of each variable (varint)
+ *         delta:    numChanges (varint), then (index gap to the previous changed variable, code) (varints)
+ * </pre>
+ * The file is read by the {@link DeltaSolutionReader}.
+ */
+@Slf4j
+public class DeltaSolutionWriter extends SolutionWriter {
+
+    public static final int DELTA_MAGIC = 0x43455344; // CESD
+    public static final int DELTA_VERSION = 1;
+    public static final int FLAG_COMPRESSED = 1;
+
+    public static final int DEFAULT_BLOCK_SIZE = 4096;
+
+    @Getter
+    private final SolutionSchema schema;
+    @Getter
+    private final Path path;
+    private final int blockSize;
+    private final Deflater deflater; // null if not compressed
+
+    private DataOutputStream out = null;
+    private final ByteArrayOutputStream block = new ByteArrayOutputStream(1 << 16);
+    private int numInBlock = 0;
+    private int[] previous = null;
+    private byte[] compressed = new byte[0];
+
+    @Getter
+    private long numBytesWritten = 0;
+    private boolean closed = false;
+
+    /**
+     * A constructor
+     * @param folder the folder of the file, created if not exists
+     * @param prefix the name of the file, "solutions" by default, the extension is ".delta"
+     * @param schema the schema of the solutions
+     * @param blockSize the number of solutions per block, DEFAULT_BLOCK_SIZE by default
+     * @param compress true - compress the blocks
+     * @param compressionLevel the level of the {@link Deflater}, Deflater.DEFAULT_COMPRESSION by default
+     */
+    @Builder
+    private DeltaSolutionWriter(@NonNull String folder, String prefix, @NonNull SolutionSchema schema,
+                                int blockSize, boolean compress, Integer compressionLevel) {
+        super(folder);
+        checkArgument(blockSize >= 0, "blockSize must not be negative!");
+        checkArgument(schema.getNumVariables() > 0, "The schema must have variables!");
+
+        this.schema = schema;
+        this.path = Paths.get(folder, (prefix != null ? prefix : "solutions") + ".delta");
+        this.blockSize = blockSize > 0 ? blockSize : DEFAULT_BLOCK_SIZE;
+        this.deflater = compress ? new Deflater(compressionLevel != null ? compressionLevel : Deflater.DEFAULT_COMPRESSION) : null;
+    }
+
+    /**
+     * Writes a solution assigning all variables of the schema.
+     */
+    @Override
+    public synchronized void write(@NonNull Solution solution) throws IOException {
+        checkState(!closed, "The writer is closed!");
+        IntSolution intSolution = IntSolution.of(schema, solution);
+
+        if (out == null) {
+            open();
+        }
+
+        int[] codes = intSolution.getCodes();
+        if (numInBlock == 0) {
+            for (int code : codes) {
+                VarInts.write(block, code);
+            }
+        } else {
+            int numChanges = 0;
+            for (int i = 0; i < codes.length; i++) {
+                if (codes[i] != previous[i]) {
+                    numChanges++;
+                }
+            }
+
+            VarInts.write(block, numChanges);
+            int last = -1;
+            for (int i = 0; i < codes.length; i++) {
+                if (codes[i] != previous[i]) {
+                    VarInts.write(block, i - last - 1);
+                    VarInts.write(block, codes[i]);
+                    last = i;
+                }
+            }
+        }
+        previous = codes;
+        numInBlock++;
+        nextNumber();
+
+        if (numInBlock == blockSize) {
+            writeBlock();
+        }
+    }
+
+    /**
+     * Writes the current block, even if it is not full, and flushes the file.
+     */
+    public synchronized void flush() throws IOException {
+        checkState(!closed, "The writer is closed!");
+
+        if (out != null) {
+            writeBlock();
+            out.flush();
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+
+        if (out != null) {
+            writeBlock();
+            out.close();
+            out = null;
+        }
+        if (deflater != null) {
+            deflater.end();
+        }
+        log.debug("{}Closed delta solution writer [path={}, solutions={}, bytes={}]", LoggerUtils.tab(),
+                path, getCounter(), numBytesWritten);
+    }
+
+    private void open() throws IOException {
+        Files.createDirectories(path.toAbsolutePath().getParent());
+        out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path), 1 << 16));
+
+        out.writeInt(DELTA_MAGIC);
+        out.writeInt(DELTA_VERSION);
+        out.writeInt(deflater != null ? FLAG_COMPRESSED : 0);
+        schema.write(out);
+    }
+
+    private void writeBlock() throws IOException {
+        if (numInBlock == 0) {
+            return;
+        }
+
+        byte[] raw = block.toByteArray();
+        byte[] stored = raw;
+        int storedLength = raw.length;
+        if (deflater != null) {
+            deflater.reset();
+            deflater.setInput(raw);
+            deflater.finish();
+
+            if (compressed.length < raw.length + 64) {
+                compressed = new byte[raw.length + raw.length / 8 + 64];
+            }
+            storedLength = 0;
+            while (!deflater.finished()) {
+                if (storedLength == compressed.length) {
+                    byte[] larger = new byte[compressed.length * 2];
+                    System.arraycopy(compressed, 0, larger, 0, storedLength);
+                    compressed = larger;
+                }
+                storedLength += deflater.deflate(compressed, storedLength, compressed.length - storedLength);
+            }
+            stored = compressed;
+        }
+
+        out.writeInt(numInBlock);
+        out.writeInt(raw.length);
+        out.writeInt(storedLength);
+        out.write(stored, 0, storedLength);
+        numBytesWritten += 12 + storedLength;
+
+        block.reset();
+        numInBlock = 0;
+    }
+}
@@ -0,0 +1,37 @@
+/*
+ * CECore - Core components of a Configuration Environment
+ *
+ * Copyright (c) 2022
+ *
+ * @author: Viet-Man Le (vietman.le@ist.tugraz.at)
+ */
+
+package at.tugraz.ist.ase.ce.writer;
+
+/**
+ * File formats of the {@link BatchSolutionWriter}.
+ */
+public enum SolutionFormat {
+    /**
+     * one JSON object per line, e.g., {"A":"true","B":"1"}
+     */
+    JSONL("jsonl"),
+    /**
+     * a header line with the variable names, then one line of values per solution
+     */
+    CSV("csv"),
+    /**
+     * the schema, then the bit-packed codes of each solution, requires a {@link at.tugraz.ist.ase.ce.SolutionSchema}
+     */
+    BINARY("bin");
+
+    private final String extension;
+
+    SolutionFormat(String extension) {
+        this.extension = extension;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+}
@@ -11,13 +11,16 @@ package at.tugraz.ist.ase.ce.writer;
 import at.tugraz.ist.ase.ce.Solution;
 import lombok.NonNull;
 
+import java.io.Closeable;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
 
-public abstract class SolutionWriter {
+public abstract class SolutionWriter implements Closeable {
 
     protected final String folder;
-    protected static int counter = 0;
+    // numbering of the written solutions, per writer
+    private final AtomicInteger counter = new AtomicInteger();
 
     protected FileWriter fileWriter;
 
@@ -27,8 +30,28 @@ public abstract class SolutionWriter {
 
     public abstract void write(@NonNull Solution solution) throws IOException;
 
+    /**
+     * @return the number of written solutions
+     */
+    public int getCounter() {
+        return counter.get();
+    }
+
+    /**
+     * @return the next number of a solution, starting from 1
+     */
+    protected int nextNumber() {
+        return counter.incrementAndGet();
+    }
+
     protected void createFileWriter() throws IOException {
-        counter++;
-        fileWriter = new FileWriter(String.format(folder + "conf_%s.xml", counter));
+        fileWriter = new FileWriter(String.format(folder + "conf_%s.xml", nextNumber()));
+    }
+
+    /**
+     * Writers which keep resources open between solutions should release them here.
+     */
+    @Override
+    public void close() throws IOException {
     }
 }
@@ -0,0 +1,27 @@
+/*
+ * CECore - Core components of a Configuration Environment
+ *
+ * Copyright (c) 2022
+ *
+ * @author: Viet-Man Le (vietman.le@ist.tugraz.at)
+ */
+
+package at.tugraz.ist.ase.ce.writer;
+
+/**
+ * When the {@link BatchSolutionWriter} forces the written solutions to the disk (fsync).
+ */
+public enum SyncPolicy {
+    /**
+     * never, the operating system decides when the data is written to the disk
+     */
+    NONE,
+    /**
+     * when a file is completed, i.e., on rotation and on close
+     */
+    ON_CLOSE,
+    /**
+     * on every flush, the safest and the slowest policy
+     */
+    ON_FLUSH
+}
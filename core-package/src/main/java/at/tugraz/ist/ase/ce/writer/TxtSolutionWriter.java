@@ -46,7 +46,6 @@ public class TxtSolutionWriter extends SolutionWriter {
 
     @Override
     protected void createFileWriter() throws IOException {
-        ++SolutionWriter.counter;
-        this.fileWriter = new FileWriter(String.format(this.folder + "conf_%s.txt", SolutionWriter.counter));
+        this.fileWriter = new FileWriter(String.format(this.folder + "conf_%s.txt", nextNumber()));
     }
 }
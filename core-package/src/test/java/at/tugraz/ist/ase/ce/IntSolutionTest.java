@@ -0,0 +1,93 @@
+/*
+ * CECore - Core components of a Configuration Environment
+ *
+ * Copyright (c) 2022
+ *
+ * @author: Viet-Man Le (vietman.le@ist.tugraz.at)
+ */
+
+package at.tugraz.ist.ase.ce;
+
+import at.tugraz.ist.ase.ce.index.SolutionFingerprint;
+import at.tugraz.ist.ase.kb.core.Assignment;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IntSolutionTest {
+
+    private static final SolutionSchema schema = new SolutionSchema(List.of("A", "B", "C"),
+            List.of(List.of("true", "false"), List.of("1", "2", "3"), List.of("x", "y")),
+            List.of(List.of(1, 0), List.of(1, 2, 3), List.of(7, 5)));
+
+    @Test
+    void testSchema() {
+        assertEquals(3, schema.getNumVariables());
+        assertEquals(1, schema.indexOf("B"));
+        assertEquals(-1, schema.indexOf("D"));
+        assertEquals("3", schema.getValue(1, 2));
+        assertEquals(2, schema.getCode(1, "3"));
+        assertEquals(-1, schema.getCode(1, "4"));
+
+        assertEquals(0, schema.getCodeOfChocoValue(0, 1));
+        assertEquals(1, schema.getCodeOfChocoValue(0, 0));
+        assertEquals(1, schema.getCodeOfChocoValue(2, 5));
+        assertEquals(-1, schema.getCodeOfChocoValue(2, 6));
+        assertEquals(7, schema.getChocoValue(2, 0));
+
+        assertEquals("A=true|false, B=1|2|3, C=x|y", schema.toString());
+    }
+
+    @Test
+    void testLookup() {
+        IntSolution s = new IntSolution(schema, new int[]{1, 2, 0});
+
+        assertEquals(3, s.size());
+        assertEquals("false", s.getValue("A"));
+        assertEquals("3", s.getAssignment("B").getValue());
+        assertEquals("C", s.getAssignment(2).getVariable());
+        assertEquals("A=false, B=3, C=x", s.toString());
+        assertThrows(IllegalArgumentException.class, () -> s.getAssignment("D"));
+
+        List<Assignment> assignments = s.getAssignments();
+        assertEquals(3, assignments.size());
+        assertSame(assignments, s.getAssignments());
+    }
+
+    @Test
+    void testOf() {
+        Solution solution = Solution.builder().assignments(List.of(
+                Assignment.builder().variable("C").value("y").build(),
+                Assignment.builder().variable("A").value("true").build(),
+                Assignment.builder().variable("B").value("1").build())).build();
+
+        IntSolution s = IntSolution.of(schema, solution);
+        assertArrayEquals(new int[]{0, 0, 1}, s.getCodes());
+        assertSame(s, IntSolution.of(schema, s));
+
+        Solution partial = Solution.builder().assignments(List.of(
+                Assignment.builder().variable("A").value("true").build())).build();
+        assertThrows(IllegalArgumentException.class, () -> IntSolution.of(schema, partial));
+    }
+
+    @Test
+    void testEquals() {
+        IntSolution s1 = new IntSolution(schema, new int[]{1, 2, 0});
+        IntSolution s2 = new IntSolution(schema, new int[]{1, 2, 0});
+        IntSolution s3 = new IntSolution(schema, new int[]{1, 1, 0});
+        Solution s4 = Solution.builder().assignments(s1.getAssignments()).build();
+
+        assertEquals(s1, s2);
+        assertEquals(s1.hashCode(), s2.hashCode());
+        assertNotEquals(s1, s3);
+        // compact solutions are only equal to compact solutions
+        assertNotEquals(s1, s4);
+        assertNotEquals(s4, s1);
+
+        assertEquals(SolutionFingerprint.fingerprint(s1), SolutionFingerprint.fingerprint(s2));
+        assertNotEquals(SolutionFingerprint.fingerprint(s1), SolutionFingerprint.fingerprint(s3));
+        assertEquals(SolutionFingerprint.canonicalFingerprint(s1), SolutionFingerprint.canonicalFingerprint(s4));
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * CECore - Core components of a Configuration Environment
+ *
+ * Copyright (c) 2022
+ *
+ * @author: Viet-Man Le (vietman.le@ist.tugraz.at)
+ */
+
+package at.tugraz.ist.ase.ce.index;
+
+import at.tugraz.ist.ase.ce.Solution;
+import at.tugraz.ist.ase.kb.core.Assignment;
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SolutionIndexTest {
+
+    private static Solution createSolution(int id, int numVars) {
+        List<Assignment> assignments = new LinkedList<>();
+        for (int i = 0; i < numVars; i++) {
+            String value = ((id >> i) & 1) == 1 ? "true" : "false";
+            assignments.add(Assignment.builder().variable("f" + i).value(value).build());
+        }
+        return Solution.builder().assignments(assignments).build();
+    }
+
+    private static void checkIndex(ISolutionIndexable index) {
+        int numSolutions = 5000;
+        for (int i = 0; i < numSolutions; i++) {
+            assertTrue(index.add(createSolution(i, 16)));
+        }
+        assertEquals(numSolutions, index.size());
+
+        // similar solutions
+        for (int i = 0; i < numSolutions; i++) {
+            Solution similar = createSolution(i, 16);
+
+            assertTrue(index.contains(similar));
+            assertFalse(index.add(similar));
+        }
+        assertEquals(numSolutions, index.size());
+
+        index.clear();
+        assertEquals(0, index.size());
+        assertFalse(index.contains(createSolution(0, 16)));
+    }
+
+    @Test
+    void testHashSolutionIndex() {
+        HashSolutionIndex index = new HashSolutionIndex(16);
+
+        checkIndex(index);
+    }
+
+    @Test
+    void testFingerprintSolutionIndex() {
+        FingerprintSolutionIndex index = new FingerprintSolutionIndex(16);
+
+        checkIndex(index);
+    }
+
+    @Test
+    void testBloomSolutionIndex() {
+        BloomSolutionIndex index = BloomSolutionIndex.withMemoryBound(64 * 1024, 0.0001);
+
+        assertTrue(index.getExpectedInsertions() > 5000);
+        for (int i = 0; i < 5000; i++) {
+            index.add(createSolution(i, 16));
+        }
+        // no false negatives
+        for (int i = 0; i < 5000; i++) {
+            assertTrue(index.contains(createSolution(i, 16)));
+        }
+    }
+
+    @Test
+    void testFingerprint() {
+        Solution s1 = createSolution(5, 8);
+        Solution s2 = createSolution(5, 8);
+        Solution s3 = createSolution(6, 8);
+
+        assertEquals(SolutionFingerprint.fingerprint(s1), SolutionFingerprint.fingerprint(s2));
+        assertNotEquals(SolutionFingerprint.fingerprint(s1), SolutionFingerprint.fingerprint(s3));
+    }
+}
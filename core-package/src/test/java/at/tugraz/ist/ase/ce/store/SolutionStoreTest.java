@@ -0,0 +1,136 @@
+/*
+ * CECore - Core components of a Configuration Environment
+ *
+ * Copyright (c) 2022
+ *
+ * @author: Viet-Man Le (vietman.le@ist.tugraz.at)
+ */
+
+package at.tugraz.ist.ase.ce.store;
+
+import at.tugraz.ist.ase.ce.IntSolution;
+import at.tugraz.ist.ase.ce.Solution;
+import at.tugraz.ist.ase.ce.SolutionSchema;
+import at.tugraz.ist.ase.kb.core.Assignment;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SolutionStoreTest {
+
+    // domains of 2, 3, 5 and 17 values, i.e., 1, 2, 3 and 5 bits per value
+    private static final SolutionSchema schema = new SolutionSchema(List.of("A", "B", "C", "D"),
+            List.of(List.of("true", "false"), List.of("1", "2", "3"), List.of("a", "b", "c", "d", "e"),
+                    List.of("0", "1", "2", "3", "4", "5", "6", "7", "8", "9", "10", "11", "12", "13", "14", "15", "16")),
+            null);
+
+    private static int[] codesOf(int row) {
+        return new int[] { row % 2, row % 3, row % 5, row % 17 };
+    }
+
+    private static void assertRows(SolutionStore store, int numRows) {
+        assertEquals(numRows, store.size());
+        for (int row = 0; row < numRows; row++) {
+            assertArrayEquals(codesOf(row), store.get(row).getCodes());
+        }
+
+        SolutionCursor cursor = store.cursor();
+        int row = 0;
+        while (cursor.next()) {
+            assertEquals(row, cursor.getRow());
+            for (int v = 0; v < schema.getNumVariables(); v++) {
+                assertEquals(codesOf(row)[v], cursor.getCode(v));
+            }
+            row++;
+        }
+        assertEquals(numRows, row);
+    }
+
+    @Test
+    void testInMemory() throws IOException {
+        int numRows = 10000; // spans several blocks
+        try (SolutionStore store = SolutionStore.inMemory(schema)) {
+            for (int row = 0; row < numRows; row++) {
+                store.append(codesOf(row));
+            }
+
+            assertRows(store, numRows);
+        }
+    }
+
+    @Test
+    void testAppendSolution() throws IOException {
+        Solution solution = Solution.builder()
+                .assignments(List.of(new Assignment("D", "16"), new Assignment("A", "false"),
+                        new Assignment("C", "c"), new Assignment("B", "2")))
+                .build();
+
+        try (SolutionStore store = SolutionStore.inMemory(schema)) {
+            store.append(solution);
+            assertEquals(1, store.size());
+
+            IntSolution stored = store.get(0);
+            assertArrayEquals(new int[] { 1, 1, 2, 16 }, stored.getCodes());
+            assertEquals("c", stored.getValue("C"));
+            assertEquals("16", stored.getValue(3));
+
+            assertThrows(IndexOutOfBoundsException.class, () -> store.append(new int[] { 0, 3, 0, 0 }));
+            assertThrows(IllegalArgumentException.class, () -> store.append(new int[] { 0, 0 }));
+        }
+    }
+
+    @Test
+    void testAppendAfterRejectedCodes() throws IOException {
+        try (SolutionStore store = SolutionStore.inMemory(schema)) {
+            store.append(codesOf(0));
+
+            // the first codes are valid, the last one is out of bound
+            assertThrows(IndexOutOfBoundsException.class, () -> store.append(new int[] { 1, 2, 4, 17 }));
+            assertEquals(1, store.size());
+
+            store.append(codesOf(1));
+            store.append(codesOf(2));
+            assertRows(store, 3);
+        }
+    }
+
+    @Test
+    void testPersistence(@TempDir Path dir) throws IOException {
+        Path path = dir.resolve("solutions.ces");
+        int numRows = 1000;
+
+        try (SolutionStore store = SolutionStore.create(path, schema, 64)) {
+            for (int row = 0; row < numRows; row++) {
+                store.append(codesOf(row));
+            }
+            assertRows(store, numRows);
+        }
+
+        try (SolutionStore store = SolutionStore.open(path)) {
+            assertTrue(store.isReadOnly());
+            assertEquals(schema, store.getSchema());
+            assertEquals(64, store.getBlockRows());
+
+            assertRows(store, numRows);
+            assertThrows(IllegalStateException.class, () -> store.append(codesOf(0)));
+        }
+    }
+
+    @Test
+    void testCursorSnapshot() throws IOException {
+        try (SolutionStore store = SolutionStore.inMemory(schema)) {
+            store.append(codesOf(0));
+            SolutionCursor cursor = store.cursor();
+            store.append(codesOf(1));
+
+            assertTrue(cursor.next());
+            assertFalse(cursor.next());
+            assertThrows(IllegalStateException.class, () -> cursor.getCode(0));
+        }
+    }
+}
@@ -0,0 +1,160 @@
+/*
+ * CECore - Core components of a Configuration Environment
+ *
+ * Copyright (c) 2022
+ *
+ * @author: Viet-Man Le (vietman.le@ist.tugraz.at)
+ */
+
+package at.tugraz.ist.ase.ce.writer;
+
+import at.tugraz.ist.ase.ce.IntSolution;
+import at.tugraz.ist.ase.ce.Solution;
+import at.tugraz.ist.ase.ce.SolutionSchema;
+import at.tugraz.ist.ase.kb.core.Assignment;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BatchSolutionWriterTest {
+
+    private static final SolutionSchema schema = new SolutionSchema(List.of("A", "B", "C"),
+            List.of(List.of("true", "false"), List.of("1", "2", "3"), List.of("x", "y, z", "w\"")),
+            null);
+
+    private static IntSolution solutionOf(int i) {
+        return new IntSolution(schema, new int[] { i % 2, i % 3, (i / 3) % 3 });
+    }
+
+    @Test
+    void testJsonl(@TempDir Path dir) throws IOException {
+        try (BatchSolutionWriter writer = BatchSolutionWriter.builder()
+                .folder(dir.toString()).format(SolutionFormat.JSONL).queueCapacity(4).build()) {
+            for (int i = 0; i < 100; i++) {
+                writer.write(solutionOf(i));
+            }
+            writer.flush();
+
+            assertEquals(100, writer.getCounter());
+            assertEquals(1, writer.getFiles().size());
+        }
+
+        List<String> lines = Files.readAllLines(dir.resolve("solutions.jsonl"));
+        assertEquals(100, lines.size());
+        assertEquals("{\"A\":\"true\",\"B\":\"1\",\"C\":\"x\"}", lines.get(0));
+        assertEquals("{\"A\":\"false\",\"B\":\"2\",\"C\":\"w\\\"\"}", lines.get(7));
+    }
+
+    @Test
+    void testCsvRotation(@TempDir Path dir) throws IOException {
+        BatchSolutionWriter writer = BatchSolutionWriter.builder()
+                .folder(dir.toString()).prefix("conf").format(SolutionFormat.CSV)
+                .maxSolutionsPerFile(40).synchronous(true).syncPolicy(SyncPolicy.NONE).build();
+        for (int i = 0; i < 100; i++) {
+            writer.write(solutionOf(i));
+        }
+        writer.close();
+
+        assertEquals(List.of(dir.resolve("conf_00001.csv"), dir.resolve("conf_00002.csv"), dir.resolve("conf_00003.csv")),
+                writer.getFiles());
+        assertThrows(IllegalStateException.class, () -> writer.write(solutionOf(0)));
+
+        List<String> lines = Files.readAllLines(dir.resolve("conf_00003.csv"));
+        assertEquals(21, lines.size());
+        assertEquals("A,B,C", lines.get(0));
+        assertEquals("true,3,\"w\"\"\"", lines.get(1)); // the 81st solution
+    }
+
+    @Test
+    void testBinary(@TempDir Path dir) throws IOException {
+        try (BatchSolutionWriter writer = BatchSolutionWriter.builder()
+                .folder(dir.toString()).format(SolutionFormat.BINARY).schema(schema).build()) {
+            for (int i = 0; i < 1000; i++) {
+                writer.write(solutionOf(i));
+            }
+
+            Solution solution = Solution.builder()
+                    .assignments(List.of(new Assignment("C", "y, z"), new Assignment("A", "false"), new Assignment("B", "3")))
+                    .build();
+            writer.write(solution);
+
+            Solution partial = Solution.builder().assignments(List.of(new Assignment("A", "false"))).build();
+            assertThrows(IllegalArgumentException.class, () -> writer.write(partial));
+        }
+
+        try (BinarySolutionReader reader = new BinarySolutionReader(dir.resolve("solutions.bin"))) {
+            assertEquals(schema, reader.getSchema());
+
+            for (int i = 0; i < 1000; i++) {
+                assertTrue(reader.hasNext());
+                assertEquals(solutionOf(i).toString(), reader.next().toString());
+            }
+            assertEquals("A=false, B=3, C=y, z", reader.next().toString());
+            assertFalse(reader.hasNext());
+        }
+    }
+
+    /**
+     * A solution whose assignments cannot be created.
+     */
+    private static Solution failingSolution(Supplier<? extends Throwable> error) {
+        return new Solution() {
+            @Override
+            public List<Assignment> getAssignments() {
+                Throwable e = error.get();
+                if (e instanceof Error) {
+                    throw (Error) e;
+                }
+                throw (RuntimeException) e;
+            }
+        };
+    }
+
+    @Test
+    void testExceptionInBackgroundThread(@TempDir Path dir) throws IOException {
+        BatchSolutionWriter writer = BatchSolutionWriter.builder()
+                .folder(dir.toString()).format(SolutionFormat.JSONL).queueCapacity(4).build();
+        writer.write(solutionOf(0));
+        writer.write(failingSolution(() -> new IllegalStateException("broken solution")));
+
+        IOException e = assertTimeoutPreemptively(Duration.ofSeconds(10), () -> assertThrows(IOException.class, writer::flush));
+        assertInstanceOf(IllegalStateException.class, e.getCause());
+
+        // the remaining solutions are discarded
+        assertTimeoutPreemptively(Duration.ofSeconds(10), () -> assertThrows(IOException.class, writer::close));
+    }
+
+    @Test
+    void testErrorInBackgroundThread(@TempDir Path dir) throws IOException {
+        BatchSolutionWriter writer = BatchSolutionWriter.builder()
+                .folder(dir.toString()).format(SolutionFormat.JSONL).queueCapacity(1).build();
+        writer.write(failingSolution(() -> new AssertionError("broken solution")));
+
+        // the background thread has terminated, hence flush and close must not wait for it
+        IOException e = assertTimeoutPreemptively(Duration.ofSeconds(10), () -> assertThrows(IOException.class, writer::flush));
+        assertInstanceOf(AssertionError.class, e.getCause());
+        assertThrows(IOException.class, () -> writer.write(solutionOf(0)));
+        assertTimeoutPreemptively(Duration.ofSeconds(10), () -> assertThrows(IOException.class, writer::close));
+    }
+
+    @Test
+    void testPerInstanceCounter(@TempDir Path dir) throws IOException {
+        TxtSolutionWriter writer1 = new TxtSolutionWriter(dir + "/");
+        TxtSolutionWriter writer2 = new TxtSolutionWriter(dir + "/");
+
+        writer1.write(solutionOf(0));
+        writer1.write(solutionOf(1));
+        writer2.write(solutionOf(2));
+
+        assertEquals(2, writer1.getCounter());
+        assertEquals(1, writer2.getCounter());
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * CECore - Core components of a Configuration Environment
+ *
+ * Copyright (c) 2022
+ *
+ * @author: Viet-Man Le (vietman.le@ist.tugraz.at)
+ */
+
+package at.tugraz.ist.ase.ce.writer;
+
+import at.tugraz.ist.ase.ce.IntSolution;
+import at.tugraz.ist.ase.ce.SolutionSchema;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DeltaSolutionWriterTest {
+
+    private static final int NUM_VARS = 20;
+    private static final int NUM_SOLUTIONS = 10000;
+
+    private static final SolutionSchema schema;
+
+    static {
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < NUM_VARS; i++) {
+            names.add("F" + i);
+        }
+        schema = new SolutionSchema(names, Collections.nCopies(NUM_VARS, List.of("true", "false")), null);
+    }
+
+    /**
+     * Consecutive solutions differ in one variable, as the leaves of a depth-first enumeration.
+     */
+    private static IntSolution solutionOf(int i) {
+        int gray = i ^ (i >>> 1);
+        int[] codes = new int[NUM_VARS];
+        for (int v = 0; v < NUM_VARS; v++) {
+            codes[v] = (gray >>> v) & 1;
+        }
+        return new IntSolution(schema, codes);
+    }
+
+    private static void writeAndRead(Path dir, boolean compress) throws IOException {
+        DeltaSolutionWriter writer = DeltaSolutionWriter.builder()
+                .folder(dir.toString()).schema(schema).blockSize(1000).compress(compress).build();
+        for (int i = 0; i < NUM_SOLUTIONS; i++) {
+            writer.write(solutionOf(i));
+        }
+        writer.close();
+        assertEquals(NUM_SOLUTIONS, writer.getCounter());
+        assertEquals(Files.size(writer.getPath()), writer.getNumBytesWritten() + 12 + headerSize());
+
+        try (DeltaSolutionReader reader = new DeltaSolutionReader(writer.getPath())) {
+            assertEquals(schema, reader.getSchema());
+
+            int i = 0;
+            while (reader.hasNext()) {
+                assertEquals(solutionOf(i), reader.next());
+                i++;
+            }
+            assertEquals(NUM_SOLUTIONS, i);
+        }
+    }
+
+    private static long headerSize() {
+        long size = 4; // number of variables
+        for (int i = 0; i < NUM_VARS; i++) {
+            size += 2 + schema.getName(i).length() + 4 + (2 + 4) + (2 + 5);
+        }
+        return size;
+    }
+
+    @Test
+    void testRoundTrip(@TempDir Path dir) throws IOException {
+        writeAndRead(dir, false);
+    }
+
+    @Test
+    void testCompressedRoundTrip(@TempDir Path dir) throws IOException {
+        writeAndRead(dir, true);
+    }
+
+    @Test
+    void testCompressionRatio(@TempDir Path dir) throws IOException {
+        try (BatchSolutionWriter full = BatchSolutionWriter.builder()
+                .folder(dir.toString()).format(SolutionFormat.JSONL).synchronous(true).build();
+             DeltaSolutionWriter delta = DeltaSolutionWriter.builder()
+                     .folder(dir.toString()).schema(schema).compress(true).build()) {
+            for (int i = 0; i < NUM_SOLUTIONS; i++) {
+                full.write(solutionOf(i));
+                delta.write(solutionOf(i));
+            }
+        }
+
+        long fullSize = Files.size(dir.resolve("solutions.jsonl"));
+        long deltaSize = Files.size(dir.resolve("solutions.delta"));
+        // the compressed deltas take less than a tenth of the JSONL lines
+        assertTrue(deltaSize * 10 < fullSize, "JSONL: " + fullSize + " bytes, delta: " + deltaSize + " bytes");
+    }
+
+    @Test
+    void testClosedWriter(@TempDir Path dir) throws IOException {
+        DeltaSolutionWriter writer = DeltaSolutionWriter.builder().folder(dir.toString()).schema(schema).build();
+        writer.close();
+
+        assertThrows(IllegalStateException.class, () -> writer.write(solutionOf(0)));
+        assertFalse(Files.exists(writer.getPath()));
+    }
+}
@@ -10,14 +10,23 @@ package at.tugraz.ist.ase.heuristics;
 
 import at.tugraz.ist.ase.ce.Requirement;
 import at.tugraz.ist.ase.ce.Solution;
+import at.tugraz.ist.ase.ce.SolutionSchema;
+import at.tugraz.ist.ase.ce.store.SolutionStore;
+import at.tugraz.ist.ase.common.LoggerUtils;
 import at.tugraz.ist.ase.common.VariableUtils;
+import at.tugraz.ist.ase.heuristics.neighbor.ExactNeighborSearch;
+import at.tugraz.ist.ase.heuristics.neighbor.INeighborSearchable;
+import at.tugraz.ist.ase.heuristics.neighbor.LSHNeighborSearch;
 import at.tugraz.ist.ase.kb.core.BoolVariable;
 import at.tugraz.ist.ase.kb.core.IntVariable;
 import at.tugraz.ist.ase.kb.core.Variable;
+import at.tugraz.ist.ase.mf.MFException;
 import at.tugraz.ist.ase.mf.MatrixFactorization;
+import at.tugraz.ist.ase.mf.MatrixFactorizationFile;
 import lombok.Getter;
 import lombok.NonNull;
 import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
 import org.apache.mahout.cf.taste.common.TasteException;
 import org.apache.mahout.cf.taste.impl.common.FastByIDMap;
 import org.apache.mahout.cf.taste.impl.model.GenericDataModel;
@@ -30,11 +39,21 @@ import org.apache.mahout.cf.taste.model.DataModel;
 import org.apache.mahout.cf.taste.model.PreferenceArray;
 import org.apache.mahout.cf.taste.neighborhood.UserNeighborhood;
 import org.apache.mahout.cf.taste.similarity.UserSimilarity;
+import org.apache.mahout.math.DenseVector;
 import org.apache.mahout.math.Vector;
 import org.chocosolver.solver.variables.IntVar;
 
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.*;
 
+import static com.google.common.base.Preconditions.checkState;
+
 /**
  * An implementation of Matrix Factorization Based Variable and Value Ordering Heuristics for Constraint Solving
  * @version 1.0
@@ -44,6 +63,7 @@ import java.util.*;
  * @version 2.0
  * @author Viet-Man Le (vietman.le@ist.tugraz.at)
  */
+@Slf4j
 public class MFVVOHeuristic {
     // the data model structure
     private final MFVVOModel mfvvoModel;
@@ -52,12 +72,34 @@ public class MFVVOHeuristic {
 
     private UserSimilarity userSimilarity = null;
     private UserNeighborhood userNeighborhood = null;
+    // built on the first heuristic after fitting or loading
+    private PearsonNeighborIndex neighborIndex = null;
+    private INeighborSearchable foldInSearch = null;
+    // compares the requirement with the users in the latent space, see setFoldIn()
+    @Getter
+    private boolean foldIn = false;
+    @Getter @Setter
+    private double foldInRegularization = 0.1;
+    // the parameters of the approximate neighbor search, null - exact search
+    @Getter
+    private LSHNeighborSearch.Parameters approximateSearch = null;
     @Getter @Setter
     private int numNeighbors = 10;
     @Getter @Setter
     private int numFeatures = 6; // mxk, kxn -> k - numNeighbors
     @Getter @Setter
     private int numIterations = 50;
+    // how the factors are kept by the next fit() or loadMF(), e.g., FLOAT for many solutions,
+    // MAPPED keeps the loaded factors in the mapped file, and the fitted factors off-heap,
+    // null - DOUBLE for fit(), MAPPED for loadMF(), since the other storages copy the whole file
+    @Getter @Setter
+    private MatrixFactorization.Storage factorStorage = null;
+    // true - loadMF() checks the checksum of the whole file
+    @Getter @Setter
+    private boolean verifyChecksum = false;
+    // the number of rows of X' cached by the factorization, 0 - no cache
+    @Getter @Setter
+    private int rowCacheSize = 0;
 
     @Getter
     private boolean fitted = false;
@@ -71,20 +113,169 @@ public class MFVVOHeuristic {
         // convert solutions to data model
         DataModel dataModel = mfvvoModel.getDataModel(solutions);
 
-        // factorize the matrix, and calculate the dense matrix (mf.X_Prime)
-        mf = new MatrixFactorization(dataModel);
+        // factorize the matrix, X' is computed from the factors on demand
+        mf = new MatrixFactorization(dataModel, getFitStorage());
+        mf.setRowCacheSize(rowCacheSize);
+        mf.svd(numFeatures, numIterations);
+        neighborIndex = null;
+        foldInSearch = null;
+
+        fitted = true;
+    }
+
+    /**
+     * Fits the matrix factorization with the solutions of a {@link SolutionStore}.
+     */
+    public void fit(@NonNull SolutionStore store) throws TasteException {
+        // convert solutions to data model
+        DataModel dataModel = mfvvoModel.getDataModel(store);
+
+        // factorize the matrix, X' is computed from the factors on demand
+        mf = new MatrixFactorization(dataModel, getFitStorage());
+        mf.setRowCacheSize(rowCacheSize);
         mf.svd(numFeatures, numIterations);
+        neighborIndex = null;
+        foldInSearch = null;
 
         fitted = true;
     }
 
-    public void saveMF(String filename) {
-        // TODO: save IFMatrix, UFMatrix, and X_Prime
+    /**
+     * Saves the factors IFMatrix and UFMatrix, the hyperparameters, and the variables of the data model
+     * in a {@link MatrixFactorizationFile}. X_Prime is not saved, since it is computed from the factors.
+     * The index of the approximate neighbor search, if any, is saved in {@link #getIndexFile(String)}
+     * with the checksum of the factors, and the indexes of former factors are deleted.
+     */
+    public void saveMF(@NonNull String filename) throws IOException {
+        checkState(fitted, "The matrix factorization is not fitted yet!");
+
+        ByteArrayOutputStream metadata = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(metadata)) {
+            out.writeInt(numNeighbors);
+            out.writeInt(numFeatures);
+            out.writeInt(numIterations);
+            mfvvoModel.getSchema().write(out);
+        }
+
+        long checksum = MatrixFactorizationFile.write(Path.of(filename), mf, metadata.toByteArray());
+
+        Path indexFile = getIndexFile(filename);
+        if (approximateSearch != null) {
+            INeighborSearchable search = foldIn ? getFoldInSearch() : getNeighborIndex().getSearch();
+            ((LSHNeighborSearch) search).save(indexFile, checksum);
+        }
+        for (String suffix : List.of(".lsh", ".foldin.lsh")) {
+            Path staleFile = Path.of(filename + suffix);
+            if (approximateSearch == null || !staleFile.equals(indexFile)) {
+                Files.deleteIfExists(staleFile);
+            }
+        }
+    }
+
+    private MatrixFactorization.Storage getFitStorage() {
+        if (factorStorage == null) {
+            return MatrixFactorization.Storage.DOUBLE;
+        }
+        // the factors of svd() are not in a file yet
+        return factorStorage == MatrixFactorization.Storage.MAPPED ? MatrixFactorization.Storage.OFF_HEAP : factorStorage;
+    }
+
+    private MatrixFactorization.Storage getLoadStorage() {
+        return factorStorage != null ? factorStorage : MatrixFactorization.Storage.MAPPED;
+    }
+
+    /**
+     * Loads the factors and the hyperparameters saved by {@link #saveMF(String)}, instead of fitting the matrix factorization.
+     * The file is memory mapped, and by default the factors are read from the mapped file, so that loading is fast
+     * and the pages are shared by all processes loading the file. Any other factor storage copies the whole file.
+     * The checksum of the file is only checked if {@link #isVerifyChecksum()}.
+     * An index of the approximate neighbor search which was not saved with these factors is ignored.
+     * @throws MFException if the file is corrupted, or if its variables and domains differ from the data model
+     */
+    public void loadMF(@NonNull String filename) throws IOException {
+        MatrixFactorizationFile file = MatrixFactorizationFile.read(Path.of(filename), verifyChecksum);
+
+        DataInputStream in = file.getMetadataInput();
+        int savedNumNeighbors = in.readInt();
+        int savedNumFeatures = in.readInt();
+        int savedNumIterations = in.readInt();
+        SolutionSchema schema = SolutionSchema.read(in);
+
+        // check the shape before loading
+        if (!schema.equals(mfvvoModel.getSchema())) {
+            throw new MFException("The variables of " + filename + " do not match the data model: " + schema);
+        }
+        if (file.getNumItems() != mfvvoModel.getNumItems()) {
+            throw new MFException("The factorization of " + filename + " has " + file.getNumItems()
+                    + " items, expected " + mfvvoModel.getNumItems());
+        }
+
+        mf = file.toMatrixFactorization(getLoadStorage());
+        mf.setRowCacheSize(rowCacheSize);
+        neighborIndex = null;
+        foldInSearch = null;
+        numNeighbors = savedNumNeighbors;
+        numFeatures = savedNumFeatures;
+        numIterations = savedNumIterations;
+        fitted = true;
+
+        // the index saved next to the factors, with its own parameters
+        Path indexFile = getIndexFile(filename);
+        if (approximateSearch != null && Files.exists(indexFile)) {
+            long checksum = file.getChecksum();
+            LSHNeighborSearch search;
+            try {
+                if (foldIn) {
+                    search = LSHNeighborSearch.load(indexFile, getUserFactors(), checksum);
+                    foldInSearch = search;
+                } else {
+                    neighborIndex = new PearsonNeighborIndex(mf, vectors -> loadNeighborSearch(indexFile, vectors, checksum));
+                    search = (LSHNeighborSearch) neighborIndex.getSearch();
+                }
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            } catch (MFException e) {
+                // e.g., an index of former factors, the index is built again on demand
+                log.warn("{}Ignored the LSH index {} - {}", LoggerUtils.tab(), indexFile, e.getMessage());
+                neighborIndex = null;
+                foldInSearch = null;
+                return;
+            }
+            approximateSearch = search.getParameters();
+        }
+    }
+
+    /**
+     * With fold-in, the requirement is projected into the latent space by a regularized least squares
+     * over its items (see {@link MatrixFactorization#foldIn}), and the neighbors are the users whose factors
+     * have the highest cosine similarity with the projection. Each similarity costs O(k) for k features,
+     * and X' is never computed.
+     * Without fold-in, the neighbors have the highest Pearson correlation between the requirement and their rows of X'.
+     */
+    public synchronized void setFoldIn(boolean foldIn) {
+        this.foldIn = foldIn;
+        neighborIndex = null;
+        foldInSearch = null;
+    }
+
+    /**
+     * Sets the parameters of the approximate neighbor search of the default neighborhood,
+     * e.g., more tables for a higher recall. With null, the neighbors are found by an exact search.
+     * If the approximate search is set, {@link #saveMF(String)} saves the index next to the factors,
+     * and {@link #loadMF(String)} loads it.
+     */
+    public synchronized void setApproximateSearch(LSHNeighborSearch.Parameters approximateSearch) {
+        this.approximateSearch = approximateSearch;
+        neighborIndex = null;
+        foldInSearch = null;
     }
 
-    public void loadMF(String filename) {
-        // TODO: load
-        // check the size of X_Prime, IFMatrix, and UFMatrix before loading
+    /**
+     * @return the file of the approximate neighbor search saved with the factors,
+     * which depends on the fold-in since the search indexes other vectors
+     */
+    public Path getIndexFile(@NonNull String filename) {
+        return Path.of(filename + (foldIn ? ".foldin.lsh" : ".lsh"));
     }
 
     // SECTION Heuristics
@@ -96,16 +287,33 @@ public class MFVVOHeuristic {
         this.userNeighborhood = userNeighborhood;
     }
 
-    // get heuristics for a requirement
+    /**
+     * Gets the heuristic for a requirement.
+     * <p>
+     * With the default similarity and neighborhood, the neighbors are found in the latent space,
+     * by a {@link PearsonNeighborIndex} or by fold-in (see {@link #setFoldIn(boolean)}). With a custom similarity or neighborhood, the requirement is added to
+     * a Mahout data model of X'.
+     */
     public ValueVariableOrdering getHeuristic(Requirement requirement) throws TasteException {
         // convert requirement to PreferenceArray
         List<GenericPreference> preferenceListOfOneUser = mfvvoModel.getGenericPreferences(0, requirement);
-        PreferenceArray preferencesOfOneUser = new GenericUserPreferenceArray(preferenceListOfOneUser);
 
-        // Add requirement into dataModel
-        DataModel dataModel = getDataModelOfXPrimeWith(preferencesOfOneUser);
-        // A. selects k most similar estimated transactions
-        long[] neighbors = identifyNeighbors(dataModel, numNeighbors);
+        long[] neighbors;
+        if (userSimilarity == null && userNeighborhood == null) {
+            // A. selects k most similar estimated transactions
+            neighbors = identifyNeighbors(preferenceListOfOneUser, numNeighbors);
+        } else {
+            PreferenceArray preferencesOfOneUser = new GenericUserPreferenceArray(preferenceListOfOneUser);
+
+            // Add requirement into dataModel
+            DataModel dataModel = getDataModelOfXPrimeWith(preferencesOfOneUser);
+            // A. selects k most similar estimated transactions
+            neighbors = identifyNeighbors(dataModel, numNeighbors);
+            // the users of X' are shifted by the requirement
+            if (neighbors != null) {
+                neighbors = Arrays.stream(neighbors).map(a -> a - 1).toArray();
+            }
+        }
 
         // Testing
 //        System.out.println("Neighbors");
@@ -126,9 +334,7 @@ public class MFVVOHeuristic {
 //        }
 
         // B. aggregated into one predicted user factors for requirement (UF)
-        if (neighbors != null) {
-            neighbors = Arrays.stream(neighbors).map(a -> a - 1).toArray();
-        } else {
+        if (neighbors == null || neighbors.length == 0) {
             return null;
         }
 
@@ -139,7 +345,7 @@ public class MFVVOHeuristic {
 //        }
 //        System.out.println("End Neighbors-----------------------");
 
-        Vector predictedUF = getPredictedUF(neighbors);
+        double[] predictedUF = getPredictedUF(neighbors);
 
         if (predictedUF == null)
             return null;
@@ -148,7 +354,7 @@ public class MFVVOHeuristic {
 //        System.out.println(predictedUF);
 
         // C. multiply with IF to obtain a predicted solution
-        Vector predictedSolution = mf.getIFMatrix().times(predictedUF);
+        Vector predictedSolution = new DenseVector(mf.predictItems(predictedUF), true);
 
 //        System.out.println("Predicted solution");
 //        System.out.println(predictedSolution);
@@ -210,10 +416,13 @@ public class MFVVOHeuristic {
         // add preferences from requirement
         preferences.put(0, preferencesOfOneUser);
 
-        for (int userID = 0; userID < mf.getX_Prime().numRows(); userID++) {
+        for (int userID = 0; userID < mf.getNumUsers(); userID++) {
+            // the rows of X' are computed from the factors
+            double[] row = mf.getPredictedRow(userID);
+
             List<GenericPreference> preferenceListOfOneUser = new LinkedList<>();
-            for (int itemID = 0; itemID < mf.getX_Prime().numCols(); itemID++) {
-                float value = (float) mf.getX_Prime().get(userID, itemID);
+            for (int itemID = 0; itemID < row.length; itemID++) {
+                float value = (float) row[itemID];
 
                 GenericPreference preference = new GenericPreference(userID + 1, itemID, value);
                 preferenceListOfOneUser.add(preference);
@@ -226,6 +435,65 @@ public class MFVVOHeuristic {
         return new GenericDataModel(preferences);
     }
 
+    /**
+     * Identifies the numNeighbors most similar users to the requirement, in the latent space.
+     * @return the indexes of the users in UFMatrix
+     */
+    private long[] identifyNeighbors(List<GenericPreference> preferences, int numNeighbors) {
+        int[] items = preferences.stream().mapToInt(p -> (int) p.getItemID()).toArray();
+        double[] values = preferences.stream().mapToDouble(GenericPreference::getValue).toArray();
+
+        int[] neighbors;
+        if (foldIn) {
+            double[] userFactors = mf.foldIn(items, values, foldInRegularization);
+            neighbors = getFoldInSearch().search(userFactors, numNeighbors);
+        } else {
+            neighbors = getNeighborIndex().neighbors(items, values, numNeighbors);
+        }
+        return Arrays.stream(neighbors).asLongStream().toArray();
+    }
+
+    private synchronized INeighborSearchable getFoldInSearch() {
+        checkState(fitted, "The matrix factorization is not fitted yet!");
+
+        if (foldInSearch == null) {
+            foldInSearch = createNeighborSearch(getUserFactors());
+        }
+        return foldInSearch;
+    }
+
+    private double[][] getUserFactors() {
+        double[][] vectors = new double[mf.getNumUsers()][];
+        for (int u = 0; u < vectors.length; u++) {
+            vectors[u] = mf.getUserFactors(u);
+        }
+        return vectors;
+    }
+
+    private synchronized PearsonNeighborIndex getNeighborIndex() {
+        checkState(fitted, "The matrix factorization is not fitted yet!");
+
+        if (neighborIndex == null) {
+            neighborIndex = new PearsonNeighborIndex(mf, this::createNeighborSearch);
+        }
+        return neighborIndex;
+    }
+
+    private INeighborSearchable createNeighborSearch(double[][] vectors) {
+        if (approximateSearch == null) {
+            return new ExactNeighborSearch(vectors);
+        }
+        return new LSHNeighborSearch(vectors, approximateSearch);
+    }
+
+    private static INeighborSearchable loadNeighborSearch(Path indexFile, double[][] vectors, long checksum) {
+        try {
+            return LSHNeighborSearch.load(indexFile, vectors, checksum);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
     /**
      * Identify the numNeighbors most similar users to the user 0.
      */
@@ -244,26 +512,24 @@ public class MFVVOHeuristic {
         return userNeighborhood.getUserNeighborhood(userID);
     }
 
-    private Vector getPredictedUF(long[] neighbors) {
-//        System.out.println("Vectors");
-        List<Vector> vectors = new LinkedList<>();
-        for (long neighborID: neighbors) {
-            Vector v = mf.getUFMatrix().viewRow((int) neighborID);
-//            System.out.println(v);
-            vectors.add(v);
-        }
-
-        if (vectors.isEmpty()) {
+    private double[] getPredictedUF(long[] neighbors) {
+        if (neighbors.length == 0) {
             return null;
         }
 
-        Vector v = vectors.get(0);
-        for (int i = 1; i < vectors.size(); i++) {
-            v = v.plus(vectors.get(i));
+        // the average of the user factors of the neighbors
+        double[] v = new double[mf.getNumFeatures()];
+        for (long neighborID: neighbors) {
+            double[] factors = mf.getUserFactors((int) neighborID);
+            for (int f = 0; f < v.length; f++) {
+                v[f] += factors[f];
+            }
+        }
+        for (int f = 0; f < v.length; f++) {
+            v[f] /= neighbors.length;
         }
-        v = v.divide(vectors.size());
 //        System.out.println("Aggregated vectors");
-//        System.out.println(v);
+//        System.out.println(Arrays.toString(v));
 
         return v;
     }
@@ -9,6 +9,9 @@
 package at.tugraz.ist.ase.heuristics;
 
 import at.tugraz.ist.ase.ce.Solution;
+import at.tugraz.ist.ase.ce.SolutionSchema;
+import at.tugraz.ist.ase.ce.store.SolutionCursor;
+import at.tugraz.ist.ase.ce.store.SolutionStore;
 import at.tugraz.ist.ase.kb.core.Assignment;
 import at.tugraz.ist.ase.kb.core.Domain;
 import at.tugraz.ist.ase.kb.core.Variable;
@@ -25,6 +28,7 @@ import org.apache.mahout.cf.taste.model.PreferenceArray;
 import org.apache.mahout.math.Vector;
 
 import java.util.*;
+import java.util.stream.Collectors;
 
 /**
  * Manages the structure of a data model for the matrix factorization.
@@ -47,6 +51,22 @@ public class MFVVOModel {
         this.variables = variables;
     }
 
+    /**
+     * @return the number of items of the matrix factorization, i.e., the total number of domain values
+     */
+    public int getNumItems() {
+        return variables.stream().mapToInt(v -> v.getDomain().size()).sum();
+    }
+
+    /**
+     * @return the names and the domain values of the variables, in the order of the model
+     */
+    public SolutionSchema getSchema() {
+        return new SolutionSchema(variables.stream().map(Variable::getName).collect(Collectors.toList()),
+                variables.stream().map(v -> v.getDomain().getValues()).collect(Collectors.toList()),
+                null);
+    }
+
     public DataModel getDataModel(@NonNull List<Solution> solutions) {
         log.info("Getting the dataModel >>>");
         FastByIDMap<PreferenceArray> preferences = new FastByIDMap<>();
@@ -69,6 +89,57 @@ public class MFVVOModel {
         return new GenericDataModel(preferences);
     }
 
+    /**
+     * Converts the solutions of a {@link SolutionStore} into a data model, reading the codes
+     * of the solutions directly from the store. Variables which are not in the schema of the store
+     * are treated as unassigned.
+     */
+    public DataModel getDataModel(@NonNull SolutionStore store) {
+        log.debug("Getting the dataModel from {} solutions >>>", store.size());
+
+        // maps the codes of the store to the indexes of the domain values of the variables
+        SolutionSchema schema = store.getSchema();
+        int[] varIndexes = new int[variables.size()];
+        int[][] valueIndexes = new int[variables.size()][];
+        for (int v = 0; v < variables.size(); v++) {
+            Variable variable = variables.get(v);
+            varIndexes[v] = schema.indexOf(variable.getName());
+
+            if (varIndexes[v] >= 0) {
+                List<String> domainValues = variable.getDomain().getValues();
+                valueIndexes[v] = new int[schema.getDomainSize(varIndexes[v])];
+                for (int code = 0; code < valueIndexes[v].length; code++) {
+                    valueIndexes[v][code] = domainValues.indexOf(schema.getValue(varIndexes[v], code));
+                }
+            }
+        }
+
+        FastByIDMap<PreferenceArray> preferences = new FastByIDMap<>();
+        SolutionCursor cursor = store.cursor();
+        while (cursor.next()) {
+            long userId = cursor.getRow();
+
+            List<GenericPreference> preferenceListOfOneUser = new ArrayList<>();
+            int itemId = 0;
+            for (int v = 0; v < variables.size(); v++) {
+                int size = variables.get(v).getDomain().size();
+
+                if (varIndexes[v] >= 0) {
+                    int valueIndex = valueIndexes[v][cursor.getCode(varIndexes[v])];
+                    for (int i = 0; i < size; i++) {
+                        preferenceListOfOneUser.add(new GenericPreference(userId, itemId + i, i == valueIndex ? 1.0f : 0.0f));
+                    }
+                }
+                itemId += size;
+            }
+
+            preferences.put(userId, new GenericUserPreferenceArray(preferenceListOfOneUser));
+        }
+
+        log.debug("<<< dataModel returned");
+        return new GenericDataModel(preferences);
+    }
+
     public List<GenericPreference> getGenericPreferences(int userId, @NonNull Solution solution) {
         int itemId = 0;
         List<GenericPreference> preferenceListOfOneUser = new LinkedList<>();
@@ -0,0 +1,265 @@
+/*
+ * CECore - Core components of a Configuration Environment
+ *
+ * Copyright (c) 2022
+ *
+ * @author: Viet-Man Le (vietman.le@ist.tugraz.at)
+ */
+
+package at.tugraz.ist.ase.heuristics;
+
+import at.tugraz.ist.ase.heuristics.neighbor.ExactNeighborSearch;
+import at.tugraz.ist.ase.heuristics.neighbor.INeighborSearchable;
+import at.tugraz.ist.ase.mf.MatrixFactorization;
+import lombok.Getter;
+import lombok.NonNull;
+
+import java.util.Arrays;
+import java.util.function.Function;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Finds the users of a matrix factorization which are the most similar to a requirement, without materializing
+ * the dense matrix X' = UF * IF^T.
+ * <p>
+ * The similarity is the Pearson correlation used by the default neighborhood of {@link MFVVOHeuristic}
+ * ({@code PearsonCorrelationSimilarity} with an {@code AveragingPreferenceInferrer}), i.e., the items which
+ * are not in the requirement get the average preference of the requirement. Since a row of X' is x = IF * u,
+ * the sums of the rows are computed in the latent space:
+ * <ul>
+ *     <li>sum(x) = u . s, where s = IF^T * 1</li>
+ *     <li>sum(x^2) = u^T * G * u, where G = IF^T * IF</li>
+ *     <li>sum(q * x) = u . w + a * sum(x), where w = IF_O^T * (q_O - a), over the items O of the requirement with average a</li>
+ * </ul>
+ * Since the average of the requirement with the inferred preferences is a, the covariance is u . w,
+ * and the variance of a row is u^T * C * u, where C = G - s * s^T / n. With the Cholesky factorization C = L * L^T,
+ * the Pearson correlation of a user is proportional to the cosine similarity between z = L^T * u and y = L^-1 * w.
+ * Hence, the neighbors are found by an {@link INeighborSearchable} over the vectors z, e.g., an exact search
+ * in O(m * k) instead of O(m * n) for m users, n items, and k features, or an approximate search.
+ */
+public class PearsonNeighborIndex {
+
+    private static final double JITTER = 1e-10;
+
+    @Getter
+    private final int numUsers;
+    @Getter
+    private final int numItems;
+    @Getter
+    private final int numFeatures;
+
+    // the factors are read from the factorization, without copies
+    private final MatrixFactorization mf;
+
+    // sum(x) and sum(x^2) of the rows of X'
+    private final double[] userSums;
+    private final double[] userSquares;
+
+    // the lower triangular L of C = L * L^T, row by row
+    private final double[] cholesky;
+
+    @Getter
+    private final INeighborSearchable search;
+
+    /**
+     * Creates an index with an {@link ExactNeighborSearch}.
+     */
+    public PearsonNeighborIndex(@NonNull MatrixFactorization mf) {
+        this(mf, ExactNeighborSearch::new);
+    }
+
+    /**
+     * @param searchFactory creates the search over the transformed factors z = L^T * u of the users
+     */
+    public PearsonNeighborIndex(@NonNull MatrixFactorization mf,
+                                @NonNull Function<double[][], INeighborSearchable> searchFactory) {
+        checkArgument(mf.isFactorized(), "The matrix is not factorized yet!");
+
+        this.mf = mf;
+        this.numUsers = mf.getNumUsers();
+        this.numItems = mf.getNumItems();
+        this.numFeatures = mf.getNumFeatures();
+
+        // s = IF^T * 1 and G = IF^T * IF
+        double[] s = new double[numFeatures];
+        double[] g = new double[numFeatures * numFeatures];
+        double[] row = new double[numFeatures];
+        for (int i = 0; i < numItems; i++) {
+            for (int f = 0; f < numFeatures; f++) {
+                row[f] = mf.getItemFactor(i, f);
+            }
+            for (int f = 0; f < numFeatures; f++) {
+                s[f] += row[f];
+                for (int h = 0; h < numFeatures; h++) {
+                    g[f * numFeatures + h] += row[f] * row[h];
+                }
+            }
+        }
+
+        this.userSums = new double[numUsers];
+        this.userSquares = new double[numUsers];
+        for (int u = 0; u < numUsers; u++) {
+            double[] factors = mf.getUserFactors(u);
+            double sum = 0;
+            double squares = 0;
+            for (int f = 0; f < numFeatures; f++) {
+                double value = factors[f];
+                sum += value * s[f];
+
+                double gu = 0;
+                for (int h = 0; h < numFeatures; h++) {
+                    gu += g[f * numFeatures + h] * factors[h];
+                }
+                squares += value * gu;
+            }
+            userSums[u] = sum;
+            userSquares[u] = squares;
+        }
+
+        this.cholesky = cholesky(g, s);
+        this.search = searchFactory.apply(getTransformedFactors());
+    }
+
+    /**
+     * @return the vectors z = L^T * u of the users, whose cosine similarities with L^-1 * w rank the users
+     * as their Pearson correlations
+     */
+    public double[][] getTransformedFactors() {
+        double[][] vectors = new double[numUsers][numFeatures];
+        for (int u = 0; u < numUsers; u++) {
+            double[] factors = mf.getUserFactors(u);
+            for (int f = 0; f < numFeatures; f++) {
+                double value = 0;
+                for (int h = f; h < numFeatures; h++) {
+                    value += cholesky[h * numFeatures + f] * factors[h];
+                }
+                vectors[u][f] = value;
+            }
+        }
+        return vectors;
+    }
+
+    /**
+     * Finds the numNeighbors users with the highest Pearson correlation to a requirement.
+     * Users with an undefined correlation are skipped.
+     * @param items the items of the requirement
+     * @param values the preferences of the requirement for the items
+     * @param numNeighbors the maximum number of neighbors
+     * @return the indexes of the rows of UF, from the most similar user
+     */
+    public int[] neighbors(@NonNull int[] items, @NonNull double[] values, int numNeighbors) {
+        checkArgument(items.length == values.length, "Each item must have a value!");
+        checkArgument(numNeighbors > 0, "numNeighbors must be positive!");
+
+        Query query = new Query(items, values);
+        if (!(query.variance > 0)) { // undefined correlations
+            return new int[0];
+        }
+
+        // y = L^-1 * w by forward substitution
+        double[] y = new double[numFeatures];
+        for (int f = 0; f < numFeatures; f++) {
+            double value = query.w[f];
+            for (int h = 0; h < f; h++) {
+                value -= cholesky[f * numFeatures + h] * y[h];
+            }
+            y[f] = value / cholesky[f * numFeatures + f];
+        }
+        return search.search(y, numNeighbors);
+    }
+
+    /**
+     * @return the Pearson correlation between a requirement and the row of a user in X'
+     */
+    public double similarity(@NonNull int[] items, @NonNull double[] values, int user) {
+        checkArgument(items.length == values.length, "Each item must have a value!");
+
+        return new Query(items, values).similarity(user);
+    }
+
+    /**
+     * Factorizes C = G - s * s^T / n, with a small jitter on the diagonal since C is only positive semi-definite.
+     */
+    private double[] cholesky(double[] g, double[] s) {
+        double trace = 0;
+        double[] c = new double[numFeatures * numFeatures];
+        for (int f = 0; f < numFeatures; f++) {
+            for (int h = 0; h < numFeatures; h++) {
+                c[f * numFeatures + h] = g[f * numFeatures + h] - s[f] * s[h] / numItems;
+            }
+            trace += c[f * numFeatures + f];
+        }
+        double jitter = Math.max(trace / numFeatures, 1.0) * JITTER;
+
+        double[] l = new double[numFeatures * numFeatures];
+        for (int f = 0; f < numFeatures; f++) {
+            for (int h = 0; h <= f; h++) {
+                double value = c[f * numFeatures + h];
+                for (int p = 0; p < h; p++) {
+                    value -= l[f * numFeatures + p] * l[h * numFeatures + p];
+                }
+                if (f == h) {
+                    l[f * numFeatures + f] = Math.sqrt(Math.max(value + jitter, jitter));
+                } else {
+                    l[f * numFeatures + h] = value / l[h * numFeatures + h];
+                }
+            }
+        }
+        return l;
+    }
+
+    /**
+     * The latent-space terms of a requirement.
+     */
+    private class Query {
+        private final double average;
+        private final double sum;
+        private final double variance; // n * var(q)
+        private final double[] w;
+
+        Query(int[] items, double[] values) {
+            average = items.length > 0 ? Arrays.stream(values).average().orElse(0) : Double.NaN;
+
+            // the missing items have the average preference
+            double observedSum = 0;
+            double observedSquares = 0;
+            for (double value : values) {
+                observedSum += value;
+                observedSquares += value * value;
+            }
+            int numMissing = numItems - items.length;
+            sum = observedSum + numMissing * average;
+            double squares = observedSquares + numMissing * average * average;
+            variance = squares - sum * sum / numItems;
+
+            // w = IF_O^T * (q_O - a)
+            w = new double[numFeatures];
+            for (int j = 0; j < items.length; j++) {
+                checkArgument(items[j] >= 0 && items[j] < numItems, "Item %s is not in the factorization!", items[j]);
+
+                double centered = values[j] - average;
+                for (int f = 0; f < numFeatures; f++) {
+                    w[f] += centered * mf.getItemFactor(items[j], f);
+                }
+            }
+        }
+
+        double similarity(int user) {
+            double dot = 0;
+            for (int f = 0; f < numFeatures; f++) {
+                dot += mf.getUserFactor(user, f) * w[f];
+            }
+
+            double userSum = userSums[user];
+            double covariance = dot + average * userSum - sum * userSum / numItems;
+            double userVariance = userSquares[user] - userSum * userSum / numItems;
+
+            double denominator = Math.sqrt(variance * userVariance);
+            if (!(denominator > 0)) {
+                return Double.NaN;
+            }
+            return Math.max(-1.0, Math.min(1.0, covariance / denominator));
+        }
+    }
+}
@@ -8,7 +8,12 @@
 
 package at.tugraz.ist.ase.heuristics;
 
+import at.tugraz.ist.ase.kb.core.BoolVariable;
+import at.tugraz.ist.ase.kb.core.IntVariable;
+import at.tugraz.ist.ase.kb.core.KB;
+import at.tugraz.ist.ase.kb.core.Variable;
 import lombok.Getter;
+import lombok.NonNull;
 import lombok.Setter;
 import lombok.ToString;
 import org.chocosolver.solver.variables.IntVar;
@@ -34,4 +39,36 @@ public class ValueVariableOrdering {
     public void setValueOrdering(ValueOrdering valueOrdering) {
         this.valueOrdering.add(valueOrdering);
     }
-}
\ No newline at end of file
+
+    /**
+     * Creates a copy of this ordering whose Choco variables belong to the Choco model of the given KB,
+     * e.g., to use the ordering with another copy of the KB.
+     */
+    public ValueVariableOrdering bind(@NonNull KB kb) {
+        ValueVariableOrdering vvo = new ValueVariableOrdering();
+
+        List<IntVar> intVars = new LinkedList<>();
+        for (String varName : varOrdering) {
+            intVars.add(getChocoVar(kb.getVariable(varName)));
+        }
+        vvo.setVarOrdering(new LinkedList<>(varOrdering));
+        vvo.setIntVarOrdering(intVars);
+
+        for (ValueOrdering vo : valueOrdering) {
+            ValueOrdering copy = new ValueOrdering(vo.getVarName());
+            copy.setIntVar(getChocoVar(kb.getVariable(vo.getVarName())));
+            vo.getOrdering().forEach(copy::setOrderedValue);
+            vvo.setValueOrdering(copy);
+        }
+        return vvo;
+    }
+
+    private static IntVar getChocoVar(Variable variable) {
+        if (variable instanceof IntVariable) {
+            return ((IntVariable) variable).getChocoVar();
+        } else if (variable instanceof BoolVariable) {
+            return ((BoolVariable) variable).getChocoVar();
+        }
+        return null;
+    }
+}
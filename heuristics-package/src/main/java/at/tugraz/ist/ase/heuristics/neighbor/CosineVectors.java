@@ -0,0 +1,116 @@
+/*
+ * CECore - Core components of a Configuration Environment
+ *
+ * Copyright (c) 2022
+ *
+ * @author: Viet-Man Le (vietman.le@ist.tugraz.at)
+ */
+
+package at.tugraz.ist.ase.heuristics.neighbor;
+
+import lombok.Getter;
+
+import java.util.PriorityQueue;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * The normalized vectors of a neighbor search, stored row by row in one array.
+ */
+class CosineVectors {
+
+    @Getter
+    private final int size;
+    @Getter
+    private final int dimension;
+
+    private final double[] values;
+    private final boolean[] zero;
+
+    CosineVectors(double[][] vectors) {
+        checkArgument(vectors.length > 0, "There must be a vector!");
+
+        this.size = vectors.length;
+        this.dimension = vectors[0].length;
+        this.values = new double[size * dimension];
+        this.zero = new boolean[size];
+
+        for (int i = 0; i < size; i++) {
+            checkArgument(vectors[i].length == dimension, "The vectors must have the same dimension!");
+
+            double[] normalized = normalize(vectors[i]);
+            if (normalized == null) {
+                zero[i] = true;
+            } else {
+                System.arraycopy(normalized, 0, values, i * dimension, dimension);
+            }
+        }
+    }
+
+    boolean isZero(int index) {
+        return zero[index];
+    }
+
+    double similarity(int index, double[] normalizedQuery) {
+        int offset = index * dimension;
+        double dot = 0;
+        for (int d = 0; d < dimension; d++) {
+            dot += values[offset + d] * normalizedQuery[d];
+        }
+        return dot;
+    }
+
+    /**
+     * @return the unit vector, null for a zero vector
+     */
+    static double[] normalize(double[] vector) {
+        double norm = 0;
+        for (double value : vector) {
+            norm += value * value;
+        }
+        norm = Math.sqrt(norm);
+        if (!(norm > 0)) {
+            return null;
+        }
+
+        double[] normalized = new double[vector.length];
+        for (int d = 0; d < vector.length; d++) {
+            normalized[d] = vector[d] / norm;
+        }
+        return normalized;
+    }
+
+    /**
+     * Keeps the numNeighbors most similar vectors.
+     */
+    static class TopNeighbors {
+        private final int numNeighbors;
+        // min-heap of {similarity, index}
+        private final PriorityQueue<double[]> heap;
+
+        TopNeighbors(int numNeighbors) {
+            this.numNeighbors = numNeighbors;
+            this.heap = new PriorityQueue<>(numNeighbors + 1, (a, b) -> Double.compare(a[0], b[0]));
+        }
+
+        void offer(int index, double similarity) {
+            if (heap.size() < numNeighbors) {
+                heap.add(new double[]{similarity, index});
+            } else if (similarity > heap.peek()[0]) {
+                heap.poll();
+                heap.add(new double[]{similarity, index});
+            }
+        }
+
+        /**
+         * @return the indexes, from the most similar vector
+         */
+        int[] toArray() {
+            int[] neighbors = new int[heap.size()];
+            for (int i = neighbors.length - 1; i >= 0; i--) {
+                neighbors[i] = (int) heap.poll()[1];
+            }
+            return neighbors;
+        }
+    }
+}
@@ -0,0 +1,49 @@
+/*
+ * CECore - Core components of a Configuration Environment
+ *
+ * Copyright (c) 2022
+ *
+ * @author: Viet-Man Le (vietman.le@ist.tugraz.at)
+ */
+
+package at.tugraz.ist.ase.heuristics.neighbor;
+
+import lombok.NonNull;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Compares the query with all vectors.
+ */
+public class ExactNeighborSearch implements INeighborSearchable {
+
+    private final CosineVectors vectors;
+
+    public ExactNeighborSearch(@NonNull double[][] vectors) {
+        this.vectors = new CosineVectors(vectors);
+    }
+
+    @Override
+    public int[] search(@NonNull double[] query, int numNeighbors) {
+        checkArgument(query.length == vectors.getDimension(), "The query must have the dimension of the vectors!");
+        checkArgument(numNeighbors > 0, "numNeighbors must be positive!");
+
+        double[] normalizedQuery = CosineVectors.normalize(query);
+        if (normalizedQuery == null) {
+            return new int[0];
+        }
+
+        CosineVectors.TopNeighbors top = new CosineVectors.TopNeighbors(numNeighbors);
+        for (int i = 0; i < vectors.getSize(); i++) {
+            if (!vectors.isZero(i)) {
+                top.offer(i, vectors.similarity(i, normalizedQuery));
+            }
+        }
+        return top.toArray();
+    }
+
+    @Override
+    public int size() {
+        return vectors.getSize();
+    }
+}
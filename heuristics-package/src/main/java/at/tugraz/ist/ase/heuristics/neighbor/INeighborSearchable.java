@@ -0,0 +1,30 @@
+/*
+ * CECore - Core components of a Configuration Environment
+ *
+ * Copyright (c) 2022
+ *
+ * @author: Viet-Man Le (vietman.le@ist.tugraz.at)
+ */
+
+package at.tugraz.ist.ase.heuristics.neighbor;
+
+import lombok.NonNull;
+
+/**
+ * Searches the vectors with the highest cosine similarity to a query among a fixed set of vectors,
+ * e.g., the rows of a factor matrix.
+ */
+public interface INeighborSearchable {
+    /**
+     * @param query a vector with the dimension of the indexed vectors
+     * @param numNeighbors the maximum number of neighbors
+     * @return the indexes of the neighbors, from the most similar one. Zero vectors are never returned,
+     * and a zero query has no neighbors.
+     */
+    int[] search(@NonNull double[] query, int numNeighbors);
+
+    /**
+     * @return the number of indexed vectors
+     */
+    int size();
+}
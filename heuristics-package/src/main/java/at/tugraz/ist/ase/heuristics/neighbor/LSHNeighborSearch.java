@@ -0,0 +1,344 @@
+/*
+ * CECore - Core components of a Configuration Environment
+ *
+ * Copyright (c) 2022
+ *
+ * @author: Viet-Man Le (vietman.le@ist.tugraz.at)
+ */
+
+package at.tugraz.ist.ase.heuristics.neighbor;
+
+import at.tugraz.ist.ase.common.LoggerUtils;
+import at.tugraz.ist.ase.mf.MFException;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Random;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * An approximate neighbor search with random-projection locality sensitive hashing (SimHash).
+ * <p>
+ * Each of the numTables tables hashes a vector to the signs of its projections on numBits random hyperplanes,
+ * so that vectors with a small angle often share a bucket. A query collects the vectors of its buckets,
+ * and of the numProbes neighboring buckets per table obtained by flipping the bits with the smallest projections,
+ * and then ranks the candidates by their exact cosine similarity.
+ * <p>
+ * More tables and probes increase the recall, more bits decrease the number of candidates, i.e., the latency.
+ */
+@Slf4j
+public class LSHNeighborSearch implements INeighborSearchable {
+
+    public static final int MAGIC = 0x43454C53; // "CELS"
+    public static final int VERSION = 2;
+
+    /**
+     * The parameters of the hash tables.
+     */
+    @Value
+    @Builder
+    public static class Parameters {
+        @Builder.Default
+        int numTables = 8;
+        @Builder.Default
+        int numBits = 12;
+        @Builder.Default
+        int numProbes = 1;
+        @Builder.Default
+        long seed = 42L;
+
+        public static Parameters defaults() {
+            return builder().build();
+        }
+    }
+
+    @Getter
+    private final Parameters parameters;
+
+    private final CosineVectors vectors;
+    private final double[] hyperplanes; // numTables x numBits x dimension
+
+    // the ids of the vectors of each table, sorted by their codes
+    private final long[][] codes;
+    private final int[][] ids;
+
+    public LSHNeighborSearch(@NonNull double[][] vectors, @NonNull Parameters parameters) {
+        this(new CosineVectors(vectors), parameters);
+
+        int dimension = this.vectors.getDimension();
+        for (int t = 0; t < parameters.getNumTables(); t++) {
+            long[] tableCodes = new long[this.vectors.getSize()];
+            for (int i = 0; i < tableCodes.length; i++) {
+                tableCodes[i] = hash(t, vectors[i], new double[parameters.getNumBits()]);
+            }
+            sort(tableCodes, t);
+        }
+
+        log.debug("{}Built the LSH index [vectors={}, dimension={}, parameters={}]", LoggerUtils.tab(),
+                this.vectors.getSize(), dimension, parameters);
+    }
+
+    private LSHNeighborSearch(CosineVectors vectors, Parameters parameters) {
+        checkArgument(parameters.getNumTables() > 0, "numTables must be positive!");
+        checkArgument(parameters.getNumBits() > 0 && parameters.getNumBits() < Long.SIZE, "numBits must be between 1 and 63!");
+        checkArgument(parameters.getNumProbes() >= 0 && parameters.getNumProbes() <= parameters.getNumBits(),
+                "numProbes must be between 0 and numBits!");
+
+        this.parameters = parameters;
+        this.vectors = vectors;
+        this.codes = new long[parameters.getNumTables()][];
+        this.ids = new int[parameters.getNumTables()][];
+
+        // Gaussian hyperplanes, reproducible from the seed
+        int dimension = vectors.getDimension();
+        Random random = new Random(parameters.getSeed());
+        this.hyperplanes = new double[parameters.getNumTables() * parameters.getNumBits() * dimension];
+        for (int i = 0; i < hyperplanes.length; i++) {
+            hyperplanes[i] = random.nextGaussian();
+        }
+    }
+
+    @Override
+    public int[] search(@NonNull double[] query, int numNeighbors) {
+        checkArgument(query.length == vectors.getDimension(), "The query must have the dimension of the vectors!");
+        checkArgument(numNeighbors > 0, "numNeighbors must be positive!");
+
+        double[] normalizedQuery = CosineVectors.normalize(query);
+        if (normalizedQuery == null) {
+            return new int[0];
+        }
+
+        BitSet candidates = new BitSet(vectors.getSize());
+        double[] projections = new double[parameters.getNumBits()];
+        for (int t = 0; t < parameters.getNumTables(); t++) {
+            long code = hash(t, normalizedQuery, projections);
+            collect(t, code, candidates);
+
+            // probes the buckets of the least certain bits
+            for (int bit : smallestProjections(projections, parameters.getNumProbes())) {
+                collect(t, code ^ (1L << bit), candidates);
+            }
+        }
+
+        CosineVectors.TopNeighbors top = new CosineVectors.TopNeighbors(numNeighbors);
+        for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)) {
+            if (!vectors.isZero(i)) {
+                top.offer(i, vectors.similarity(i, normalizedQuery));
+            }
+        }
+        return top.toArray();
+    }
+
+    @Override
+    public int size() {
+        return vectors.getSize();
+    }
+
+    /**
+     * Saves the hash tables, so that {@link #load(Path, double[][])} does not hash the vectors again.
+     * The vectors themselves are not saved.
+     */
+    public void save(@NonNull Path path) throws IOException {
+        save(path, 0);
+    }
+
+    /**
+     * Saves the hash tables with the checksum of the source of the vectors, e.g., of a factorization file,
+     * so that {@link #load(Path, double[][], long)} rejects the tables for the vectors of another source.
+     * The vectors themselves are not saved.
+     * @param sourceChecksum the checksum of the source of the vectors, 0 - no source
+     */
+    public void save(@NonNull Path path, long sourceChecksum) throws IOException {
+        Path absolutePath = path.toAbsolutePath();
+        Path tmp = Files.createTempFile(absolutePath.getParent(), absolutePath.getFileName().toString(), ".tmp");
+        try {
+            CRC32 crc = new CRC32();
+            try (FileOutputStream fos = new FileOutputStream(tmp.toFile());
+                 DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new CheckedOutputStream(fos, crc)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(vectors.getSize());
+                out.writeInt(vectors.getDimension());
+                out.writeLong(sourceChecksum);
+                out.writeInt(parameters.getNumTables());
+                out.writeInt(parameters.getNumBits());
+                out.writeInt(parameters.getNumProbes());
+                out.writeLong(parameters.getSeed());
+
+                for (int t = 0; t < parameters.getNumTables(); t++) {
+                    for (int i = 0; i < vectors.getSize(); i++) {
+                        out.writeLong(codes[t][i]);
+                        out.writeInt(ids[t][i]);
+                    }
+                }
+                out.flush();
+
+                // the checksum itself is not checked
+                new DataOutputStream(fos).writeLong(crc.getValue());
+                fos.getFD().sync();
+            }
+
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+
+        log.debug("{}Saved the LSH index to {}", LoggerUtils.tab(), path);
+    }
+
+    /**
+     * Loads the hash tables saved by {@link #save(Path)} for the given vectors.
+     * @throws MFException if the file is corrupted, or if it was saved for another number or dimension of vectors
+     */
+    public static LSHNeighborSearch load(@NonNull Path path, @NonNull double[][] vectors) throws IOException {
+        return load(path, vectors, 0);
+    }
+
+    /**
+     * Loads the hash tables saved by {@link #save(Path, long)} for the given vectors.
+     * @param sourceChecksum the checksum of the source of the vectors, 0 - no source
+     * @throws MFException if the file is corrupted, or if it was saved for another source, number or dimension of vectors
+     */
+    public static LSHNeighborSearch load(@NonNull Path path, @NonNull double[][] vectors, long sourceChecksum) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(path));
+        int size = buffer.capacity();
+        if (size < 7 * Integer.BYTES + 3 * Long.BYTES) {
+            throw new MFException("The LSH index " + path + " is truncated!");
+        }
+        if (buffer.getInt() != MAGIC) {
+            throw new MFException(path + " is not an LSH index!");
+        }
+        int version = buffer.getInt();
+        if (version != VERSION) {
+            throw new MFException("Unsupported version " + version + " of the LSH index " + path + "!");
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), 0, size - Long.BYTES);
+        if (crc.getValue() != buffer.getLong(size - Long.BYTES)) {
+            throw new MFException("The checksum of the LSH index " + path + " does not match!");
+        }
+
+        int numVectors = buffer.getInt();
+        int dimension = buffer.getInt();
+        if (numVectors != vectors.length || (vectors.length > 0 && dimension != vectors[0].length)) {
+            throw new MFException("The LSH index " + path + " has " + numVectors + " vectors of dimension " + dimension
+                    + ", expected " + vectors.length + " vectors of dimension " + (vectors.length > 0 ? vectors[0].length : 0));
+        }
+        if (buffer.getLong() != sourceChecksum) {
+            throw new MFException("The LSH index " + path + " was saved for the vectors of another source!");
+        }
+
+        Parameters parameters = Parameters.builder()
+                .numTables(buffer.getInt())
+                .numBits(buffer.getInt())
+                .numProbes(buffer.getInt())
+                .seed(buffer.getLong())
+                .build();
+        long expectedSize = buffer.position() + (long) parameters.getNumTables() * numVectors * (Long.BYTES + Integer.BYTES) + Long.BYTES;
+        if (expectedSize != size) {
+            throw new MFException("The LSH index " + path + " has " + size + " bytes, expected " + expectedSize + "!");
+        }
+
+        LSHNeighborSearch search = new LSHNeighborSearch(new CosineVectors(vectors), parameters);
+        for (int t = 0; t < parameters.getNumTables(); t++) {
+            search.codes[t] = new long[numVectors];
+            search.ids[t] = new int[numVectors];
+            for (int i = 0; i < numVectors; i++) {
+                search.codes[t][i] = buffer.getLong();
+                search.ids[t][i] = buffer.getInt();
+                if (search.ids[t][i] < 0 || search.ids[t][i] >= numVectors) {
+                    throw new MFException("The LSH index " + path + " is corrupted!");
+                }
+            }
+        }
+
+        log.debug("{}Loaded the LSH index from {} [parameters={}]", LoggerUtils.tab(), path, parameters);
+        return search;
+    }
+
+    /**
+     * @param projections receives the projections of the vector on the hyperplanes of the table
+     * @return the signs of the projections, as bits
+     */
+    private long hash(int table, double[] vector, double[] projections) {
+        int dimension = vectors.getDimension();
+        long code = 0;
+        for (int b = 0; b < parameters.getNumBits(); b++) {
+            int offset = (table * parameters.getNumBits() + b) * dimension;
+            double projection = 0;
+            for (int d = 0; d < dimension; d++) {
+                projection += hyperplanes[offset + d] * vector[d];
+            }
+            projections[b] = projection;
+            if (projection >= 0) {
+                code |= 1L << b;
+            }
+        }
+        return code;
+    }
+
+    private void sort(long[] tableCodes, int table) {
+        Integer[] order = new Integer[tableCodes.length];
+        Arrays.setAll(order, i -> i);
+        Arrays.sort(order, (a, b) -> Long.compare(tableCodes[a], tableCodes[b]));
+
+        codes[table] = new long[order.length];
+        ids[table] = new int[order.length];
+        for (int i = 0; i < order.length; i++) {
+            codes[table][i] = tableCodes[order[i]];
+            ids[table][i] = order[i];
+        }
+    }
+
+    /**
+     * Adds the vectors of a bucket to the candidates.
+     */
+    private void collect(int table, long code, BitSet candidates) {
+        long[] tableCodes = codes[table];
+
+        // the first position of the code
+        int low = 0;
+        int high = tableCodes.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (tableCodes[mid] < code) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+
+        for (int i = low; i < tableCodes.length && tableCodes[i] == code; i++) {
+            candidates.set(ids[table][i]);
+        }
+    }
+
+    /**
+     * @return the bits with the smallest absolute projections
+     */
+    private static int[] smallestProjections(double[] projections, int numProbes) {
+        Integer[] bits = new Integer[projections.length];
+        Arrays.setAll(bits, i -> i);
+        Arrays.sort(bits, (a, b) -> Double.compare(Math.abs(projections[a]), Math.abs(projections[b])));
+
+        int[] result = new int[numProbes];
+        for (int i = 0; i < numProbes; i++) {
+            result[i] = bits[i];
+        }
+        return result;
+    }
+}
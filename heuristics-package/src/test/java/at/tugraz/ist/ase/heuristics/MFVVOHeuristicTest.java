@@ -0,0 +1,299 @@
+/*
+ * CECore - Core components of a Configuration Environment
+ *
+ * Copyright (c) 2022
+ *
+ * @author: Viet-Man Le (vietman.le@ist.tugraz.at)
+ */
+
+package at.tugraz.ist.ase.heuristics;
+
+import at.tugraz.ist.ase.ce.Requirement;
+import at.tugraz.ist.ase.ce.Solution;
+import at.tugraz.ist.ase.fm.core.AbstractRelationship;
+import at.tugraz.ist.ase.fm.core.CTConstraint;
+import at.tugraz.ist.ase.fm.core.Feature;
+import at.tugraz.ist.ase.heuristics.neighbor.LSHNeighborSearch;
+import at.tugraz.ist.ase.kb.core.Assignment;
+import at.tugraz.ist.ase.kb.core.Variable;
+import at.tugraz.ist.ase.kb.fm.FMKB;
+import at.tugraz.ist.ase.mf.FactorMatrix;
+import at.tugraz.ist.ase.mf.MFException;
+import at.tugraz.ist.ase.mf.MatrixFactorization;
+import at.tugraz.ist.ase.mf.MatrixFactorizationFile;
+import org.apache.mahout.cf.taste.common.TasteException;
+import org.apache.mahout.math.DenseMatrix;
+import org.apache.mahout.math.Matrix;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MFVVOHeuristicTest {
+
+    private static final FMKB<Feature, AbstractRelationship<Feature>, CTConstraint> kb = PizzasFixture.createKB();
+
+    private static List<Solution> randomSolutions(int numSolutions) {
+        SplittableRandom random = new SplittableRandom(7);
+        List<Solution> solutions = new ArrayList<>(numSolutions);
+        for (int i = 0; i < numSolutions; i++) {
+            List<Assignment> assignments = new LinkedList<>();
+            for (Variable variable : kb.getVariableList()) {
+                List<String> values = variable.getDomain().getValues();
+                assignments.add(new Assignment(variable.getName(), values.get(random.nextInt(values.size()))));
+            }
+            solutions.add(Solution.builder().assignments(assignments).build());
+        }
+        return solutions;
+    }
+
+    private static MFVVOHeuristic createHeuristic(List<Variable> variables) {
+        MFVVOHeuristic heuristic = new MFVVOHeuristic(MFVVOModel.builder().variables(variables).build());
+        heuristic.setNumNeighbors(5);
+        return heuristic;
+    }
+
+    @Test
+    void testSaveAndLoadMF(@TempDir Path folder) throws TasteException, IOException {
+        MFVVOHeuristic fitted = createHeuristic(kb.getVariableList());
+        fitted.setNumIterations(20);
+        fitted.fit(randomSolutions(30));
+
+        String filename = folder.resolve("pizzas.mf").toString();
+        fitted.saveMF(filename);
+
+        MFVVOHeuristic loaded = createHeuristic(kb.getVariableList());
+        loaded.setNumNeighbors(10);
+        loaded.loadMF(filename);
+        assertTrue(loaded.isFitted());
+        assertEquals(5, loaded.getNumNeighbors());
+        assertEquals(20, loaded.getNumIterations());
+
+        Requirement requirement = Requirement.requirementBuilder()
+                .assignments(new LinkedList<>(List.of(new Assignment("Salami", "true"), new Assignment("Big", "true"))))
+                .build();
+        ValueVariableOrdering expected = fitted.getHeuristic(requirement);
+        ValueVariableOrdering actual = loaded.getHeuristic(requirement);
+        assertNotNull(actual);
+        assertEquals(expected.getVarOrdering(), actual.getVarOrdering());
+        for (int i = 0; i < expected.getValueOrdering().size(); i++) {
+            assertEquals(expected.getValueOrdering().get(i).getOrdering(), actual.getValueOrdering().get(i).getOrdering());
+        }
+    }
+
+    @Test
+    void testLoadMFChecks(@TempDir Path folder) throws TasteException, IOException {
+        MFVVOHeuristic fitted = createHeuristic(kb.getVariableList());
+        fitted.fit(randomSolutions(20));
+
+        String filename = folder.resolve("pizzas.mf").toString();
+        fitted.saveMF(filename);
+
+        // other variables
+        List<Variable> reversed = new ArrayList<>(kb.getVariableList());
+        Collections.reverse(reversed);
+        assertThrows(MFException.class, () -> createHeuristic(reversed).loadMF(filename));
+
+        // a corrupted factor
+        try (RandomAccessFile file = new RandomAccessFile(filename, "rw")) {
+            file.seek(file.length() - 20);
+            int b = file.read();
+            file.seek(file.length() - 20);
+            file.write(b ^ 0xFF);
+        }
+        createHeuristic(kb.getVariableList()).loadMF(filename); // the checksum is not checked by default
+        MFVVOHeuristic verified = createHeuristic(kb.getVariableList());
+        verified.setVerifyChecksum(true);
+        assertThrows(MFException.class, () -> verified.loadMF(filename));
+
+        // not fitted
+        assertThrows(IllegalStateException.class, () -> createHeuristic(kb.getVariableList()).saveMF(filename));
+    }
+
+    @Test
+    void testApproximateSearch(@TempDir Path folder) throws TasteException, IOException {
+        LSHNeighborSearch.Parameters parameters = LSHNeighborSearch.Parameters.builder().numTables(4).numBits(2).build();
+        MFVVOHeuristic fitted = createHeuristic(kb.getVariableList());
+        fitted.setApproximateSearch(parameters);
+        fitted.fit(randomSolutions(30));
+
+        Requirement requirement = Requirement.requirementBuilder()
+                .assignments(new LinkedList<>(List.of(new Assignment("Ham", "true"))))
+                .build();
+        ValueVariableOrdering expected = fitted.getHeuristic(requirement);
+        assertNotNull(expected);
+
+        String filename = folder.resolve("pizzas.mf").toString();
+        fitted.saveMF(filename);
+        assertTrue(Files.exists(fitted.getIndexFile(filename)));
+
+        MFVVOHeuristic loaded = createHeuristic(kb.getVariableList());
+        loaded.setApproximateSearch(LSHNeighborSearch.Parameters.defaults());
+        loaded.loadMF(filename);
+        assertEquals(parameters, loaded.getApproximateSearch());
+
+        ValueVariableOrdering actual = loaded.getHeuristic(requirement);
+        assertEquals(expected.getVarOrdering(), actual.getVarOrdering());
+
+        // an index of former factors is ignored
+        Path formerIndex = folder.resolve("former.lsh");
+        Files.copy(fitted.getIndexFile(filename), formerIndex);
+        fitted.setNumIterations(fitted.getNumIterations() + 10);
+        fitted.fit(randomSolutions(30));
+        fitted.saveMF(filename);
+        Files.copy(formerIndex, fitted.getIndexFile(filename), StandardCopyOption.REPLACE_EXISTING);
+
+        loaded = createHeuristic(kb.getVariableList());
+        loaded.setApproximateSearch(LSHNeighborSearch.Parameters.defaults());
+        loaded.loadMF(filename);
+        assertEquals(LSHNeighborSearch.Parameters.defaults(), loaded.getApproximateSearch());
+        assertNotNull(loaded.getHeuristic(requirement));
+
+        // the index is deleted if the factors are saved without the approximate search
+        fitted.setApproximateSearch(null);
+        fitted.saveMF(filename);
+        assertFalse(Files.exists(fitted.getIndexFile(filename)));
+    }
+
+    @Test
+    void testFoldIn() {
+        SplittableRandom random = new SplittableRandom(5);
+        double[][] itemFactors = new double[25][6];
+        for (double[] row : itemFactors) {
+            for (int f = 0; f < row.length; f++) {
+                row[f] = random.nextDouble(-1, 1);
+            }
+        }
+        double[] user = random.doubles(6, -1, 1).toArray();
+        MatrixFactorization mf = new MatrixFactorization(new DenseMatrix(new double[3][6]), new DenseMatrix(itemFactors), 0);
+
+        // an exact row over 10 observed items
+        int[] items = {0, 2, 4, 6, 8, 10, 12, 14, 16, 18};
+        double[] values = new double[items.length];
+        for (int j = 0; j < items.length; j++) {
+            for (int f = 0; f < 6; f++) {
+                values[j] += itemFactors[items[j]][f] * user[f];
+            }
+        }
+        assertArrayEquals(user, mf.foldIn(items, values, 1e-9), 1e-6);
+
+        // the regularization shrinks the factors
+        double[] regularized = mf.foldIn(items, values, 10);
+        assertTrue(Arrays.stream(regularized).map(v -> v * v).sum() < Arrays.stream(user).map(v -> v * v).sum());
+
+        assertThrows(IllegalArgumentException.class, () -> mf.foldIn(items, values, 0));
+        assertThrows(IllegalArgumentException.class, () -> mf.foldIn(new int[]{25}, new double[]{1}, 1));
+    }
+
+    @Test
+    void testFoldInHeuristic(@TempDir Path folder) throws TasteException, IOException {
+        MFVVOHeuristic fitted = createHeuristic(kb.getVariableList());
+        fitted.setFoldIn(true);
+        fitted.setApproximateSearch(LSHNeighborSearch.Parameters.builder().numTables(4).numBits(2).build());
+        fitted.fit(randomSolutions(30));
+
+        Requirement requirement = Requirement.requirementBuilder()
+                .assignments(new LinkedList<>(List.of(new Assignment("Salami", "true"), new Assignment("Normal", "false"))))
+                .build();
+        ValueVariableOrdering expected = fitted.getHeuristic(requirement);
+        assertNotNull(expected);
+        assertEquals(kb.getVariableList().size(), expected.getVarOrdering().size());
+
+        String filename = folder.resolve("pizzas.mf").toString();
+        fitted.saveMF(filename);
+        assertTrue(Files.exists(folder.resolve("pizzas.mf.foldin.lsh")));
+        assertFalse(Files.exists(folder.resolve("pizzas.mf.lsh")));
+
+        MFVVOHeuristic loaded = createHeuristic(kb.getVariableList());
+        loaded.setFoldIn(true);
+        loaded.setApproximateSearch(LSHNeighborSearch.Parameters.defaults());
+        loaded.loadMF(filename);
+        assertEquals(fitted.getApproximateSearch(), loaded.getApproximateSearch());
+        assertEquals(expected.getVarOrdering(), loaded.getHeuristic(requirement).getVarOrdering());
+    }
+
+    @Test
+    void testLowMemoryStorage() {
+        SplittableRandom random = new SplittableRandom(9);
+        double[][] userFactors = new double[12][6];
+        double[][] itemFactors = new double[20][6];
+        for (double[][] factors : List.of(userFactors, itemFactors)) {
+            for (double[] row : factors) {
+                for (int f = 0; f < row.length; f++) {
+                    row[f] = random.nextDouble(-1, 1);
+                }
+            }
+        }
+        MatrixFactorization dense = new MatrixFactorization(new DenseMatrix(userFactors), new DenseMatrix(itemFactors), 0);
+        MatrixFactorization lowMemory = new MatrixFactorization(FactorMatrix.of(userFactors, true),
+                FactorMatrix.of(itemFactors, false), 0);
+        lowMemory.setRowCacheSize(2);
+
+        assertEquals(MatrixFactorization.Storage.OFF_HEAP, lowMemory.getStorage());
+        assertEquals(12, lowMemory.getNumUsers());
+        assertEquals(20, lowMemory.getNumItems());
+        assertEquals(6, lowMemory.getNumFeatures());
+        assertThrows(MFException.class, lowMemory::getX_Prime);
+
+        Matrix xPrime = dense.getX_Prime();
+        for (int u = 0; u < 12; u++) {
+            double[] row = lowMemory.getPredictedRow(u);
+            double[] cached = lowMemory.getPredictedRow(u);
+            assertArrayEquals(row, cached);
+            assertArrayEquals(dense.getPredictedRow(u), row, 1e-5);
+            for (int i = 0; i < 20; i++) {
+                assertEquals(xPrime.get(u, i), row[i], 1e-5);
+                assertEquals(xPrime.get(u, i), lowMemory.predict(u, i), 1e-5);
+            }
+            // a copy of the cached row
+            cached[0] = Double.NaN;
+            assertFalse(Double.isNaN(lowMemory.getPredictedRow(u)[0]));
+        }
+    }
+
+    @Test
+    void testLowMemoryHeuristic(@TempDir Path folder) throws TasteException, IOException {
+        MFVVOHeuristic fitted = createHeuristic(kb.getVariableList());
+        fitted.setFactorStorage(MatrixFactorization.Storage.FLOAT);
+        fitted.setRowCacheSize(5);
+        fitted.fit(randomSolutions(30));
+
+        Requirement requirement = Requirement.requirementBuilder()
+                .assignments(new LinkedList<>(List.of(new Assignment("Mozzarella", "true"))))
+                .build();
+        ValueVariableOrdering expected = fitted.getHeuristic(requirement);
+        assertNotNull(expected);
+
+        String filename = folder.resolve("pizzas.mf").toString();
+        fitted.saveMF(filename);
+
+        // the saved factors are exact in single precision
+        MFVVOHeuristic loaded = createHeuristic(kb.getVariableList());
+        loaded.setFactorStorage(MatrixFactorization.Storage.OFF_HEAP);
+        loaded.loadMF(filename);
+        ValueVariableOrdering actual = loaded.getHeuristic(requirement);
+        assertEquals(expected.getVarOrdering(), actual.getVarOrdering());
+        for (int i = 0; i < expected.getValueOrdering().size(); i++) {
+            assertEquals(expected.getValueOrdering().get(i).getOrdering(), actual.getValueOrdering().get(i).getOrdering());
+        }
+
+        // by default, the loaded factors stay in the mapped file
+        MFVVOHeuristic mapped = createHeuristic(kb.getVariableList());
+        assertNull(mapped.getFactorStorage());
+        mapped.loadMF(filename);
+        assertEquals(MatrixFactorization.Storage.MAPPED,
+                MatrixFactorizationFile.read(Path.of(filename)).toMatrixFactorization().getStorage());
+        actual = mapped.getHeuristic(requirement);
+        assertEquals(expected.getVarOrdering(), actual.getVarOrdering());
+        for (int i = 0; i < expected.getValueOrdering().size(); i++) {
+            assertEquals(expected.getValueOrdering().get(i).getOrdering(), actual.getValueOrdering().get(i).getOrdering());
+        }
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * CECore - Core components of a Configuration Environment
+ *
+ * Copyright (c) 2022
+ *
+ * @author: Viet-Man Le (vietman.le@ist.tugraz.at)
+ */
+
+package at.tugraz.ist.ase.heuristics;
+
+import at.tugraz.ist.ase.mf.MatrixFactorization;
+import org.apache.mahout.cf.taste.common.TasteException;
+import org.apache.mahout.cf.taste.impl.common.FastByIDMap;
+import org.apache.mahout.cf.taste.impl.model.GenericDataModel;
+import org.apache.mahout.cf.taste.impl.model.GenericPreference;
+import org.apache.mahout.cf.taste.impl.model.GenericUserPreferenceArray;
+import org.apache.mahout.cf.taste.impl.neighborhood.NearestNUserNeighborhood;
+import org.apache.mahout.cf.taste.impl.similarity.AveragingPreferenceInferrer;
+import org.apache.mahout.cf.taste.impl.similarity.PearsonCorrelationSimilarity;
+import org.apache.mahout.cf.taste.model.DataModel;
+import org.apache.mahout.cf.taste.model.PreferenceArray;
+import org.apache.mahout.math.DenseMatrix;
+import org.apache.mahout.math.Matrix;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PearsonNeighborIndexTest {
+
+    private static Matrix randomMatrix(SplittableRandom random, int rows, int columns) {
+        double[][] values = new double[rows][columns];
+        for (double[] row : values) {
+            for (int c = 0; c < columns; c++) {
+                row[c] = random.nextDouble(-1, 1);
+            }
+        }
+        return new DenseMatrix(values);
+    }
+
+    /**
+     * The Mahout data model of X' with the requirement as user 0, as built by {@link MFVVOHeuristic}.
+     */
+    private static DataModel getDataModel(MatrixFactorization mf, int[] items, double[] values) {
+        FastByIDMap<PreferenceArray> preferences = new FastByIDMap<>();
+
+        List<GenericPreference> requirement = new ArrayList<>();
+        for (int j = 0; j < items.length; j++) {
+            requirement.add(new GenericPreference(0, items[j], (float) values[j]));
+        }
+        preferences.put(0, new GenericUserPreferenceArray(requirement));
+
+        Matrix xPrime = mf.getX_Prime();
+        for (int u = 0; u < xPrime.numRows(); u++) {
+            List<GenericPreference> user = new ArrayList<>();
+            for (int i = 0; i < xPrime.numCols(); i++) {
+                user.add(new GenericPreference(u + 1, i, (float) xPrime.get(u, i)));
+            }
+            preferences.put(u + 1, new GenericUserPreferenceArray(user));
+        }
+        return new GenericDataModel(preferences);
+    }
+
+    @Test
+    void testSameAsMahout() throws TasteException {
+        SplittableRandom random = new SplittableRandom(3);
+        MatrixFactorization mf = new MatrixFactorization(randomMatrix(random, 40, 6), randomMatrix(random, 25, 6), 0);
+        PearsonNeighborIndex index = new PearsonNeighborIndex(mf);
+
+        // one-hot values of two variables
+        int[] items = {2, 3, 4, 10, 11};
+        double[] values = {0, 1, 0, 1, 0};
+
+        DataModel dataModel = getDataModel(mf, items, values);
+        PearsonCorrelationSimilarity similarity = new PearsonCorrelationSimilarity(dataModel);
+        similarity.setPreferenceInferrer(new AveragingPreferenceInferrer(dataModel));
+
+        for (int u = 0; u < 40; u++) {
+            assertEquals(similarity.userSimilarity(0, u + 1), index.similarity(items, values, u), 1e-4);
+        }
+
+        long[] expected = new NearestNUserNeighborhood(5, similarity, dataModel).getUserNeighborhood(0);
+        int[] neighbors = index.neighbors(items, values, 5);
+        assertEquals(Arrays.stream(expected).mapToObj(n -> (int) n - 1).collect(Collectors.toSet()),
+                Arrays.stream(neighbors).boxed().collect(Collectors.toSet()));
+
+        // from the most similar user
+        for (int i = 1; i < neighbors.length; i++) {
+            assertTrue(index.similarity(items, values, neighbors[i - 1]) >= index.similarity(items, values, neighbors[i]));
+        }
+    }
+
+    @Test
+    void testUndefinedSimilarity() {
+        SplittableRandom random = new SplittableRandom(5);
+        MatrixFactorization mf = new MatrixFactorization(randomMatrix(random, 10, 6), randomMatrix(random, 8, 6), 0);
+        PearsonNeighborIndex index = new PearsonNeighborIndex(mf);
+
+        // constant preferences have no variance
+        assertEquals(0, index.neighbors(new int[]{0, 1}, new double[]{1, 1}, 3).length);
+        assertEquals(3, index.neighbors(new int[]{0, 1}, new double[]{1, 0}, 3).length);
+    }
+}
@@ -0,0 +1,55 @@
+/*
+ * CECore - Core components of a Configuration Environment
+ *
+ * Copyright (c) 2022
+ *
+ * @author: Viet-Man Le (vietman.le@ist.tugraz.at)
+ */
+
+package at.tugraz.ist.ase.heuristics;
+
+import at.tugraz.ist.ase.fm.core.AbstractRelationship;
+import at.tugraz.ist.ase.fm.core.CTConstraint;
+import at.tugraz.ist.ase.fm.core.Feature;
+import at.tugraz.ist.ase.fm.core.FeatureModel;
+import at.tugraz.ist.ase.fm.parser.FMParserFactory;
+import at.tugraz.ist.ase.fm.parser.FeatureModelParser;
+import at.tugraz.ist.ase.fm.parser.FeatureModelParserException;
+import at.tugraz.ist.ase.kb.fm.FMKB;
+import lombok.Cleanup;
+
+import java.io.File;
+
+/**
+ * The pizzas feature model shared by the tests of this module, parsed once.
+ * The tests of the ce module use their own fixture, since this module does not see them.
+ */
+public final class PizzasFixture {
+
+    private static FeatureModel<Feature, AbstractRelationship<Feature>, CTConstraint> featureModel = null;
+
+    private PizzasFixture() {
+    }
+
+    public static synchronized FeatureModel<Feature, AbstractRelationship<Feature>, CTConstraint> getFeatureModel() {
+        if (featureModel == null) {
+            File fileFM = new File("src/test/resources/pizzas.xml");
+
+            @Cleanup("dispose")
+            FeatureModelParser<Feature, AbstractRelationship<Feature>, CTConstraint> parser = FMParserFactory.getInstance().getParser(fileFM.getName());
+            try {
+                featureModel = parser.parse(fileFM);
+            } catch (FeatureModelParserException e) {
+                throw new IllegalStateException("Cannot parse " + fileFM, e);
+            }
+        }
+        return featureModel;
+    }
+
+    /**
+     * @return a new KB of the feature model
+     */
+    public static FMKB<Feature, AbstractRelationship<Feature>, CTConstraint> createKB() {
+        return new FMKB<>(getFeatureModel(), true);
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * CECore - Core components of a Configuration Environment
+ *
+ * Copyright (c) 2022
+ *
+ * @author: Viet-Man Le (vietman.le@ist.tugraz.at)
+ */
+
+package at.tugraz.ist.ase.heuristics.neighbor;
+
+import at.tugraz.ist.ase.mf.MFException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LSHNeighborSearchTest {
+
+    private static double[][] randomVectors(SplittableRandom random, int size, int dimension) {
+        double[][] vectors = new double[size][dimension];
+        for (double[] vector : vectors) {
+            for (int d = 0; d < dimension; d++) {
+                vector[d] = random.nextDouble(-1, 1);
+            }
+        }
+        return vectors;
+    }
+
+    private static double recall(INeighborSearchable search, ExactNeighborSearch exact, double[][] queries, int numNeighbors) {
+        int found = 0;
+        for (double[] query : queries) {
+            int[] expected = exact.search(query, numNeighbors);
+            int[] actual = search.search(query, numNeighbors);
+            found += Arrays.stream(actual).filter(i -> Arrays.stream(expected).anyMatch(e -> e == i)).count();
+        }
+        return (double) found / (queries.length * numNeighbors);
+    }
+
+    @Test
+    void testExactSearch() {
+        double[][] vectors = {{1, 0}, {0, 1}, {1, 1}, {0, 0}, {-1, 0}};
+        ExactNeighborSearch search = new ExactNeighborSearch(vectors);
+
+        assertEquals(5, search.size());
+        assertArrayEquals(new int[]{0, 2, 1}, search.search(new double[]{1, 0.1}, 3));
+        // the zero vector is never a neighbor
+        assertEquals(4, search.search(new double[]{1, 0}, 10).length);
+    }
+
+    @Test
+    void testRecall() {
+        SplittableRandom random = new SplittableRandom(7);
+        double[][] vectors = randomVectors(random, 2000, 6);
+        double[][] queries = randomVectors(random, 50, 6);
+        ExactNeighborSearch exact = new ExactNeighborSearch(vectors);
+
+        LSHNeighborSearch coarse = new LSHNeighborSearch(vectors, LSHNeighborSearch.Parameters.builder()
+                .numTables(2).numBits(10).numProbes(0).build());
+        LSHNeighborSearch fine = new LSHNeighborSearch(vectors, LSHNeighborSearch.Parameters.builder()
+                .numTables(12).numBits(8).numProbes(2).build());
+
+        double coarseRecall = recall(coarse, exact, queries, 10);
+        double fineRecall = recall(fine, exact, queries, 10);
+        assertTrue(fineRecall >= coarseRecall);
+        assertTrue(fineRecall >= 0.9, "recall " + fineRecall);
+
+        // one bit per table and all probes visit every vector
+        LSHNeighborSearch all = new LSHNeighborSearch(vectors, LSHNeighborSearch.Parameters.builder()
+                .numTables(1).numBits(1).numProbes(1).build());
+        for (double[] query : queries) {
+            assertArrayEquals(exact.search(query, 10), all.search(query, 10));
+        }
+    }
+
+    @Test
+    void testSaveAndLoad(@TempDir Path dir) throws IOException {
+        SplittableRandom random = new SplittableRandom(11);
+        double[][] vectors = randomVectors(random, 500, 4);
+        LSHNeighborSearch search = new LSHNeighborSearch(vectors, LSHNeighborSearch.Parameters.builder()
+                .numTables(4).numBits(6).seed(5).build());
+
+        Path file = dir.resolve("index.lsh");
+        search.save(file, 42);
+        LSHNeighborSearch loaded = LSHNeighborSearch.load(file, vectors, 42);
+
+        assertEquals(search.getParameters(), loaded.getParameters());
+        for (double[] query : randomVectors(random, 20, 4)) {
+            assertArrayEquals(search.search(query, 5), loaded.search(query, 5));
+        }
+
+        // other vectors
+        assertThrows(MFException.class, () -> LSHNeighborSearch.load(file, randomVectors(random, 499, 4), 42));
+        assertThrows(MFException.class, () -> LSHNeighborSearch.load(file, randomVectors(random, 500, 5), 42));
+        // vectors of another source
+        assertThrows(MFException.class, () -> LSHNeighborSearch.load(file, vectors, 43));
+        assertThrows(MFException.class, () -> LSHNeighborSearch.load(file, vectors));
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ * Core components of a configuration environment
+ *
+ * Copyright (c) 2022
+ *
+ * @author: Viet-Man Le (vietman.le@ist.tugraz.at)
+ */
+
+package at.tugraz.ist.ase.mf;
+
+import lombok.Getter;
+import lombok.NonNull;
+import org.apache.mahout.math.DenseMatrix;
+import org.apache.mahout.math.Matrix;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.FloatBuffer;
+
+/**
+ * A read-only factor matrix, row by row, in single precision on the heap or off-heap,
+ * or a view in double precision over the factors of a mapped {@link MatrixFactorizationFile}.
+ * The single precision factors take half the memory of a double[][], and the off-heap and mapped factors
+ * stay out of the garbage collected heap.
+ */
+public final class FactorMatrix {
+
+    @Getter
+    private final int rowSize;
+    @Getter
+    private final int columnSize;
+    @Getter
+    private final boolean offHeap;
+    /**
+     * true if the matrix is a view over a mapped file, see {@link #view(DoubleBuffer, int, int)}
+     */
+    @Getter
+    private final boolean mapped;
+
+    // the single precision factors, null for a view
+    private final FloatBuffer values;
+    // the double precision factors of a view, null otherwise
+    private final DoubleBuffer doubles;
+
+    private FactorMatrix(int rowSize, int columnSize, boolean offHeap) {
+        long size = (long) rowSize * columnSize;
+        if (size * Float.BYTES > Integer.MAX_VALUE) {
+            throw new MFException("The factor matrix " + rowSize + " x " + columnSize + " is too large!");
+        }
+
+        this.rowSize = rowSize;
+        this.columnSize = columnSize;
+        this.offHeap = offHeap;
+        this.mapped = false;
+        this.values = offHeap
+                ? ByteBuffer.allocateDirect((int) size * Float.BYTES).order(ByteOrder.nativeOrder()).asFloatBuffer()
+                : FloatBuffer.allocate((int) size);
+        this.doubles = null;
+    }
+
+    private FactorMatrix(DoubleBuffer doubles, int rowSize, int columnSize) {
+        this.rowSize = rowSize;
+        this.columnSize = columnSize;
+        this.offHeap = doubles.isDirect();
+        this.mapped = true;
+        this.values = null;
+        this.doubles = doubles;
+    }
+
+    public static FactorMatrix of(@NonNull double[][] values, boolean offHeap) {
+        int columnSize = values.length > 0 ? values[0].length : 0;
+        FactorMatrix matrix = new FactorMatrix(values.length, columnSize, offHeap);
+        for (int row = 0; row < values.length; row++) {
+            if (values[row].length != columnSize) {
+                throw new MFException("The rows of a factor matrix must have the same length!");
+            }
+            for (int column = 0; column < columnSize; column++) {
+                matrix.values.put(row * columnSize + column, (float) values[row][column]);
+            }
+        }
+        return matrix;
+    }
+
+    public static FactorMatrix of(@NonNull Matrix values, boolean offHeap) {
+        FactorMatrix matrix = new FactorMatrix(values.rowSize(), values.columnSize(), offHeap);
+        for (int row = 0; row < values.rowSize(); row++) {
+            for (int column = 0; column < values.columnSize(); column++) {
+                matrix.values.put(row * matrix.columnSize + column, (float) values.getQuick(row, column));
+            }
+        }
+        return matrix;
+    }
+
+    /**
+     * Reads rowSize x columnSize doubles, row by row, e.g., from a mapped {@link MatrixFactorizationFile}.
+     */
+    static FactorMatrix of(@NonNull DoubleBuffer doubles, int rowSize, int columnSize, boolean offHeap) {
+        FactorMatrix matrix = new FactorMatrix(rowSize, columnSize, offHeap);
+        for (int i = 0; i < rowSize * columnSize; i++) {
+            matrix.values.put(i, (float) doubles.get());
+        }
+        return matrix;
+    }
+
+    /**
+     * Wraps rowSize x columnSize doubles, row by row, without copying them, e.g., the factors of a mapped
+     * {@link MatrixFactorizationFile}. The doubles must not change while the matrix is used.
+     */
+    static FactorMatrix view(@NonNull DoubleBuffer doubles, int rowSize, int columnSize) {
+        long size = (long) rowSize * columnSize;
+        if (size > doubles.remaining()) {
+            throw new MFException("The factor matrix " + rowSize + " x " + columnSize + " exceeds the buffer!");
+        }
+        DoubleBuffer view = doubles.slice().limit((int) size).asReadOnlyBuffer();
+        return new FactorMatrix(view, rowSize, columnSize);
+    }
+
+    public double get(int row, int column) {
+        return value(row * columnSize + column);
+    }
+
+    /**
+     * @return the dot product of a row and a vector of length columnSize
+     */
+    public double dot(int row, @NonNull double[] vector) {
+        int offset = row * columnSize;
+        double dot = 0;
+        for (int column = 0; column < columnSize; column++) {
+            dot += value(offset + column) * vector[column];
+        }
+        return dot;
+    }
+
+    /**
+     * @return a copy of a row
+     */
+    public double[] getRow(int row) {
+        double[] result = new double[columnSize];
+        int offset = row * columnSize;
+        for (int column = 0; column < columnSize; column++) {
+            result[column] = value(offset + column);
+        }
+        return result;
+    }
+
+    /**
+     * @return a dense copy in double precision
+     */
+    public Matrix toMatrix() {
+        double[][] result = new double[rowSize][];
+        for (int row = 0; row < rowSize; row++) {
+            result[row] = getRow(row);
+        }
+        return new DenseMatrix(result, true);
+    }
+
+    /**
+     * @return the bytes of the factors
+     */
+    public long sizeInBytes() {
+        return (long) rowSize * columnSize * (mapped ? Double.BYTES : Float.BYTES);
+    }
+
+    private double value(int index) {
+        return mapped ? doubles.get(index) : values.get(index);
+    }
+}
@@ -10,7 +10,7 @@ package at.tugraz.ist.ase.mf;
 
 import at.tugraz.ist.ase.common.LoggerUtils;
 import lombok.Getter;
-
+import lombok.NonNull;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.mahout.cf.taste.common.TasteException;
 import org.apache.mahout.cf.taste.impl.recommender.svd.Factorization;
@@ -20,6 +20,9 @@ import org.apache.mahout.cf.taste.model.DataModel;
 import org.apache.mahout.math.DenseMatrix;
 import org.apache.mahout.math.Matrix;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 import static at.tugraz.ist.ase.eval.PerformanceEvaluator.start;
 import static at.tugraz.ist.ase.eval.PerformanceEvaluator.stop;
 
@@ -43,36 +46,136 @@ public class MatrixFactorization {
     // for evaluation
     public static final String TIMER_SVD = "Timer for SVD";
 
+    /**
+     * How the factors are kept in memory.
+     */
+    public enum Storage {
+        /**
+         * IFMatrix and UFMatrix in double precision, and X' is computed on demand and kept
+         */
+        DOUBLE,
+        /**
+         * {@link FactorMatrix} in single precision on the heap, and X' is never kept
+         */
+        FLOAT,
+        /**
+         * {@link FactorMatrix} in single precision off-heap, and X' is never kept
+         */
+        OFF_HEAP,
+        /**
+         * {@link FactorMatrix} views in double precision over a mapped {@link MatrixFactorizationFile},
+         * the factors are not copied, and X' is never kept
+         */
+        MAPPED
+    }
+
     private final DataModel dataModel;
 
+    @Getter
+    private final Storage storage;
+
     // TODO: remove IF, UF, IFMatrix, UFMatrix, X_Prime
     @Getter // remove after test
-    private double[][] IF; // item feature matrix
+    private double[][] IF; // item feature matrix, shared with IFMatrix
 
     @Getter // remove after test
-    private double[][] UF; // user feature matrix
+    private double[][] UF; // user feature matrix, shared with UFMatrix
 
-    @Getter
     private Matrix IFMatrix = null;
 
-    @Getter
     private Matrix UFMatrix = null;
 
-    @Getter
+    // computed on the first use, see getX_Prime()
     private Matrix X_Prime = null;
 
+    // the factors with Storage.FLOAT, Storage.OFF_HEAP and Storage.MAPPED
+    private FactorMatrix itemFactors = null;
+    private FactorMatrix userFactors = null;
+
+    // the last rows of X' computed by getPredictedRow(), null - no cache
+    @Getter
+    private int rowCacheSize = 0;
+    private Map<Integer, double[]> rowCache = null;
+
+    /**
+     * the number of iterations of the last factorization, 0 if the factors were given
+     */
+    @Getter
+    private int numIterations = 0;
+
     ///////////// Default Settings /////////////
     int minNumFeatures = 6;  // mxk, kxn -> k value
     int minNumIterations = 5;
     ////////////////////////////////////////////
 
     public MatrixFactorization(DataModel dataModel) {
+        this(dataModel, Storage.DOUBLE);
+    }
+
+    /**
+     * @param storage how the factors computed by svd() are kept, e.g., {@link Storage#FLOAT}
+     *                for a large number of users and items, but not {@link Storage#MAPPED}
+     */
+    public MatrixFactorization(DataModel dataModel, @NonNull Storage storage) {
+        if (storage == Storage.MAPPED) {
+            throw new MFException("The factors computed by svd() cannot be mapped, save them in a MatrixFactorizationFile first!");
+        }
+
         this.dataModel = dataModel;
+        this.storage = storage;
+    }
+
+    /**
+     * Creates a factorization from given factors, e.g., loaded by {@link MatrixFactorizationFile}.
+     * The factorization cannot be recomputed by svd().
+     * @param UFMatrix the user feature matrix, one row per user
+     * @param IFMatrix the item feature matrix, one row per item
+     * @param numIterations the number of iterations used to compute the factors
+     */
+    public MatrixFactorization(@NonNull Matrix UFMatrix, @NonNull Matrix IFMatrix, int numIterations) {
+        if (UFMatrix.columnSize() != IFMatrix.columnSize()) {
+            throw new MFException("The user and item feature matrices have different numbers of features!");
+        }
+
+        this.dataModel = null;
+        this.storage = Storage.DOUBLE;
+        this.UFMatrix = UFMatrix;
+        this.IFMatrix = IFMatrix;
+        this.numIterations = numIterations;
+    }
+
+    /**
+     * Creates a low-memory factorization from given factors, e.g., loaded by {@link MatrixFactorizationFile}.
+     * The factorization cannot be recomputed by svd().
+     * @param userFactors the user feature matrix, one row per user
+     * @param itemFactors the item feature matrix, one row per item
+     * @param numIterations the number of iterations used to compute the factors
+     */
+    public MatrixFactorization(@NonNull FactorMatrix userFactors, @NonNull FactorMatrix itemFactors, int numIterations) {
+        if (userFactors.getColumnSize() != itemFactors.getColumnSize()) {
+            throw new MFException("The user and item feature matrices have different numbers of features!");
+        }
+
+        this.dataModel = null;
+        if (userFactors.isMapped()) {
+            this.storage = Storage.MAPPED;
+        } else {
+            this.storage = userFactors.isOffHeap() ? Storage.OFF_HEAP : Storage.FLOAT;
+        }
+        this.userFactors = userFactors;
+        this.itemFactors = itemFactors;
+        this.numIterations = numIterations;
+    }
+
+    public boolean isFactorized() {
+        return UFMatrix != null || userFactors != null;
     }
 
     public int getNumUsers() {
         if (UFMatrix != null) {
             return UFMatrix.rowSize();
+        } else if (userFactors != null) {
+            return userFactors.getRowSize();
         }
         return 0;
     }
@@ -80,11 +183,256 @@ public class MatrixFactorization {
     public int getNumItems() {
         if (IFMatrix != null) {
             return IFMatrix.rowSize();
+        } else if (itemFactors != null) {
+            return itemFactors.getRowSize();
+        }
+        return 0;
+    }
+
+    public int getNumFeatures() {
+        if (IFMatrix != null) {
+            return IFMatrix.columnSize();
+        } else if (itemFactors != null) {
+            return itemFactors.getColumnSize();
         }
         return 0;
     }
 
+    /**
+     * @return the item feature matrix, a dense copy with {@link Storage#FLOAT}, {@link Storage#OFF_HEAP} and {@link Storage#MAPPED},
+     * null if the matrix is not factorized yet
+     */
+    public Matrix getIFMatrix() {
+        if (itemFactors != null) {
+            return itemFactors.toMatrix();
+        }
+        return IFMatrix;
+    }
+
+    /**
+     * @return the user feature matrix, a dense copy with {@link Storage#FLOAT}, {@link Storage#OFF_HEAP} and {@link Storage#MAPPED},
+     * null if the matrix is not factorized yet
+     */
+    public Matrix getUFMatrix() {
+        if (userFactors != null) {
+            return userFactors.toMatrix();
+        }
+        return UFMatrix;
+    }
+
+    public double getUserFactor(int user, int feature) {
+        checkFactorized();
+        return userFactors != null ? userFactors.get(user, feature) : UFMatrix.getQuick(user, feature);
+    }
+
+    public double getItemFactor(int item, int feature) {
+        checkFactorized();
+        return itemFactors != null ? itemFactors.get(item, feature) : IFMatrix.getQuick(item, feature);
+    }
+
+    /**
+     * @return a copy of the factors of a user
+     */
+    public double[] getUserFactors(int user) {
+        checkFactorized();
+        if (userFactors != null) {
+            return userFactors.getRow(user);
+        }
+
+        double[] factors = new double[getNumFeatures()];
+        for (int f = 0; f < factors.length; f++) {
+            factors[f] = UFMatrix.getQuick(user, f);
+        }
+        return factors;
+    }
+
+    /**
+     * Returns the dense matrix X' = UF * IF^T, which is computed on the first call.
+     * With the other storages, X' is never kept, see {@link #getPredictedRow(int)}.
+     * @return the dense matrix, null if the matrix is not factorized yet
+     */
+    public synchronized Matrix getX_Prime() {
+        if (storage != Storage.DOUBLE) {
+            throw new MFException("X' is not kept with the storage " + storage + ", use getPredictedRow() instead!");
+        }
+        if (X_Prime == null && UFMatrix != null) {
+            X_Prime = UFMatrix.times(IFMatrix.transpose());
+        }
+        return X_Prime;
+    }
+
+    /**
+     * @return the entry of X' for a user and an item, computed from the factors
+     */
+    public double predict(int user, int item) {
+        checkFactorized();
+        if (userFactors != null) {
+            return itemFactors.dot(item, userFactors.getRow(user));
+        }
+
+        double value = 0;
+        for (int f = 0; f < getNumFeatures(); f++) {
+            value += UFMatrix.getQuick(user, f) * IFMatrix.getQuick(item, f);
+        }
+        return value;
+    }
+
+    /**
+     * Computes a row of X' from the factors, in O(n * k) for n items and k features.
+     * The last rowCacheSize rows are cached, see {@link #setRowCacheSize(int)}.
+     * With {@link Storage#DOUBLE}, the row is read from X', see {@link #getX_Prime()}.
+     * @return a copy of the row of X' of a user
+     */
+    public double[] getPredictedRow(int user) {
+        checkFactorized();
+        if (storage == Storage.DOUBLE) {
+            Matrix xPrime = getX_Prime();
+            double[] row = new double[getNumItems()];
+            for (int item = 0; item < row.length; item++) {
+                row[item] = xPrime.getQuick(user, item);
+            }
+            return row;
+        }
+
+        synchronized (this) {
+            if (rowCache != null) {
+                double[] row = rowCache.get(user);
+                if (row != null) {
+                    return row.clone();
+                }
+            }
+        }
+
+        double[] row = predictItems(getUserFactors(user));
+
+        synchronized (this) {
+            if (rowCache != null) {
+                rowCache.put(user, row.clone());
+            }
+        }
+        return row;
+    }
+
+    /**
+     * @return the predicted values of all items for the factors u of a user, i.e., IF * u
+     */
+    public double[] predictItems(@NonNull double[] factors) {
+        checkFactorized();
+        if (factors.length != getNumFeatures()) {
+            throw new IllegalArgumentException("The user factors must have " + getNumFeatures() + " features!");
+        }
+
+        double[] row = new double[getNumItems()];
+        for (int item = 0; item < row.length; item++) {
+            if (itemFactors != null) {
+                row[item] = itemFactors.dot(item, factors);
+            } else {
+                double value = 0;
+                for (int f = 0; f < factors.length; f++) {
+                    value += IFMatrix.getQuick(item, f) * factors[f];
+                }
+                row[item] = value;
+            }
+        }
+        return row;
+    }
+
+    /**
+     * Sets the number of rows of X' cached by {@link #getPredictedRow(int)}, the least recently used rows are evicted.
+     * Not used with {@link Storage#DOUBLE}, which keeps the whole X'.
+     * @param rowCacheSize the maximum number of cached rows, 0 - no cache
+     */
+    public synchronized void setRowCacheSize(int rowCacheSize) {
+        if (rowCacheSize < 0) {
+            throw new IllegalArgumentException("rowCacheSize must not be negative!");
+        }
+
+        this.rowCacheSize = rowCacheSize;
+        this.rowCache = rowCacheSize == 0 ? null : new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, double[]> eldest) {
+                return size() > rowCacheSize;
+            }
+        };
+    }
+
+    /**
+     * Folds a partial row of X into the latent space, i.e., finds the user factors u minimizing
+     * ||IF_O * u - x_O||^2 + lambda * ||u||^2 over the observed items O only:
+     * u = (IF_O^T * IF_O + lambda * I)^-1 * IF_O^T * x_O.
+     * The cost is O(|O| * k^2 + k^3) for k features, independent of the number of users and items.
+     * @param items the observed items
+     * @param values the values of the observed items
+     * @param lambda the regularization, positive
+     * @return the user factors of the row
+     */
+    public double[] foldIn(@NonNull int[] items, @NonNull double[] values, double lambda) {
+        if (items.length != values.length) {
+            throw new IllegalArgumentException("Each item must have a value!");
+        }
+        if (!(lambda > 0)) {
+            throw new IllegalArgumentException("lambda must be positive!");
+        }
+        checkFactorized();
+
+        int k = getNumFeatures();
+        double[] a = new double[k * k]; // IF_O^T * IF_O + lambda * I
+        double[] b = new double[k];     // IF_O^T * x_O
+        double[] row = new double[k];
+        for (int j = 0; j < items.length; j++) {
+            if (items[j] < 0 || items[j] >= getNumItems()) {
+                throw new IllegalArgumentException("Item " + items[j] + " is not in the factorization!");
+            }
+
+            for (int f = 0; f < k; f++) {
+                row[f] = getItemFactor(items[j], f);
+            }
+            for (int f = 0; f < k; f++) {
+                b[f] += row[f] * values[j];
+                for (int h = 0; h <= f; h++) {
+                    a[f * k + h] += row[f] * row[h];
+                }
+            }
+        }
+        for (int f = 0; f < k; f++) {
+            a[f * k + f] += lambda;
+        }
+
+        // Cholesky factorization A = L * L^T in the lower triangle, A is positive definite
+        for (int f = 0; f < k; f++) {
+            for (int h = 0; h <= f; h++) {
+                double value = a[f * k + h];
+                for (int p = 0; p < h; p++) {
+                    value -= a[f * k + p] * a[h * k + p];
+                }
+                a[f * k + h] = f == h ? Math.sqrt(value) : value / a[h * k + h];
+            }
+        }
+
+        // L * y = b, then L^T * u = y
+        double[] u = new double[k];
+        for (int f = 0; f < k; f++) {
+            double value = b[f];
+            for (int h = 0; h < f; h++) {
+                value -= a[f * k + h] * u[h];
+            }
+            u[f] = value / a[f * k + f];
+        }
+        for (int f = k - 1; f >= 0; f--) {
+            double value = u[f];
+            for (int h = f + 1; h < k; h++) {
+                value -= a[h * k + f] * u[h];
+            }
+            u[f] = value / a[f * k + f];
+        }
+        return u;
+    }
+
     public void svd(int numFeatures, int numIterations) throws TasteException {
+        if (dataModel == null) {
+            throw new MFException("The factorization has no data model!");
+        }
+
         log.debug("{}Factorizing...", LoggerUtils.tab());
         numFeatures = Math.max(numFeatures, minNumFeatures);
         numIterations = Math.max(numIterations, minNumIterations);
@@ -95,16 +443,36 @@ public class MatrixFactorization {
 
         Factorization facts = svdFactorizer.factorize();
 
-        IF = facts.allItemFeatures();
-        UF = facts.allUserFeatures();
+        if (storage == Storage.DOUBLE) {
+            IF = facts.allItemFeatures();
+            UF = facts.allUserFeatures();
 
-        // gets the dense matrix
-        IFMatrix = new DenseMatrix(this.IF);
-        UFMatrix = new DenseMatrix(this.UF);
+            // gets the dense matrix, sharing the arrays
+            IFMatrix = new DenseMatrix(this.IF, true);
+            UFMatrix = new DenseMatrix(this.UF, true);
+        } else {
+            boolean offHeap = storage == Storage.OFF_HEAP;
+            itemFactors = FactorMatrix.of(facts.allItemFeatures(), offHeap);
+            userFactors = FactorMatrix.of(facts.allUserFeatures(), offHeap);
+            log.debug("{}Kept the factors in {} bytes [storage={}]", LoggerUtils.tab(),
+                    itemFactors.sizeInBytes() + userFactors.sizeInBytes(), storage);
+        }
+        this.numIterations = numIterations;
 
-        this.X_Prime = UFMatrix.times(IFMatrix.transpose()); // X' = UF * IF
+        synchronized (this) {
+            this.X_Prime = null; // X' = UF * IF, computed by getX_Prime()
+            if (rowCache != null) {
+                rowCache.clear();
+            }
+        }
 
         stop(TIMER_SVD);
         log.debug("{}Factorized...", LoggerUtils.tab());
     }
+
+    private void checkFactorized() {
+        if (!isFactorized()) {
+            throw new MFException("The matrix is not factorized yet!");
+        }
+    }
 }
@@ -0,0 +1,307 @@
+/*
+ * Core components of a configuration environment
+ *
+ * Copyright (c) 2022
+ *
+ * @author: Viet-Man Le (vietman.le@ist.tugraz.at)
+ */
+
+package at.tugraz.ist.ase.mf;
+
+import at.tugraz.ist.ase.common.LoggerUtils;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.mahout.math.Matrix;
+
+import java.io.*;
+import java.nio.DoubleBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * A binary file of the factors of a {@link MatrixFactorization}, loaded by memory mapping.
+ * <p>
+ * Layout (big-endian):
+ * <pre>
+ * int     magic "CEMF"
+ * int     version
+ * int     numUsers, numItems, numFeatures, numIterations
+ * int     length of the metadata
+ * byte[]  metadata, e.g., the hyperparameters and the variables of the heuristic, padded to 8 bytes
+ * double  UF, numUsers x numFeatures, row by row
+ * double  IF, numItems x numFeatures, row by row
+ * long    CRC32 of all previous bytes
+ * </pre>
+ * The file is written to a temporary file and then moved, so that readers never see a partial file.
+ * The file is only read, hence several JVMs can map the same file.
+ * <p>
+ * Reading checks the header and the size of the file, but not the checksum, which would touch every page
+ * of the file. The checksum is checked on request, see {@link #read(Path, boolean)} and {@link #verifyChecksum()}.
+ */
+@Slf4j
+public final class MatrixFactorizationFile {
+
+    public static final int MAGIC = 0x43454D46; // "CEMF"
+    public static final int VERSION = 1;
+
+    private static final int HEADER_SIZE = 7 * Integer.BYTES;
+
+    @Getter
+    private final int version;
+    @Getter
+    private final int numUsers;
+    @Getter
+    private final int numItems;
+    @Getter
+    private final int numFeatures;
+    @Getter
+    private final int numIterations;
+
+    private final Path path;
+    private final byte[] metadata;
+    private final MappedByteBuffer buffer;
+    private final int factorsOffset;
+
+    private MatrixFactorizationFile(Path path, int version, int numUsers, int numItems, int numFeatures, int numIterations,
+                                    byte[] metadata, MappedByteBuffer buffer, int factorsOffset) {
+        this.path = path;
+        this.version = version;
+        this.numUsers = numUsers;
+        this.numItems = numItems;
+        this.numFeatures = numFeatures;
+        this.numIterations = numIterations;
+        this.metadata = metadata;
+        this.buffer = buffer;
+        this.factorsOffset = factorsOffset;
+    }
+
+    /**
+     * @return a copy of the metadata
+     */
+    public byte[] getMetadata() {
+        return metadata.clone();
+    }
+
+    /**
+     * @return a stream over the metadata
+     */
+    public DataInputStream getMetadataInput() {
+        return new DataInputStream(new ByteArrayInputStream(metadata));
+    }
+
+    /**
+     * Writes the factors of a factorization.
+     * @param path the file
+     * @param mf a factorized {@link MatrixFactorization}
+     * @param metadata the metadata, e.g., the hyperparameters and the variables of the heuristic
+     * @return the checksum of the file, see {@link #getChecksum()}
+     */
+    public static long write(@NonNull Path path, @NonNull MatrixFactorization mf, @NonNull byte[] metadata) throws IOException {
+        if (!mf.isFactorized()) {
+            throw new MFException("The matrix is not factorized yet!");
+        }
+
+        int numUsers = mf.getNumUsers();
+        int numItems = mf.getNumItems();
+        int numFeatures = mf.getNumFeatures();
+
+        Path absolutePath = path.toAbsolutePath();
+        Path tmp = Files.createTempFile(absolutePath.getParent(), absolutePath.getFileName().toString(), ".tmp");
+        long checksum;
+        try {
+            CRC32 crc = new CRC32();
+            try (FileOutputStream fos = new FileOutputStream(tmp.toFile());
+                 DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new CheckedOutputStream(fos, crc)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(numUsers);
+                out.writeInt(numItems);
+                out.writeInt(numFeatures);
+                out.writeInt(mf.getNumIterations());
+                out.writeInt(metadata.length);
+                out.write(metadata);
+                out.write(new byte[padding(HEADER_SIZE + metadata.length)]);
+
+                for (int user = 0; user < numUsers; user++) {
+                    for (int f = 0; f < numFeatures; f++) {
+                        out.writeDouble(mf.getUserFactor(user, f));
+                    }
+                }
+                for (int item = 0; item < numItems; item++) {
+                    for (int f = 0; f < numFeatures; f++) {
+                        out.writeDouble(mf.getItemFactor(item, f));
+                    }
+                }
+                out.flush();
+
+                // the checksum itself is not checked
+                checksum = crc.getValue();
+                new DataOutputStream(fos).writeLong(checksum);
+                fos.getFD().sync();
+            }
+
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+
+        log.debug("{}Saved the factorization to {} [users={}, items={}, features={}]", LoggerUtils.tab(),
+                path, numUsers, numItems, numFeatures);
+        return checksum;
+    }
+
+    /**
+     * Maps a file written by {@link #write}, and checks its format and its size, but not its checksum.
+     * @throws MFException if the file is not a valid factorization file
+     */
+    public static MatrixFactorizationFile read(@NonNull Path path) throws IOException {
+        return read(path, false);
+    }
+
+    /**
+     * Maps a file written by {@link #write}, and checks its format, its size, and optionally its checksum.
+     * @param verifyChecksum true - checks the checksum of the whole file, see {@link #verifyChecksum()}
+     * @throws MFException if the file is not a valid factorization file
+     */
+    public static MatrixFactorizationFile read(@NonNull Path path, boolean verifyChecksum) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new MFException("The factorization file " + path + " is too large!");
+            }
+            if (size < HEADER_SIZE + Long.BYTES) {
+                throw new MFException("The factorization file " + path + " is truncated!");
+            }
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size); // stays valid after closing the channel
+        }
+
+        int size = buffer.capacity();
+        if (buffer.getInt(0) != MAGIC) {
+            throw new MFException(path + " is not a factorization file!");
+        }
+        int version = buffer.getInt(4);
+        if (version != VERSION) {
+            throw new MFException("Unsupported version " + version + " of the factorization file " + path + "!");
+        }
+
+        int numUsers = buffer.getInt(8);
+        int numItems = buffer.getInt(12);
+        int numFeatures = buffer.getInt(16);
+        int numIterations = buffer.getInt(20);
+        int metadataLength = buffer.getInt(24);
+        if (numUsers < 0 || numItems < 0 || numFeatures < 0 || metadataLength < 0) {
+            throw new MFException("The header of the factorization file " + path + " is corrupted!");
+        }
+
+        long factorsOffset = HEADER_SIZE + (long) metadataLength + padding(HEADER_SIZE + metadataLength);
+        long expectedSize = factorsOffset + (long) Double.BYTES * numFeatures * ((long) numUsers + numItems) + Long.BYTES;
+        if (expectedSize != size) {
+            throw new MFException("The factorization file " + path + " has " + size + " bytes, expected " + expectedSize + "!");
+        }
+
+        byte[] metadata = new byte[metadataLength];
+        buffer.get(HEADER_SIZE, metadata);
+
+        MatrixFactorizationFile file = new MatrixFactorizationFile(path, version, numUsers, numItems, numFeatures,
+                numIterations, metadata, buffer, (int) factorsOffset);
+        if (verifyChecksum) {
+            file.verifyChecksum();
+        }
+        return file;
+    }
+
+    /**
+     * @return the checksum stored at the end of the file
+     */
+    public long getChecksum() {
+        return buffer.getLong(buffer.capacity() - Long.BYTES);
+    }
+
+    /**
+     * Computes the checksum of the whole file, and compares it to the stored checksum.
+     * @throws MFException if the checksums do not match
+     */
+    public void verifyChecksum() {
+        CRC32 crc = new CRC32();
+        crc.update(buffer.duplicate().position(0).limit(buffer.capacity() - Long.BYTES));
+        if (crc.getValue() != getChecksum()) {
+            throw new MFException("The checksum of the factorization file " + path + " does not match!");
+        }
+    }
+
+    /**
+     * @return a copy of the user feature matrix, one row per user
+     */
+    public Matrix getUFMatrix() {
+        return getUserFactors().toMatrix();
+    }
+
+    /**
+     * @return a copy of the item feature matrix, one row per item
+     */
+    public Matrix getIFMatrix() {
+        return getItemFactors().toMatrix();
+    }
+
+    /**
+     * @return a view over the user factors in the mapped file, one row per user
+     */
+    public FactorMatrix getUserFactors() {
+        return FactorMatrix.view(getDoubles(factorsOffset), numUsers, numFeatures);
+    }
+
+    /**
+     * @return a view over the item factors in the mapped file, one row per item
+     */
+    public FactorMatrix getItemFactors() {
+        return FactorMatrix.view(getDoubles(itemFactorsOffset()), numItems, numFeatures);
+    }
+
+    /**
+     * @return a {@link MatrixFactorization} over the factors in the mapped file, see {@link MatrixFactorization.Storage#MAPPED}
+     */
+    public MatrixFactorization toMatrixFactorization() {
+        return toMatrixFactorization(MatrixFactorization.Storage.MAPPED);
+    }
+
+    /**
+     * @param storage how the factors are kept, with {@link MatrixFactorization.Storage#MAPPED} the factors
+     *                stay in the mapped file, with {@link MatrixFactorization.Storage#FLOAT}
+     *                and {@link MatrixFactorization.Storage#OFF_HEAP} they are read into {@link FactorMatrix}
+     *                without double precision copies, and with {@link MatrixFactorization.Storage#DOUBLE}
+     *                they are copied into dense matrices
+     * @return a {@link MatrixFactorization} with the factors of the file
+     */
+    public MatrixFactorization toMatrixFactorization(@NonNull MatrixFactorization.Storage storage) {
+        return switch (storage) {
+            case DOUBLE -> new MatrixFactorization(getUFMatrix(), getIFMatrix(), numIterations);
+            case MAPPED -> new MatrixFactorization(getUserFactors(), getItemFactors(), numIterations);
+            case FLOAT, OFF_HEAP -> {
+                boolean offHeap = storage == MatrixFactorization.Storage.OFF_HEAP;
+                FactorMatrix userFactors = FactorMatrix.of(getDoubles(factorsOffset), numUsers, numFeatures, offHeap);
+                FactorMatrix itemFactors = FactorMatrix.of(getDoubles(itemFactorsOffset()), numItems, numFeatures, offHeap);
+                yield new MatrixFactorization(userFactors, itemFactors, numIterations);
+            }
+        };
+    }
+
+    private int itemFactorsOffset() {
+        return factorsOffset + Double.BYTES * numUsers * numFeatures;
+    }
+
+    private DoubleBuffer getDoubles(int offset) {
+        return buffer.duplicate().position(offset).slice().asDoubleBuffer();
+    }
+
+    private static int padding(long length) {
+        return (int) ((Double.BYTES - length % Double.BYTES) % Double.BYTES);
+    }
+}